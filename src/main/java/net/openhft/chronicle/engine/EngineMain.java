@@ -49,6 +49,7 @@ public class EngineMain {
         addClass(InMemoryMapCfg.class);
         addClass(FilePerKeyMapCfg.class);
         addClass(ChronicleMapCfg.class);
+        addClass(QueueCfg.class);
         addClass(MonitorCfg.class);
 
         String name = args.length > 0 ? args[0] : "engine.yaml";
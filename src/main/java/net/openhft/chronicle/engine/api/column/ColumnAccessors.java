@@ -0,0 +1,212 @@
+/*
+ * Copyright 2016 higherfrequencytrading.com
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package net.openhft.chronicle.engine.api.column;
+
+import net.openhft.chronicle.core.Jvm;
+import net.openhft.chronicle.wire.FieldInfo;
+import net.openhft.chronicle.wire.Wires;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The fields of a value class shown as columns, resolved once per class so rows can be rendered,
+ * sorted and filtered without looking up fields for each one. Integral and floating point fields
+ * can be read without boxing.
+ */
+public class ColumnAccessors {
+
+    private static final ClassValue<ColumnAccessors> WIRE_FIELDS = new ClassValue<ColumnAccessors>() {
+        @Override
+        protected ColumnAccessors computeValue(Class<?> type) {
+            final List<Field> fields = new ArrayList<>();
+            for (FieldInfo info : Wires.fieldInfos(type)) {
+                final Field field = field(type, info.name());
+                if (field != null)
+                    fields.add(field);
+            }
+            return new ColumnAccessors(fields);
+        }
+    };
+
+    private static final ClassValue<ColumnAccessors> DECLARED_FIELDS = new ClassValue<ColumnAccessors>() {
+        @Override
+        protected ColumnAccessors computeValue(Class<?> type) {
+            final List<Field> fields = new ArrayList<>();
+            for (Field field : type.getDeclaredFields())
+                fields.add(field);
+            return new ColumnAccessors(fields);
+        }
+    };
+
+    private enum Kind {OBJECT, LONG, DOUBLE}
+
+    private final String[] names;
+    private final Field[] fields;
+    private final Kind[] kinds;
+    private final Map<String, Integer> indexes = new HashMap<>();
+
+    private ColumnAccessors(@NotNull List<Field> fields) {
+        final int size = fields.size();
+        this.names = new String[size];
+        this.fields = new Field[size];
+        this.kinds = new Kind[size];
+        for (int i = 0; i < size; i++) {
+            final Field field = fields.get(i);
+            field.setAccessible(true);
+            this.fields[i] = field;
+            names[i] = field.getName();
+            kinds[i] = kind(field.getType());
+            indexes.putIfAbsent(names[i], i);
+        }
+    }
+
+    /**
+     * @return the fields of this type which are written to a wire, as {@link Wires#fieldInfos}.
+     */
+    @NotNull
+    public static ColumnAccessors wireFields(@NotNull Class<?> type) {
+        return WIRE_FIELDS.get(type);
+    }
+
+    /**
+     * @return the fields declared by this type.
+     */
+    @NotNull
+    public static ColumnAccessors declaredFields(@NotNull Class<?> type) {
+        return DECLARED_FIELDS.get(type);
+    }
+
+    @Nullable
+    private static Field field(@NotNull Class<?> type, @NotNull String name) {
+        for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+            try {
+                final Field field = c.getDeclaredField(name);
+                if (!Modifier.isStatic(field.getModifiers()))
+                    return field;
+            } catch (NoSuchFieldException ignored) {
+                // try the super class.
+            }
+        }
+        return null;
+    }
+
+    @NotNull
+    private static Kind kind(@NotNull Class<?> type) {
+        if (type == long.class || type == int.class || type == short.class || type == byte.class)
+            return Kind.LONG;
+        if (type == double.class || type == float.class)
+            return Kind.DOUBLE;
+        return Kind.OBJECT;
+    }
+
+    public int size() {
+        return names.length;
+    }
+
+    @NotNull
+    public String name(int column) {
+        return names[column];
+    }
+
+    /**
+     * @return the index of this column, or -1 if there isn't one.
+     */
+    public int indexOf(@NotNull String name) {
+        final Integer index = indexes.get(name);
+        return index == null ? -1 : index;
+    }
+
+    @Nullable
+    public Object get(int column, @NotNull Object value) {
+        try {
+            return fields[column].get(value);
+        } catch (IllegalAccessException e) {
+            throw Jvm.rethrow(e);
+        }
+    }
+
+    /**
+     * @return true if the column is a primitive number, which can be read with {@link
+     * #getDouble(int, Object)} and compared with {@link #compare(int, Object, Object)}.
+     */
+    public boolean isNumber(int column) {
+        return kinds[column] != Kind.OBJECT;
+    }
+
+    /**
+     * @return true if the column is a primitive integer, which can be read exactly with {@link
+     * #getLong(int, Object)}.
+     */
+    public boolean isIntegral(int column) {
+        return kinds[column] == Kind.LONG;
+    }
+
+    /**
+     * @return the boxed type of a primitive number column.
+     */
+    @NotNull
+    public Class<? extends Number> numberType(int column) {
+        assert isNumber(column);
+        return (Class<? extends Number>) MethodType.methodType(fields[column].getType()).wrap().returnType();
+    }
+
+    public long getLong(int column, @NotNull Object value) {
+        assert isIntegral(column);
+        try {
+            return fields[column].getLong(value);
+        } catch (IllegalAccessException e) {
+            throw Jvm.rethrow(e);
+        }
+    }
+
+    /**
+     * @return a primitive number column as a double, which isn't exact for a long above 2^53, see
+     * {@link #getLong(int, Object)}.
+     */
+    public double getDouble(int column, @NotNull Object value) {
+        try {
+            return kinds[column] == Kind.LONG
+                    ? fields[column].getLong(value)
+                    : fields[column].getDouble(value);
+        } catch (IllegalAccessException e) {
+            throw Jvm.rethrow(e);
+        }
+    }
+
+    /**
+     * Compare a primitive number column of two values, as their boxed values would be.
+     */
+    public int compare(int column, @NotNull Object a, @NotNull Object b) {
+        try {
+            final Field field = fields[column];
+            return kinds[column] == Kind.LONG
+                    ? Long.compare(field.getLong(a), field.getLong(b))
+                    : Double.compare(field.getDouble(a), field.getDouble(b));
+        } catch (IllegalAccessException e) {
+            throw Jvm.rethrow(e);
+        }
+    }
+}
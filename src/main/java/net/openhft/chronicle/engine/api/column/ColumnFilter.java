@@ -0,0 +1,264 @@
+/*
+ * Copyright 2016 higherfrequencytrading.com
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package net.openhft.chronicle.engine.api.column;
+
+import net.openhft.chronicle.engine.api.column.ColumnView.MarshableFilter;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static net.openhft.chronicle.core.util.ObjectUtils.convertTo;
+
+/**
+ * A {@link MarshableFilter} parsed once for a query rather than for every row it is tested on. The
+ * operator and the lower case text to search for are found up front, and the operand is converted
+ * once for each type it is compared to. <p></p> A filter starting with {@code >= <= <> != ! > < ==
+ * =} compares a number column, otherwise a number column must be equal, text columns contain the
+ * filter ignoring case and any other column must equal the filter converted to its type. Safe to
+ * share between threads.
+ */
+public final class ColumnFilter {
+
+    @NotNull
+    private final String columnName;
+    @NotNull
+    private final String trimmed;
+    @NotNull
+    private final String needle;
+    @NotNull
+    private final Op op;
+    @NotNull
+    private final String operand;
+    // the operand as the last number type compared, the filter as the last type of object compared
+    // and the column in the last class of row, replaced rather than changed so they are thread safe.
+    @Nullable
+    private volatile Converted number, object;
+    @Nullable
+    private volatile ColumnIndex column;
+
+    public ColumnFilter(@NotNull MarshableFilter filter) {
+        this.columnName = filter.columnName;
+        this.trimmed = filter.filter.trim();
+        this.needle = filter.filter.toLowerCase();
+        Op op = Op.EQ;
+        String operand = trimmed;
+        search:
+        for (Op o : Op.OPS) {
+            for (String prefix : o.prefixes) {
+                if (trimmed.startsWith(prefix)) {
+                    op = o;
+                    operand = trimmed.substring(prefix.length()).trim();
+                    break search;
+                }
+            }
+        }
+        this.op = op;
+        this.operand = operand;
+    }
+
+    @NotNull
+    public static List<ColumnFilter> compile(@Nullable List<MarshableFilter> filters) {
+        final List<ColumnFilter> compiled = new ArrayList<>();
+        if (filters != null)
+            for (MarshableFilter filter : filters)
+                compiled.add(new ColumnFilter(filter));
+        return compiled;
+    }
+
+    @Nullable
+    private static Object convert(@NotNull Class type, @NotNull String text) {
+        try {
+            return convertTo(type, text);
+        } catch (NumberFormatException | ClassCastException e) {
+            return null;
+        }
+    }
+
+    @NotNull
+    public String columnName() {
+        return columnName;
+    }
+
+    /**
+     * @return true if this column of the row matches, false if it doesn't or the row has no such
+     * column.
+     */
+    public boolean matches(@NotNull ColumnAccessors accessors, @NotNull Object row) {
+        ColumnIndex column = this.column;
+        if (column == null || column.accessors != accessors)
+            this.column = column = new ColumnIndex(accessors, accessors.indexOf(columnName));
+
+        final int index = column.index;
+        if (index < 0)
+            return false;
+        if (accessors.isIntegral(index))
+            return matches(accessors.getLong(index, row), column.numberType);
+        if (accessors.isNumber(index))
+            return matches(accessors.getDouble(index, row), column.numberType);
+        return matches(accessors.get(index, row));
+    }
+
+    public boolean matches(@Nullable Object item) {
+        if (item == null)
+            return false;
+
+        if (item instanceof CharSequence)
+            return containsIgnoreCase(item.toString());
+
+        if (item instanceof Long || item instanceof Integer || item instanceof Short || item instanceof Byte)
+            return matches(((Number) item).longValue(), ((Number) item).getClass());
+        if (item instanceof Number)
+            return matches(((Number) item).doubleValue(), ((Number) item).getClass());
+
+        Converted object = this.object;
+        if (object == null || object.type != item.getClass())
+            this.object = object = new Converted(item.getClass(), convert(item.getClass(), trimmed));
+        return item.equals(object.value);
+    }
+
+    /**
+     * @param value of a floating point column
+     * @param type  the boxed type of the column, which the operand is converted to.
+     */
+    public boolean matches(double value, @NotNull Class<? extends Number> type) {
+        final Object operand = operand(type);
+        return operand instanceof Number && op.compare(value, ((Number) operand).doubleValue());
+    }
+
+    /**
+     * @param value of an integer column, compared exactly, even above 2^53.
+     * @param type  the boxed type of the column, which the operand is converted to.
+     */
+    public boolean matches(long value, @NotNull Class<? extends Number> type) {
+        final Object operand = operand(type);
+        return operand instanceof Number && op.compare(value, ((Number) operand).longValue());
+    }
+
+    @Nullable
+    private Object operand(@NotNull Class<? extends Number> type) {
+        Converted number = this.number;
+        if (number == null || number.type != type)
+            this.number = number = new Converted(type, convert(type, operand));
+        return number.value;
+    }
+
+    private boolean containsIgnoreCase(@NotNull String text) {
+        final int length = needle.length();
+        for (int i = 0, last = text.length() - length; i <= last; i++)
+            if (text.regionMatches(true, i, needle, 0, length))
+                return true;
+        return false;
+    }
+
+    @NotNull
+    @Override
+    public String toString() {
+        return columnName + " " + trimmed;
+    }
+
+    enum Op {
+        GE(">=") {
+            @Override
+            boolean compare(double a, double b) {
+                return a >= b;
+            }
+        },
+        LE("<=") {
+            @Override
+            boolean compare(double a, double b) {
+                return a <= b;
+            }
+        },
+        NE("<>", "!=", "!") {
+            @Override
+            boolean compare(double a, double b) {
+                return a != b;
+            }
+        },
+        GT(">") {
+            @Override
+            boolean compare(double a, double b) {
+                return a > b;
+            }
+        },
+        LT("<") {
+            @Override
+            boolean compare(double a, double b) {
+                return a < b;
+            }
+        },
+        EQ("==", "=", "") {
+            @Override
+            boolean compare(double a, double b) {
+                return a == b;
+            }
+        };
+
+        static final Op[] OPS = values();
+        final String[] prefixes;
+
+        Op(String... prefixes) {
+            this.prefixes = prefixes;
+        }
+
+        abstract boolean compare(double a, double b);
+
+        boolean compare(long a, long b) {
+            switch (this) {
+                case GE:
+                    return a >= b;
+                case LE:
+                    return a <= b;
+                case NE:
+                    return a != b;
+                case GT:
+                    return a > b;
+                case LT:
+                    return a < b;
+                default:
+                    return a == b;
+            }
+        }
+    }
+
+    private static final class Converted {
+        final Class type;
+        @Nullable
+        final Object value;
+
+        Converted(Class type, @Nullable Object value) {
+            this.type = type;
+            this.value = value;
+        }
+    }
+
+    private static final class ColumnIndex {
+        final ColumnAccessors accessors;
+        final int index;
+        @Nullable
+        final Class<? extends Number> numberType;
+
+        ColumnIndex(@NotNull ColumnAccessors accessors, int index) {
+            this.accessors = accessors;
+            this.index = index;
+            this.numberType = index >= 0 && accessors.isNumber(index) ? accessors.numberType(index) : null;
+        }
+    }
+}
@@ -1,7 +1,28 @@
 package net.openhft.chronicle.engine.api.column;
 
+import org.jetbrains.annotations.NotNull;
+
 /**
  * @author Rob Austin.
  */
-public interface QueueColumnView extends ColumnView{
+public interface QueueColumnView extends ColumnView {
+
+    /**
+     * The pseudo column of a filter on the time the excerpts were appended, which is a range of
+     * milliseconds since the epoch {@code from..to}, either of which may be left out, e.g. {@code
+     * 1480000000000..}. The excerpts from the first appended at or after {@code from}, to the first
+     * appended at or after {@code to}, are shown, to within the resolution of the time index of
+     * the queue. A queue without a time index has no excerpts after {@code from}.
+     */
+    String TIME_RANGE = "@time";
+
+    /**
+     * @param fromMs the time to show excerpts from, or 0 for the start of the queue
+     * @param toMs   the time to show excerpts to, or Long.MAX_VALUE for the end of the queue
+     */
+    @NotNull
+    static MarshableFilter timeRange(long fromMs, long toMs) {
+        return new MarshableFilter(TIME_RANGE, (fromMs <= 0 ? "" : Long.toString(fromMs))
+                + ".." + (toMs == Long.MAX_VALUE ? "" : Long.toString(toMs)));
+    }
 }
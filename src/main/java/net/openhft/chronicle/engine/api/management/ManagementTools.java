@@ -222,7 +222,8 @@ public enum ManagementTools {
                 registerTreeWithMBean(dynamicMBean, atName);
                 //end Dynamic MBeans Code
 
-                tree.registerSubscriber(e.fullName(), MapEvent.class, (MapEvent me) ->
+                // only used as a trigger to refresh the MBean, so the old value is never needed.
+                tree.registerSubscriber(e.fullName() + "?needsPrevious=false", MapEvent.class, (MapEvent me) ->
                         ses.schedule(() -> handleAssetUpdate(view0, atName, objectSubscription, e.assetName() + "-" + e.name()), 100, TimeUnit.MILLISECONDS));
 
                 //AssetTreeJMX atBean = new AssetTreeJMX(view,objectKVSSubscription,e.assetName() + "-" + e.name(),getMapAsString(view));
@@ -24,4 +24,14 @@ package net.openhft.chronicle.engine.api.pubsub;
 public interface ISubscriber {
     default void onEndOfSubscription() {
     }
+
+    /**
+     * Whether this subscriber reads the previous value of an entry. If no subscriber of a store
+     * needs it, writes can avoid fetching the old value.
+     *
+     * @return true if the old value is needed, false if the new value is enough.
+     */
+    default boolean needsPrevious() {
+        return true;
+    }
 }
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2016 higherfrequencytrading.com
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package net.openhft.chronicle.engine.api.pubsub;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A set of subscribers which can be added to and removed from in O(1), unlike a {@link
+ * java.util.concurrent.CopyOnWriteArraySet} which copies the whole array each time. <p></p> An
+ * iterator walks a snapshot of the subscribers in the order they were added. The snapshot is
+ * taken by the first iteration after a change and shared by every iteration until the next one,
+ * so the subscribers are copied at most once per change however often they are notified, and a
+ * subscriber added or removed while iterating isn't seen by that iteration.
+ */
+public class SubscriberSet<E> extends AbstractSet<E> {
+
+    private static final Object[] NO_SUBSCRIBERS = {};
+
+    private final Set<E> members = ConcurrentHashMap.newKeySet();
+    // guarded by this, in the order added.
+    private final Set<E> ordered = new LinkedHashSet<>();
+    // null after a change until the next iteration.
+    @Nullable
+    private volatile Object[] snapshot = NO_SUBSCRIBERS;
+
+    @Override
+    public boolean add(@NotNull E e) {
+        if (members.contains(e))
+            return false;
+        synchronized (this) {
+            if (!ordered.add(e))
+                return false;
+            members.add(e);
+            snapshot = null;
+            return true;
+        }
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        if (!members.contains(o))
+            return false;
+        synchronized (this) {
+            if (!ordered.remove(o))
+                return false;
+            members.remove(o);
+            snapshot = null;
+            return true;
+        }
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return members.contains(o);
+    }
+
+    @Override
+    public int size() {
+        return members.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return members.isEmpty();
+    }
+
+    @Override
+    public synchronized void clear() {
+        ordered.clear();
+        members.clear();
+        snapshot = NO_SUBSCRIBERS;
+    }
+
+    @NotNull
+    private Object[] snapshot() {
+        Object[] snapshot = this.snapshot;
+        if (snapshot == null) {
+            synchronized (this) {
+                snapshot = this.snapshot;
+                if (snapshot == null)
+                    this.snapshot = snapshot = ordered.toArray();
+            }
+        }
+        return snapshot;
+    }
+
+    @NotNull
+    @Override
+    public Iterator<E> iterator() {
+        return new Iterator<E>() {
+            final Object[] subscribers = snapshot();
+            int index = 0;
+            E last;
+
+            @Override
+            public boolean hasNext() {
+                return index < subscribers.length;
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public E next() {
+                if (!hasNext())
+                    throw new NoSuchElementException();
+                return last = (E) subscribers[index++];
+            }
+
+            @Override
+            public void remove() {
+                if (last == null)
+                    throw new IllegalStateException();
+                SubscriberSet.this.remove(last);
+                last = null;
+            }
+        };
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright 2016 higherfrequencytrading.com
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package net.openhft.chronicle.engine.api.query;
+
+import net.openhft.chronicle.engine.tree.QueueCheckpoint;
+import net.openhft.chronicle.wire.Marshallable;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.File;
+import java.util.function.BiConsumer;
+
+/**
+ * A persisted copy of the latest value of each key of a {@link VanillaIndexQueueView}, and of the
+ * index of the last excerpt it has read, so on restart the view only has to read the queue from
+ * that point. <p></p> Entries are keyed by the event name and the key.
+ */
+class IndexCheckpoint extends QueueCheckpoint {
+
+    IndexCheckpoint(@NotNull File directory, long entries) {
+        super(directory, entries);
+    }
+
+    /**
+     * @param consumer is passed the event name and value of each entry checkpointed.
+     */
+    <V extends Marshallable> void forEach(@NotNull BiConsumer<String, IndexedValue<V>> consumer) {
+        forEachEntry((key, value) -> {
+            final String eventName = key.getValueIn().text();
+            final IndexedValue<V> indexedValue = new IndexedValue<>();
+            indexedValue.readMarshallable(value);
+            consumer.accept(eventName, indexedValue);
+        });
+    }
+
+    void put(@NotNull String eventName, @NotNull Object key, @NotNull IndexedValue<?> value) {
+        put(w -> {
+            w.getValueOut().text(eventName);
+            w.getValueOut().object(key);
+        }, value::writeMarshallable);
+    }
+}
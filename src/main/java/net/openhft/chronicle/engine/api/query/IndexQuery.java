@@ -34,4 +34,12 @@ public interface IndexQuery<V> extends Marshallable {
     Predicate<V> filter();
 
     String eventName();
+
+    /**
+     * @return the java source of the filter, used to find the secondary indexes it can use, or an
+     * empty string if there isn't one.
+     */
+    default String select() {
+        return "";
+    }
 }
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2016 higherfrequencytrading.com
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package net.openhft.chronicle.engine.api.query;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * The fields of the values of an {@link IndexQueueView} to keep secondary indexes on, added to
+ * the asset as a view e.g.
+ * <pre>
+ * asset.addView(IndexedFields.class, new IndexedFields().hash("ccyPair").sorted("price"));
+ * </pre>
+ * A hash index is used for {@code value.field == x} or {@code value.field.equals(x)} conditions,
+ * and a sorted index for {@code <, <=, >, >=} as well. Only conditions joined by {@code &&} at the
+ * top level of a select are used, the select itself is still applied to each value found.
+ */
+public class IndexedFields {
+
+    private final Set<String> hashFields = new LinkedHashSet<>();
+    private final Set<String> sortedFields = new LinkedHashSet<>();
+
+    @NotNull
+    public IndexedFields hash(@NotNull String... fields) {
+        Collections.addAll(hashFields, fields);
+        return this;
+    }
+
+    @NotNull
+    public IndexedFields sorted(@NotNull String... fields) {
+        Collections.addAll(sortedFields, fields);
+        return this;
+    }
+
+    @NotNull
+    public Set<String> hashFields() {
+        return hashFields;
+    }
+
+    @NotNull
+    public Set<String> sortedFields() {
+        return sortedFields;
+    }
+
+    public boolean isEmpty() {
+        return hashFields.isEmpty() && sortedFields.isEmpty();
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright 2016 higherfrequencytrading.com
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package net.openhft.chronicle.engine.api.query;
+
+import net.openhft.chronicle.wire.FieldInfo;
+import net.openhft.chronicle.wire.Wires;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.List;
+import java.util.function.Predicate;
+
+import static net.openhft.chronicle.core.util.ObjectUtils.convertTo;
+
+/**
+ * Evaluates a select which is only a conjunction of comparisons of fields with literals e.g.
+ * {@code value.qty >= 100 && value.price > 1.3} without compiling it, used until the compiled
+ * class is ready. A String field is only interpreted when compared with {@code equals()}, as the
+ * compiled {@code ==} compares references, and a double field is compared as a primitive.
+ */
+class InterpretedSelect<V> implements Predicate<V> {
+
+    private final String select;
+    private final SelectCondition.Op[] ops;
+    private final FieldInfo[] fieldInfos;
+    private final Object[] literals;
+
+    private InterpretedSelect(@NotNull String select, @NotNull List<SelectCondition> conditions,
+                              @NotNull FieldInfo[] fieldInfos, @NotNull Object[] literals) {
+        this.select = select;
+        this.ops = new SelectCondition.Op[conditions.size()];
+        for (int i = 0; i < ops.length; i++)
+            ops[i] = conditions.get(i).op;
+        this.fieldInfos = fieldInfos;
+        this.literals = literals;
+    }
+
+    /**
+     * @return the select interpreted for values of this class, or null if it has to be compiled.
+     */
+    @Nullable
+    static <V> InterpretedSelect<V> of(@NotNull Class valueClass, @NotNull String select) {
+        final List<SelectCondition> conditions = SelectCondition.parseAll(select);
+        if (conditions == null || conditions.isEmpty())
+            return null;
+
+        final FieldInfo[] fieldInfos = new FieldInfo[conditions.size()];
+        final Object[] literals = new Object[conditions.size()];
+        for (int i = 0; i < fieldInfos.length; i++) {
+            final SelectCondition condition = conditions.get(i);
+            try {
+                fieldInfos[i] = Wires.fieldInfo(valueClass, condition.field);
+            } catch (RuntimeException e) {
+                return null;
+            }
+            if (fieldInfos[i] == null)
+                return null;
+            literals[i] = literal(SecondaryIndex.wrap(fieldInfos[i].type()), condition);
+            if (literals[i] == null)
+                return null;
+        }
+        return new InterpretedSelect<>(select, conditions, fieldInfos, literals);
+    }
+
+    /**
+     * @return the literal as the type of the field, or null if comparing them here might not give
+     * the same result as the compiled select.
+     */
+    @Nullable
+    private static Object literal(@NotNull Class type, @NotNull SelectCondition condition) {
+        final String literal = condition.literal;
+        try {
+            // == on a String is by reference in the compiled select, which equals() can't match.
+            if (type == String.class)
+                return condition.equalsMethod && condition.quoted ? literal : null;
+            // equals() on a boxed field is false for a literal of another type e.g. Long.equals(1)
+            if (condition.quoted || condition.equalsMethod)
+                return null;
+            if (type == Boolean.class)
+                return condition.op == SelectCondition.Op.EQ
+                        && (literal.equals("true") || literal.equals("false"))
+                        ? Boolean.valueOf(literal) : null;
+            if (type == Integer.class || type == Long.class || type == Short.class || type == Byte.class)
+                // no widening to double e.g. x > 1.5
+                return literal.matches("-?\\d+") ? convertTo(type, literal) : null;
+            if (type == Double.class)
+                return convertTo(type, literal);
+
+        } catch (RuntimeException e) {
+            // e.g. too large for the type.
+        }
+        return null;
+    }
+
+    @Override
+    public boolean test(V v) {
+        for (int i = 0; i < ops.length; i++) {
+            final Object fieldValue = fieldInfos[i].get(v);
+            if (fieldValue == null)
+                return false;
+            if (fieldValue instanceof Double) {
+                // as the compiled select, -0.0 == 0.0 and NaN is not equal to or ordered with anything
+                if (!test(ops[i], (Double) fieldValue, (Double) literals[i]))
+                    return false;
+                continue;
+            }
+            if (ops[i] == SelectCondition.Op.EQ) {
+                if (!fieldValue.equals(literals[i]))
+                    return false;
+                continue;
+            }
+            final int cmp = ((Comparable) fieldValue).compareTo(literals[i]);
+            switch (ops[i]) {
+                case LT:
+                    if (cmp >= 0) return false;
+                    break;
+                case LE:
+                    if (cmp > 0) return false;
+                    break;
+                case GT:
+                    if (cmp <= 0) return false;
+                    break;
+                case GE:
+                    if (cmp < 0) return false;
+                    break;
+            }
+        }
+        return true;
+    }
+
+    private static boolean test(@NotNull SelectCondition.Op op, double value, double literal) {
+        switch (op) {
+            case EQ:
+                return value == literal;
+            case LT:
+                return value < literal;
+            case LE:
+                return value <= literal;
+            case GT:
+                return value > literal;
+            case GE:
+                return value >= literal;
+            default:
+                throw new AssertionError(op);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return select;
+    }
+}
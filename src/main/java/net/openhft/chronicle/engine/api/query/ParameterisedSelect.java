@@ -0,0 +1,158 @@
+/*
+ * Copyright 2016 higherfrequencytrading.com
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package net.openhft.chronicle.engine.api.query;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A select with its string and number literals replaced by parameters, so selects which only
+ * differ in their literals e.g. {@code value.price > 1.3} and {@code value.price > 1.4} share one
+ * compiled class. The template reads the parameters from an {@code Object[] $p}.
+ */
+class ParameterisedSelect {
+
+    static final String PARAMS = "$p";
+
+    // strings, chars (left as they are) and decimal numbers which are not part of a name.
+    private static final Pattern LITERAL = Pattern.compile("\"(?:[^\"\\\\]|\\\\.)*\""
+            + "|'(?:[^'\\\\]|\\\\.)*'"
+            + "|(?<![\\w$.])\\d+(?:\\.\\d+)?(?:[eE][+-]?\\d+)?[lLdDfF]?(?![\\w$.])");
+
+    final String template;
+    final Object[] params;
+
+    private ParameterisedSelect(@NotNull String template, @NotNull Object[] params) {
+        this.template = template;
+        this.params = params;
+    }
+
+    @NotNull
+    static ParameterisedSelect of(@NotNull String select) {
+        final StringBuilder template = new StringBuilder();
+        final List<Object> params = new ArrayList<>();
+        final Matcher m = LITERAL.matcher(select);
+        int last = 0;
+        while (m.find()) {
+            final Object param = param(m.group());
+            if (param == null)
+                continue;
+            template.append(select, last, m.start());
+            template.append("((").append(param.getClass().getName()).append(") ")
+                    .append(PARAMS).append('[').append(params.size()).append("])");
+            if (param instanceof Number)
+                template.append('.').append(numberType(param)).append("Value()");
+            params.add(param);
+            last = m.end();
+        }
+        template.append(select, last, select.length());
+        return new ParameterisedSelect(template.toString(), params.toArray());
+    }
+
+    @NotNull
+    private static String numberType(@NotNull Object number) {
+        return number instanceof Integer ? "int"
+                : number instanceof Long ? "long"
+                : number instanceof Float ? "float"
+                : "double";
+    }
+
+    /**
+     * @return the value of the literal, or null if it should be left in the template.
+     */
+    @Nullable
+    private static Object param(@NotNull String literal) {
+        final char first = literal.charAt(0);
+        if (first == '\'')
+            return null;
+        if (first == '"')
+            return unescape(literal.substring(1, literal.length() - 1));
+
+        try {
+            final char last = literal.charAt(literal.length() - 1);
+            switch (last) {
+                case 'l':
+                case 'L':
+                    return octal(literal) ? null : Long.parseLong(literal.substring(0, literal.length() - 1));
+                case 'f':
+                case 'F':
+                    return Float.parseFloat(literal);
+                case 'd':
+                case 'D':
+                    return Double.parseDouble(literal);
+            }
+            if (literal.indexOf('.') >= 0 || literal.indexOf('e') >= 0 || literal.indexOf('E') >= 0)
+                return Double.parseDouble(literal);
+            return octal(literal) ? null : Integer.parseInt(literal);
+
+        } catch (NumberFormatException e) {
+            // leave it for the compiler to report.
+            return null;
+        }
+    }
+
+    private static boolean octal(@NotNull String literal) {
+        return literal.length() > 1 && literal.charAt(0) == '0' && Character.isDigit(literal.charAt(1));
+    }
+
+    /**
+     * @return the string, or null if it has an escape which isn't supported here.
+     */
+    @Nullable
+    private static String unescape(@NotNull String s) {
+        if (s.indexOf('\\') < 0)
+            return s;
+        final StringBuilder sb = new StringBuilder(s.length());
+        for (int i = 0; i < s.length(); i++) {
+            char ch = s.charAt(i);
+            if (ch == '\\') {
+                switch (s.charAt(++i)) {
+                    case 'n':
+                        ch = '\n';
+                        break;
+                    case 't':
+                        ch = '\t';
+                        break;
+                    case 'r':
+                        ch = '\r';
+                        break;
+                    case 'b':
+                        ch = '\b';
+                        break;
+                    case 'f':
+                        ch = '\f';
+                        break;
+                    case '"':
+                    case '\'':
+                    case '\\':
+                        ch = s.charAt(i);
+                        break;
+                    default:
+                        return null;
+                }
+            }
+            sb.append(ch);
+        }
+        return sb.toString();
+    }
+}
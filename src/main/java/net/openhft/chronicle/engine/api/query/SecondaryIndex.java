@@ -0,0 +1,241 @@
+/*
+ * Copyright 2016 higherfrequencytrading.com
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package net.openhft.chronicle.engine.api.query;
+
+import net.openhft.chronicle.core.Jvm;
+import net.openhft.chronicle.wire.FieldInfo;
+import net.openhft.chronicle.wire.Wires;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.invoke.MethodType;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import static net.openhft.chronicle.core.util.ObjectUtils.convertTo;
+
+/**
+ * The hash and sorted indexes of the fields of the latest values of one event name, mapping each
+ * field value to the keys which have it. <p></p> Only updated by the thread reading the queue, and
+ * can be read by any thread.
+ */
+class SecondaryIndex {
+
+    // ConcurrentHashMap doesn't allow null keys.
+    private static final Object NULL = new Object();
+
+    private final Map<String, ConcurrentMap<Object, Set<Object>>> hashIndexes = new LinkedHashMap<>();
+    private final Map<String, ConcurrentNavigableMap<Object, Set<Object>>> sortedIndexes = new LinkedHashMap<>();
+    private final String[] fields;
+    // key -> the value of each field when it was last indexed, in the same order as fields.
+    private final Map<Object, Object[]> fieldValues = new ConcurrentHashMap<>();
+    @Nullable
+    private volatile Class valueClass;
+    private FieldInfo[] fieldInfos;
+
+    SecondaryIndex(@NotNull IndexedFields indexedFields) {
+        final Set<String> fields = new LinkedHashSet<>();
+        for (String field : indexedFields.hashFields()) {
+            hashIndexes.put(field, new ConcurrentHashMap<>());
+            fields.add(field);
+        }
+        for (String field : indexedFields.sortedFields()) {
+            sortedIndexes.put(field, new ConcurrentSkipListMap<>());
+            fields.add(field);
+        }
+        this.fields = fields.toArray(new String[fields.size()]);
+    }
+
+    @NotNull
+    static Class wrap(@NotNull Class type) {
+        return type.isPrimitive() ? MethodType.methodType(type).wrap().returnType() : type;
+    }
+
+    private static void add(@NotNull Map<Object, Set<Object>> index, @NotNull Object fieldValue, @NotNull Object key) {
+        index.computeIfAbsent(fieldValue, v -> ConcurrentHashMap.newKeySet()).add(key);
+    }
+
+    private static void remove(@NotNull Map<Object, Set<Object>> index, @NotNull Object fieldValue, @NotNull Object key) {
+        index.computeIfPresent(fieldValue, (v, keys) -> {
+            keys.remove(key);
+            return keys.isEmpty() ? null : keys;
+        });
+    }
+
+    /**
+     * @param key   of the value
+     * @param value the latest value for this key
+     */
+    void update(@NotNull Object key, @NotNull Object value) {
+        if (valueClass != value.getClass())
+            resolve(value.getClass());
+
+        final Object[] previous = fieldValues.get(key);
+        final Object[] current = new Object[fields.length];
+        for (int i = 0; i < fields.length; i++) {
+            final FieldInfo fieldInfo = fieldInfos[i];
+            Object fieldValue = fieldInfo == null ? null : fieldInfo.get(value);
+            current[i] = fieldValue == null ? NULL : fieldValue;
+        }
+        if (previous != null && Arrays.equals(previous, current))
+            return;
+
+        for (int i = 0; i < fields.length; i++) {
+            final Object was = previous == null ? null : previous[i];
+            final Object now = current[i];
+            if (now.equals(was))
+                continue;
+
+            // add before removing so a concurrent query doesn't miss the key.
+            final ConcurrentMap<Object, Set<Object>> hashIndex = hashIndexes.get(fields[i]);
+            if (hashIndex != null) {
+                add(hashIndex, now, key);
+                if (was != null)
+                    remove(hashIndex, was, key);
+            }
+            final ConcurrentNavigableMap<Object, Set<Object>> sortedIndex = sortedIndexes.get(fields[i]);
+            if (sortedIndex != null) {
+                if (now instanceof Comparable)
+                    add(sortedIndex, now, key);
+                if (was instanceof Comparable)
+                    remove(sortedIndex, was, key);
+            }
+        }
+        fieldValues.put(key, current);
+    }
+
+    private void resolve(@NotNull Class valueClass) {
+        final FieldInfo[] fieldInfos = new FieldInfo[fields.length];
+        for (int i = 0; i < fields.length; i++) {
+            try {
+                fieldInfos[i] = Wires.fieldInfo(valueClass, fields[i]);
+            } catch (RuntimeException e) {
+                Jvm.warn().on(getClass(), "Unable to index field " + fields[i] + " of " + valueClass.getName(), e);
+            }
+        }
+        this.fieldInfos = fieldInfos;
+        this.valueClass = valueClass;
+    }
+
+    /**
+     * @param conditions which must all be true of the values wanted
+     * @return the keys of a superset of the values which meet the conditions, or null if none of
+     * the conditions can use an index.
+     */
+    @Nullable
+    Collection<Object> candidates(@NotNull List<SelectCondition> conditions) {
+        final Class valueClass = this.valueClass;
+        if (valueClass == null)
+            return null;
+
+        Set<Object> smallest = null;
+        for (SelectCondition condition : conditions) {
+            if (condition.op != SelectCondition.Op.EQ)
+                continue;
+            final ConcurrentMap<Object, Set<Object>> hashIndex = hashIndexes.get(condition.field);
+            final ConcurrentNavigableMap<Object, Set<Object>> sortedIndex = sortedIndexes.get(condition.field);
+            if (hashIndex == null && sortedIndex == null)
+                continue;
+            final Object literal = literal(valueClass, condition);
+            if (literal == null)
+                continue;
+            Set<Object> keys = hashIndex != null ? hashIndex.get(literal) : sortedIndex.get(literal);
+            if (keys == null)
+                return Collections.emptyList();
+            if (smallest == null || keys.size() < smallest.size())
+                smallest = keys;
+        }
+        if (smallest != null)
+            return new ArrayList<>(smallest);
+
+        for (String field : sortedIndexes.keySet()) {
+            final Collection<Object> keys = rangeCandidates(valueClass, field, conditions);
+            if (keys != null)
+                return keys;
+        }
+        return null;
+    }
+
+    /**
+     * @return the keys with a value of this field in the range of all the conditions on it, or null
+     * if there are no range conditions on it.
+     */
+    @Nullable
+    private Collection<Object> rangeCandidates(@NotNull Class valueClass, @NotNull String field,
+                                               @NotNull List<SelectCondition> conditions) {
+        ConcurrentNavigableMap<Object, Set<Object>> range = sortedIndexes.get(field);
+        boolean used = false;
+        for (SelectCondition condition : conditions) {
+            if (!condition.field.equals(field) || condition.op == SelectCondition.Op.EQ)
+                continue;
+            final Object literal = literal(valueClass, condition);
+            if (literal == null)
+                continue;
+            try {
+                switch (condition.op) {
+                    case LT:
+                        range = range.headMap(literal, false);
+                        break;
+                    case LE:
+                        range = range.headMap(literal, true);
+                        break;
+                    case GT:
+                        range = range.tailMap(literal, false);
+                        break;
+                    case GE:
+                        range = range.tailMap(literal, true);
+                        break;
+                }
+                used = true;
+            } catch (IllegalArgumentException | ClassCastException e) {
+                // e.g. x > 10 && x < 5, or a literal of the wrong type.
+                return Collections.emptyList();
+            }
+        }
+        if (!used)
+            return null;
+
+        final List<Object> keys = new ArrayList<>();
+        for (Set<Object> set : range.values())
+            keys.addAll(set);
+        return keys;
+    }
+
+    /**
+     * @return the literal of the condition as the type of the field, or null if it can't be.
+     */
+    @Nullable
+    private Object literal(@NotNull Class valueClass, @NotNull SelectCondition condition) {
+        final FieldInfo fieldInfo;
+        try {
+            fieldInfo = Wires.fieldInfo(valueClass, condition.field);
+        } catch (RuntimeException e) {
+            return null;
+        }
+        if (fieldInfo == null)
+            return null;
+        try {
+            return convertTo(wrap(fieldInfo.type()), condition.literal);
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+}
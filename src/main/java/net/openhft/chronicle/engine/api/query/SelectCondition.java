@@ -0,0 +1,259 @@
+/*
+ * Copyright 2016 higherfrequencytrading.com
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package net.openhft.chronicle.engine.api.query;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A comparison of a field of the value with a literal, found at the top level of a select such as
+ * {@code value.ccyPair.equals("EURUSD") && value.price > 1.3}. Each one is a necessary condition of
+ * the select, so an index can be used to find the values it might match.
+ */
+class SelectCondition {
+
+    private static final String FIELD = "value\\.(\\w+)(?:\\(\\))?";
+    private static final String LITERAL =
+            "(\"(?:[^\"\\\\]|\\\\.)*\"|-?\\d+(?:\\.\\d+)?(?:[eE][+-]?\\d+)?[lLdDfF]?|true|false)";
+    private static final String OP = "(==|<=|>=|<|>)";
+
+    private static final Pattern FIELD_OP_LITERAL = Pattern.compile(FIELD + "\\s*" + OP + "\\s*" + LITERAL);
+    private static final Pattern LITERAL_OP_FIELD = Pattern.compile(LITERAL + "\\s*" + OP + "\\s*" + FIELD);
+    private static final Pattern FIELD_EQUALS_LITERAL = Pattern.compile(FIELD + "\\.equals\\(\\s*" + LITERAL + "\\s*\\)");
+    private static final Pattern LITERAL_EQUALS_FIELD = Pattern.compile(LITERAL + "\\.equals\\(\\s*" + FIELD + "\\s*\\)");
+
+    final String field;
+    final Op op;
+    final String literal;
+    // true if the literal was a string in the select.
+    final boolean quoted;
+    // true if compared with equals() rather than an operator.
+    final boolean equalsMethod;
+
+    SelectCondition(@NotNull String field, @NotNull Op op, @NotNull String literal) {
+        this(field, op, literal, false);
+    }
+
+    SelectCondition(@NotNull String field, @NotNull Op op, @NotNull String literal, boolean equalsMethod) {
+        this.field = field;
+        this.op = op;
+        this.quoted = literal.startsWith("\"");
+        this.literal = literal(literal);
+        this.equalsMethod = equalsMethod;
+    }
+
+    /**
+     * @param select the java source of a predicate on {@code value}
+     * @return the conditions which must all be true for the select to be true, or null if the
+     * select is not a conjunction.
+     */
+    @Nullable
+    static List<SelectCondition> parse(@NotNull String select) {
+        return parse(select, false);
+    }
+
+    /**
+     * @param select the java source of a predicate on {@code value}
+     * @return the conditions which are all true if and only if the select is true, or null if the
+     * select is not just a conjunction of them.
+     */
+    @Nullable
+    static List<SelectCondition> parseAll(@NotNull String select) {
+        return parse(select, true);
+    }
+
+    @Nullable
+    private static List<SelectCondition> parse(@NotNull String select, boolean all) {
+        final List<String> terms = splitConjunction(select.trim());
+        if (terms == null)
+            return null;
+
+        final List<SelectCondition> conditions = new ArrayList<>();
+        for (String term : terms) {
+            final SelectCondition condition = parseTerm(term.trim());
+            if (condition != null)
+                conditions.add(condition);
+            else if (all)
+                return null;
+        }
+        return conditions;
+    }
+
+    /**
+     * @return the terms joined by {@code &&} outside of any parentheses or string, or null if there
+     * is a {@code ||} or {@code ?} at that level.
+     */
+    @Nullable
+    private static List<String> splitConjunction(@NotNull String select) {
+        while (select.startsWith("(") && closingParen(select, 0) == select.length() - 1)
+            select = select.substring(1, select.length() - 1).trim();
+
+        final List<String> terms = new ArrayList<>();
+        int depth = 0, start = 0;
+        for (int i = 0; i < select.length(); i++) {
+            final char ch = select.charAt(i);
+            switch (ch) {
+                case '"':
+                    i = closingQuote(select, i);
+                    if (i < 0)
+                        return null;
+                    break;
+                case '(':
+                    depth++;
+                    break;
+                case ')':
+                    depth--;
+                    break;
+                case '?':
+                    if (depth == 0)
+                        return null;
+                    break;
+                case '|':
+                    if (depth == 0 && i + 1 < select.length() && select.charAt(i + 1) == '|')
+                        return null;
+                    break;
+                case '&':
+                    if (depth == 0 && i + 1 < select.length() && select.charAt(i + 1) == '&') {
+                        terms.add(select.substring(start, i));
+                        start = ++i + 1;
+                    }
+                    break;
+            }
+        }
+        terms.add(select.substring(start));
+        return terms;
+    }
+
+    private static int closingParen(@NotNull String s, int open) {
+        int depth = 0;
+        for (int i = open; i < s.length(); i++) {
+            final char ch = s.charAt(i);
+            if (ch == '"') {
+                i = closingQuote(s, i);
+                if (i < 0)
+                    return -1;
+            } else if (ch == '(') {
+                depth++;
+            } else if (ch == ')' && --depth == 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int closingQuote(@NotNull String s, int open) {
+        for (int i = open + 1; i < s.length(); i++) {
+            final char ch = s.charAt(i);
+            if (ch == '\\')
+                i++;
+            else if (ch == '"')
+                return i;
+        }
+        return -1;
+    }
+
+    @Nullable
+    private static SelectCondition parseTerm(@NotNull String term) {
+        while (term.startsWith("(") && closingParen(term, 0) == term.length() - 1)
+            term = term.substring(1, term.length() - 1).trim();
+
+        Matcher m = FIELD_OP_LITERAL.matcher(term);
+        if (m.matches())
+            return new SelectCondition(m.group(1), Op.of(m.group(2)), m.group(3));
+
+        m = LITERAL_OP_FIELD.matcher(term);
+        if (m.matches())
+            return new SelectCondition(m.group(3), Op.of(m.group(2)).flip(), m.group(1));
+
+        m = FIELD_EQUALS_LITERAL.matcher(term);
+        if (m.matches())
+            return new SelectCondition(m.group(1), Op.EQ, m.group(2), true);
+
+        m = LITERAL_EQUALS_FIELD.matcher(term);
+        if (m.matches())
+            return new SelectCondition(m.group(2), Op.EQ, m.group(1), true);
+
+        return null;
+    }
+
+    @NotNull
+    private static String literal(@NotNull String literal) {
+        if (literal.startsWith("\""))
+            return literal.substring(1, literal.length() - 1)
+                    .replace("\\\"", "\"")
+                    .replace("\\\\", "\\");
+        final char last = literal.charAt(literal.length() - 1);
+        if ("lLdDfF".indexOf(last) >= 0)
+            return literal.substring(0, literal.length() - 1);
+        return literal;
+    }
+
+    @Override
+    public String toString() {
+        if (equalsMethod)
+            return "value." + field + ".equals(" + literal + ")";
+        return "value." + field + " " + op + " " + literal;
+    }
+
+    enum Op {
+        EQ("=="), LT("<"), LE("<="), GT(">"), GE(">=");
+
+        private final String symbol;
+
+        Op(String symbol) {
+            this.symbol = symbol;
+        }
+
+        @NotNull
+        static Op of(@NotNull String symbol) {
+            for (Op op : values())
+                if (op.symbol.equals(symbol))
+                    return op;
+            throw new IllegalArgumentException(symbol);
+        }
+
+        /**
+         * @return the operator with its operands swapped, e.g. {@code 1 < x} is {@code x > 1}
+         */
+        @NotNull
+        Op flip() {
+            switch (this) {
+                case LT:
+                    return GT;
+                case LE:
+                    return GE;
+                case GT:
+                    return LT;
+                case GE:
+                    return LE;
+                default:
+                    return this;
+            }
+        }
+
+        @Override
+        public String toString() {
+            return symbol;
+        }
+    }
+}
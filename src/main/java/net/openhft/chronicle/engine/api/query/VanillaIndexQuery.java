@@ -23,19 +23,25 @@ import net.openhft.chronicle.engine.map.QueueObjectSubscription;
 import net.openhft.chronicle.wire.AbstractMarshallable;
 import net.openhft.chronicle.wire.Demarshallable;
 import net.openhft.chronicle.wire.WireIn;
-import net.openhft.compiler.CompilerUtils;
-import net.openhft.lang.model.DataValueGenerator;
+import net.openhft.chronicle.threads.NamedThreadFactory;
+import net.openhft.compiler.CachedCompiler;
 import org.jetbrains.annotations.NotNull;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiPredicate;
 import java.util.function.Predicate;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import static java.util.concurrent.Executors.newSingleThreadExecutor;
+
 /**
  * @author Rob Austin.
  */
@@ -83,7 +89,7 @@ public class VanillaIndexQuery<V> extends AbstractMarshallable implements Demars
 
         // used to test-compile the predicate on the client side
         try {
-            ClassCache.newInstance0(new ClassCache.TypedSelect(valueClass, select), "TestCompile");
+            ClassCache.testCompile(valueClass, select);
 
         } catch (Exception e) {
             Jvm.warn().on(getClass(), e.getMessage());
@@ -120,21 +126,75 @@ public class VanillaIndexQuery<V> extends AbstractMarshallable implements Demars
     }
 
     /**
-     * ensures that the same select/predicate will return an existing class instance
+     * ensures that the same select/predicate will return an existing class instance. <p></p> Selects
+     * which only differ in their literals share a class, see {@link ParameterisedSelect}. Classes
+     * are compiled in the background, while a select which is a simple conjunction is interpreted
+     * until its class is ready. The least recently used classes are evicted, and as each batch of
+     * classes has its own class loader, the batch can be unloaded once all of them have been.
      */
     private static class ClassCache {
-        private static final ConcurrentMap<TypedSelect, Predicate> cache = new
-                ConcurrentHashMap<>();
+        private static final int MAX_CLASSES = Integer.getInteger("engine.select.maxClasses", 256);
+        private static final int CLASSES_PER_LOADER = 16;
+        private static final ExecutorService COMPILER =
+                newSingleThreadExecutor(new NamedThreadFactory("select-compiler", true));
+        // guarded by itself, which also guards batch and classesInBatch.
+        private static final Map<TypedSelect, CompletableFuture<BiPredicate>> cache =
+                new LinkedHashMap<TypedSelect, CompletableFuture<BiPredicate>>(16, 0.75f, true) {
+                    @Override
+                    protected boolean removeEldestEntry(Map.Entry<TypedSelect, CompletableFuture<BiPredicate>> eldest) {
+                        return size() > MAX_CLASSES;
+                    }
+                };
         private static AtomicLong uniqueClassId = new AtomicLong();
         private static Pattern p = Pattern.compile("\"");
         private static ThreadLocal<StringBuffer> sbTl = ThreadLocal.withInitial(StringBuffer::new);
+        private static CompileBatch batch;
+        private static int classesInBatch;
+
+        private static <V> Predicate<V> newInstance(final Class clazz0, final String select) {
+            final ParameterisedSelect parameterised = ParameterisedSelect.of(select);
+            final CompletableFuture<BiPredicate> compiled = compiled(new TypedSelect(clazz0, parameterised.template));
+            if (!compiled.isDone()) {
+                final InterpretedSelect<V> interpreted = InterpretedSelect.of(clazz0, select);
+                if (interpreted != null)
+                    return new PendingPredicate<>(interpreted, compiled, parameterised.params, select);
+            }
+            return new BoundPredicate<>(join(compiled), parameterised.params, select);
+        }
 
-        private static Predicate newInstance(final Class clazz0, final String select) {
-            return cache.computeIfAbsent(new TypedSelect(clazz0, select), ClassCache::newInstanceAutoGenerateClassName);
+        /**
+         * @return the class of the parameterised select, compiling it in the background if it
+         * isn't cached.
+         */
+        private static CompletableFuture<BiPredicate> compiled(TypedSelect typedSelect) {
+            synchronized (cache) {
+                CompletableFuture<BiPredicate> compiled = cache.get(typedSelect);
+                if (compiled == null) {
+                    final CompileBatch batch = batch();
+                    compiled = CompletableFuture.supplyAsync(() -> compile(typedSelect, batch,
+                            "AutoGeneratedPredicate" + uniqueClassId.incrementAndGet()), COMPILER);
+                    cache.put(typedSelect, compiled);
+                }
+                return compiled;
+            }
         }
 
-        private static <V> Predicate<V> newInstanceAutoGenerateClassName(TypedSelect typedSelect) {
-            return newInstance0(typedSelect, "AutoGeneratedPredicate" + uniqueClassId.incrementAndGet());
+        private static CompileBatch batch() {
+            if (batch == null || classesInBatch >= CLASSES_PER_LOADER) {
+                // the last batch is only referenced by the classes it loaded which are still cached.
+                batch = new CompileBatch();
+                classesInBatch = 0;
+            }
+            classesInBatch++;
+            return batch;
+        }
+
+        private static BiPredicate join(CompletableFuture<BiPredicate> compiled) {
+            try {
+                return compiled.join();
+            } catch (CompletionException e) {
+                throw Jvm.rethrow(e.getCause());
+            }
         }
 
         private static CharSequence escapeQuotes(final String source) {
@@ -148,8 +208,15 @@ public class VanillaIndexQuery<V> extends AbstractMarshallable implements Demars
             return sb;
         }
 
-        private static <V> Predicate<V> newInstance0(TypedSelect typedSelect,
-                                                     final String className) {
+        /**
+         * test-compiles the select, to report any errors to the user.
+         */
+        private static void testCompile(final Class clazz0, final String select) {
+            join(compiled(new TypedSelect(clazz0, ParameterisedSelect.of(select).template)));
+        }
+
+        private static BiPredicate compile(TypedSelect typedSelect, CompileBatch batch,
+                                           final String className) {
             String clazz = typedSelect.clazz.getName();
 
             final String select = typedSelect.select;
@@ -161,19 +228,19 @@ public class VanillaIndexQuery<V> extends AbstractMarshallable implements Demars
                     append("package net.openhft.chronicle.engine.api.query;\npublic class ")
                     .append(className)
                     .append(" implements ")
-                    .append("java.util.function.Predicate<")
-                    .append(clazz).append("> {\n\tpublic ")
-                    .append("boolean test(").append(clazz).append(" value) ")
+                    .append("java.util.function.BiPredicate<")
+                    .append(clazz).append(", Object[]> {\n\tpublic ")
+                    .append("boolean test(").append(clazz).append(" value, Object[] ")
+                    .append(ParameterisedSelect.PARAMS).append(") ")
                     .append("{\n\t\treturn ").append(typedSelect.select)
                     .append(";\n\t}\n\n\tpublic String toString(){\n\t\treturn \"")
                     .append(toString).append("\";\n\t}\n}").toString();
 
-            LoggerFactory.getLogger(DataValueGenerator.class).info(source);
-            ClassLoader classLoader = ClassCache.class.getClassLoader();
+            LOG.debug(source);
             try
 
             {
-                Class<Predicate> clazzP = CompilerUtils.CACHED_COMPILER.loadFromJava(classLoader,
+                Class<BiPredicate> clazzP = batch.compiler.loadFromJava(batch.classLoader,
                         "net.openhft.chronicle.engine.api.query." + className, source);
                 return clazzP.newInstance();
 
@@ -182,6 +249,71 @@ public class VanillaIndexQuery<V> extends AbstractMarshallable implements Demars
             }
         }
 
+        /**
+         * A class loader, and the compiler which holds on to it, for a batch of classes.
+         */
+        private static class CompileBatch {
+            final ClassLoader classLoader = new ClassLoader(ClassCache.class.getClassLoader()) {
+            };
+            final CachedCompiler compiler = new CachedCompiler(null, null);
+        }
+
+        /**
+         * A compiled select with its literals.
+         */
+        private static class BoundPredicate<V> implements Predicate<V> {
+            private final BiPredicate<V, Object[]> compiled;
+            private final Object[] params;
+            private final String select;
+
+            BoundPredicate(BiPredicate<V, Object[]> compiled, Object[] params, String select) {
+                this.compiled = compiled;
+                this.params = params;
+                this.select = select;
+            }
+
+            @Override
+            public boolean test(V v) {
+                return compiled.test(v, params);
+            }
+
+            @Override
+            public String toString() {
+                return select;
+            }
+        }
+
+        /**
+         * Interprets the select until the class is compiled.
+         */
+        private static class PendingPredicate<V> implements Predicate<V> {
+            private final String select;
+            private volatile Predicate<V> predicate;
+
+            PendingPredicate(Predicate<V> interpreted, CompletableFuture<BiPredicate> compiled,
+                             Object[] params, String select) {
+                this.predicate = interpreted;
+                this.select = select;
+                compiled.whenComplete((c, e) -> {
+                    if (c != null)
+                        predicate = new BoundPredicate<>(c, params, select);
+                    else
+                        Jvm.warn().on(VanillaIndexQuery.class, "Unable to compile " + select
+                                + ", interpreting it instead", e);
+                });
+            }
+
+            @Override
+            public boolean test(V v) {
+                return predicate.test(v);
+            }
+
+            @Override
+            public String toString() {
+                return select;
+            }
+        }
+
         static class TypedSelect extends AbstractMarshallable {
             private String select;
             private Class clazz;
@@ -26,6 +26,7 @@ import net.openhft.chronicle.engine.api.pubsub.ConsumingSubscriber;
 import net.openhft.chronicle.engine.api.pubsub.Subscriber;
 import net.openhft.chronicle.engine.api.tree.Asset;
 import net.openhft.chronicle.engine.api.tree.RequestContext;
+import net.openhft.chronicle.engine.query.QueueConfig;
 import net.openhft.chronicle.engine.tree.ChronicleQueueView;
 import net.openhft.chronicle.engine.tree.QueueView;
 import net.openhft.chronicle.queue.ChronicleQueue;
@@ -36,13 +37,22 @@ import org.jetbrains.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
@@ -68,7 +78,30 @@ public class VanillaIndexQueueView<V extends Marshallable>
     private final Object lastIndexLock = new Object();
     private final ThreadLocal<IndexedValue<V>> indexedValue = ThreadLocal.withInitial(IndexedValue::new);
     private final TypeToString typeToString;
+    @Nullable
+    private final IndexedFields indexedFields;
+    // event name -> indexes on the fields of its values.
+    private final Map<String, SecondaryIndex> secondaryIndexes = new ConcurrentHashMap<>();
+    @Nullable
+    private final IndexCheckpoint indexCheckpoint;
+    private final long checkpointPeriodMs;
+    private long lastCheckpointMs = System.currentTimeMillis();
+    // event name -> keys changed since the last checkpoint, guarded by lastIndexLock.
+    private final Map<String, Set<Object>> dirty = new HashMap<>();
     private volatile long lastIndexRead = 0;
+    // guarded by lastIndexLock, set once close() has written the last checkpoint.
+    private boolean checkpointClosed;
+
+    private final boolean sharedTailer;
+    // values a live subscriber can be behind before it goes back to its own tailer.
+    private final int maxLiveBacklog;
+    // guards liveSubscriptions and joining them, held by the index while it reads each document.
+    private final Object liveLock = new Object();
+    private final List<SharedTailerSubscription> liveSubscriptions = new ArrayList<>();
+    private final Map<Subscriber<IndexedValue<V>>, SharedTailerSubscription> sharedSubscriptions
+            = new ConcurrentHashMap<>();
+    // the last document read by the tailer of the index and offered to the live subscribers.
+    private volatile long sharedLastIndex = -1;
     private long lastSecond = TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis());
     private long messagesReadPerSecond = 0;
 
@@ -79,6 +112,8 @@ public class VanillaIndexQueueView<V extends Marshallable>
                                  @NotNull QueueView<?, V> queueView) {
 
         valueToKey = asset.findView(ValueToKey.class);
+        final IndexedFields indexedFields = asset.findView(IndexedFields.class);
+        this.indexedFields = indexedFields == null || indexedFields.isEmpty() ? null : indexedFields;
 
         final EventLoop eventLoop = asset.acquireView(EventLoop.class);
         final ChronicleQueueView chronicleQueueView = (ChronicleQueueView) queueView;
@@ -88,6 +123,21 @@ public class VanillaIndexQueueView<V extends Marshallable>
 
         typeToString = asset.root().findView(TypeToString.class);
 
+        final QueueConfig queueConfig = asset.findView(QueueConfig.class);
+        sharedTailer = queueConfig != null && queueConfig.sharedIndexTailer();
+        maxLiveBacklog = queueConfig == null ? 0 : queueConfig.sharedIndexTailerBacklog();
+        if (queueConfig != null && queueConfig.indexCheckpointPeriodMs() > 0) {
+            final File queueDir = chronicleQueue.file();
+            indexCheckpoint = new IndexCheckpoint(
+                    new File(queueDir.getParentFile(), queueDir.getName() + ".index-checkpoint"),
+                    queueConfig.indexCheckpointEntries());
+            checkpointPeriodMs = queueConfig.indexCheckpointPeriodMs();
+            loadCheckpoint(tailer);
+        } else {
+            indexCheckpoint = null;
+            checkpointPeriodMs = 0;
+        }
+
         eventLoop.addHandler(() -> {
 
             long currentSecond = TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis());
@@ -98,67 +148,210 @@ public class VanillaIndexQueueView<V extends Marshallable>
                 messagesReadPerSecond = 0;
             }
 
+            // close() writes the last checkpoint.
             if (isClosed.get())
                 throw new InvalidEventHandlerException();
 
-            try (DocumentContext dc = tailer.readingDocument()) {
+            // between documents, so the checkpoint never holds part of one.
+            if (indexCheckpoint != null)
+                checkpointIfDue();
 
-                if (!dc.isPresent())
-                    return false;
-                long start = dc.wire().bytes().readPosition();
-
-                try {
-                    while (dc.wire().bytes().readRemaining() > 0) {
-                        final StringBuilder sb = acquireStringBuilder();
-                        final ValueIn read = dc.wire().read(sb);
-
-                        if (sb.length() == 0)
-                            continue;
-
-                        final V v = (V) VanillaObjectCacheFactory.INSTANCE.get()
-                                .apply(typeToString.toType(sb));
-                        read.marshallable(v);
-
-                        assert v != null;
-
-                        final Object k;
-                        if (valueToKey != null) {
-                            k = valueToKey.apply(v);
-                        } else if (v instanceof KeyedMarshallable) {
-                            final Bytes bytes = Wires.acquireBytes();
-                            ((KeyedMarshallable) v).writeKey(bytes);
-                            k = bytesToKey.computeIfAbsent(bytes, Bytes::copy);
-                        } else
-                            continue;
-
-                        if (k == null)
-                            continue;
-
-                        messagesReadPerSecond++;
-
-                        final String eventName = sb.toString();
-                        synchronized (lastIndexLock) {
-                            multiMap.computeIfAbsent(eventName, e -> new ConcurrentHashMap<>())
-                                    .compute(k, (k1, vOld) -> {
-                                        if (vOld == null)
-                                            return new IndexedValue<>(deepCopy(v), dc.index());
-                                        else {
-                                            copyTo(v, vOld.v());
-                                            vOld.index(dc.index());
-                                            return vOld;
-                                        }
-                                    });
-                            lastIndexRead = dc.index();
-                        }
-                    }
-
-                } catch (RuntimeException e) {
-                    Jvm.warn().on(getClass(), fromSizePrefixedBlobs(dc.wire().bytes(), start - 4), e);
+            if (!sharedTailer)
+                return readDocument(tailer);
+
+            // a subscriber can't join part way through a document.
+            synchronized (liveLock) {
+                return readDocument(tailer);
+            }
+        });
+    }
+
+    private boolean readDocument(@NotNull ExcerptTailer tailer) {
+        // a checkpoint, or close(), waits for the whole document.
+        synchronized (lastIndexLock) {
+            return readDocument0(tailer);
+        }
+    }
+
+    private boolean readDocument0(@NotNull ExcerptTailer tailer) {
+        try (DocumentContext dc = tailer.readingDocument()) {
+
+            if (!dc.isPresent())
+                return false;
+            long start = dc.wire().bytes().readPosition();
+
+            try {
+                while (dc.wire().bytes().readRemaining() > 0) {
+                    final StringBuilder sb = acquireStringBuilder();
+                    final ValueIn read = dc.wire().read(sb);
+
+                    if (sb.length() == 0)
+                        continue;
+
+                    final V v = (V) VanillaObjectCacheFactory.INSTANCE.get()
+                            .apply(typeToString.toType(sb));
+                    read.marshallable(v);
+
+                    assert v != null;
+
+                    if (sharedTailer && !liveSubscriptions.isEmpty())
+                        offerToLive(sb, v, dc.index());
+
+                    final Object k = key(v);
+                    if (k == null)
+                        continue;
+
+                    messagesReadPerSecond++;
+
+                    final String eventName = sb.toString();
+                    final IndexedValue<V> latest = multiMap.computeIfAbsent(eventName, e -> new ConcurrentHashMap<>())
+                            .compute(k, (k1, vOld) -> {
+                                if (vOld == null)
+                                    return new IndexedValue<>(deepCopy(v), dc.index());
+                                else {
+                                    copyTo(v, vOld.v());
+                                    vOld.index(dc.index());
+                                    return vOld;
+                                }
+                            });
+                    if (indexedFields != null)
+                        secondaryIndex(eventName).update(k, latest.v());
+                    lastIndexRead = dc.index();
+                    if (indexCheckpoint != null)
+                        dirty.computeIfAbsent(eventName, e -> new HashSet<>()).add(k);
                 }
+
+            } catch (RuntimeException e) {
+                Jvm.warn().on(getClass(), fromSizePrefixedBlobs(dc.wire().bytes(), start - 4), e);
+
+            } finally {
+                if (sharedTailer)
+                    sharedLastIndex = dc.index();
             }
+        }
 
-            return true;
+        return true;
+    }
+
+    /**
+     * Decode once, and offer a copy of the value to every live subscriber whose query it matches.
+     * Called holding the liveLock.
+     */
+    private void offerToLive(@NotNull CharSequence eventName, @NotNull V v, long index) {
+        V copy = null;
+        for (Iterator<SharedTailerSubscription> it = liveSubscriptions.iterator(); it.hasNext(); ) {
+            final SharedTailerSubscription subscription = it.next();
+            if (index <= subscription.lastRead
+                    || !subscription.eventName.contentEquals(eventName)
+                    || !subscription.filter.test(v))
+                continue;
+
+            if (copy == null)
+                copy = deepCopy(v);
+            if (!subscription.offer(new IndexedValue<>(copy, index))) {
+                // too far behind, it goes back to its own tailer from this excerpt.
+                it.remove();
+                subscription.fallBehind(index);
+            }
+        }
+    }
+
+    @NotNull
+    private SecondaryIndex secondaryIndex(@NotNull String eventName) {
+        assert indexedFields != null;
+        return secondaryIndexes.computeIfAbsent(eventName, e -> new SecondaryIndex(indexedFields));
+    }
+
+    /**
+     * @return the latest values which might match the query, found with a secondary index if the
+     * select has a condition on an indexed field, otherwise all of them.
+     */
+    @NotNull
+    private Collection<IndexedValue<V>> candidates(@NotNull IndexQuery<V> indexQuery,
+                                                   @NotNull Map<Object, IndexedValue<V>> values) {
+        final SecondaryIndex secondaryIndex = secondaryIndexes.get(indexQuery.eventName());
+        if (secondaryIndex == null)
+            return values.values();
+
+        final List<SelectCondition> conditions = SelectCondition.parse(indexQuery.select());
+        final Collection<Object> keys = conditions == null ? null : secondaryIndex.candidates(conditions);
+        if (keys == null)
+            return values.values();
+
+        final List<IndexedValue<V>> candidates = new ArrayList<>(keys.size());
+        for (Object key : keys) {
+            final IndexedValue<V> indexedValue = values.get(key);
+            if (indexedValue != null)
+                candidates.add(indexedValue);
+        }
+        return candidates;
+    }
+
+    @Nullable
+    private Object key(@NotNull V v) {
+        if (valueToKey != null)
+            return valueToKey.apply(v);
+
+        if (v instanceof KeyedMarshallable) {
+            final Bytes bytes = Wires.acquireBytes();
+            ((KeyedMarshallable) v).writeKey(bytes);
+            return bytesToKey.computeIfAbsent(bytes, Bytes::copy);
+        }
+        return null;
+    }
+
+    /**
+     * Load the latest values from the checkpoint and move the tailer to the first excerpt after it.
+     */
+    private void loadCheckpoint(@NotNull ExcerptTailer tailer) {
+        assert indexCheckpoint != null;
+        if (!indexCheckpoint.resume(tailer))
+            return;
+
+        final long lastIndex = indexCheckpoint.lastIndex();
+        indexCheckpoint.<V>forEach((eventName, indexedValue) -> {
+            final Object k = key(indexedValue.v());
+            if (k == null)
+                return;
+            multiMap.computeIfAbsent(eventName, e -> new ConcurrentHashMap<>())
+                    .put(k, indexedValue);
+            if (indexedFields != null)
+                secondaryIndex(eventName).update(k, indexedValue.v());
         });
+        lastIndexRead = lastIndex;
+        sharedLastIndex = lastIndex;
+        lastCheckpointMs = System.currentTimeMillis();
+        LOG.info("loaded the index of " + chronicleQueue.file() + " up to index "
+                + Long.toHexString(lastIndex) + " from " + indexCheckpoint.directory());
+    }
+
+    private void checkpointIfDue() {
+        final long now = System.currentTimeMillis();
+        if (now < lastCheckpointMs + checkpointPeriodMs)
+            return;
+        lastCheckpointMs = now;
+        checkpoint();
+    }
+
+    /**
+     * Write the values which have changed since the last checkpoint, then the last index read.
+     */
+    private void checkpoint() {
+        assert indexCheckpoint != null;
+        synchronized (lastIndexLock) {
+            if (checkpointClosed || dirty.isEmpty())
+                return;
+            for (Map.Entry<String, Set<Object>> entry : dirty.entrySet()) {
+                final ConcurrentMap<Object, IndexedValue<V>> values = multiMap.get(entry.getKey());
+                for (Object k : entry.getValue()) {
+                    final IndexedValue<V> indexedValue = values.get(k);
+                    if (indexedValue != null)
+                        indexCheckpoint.put(entry.getKey(), k, indexedValue);
+                }
+            }
+            dirty.clear();
+            indexCheckpoint.lastIndex(lastIndexRead);
+        }
     }
 
     /**
@@ -195,7 +388,7 @@ public class VanillaIndexQueueView<V extends Marshallable>
         final ConcurrentMap<Object, IndexedValue<V>> objectIndexedValueConcurrentMap = multiMap.computeIfAbsent(eventName, k -> new ConcurrentHashMap<>());
 
         final long fromIndex0 = fromIndex;
-        List<IndexedValue<V>> l = objectIndexedValueConcurrentMap.values().stream()
+        List<IndexedValue<V>> l = candidates(vanillaIndexQuery, objectIndexedValueConcurrentMap).stream()
                 .filter(i -> i.index() < fromIndex0 && filter.test(i.v()))
                 .collect(Collectors.toList());
 
@@ -206,8 +399,15 @@ public class VanillaIndexQueueView<V extends Marshallable>
             if (fromIndex != 0)
                 if (!tailer.moveToIndex(fromIndex))
                     throw new IllegalStateException("Failed to move to index " + Long.toHexString(fromIndex));
-            final Supplier<Marshallable> supplier = excerptConsumer(vanillaIndexQuery,
-                    tailer, iterator, fromIndex);
+            final Supplier<Marshallable> supplier;
+            if (sharedTailer) {
+                final SharedTailerSubscription subscription = new SharedTailerSubscription(
+                        vanillaIndexQuery, tailer, iterator, fromIndex, isClosed);
+                sharedSubscriptions.put(sub, subscription);
+                supplier = subscription;
+            } else {
+                supplier = excerptConsumer(vanillaIndexQuery, tailer, iterator, fromIndex);
+            }
             sub.addSupplier(supplier);
 
         } catch (RuntimeException e) {
@@ -255,29 +455,40 @@ public class VanillaIndexQueueView<V extends Marshallable>
             if (from > dc.index())
                 return null;
 
-            final StringBuilder sb = acquireStringBuilder();
-            while (dc.wire().bytes().readRemaining() > 0) {
-                final ValueIn valueIn = dc.wire().read(sb);
-                if (!eventName.contentEquals(sb)) {
-                    valueIn.skipValue();
-                    continue;
-                }
+            return firstMatch(eventName, filter, dc);
+        }
+    }
 
-                final V v = (V) VanillaObjectCacheFactory.INSTANCE.get()
-                        .apply(typeToString.toType(sb));
-                valueIn.marshallable(v);
+    /**
+     * @return the first value in the document with this event name which passes the filter, or
+     * null if there isn't one.
+     */
+    @Nullable
+    private IndexedValue<V> firstMatch(@NotNull String eventName,
+                                       @NotNull Predicate<V> filter,
+                                       @NotNull DocumentContext dc) {
+        final StringBuilder sb = acquireStringBuilder();
+        while (dc.wire().bytes().readRemaining() > 0) {
+            final ValueIn valueIn = dc.wire().read(sb);
+            if (!eventName.contentEquals(sb)) {
+                valueIn.skipValue();
+                continue;
+            }
 
-                if (!filter.test(v))
-                    continue;
+            final V v = (V) VanillaObjectCacheFactory.INSTANCE.get()
+                    .apply(typeToString.toType(sb));
+            valueIn.marshallable(v);
 
-                final IndexedValue<V> indexedValue = this.indexedValue.get();
-                long index = dc.index();
-                indexedValue.index(index);
-                indexedValue.v(v);
-                indexedValue.timePublished(System.currentTimeMillis());
-                indexedValue.maxIndex(lastIndexRead);
-                return indexedValue;
-            }
+            if (!filter.test(v))
+                continue;
+
+            final IndexedValue<V> indexedValue = this.indexedValue.get();
+            long index = dc.index();
+            indexedValue.index(index);
+            indexedValue.v(v);
+            indexedValue.timePublished(System.currentTimeMillis());
+            indexedValue.maxIndex(lastIndexRead);
+            return indexedValue;
         }
         return null;
     }
@@ -285,13 +496,158 @@ public class VanillaIndexQueueView<V extends Marshallable>
     public void unregisterSubscriber(@NotNull ConsumingSubscriber<IndexedValue<V>> listener) {
         final AtomicBoolean isClosed = activeSubscriptions.remove(listener);
         if (isClosed != null) isClosed.set(true);
+
+        final SharedTailerSubscription subscription = sharedSubscriptions.remove(listener);
+        if (subscription != null)
+            synchronized (liveLock) {
+                liveSubscriptions.remove(subscription);
+            }
     }
 
     @Override
     public void close() {
         isClosed.set(true);
+        // before the queue is closed, and between documents so it doesn't hold part of one.
+        if (indexCheckpoint != null)
+            synchronized (lastIndexLock) {
+                if (!checkpointClosed) {
+                    checkpoint();
+                    checkpointClosed = true;
+                    indexCheckpoint.close();
+                }
+            }
         activeSubscriptions.values().forEach(v -> v.set(true));
+        synchronized (liveLock) {
+            liveSubscriptions.clear();
+        }
+        sharedSubscriptions.clear();
         chronicleQueue.close();
     }
+
+    /**
+     * A subscriber which reads the queue with its own tailer until it has caught up with the tailer
+     * of the index, then is offered the values the index decodes, so the queue is read once however
+     * many subscribers there are. If it falls more than {@link QueueConfig#sharedIndexTailerBacklog()}
+     * values behind, it goes back to its own tailer until it catches up again.
+     */
+    private final class SharedTailerSubscription implements Supplier<Marshallable> {
+
+        private final String eventName;
+        private final Predicate<V> filter;
+        private final ExcerptTailer tailer;
+        private final Iterator<IndexedValue<V>> iterator;
+        private final long from;
+        private final AtomicBoolean closed;
+        // unbounded, so nothing is allocated up front, rather its size is limited by backlogSize.
+        private final Queue<IndexedValue<V>> backlog = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger backlogSize = new AtomicInteger();
+        // every document up to this index has been delivered or skipped.
+        private volatile long lastRead;
+        private volatile boolean live;
+        // the document its own tailer has to go back to after falling behind, or -1.
+        private volatile long resumeFrom = -1;
+
+        SharedTailerSubscription(@NotNull IndexQuery<V> indexQuery,
+                                 @NotNull ExcerptTailer tailer,
+                                 @NotNull Iterator<IndexedValue<V>> iterator,
+                                 long from,
+                                 @NotNull AtomicBoolean closed) {
+            this.eventName = indexQuery.eventName();
+            this.filter = indexQuery.filter();
+            this.tailer = tailer;
+            this.iterator = iterator;
+            this.from = from;
+            this.closed = closed;
+            // the documents before 'from' are in the snapshot.
+            this.lastRead = from - 1;
+        }
+
+        @Nullable
+        @Override
+        public Marshallable get() {
+            if (iterator.hasNext()) {
+                final IndexedValue<V> indexedValue = iterator.next();
+                indexedValue.timePublished(System.currentTimeMillis());
+                indexedValue.maxIndex(lastIndexRead);
+                return indexedValue;
+            }
+
+            if (isClosed.get() || closed.get())
+                throw Jvm.rethrow(new InvalidEventHandlerException("shutdown"));
+
+            // read before polling, so nothing offered before it fell behind is missed.
+            final boolean live = this.live;
+            final IndexedValue<V> indexedValue = backlog.poll();
+            if (indexedValue != null) {
+                backlogSize.decrementAndGet();
+                indexedValue.timePublished(System.currentTimeMillis());
+                indexedValue.maxIndex(lastIndexRead);
+                return indexedValue;
+            }
+            if (live)
+                return null;
+
+            final long resumeFrom = this.resumeFrom;
+            if (resumeFrom != -1) {
+                this.resumeFrom = -1;
+                if (!tailer.moveToIndex(resumeFrom))
+                    Jvm.warn().on(getClass(), "Failed to move to index " + Long.toHexString(resumeFrom));
+            }
+            return catchUp();
+        }
+
+        @Nullable
+        private Marshallable catchUp() {
+            try (DocumentContext dc = tailer.readingDocument()) {
+                if (!dc.isPresent()) {
+                    join();
+                    return null;
+                }
+
+                final long index = dc.index();
+                if (from > index)
+                    return null;
+
+                // the index hasn't read this document yet, so it can be offered it instead.
+                if (index > sharedLastIndex && join())
+                    return null;
+
+                lastRead = index;
+                return firstMatch(eventName, filter, dc);
+            }
+        }
+
+        private boolean join() {
+            synchronized (liveLock) {
+                if (sharedLastIndex > lastRead || closed.get())
+                    return false;
+                live = true;
+                liveSubscriptions.add(this);
+                return true;
+            }
+        }
+
+        /**
+         * Called by the index holding the liveLock.
+         *
+         * @return false if the backlog is full.
+         */
+        boolean offer(@NotNull IndexedValue<V> indexedValue) {
+            if (backlogSize.get() >= maxLiveBacklog)
+                return false;
+            backlogSize.incrementAndGet();
+            backlog.add(indexedValue);
+            return true;
+        }
+
+        /**
+         * Called by the index holding the liveLock, when the backlog is full.
+         */
+        void fallBehind(long index) {
+            lastRead = index - 1;
+            resumeFrom = index;
+            live = false;
+        }
+    }
 }
 
@@ -111,7 +111,9 @@ public class RequestContext implements Cloneable {
             removeReturnsNull = null,
             nullOldValueOnUpdateEvent = null,
             endSubscriptionAfterBootstrap = null,
-            bootstrap = null;
+            bootstrap = null,
+            needsPrevious = null,
+            batched = null;
     private double averageValueSize;
     private long entries;
     private Boolean recurse;
@@ -120,6 +122,8 @@ public class RequestContext implements Cloneable {
 
     private int throttlePeriodMs = 0;
     private boolean dontPersist;
+    private int writeBehindMs = 0;
+    private int writeBehindKeys = 1000;
 
     private RequestContext() {
     }
@@ -238,10 +242,14 @@ public class RequestContext implements Cloneable {
         parser.register(() -> "elementType", (s, v, $) -> v.typeLiteral(this, (o, x) -> o.type2 = x));
         parser.register(() -> "endSubscriptionAfterBootstrap", (s, v, $) -> v.bool(this, (o, x) -> o.endSubscriptionAfterBootstrap = x));
         parser.register(() -> "throttlePeriodMs", (s, v, $) -> v.int32(this, (o, x) -> o.throttlePeriodMs = x));
+        parser.register(() -> "needsPrevious", (s, v, $) -> v.bool(this, (o, x) -> o.needsPrevious = x));
+        parser.register(() -> "batched", (s, v, $) -> v.bool(this, (o, x) -> o.batched = x));
 
         parser.register(() -> "entries", (s, v, $) -> v.int64(this, (o, x) -> o.entries = x));
         parser.register(() -> "averageValueSize", (s, v, $) -> v.int64(this, (o, x) -> o.averageValueSize = x));
         parser.register(() -> "dontPersist", (s, v, $) -> v.bool(this, (o, x) -> o.dontPersist = x));
+        parser.register(() -> "writeBehindMs", (s, v, $) -> v.int32(this, (o, x) -> o.writeBehindMs = x));
+        parser.register(() -> "writeBehindKeys", (s, v, $) -> v.int32(this, (o, x) -> o.writeBehindKeys = x));
         return parser;
     }
 
@@ -467,6 +475,38 @@ public class RequestContext implements Cloneable {
         return endSubscriptionAfterBootstrap;
     }
 
+    /**
+     * @return false if the subscriber registered with this context only needs the new value of
+     * an entry, null if it has not said.
+     */
+    @Nullable
+    public Boolean needsPrevious() {
+        return needsPrevious;
+    }
+
+    @NotNull
+    public RequestContext needsPrevious(boolean needsPrevious) {
+        checkSealed();
+        this.needsPrevious = needsPrevious;
+        return this;
+    }
+
+    /**
+     * @return true if the subscriber registered with this context can be sent many events as one,
+     * null if it has not said.
+     */
+    @Nullable
+    public Boolean batched() {
+        return batched;
+    }
+
+    @NotNull
+    public RequestContext batched(boolean batched) {
+        checkSealed();
+        this.batched = batched;
+        return this;
+    }
+
     void checkSealed() {
         if (sealed) throw new IllegalStateException();
     }
@@ -490,7 +530,11 @@ public class RequestContext implements Cloneable {
                 ", recurse=" + recurse +
                 ", endSubscriptionAfterBootstrap=" + endSubscriptionAfterBootstrap +
                 ", throttlePeriodMs=" + throttlePeriodMs +
+                ", needsPrevious=" + needsPrevious +
+                ", batched=" + batched +
                 ", dontPersist=" + dontPersist +
+                ", writeBehindMs=" + writeBehindMs +
+                ", writeBehindKeys=" + writeBehindKeys +
                 '}';
     }
 
@@ -590,6 +634,30 @@ public class RequestContext implements Cloneable {
         return this;
     }
 
+    /**
+     * @return how long a client map may hold a put before sending it, or 0 to send it at once.
+     */
+    public int writeBehindMs() {
+        return writeBehindMs;
+    }
+
+    public RequestContext writeBehindMs(int writeBehindMs) {
+        this.writeBehindMs = writeBehindMs;
+        return this;
+    }
+
+    /**
+     * @return how many keys a client map may hold before sending them, when writing behind.
+     */
+    public int writeBehindKeys() {
+        return writeBehindKeys;
+    }
+
+    public RequestContext writeBehindKeys(int writeBehindKeys) {
+        this.writeBehindKeys = writeBehindKeys;
+        return this;
+    }
+
     public enum Operation {
         END_SUBSCRIPTION_AFTER_BOOTSTRAP, BOOTSTRAP;
 
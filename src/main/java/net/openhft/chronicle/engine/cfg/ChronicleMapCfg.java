@@ -29,6 +29,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.time.LocalTime;
 
 /**
  * Created by daniel on 26/08/15.
@@ -54,12 +55,54 @@ public class ChronicleMapCfg implements Installable {
         if (entries != -1) rc.entries(entries);
         if (averageSize != -1) rc.averageValueSize(averageSize);
 
+        if (InstallTasks.LAZY) {
+            // opened by the first acquireView, so a map which isn't used costs nothing at startup.
+            // The rule is inherited, so assets below this one fall through to the usual rules.
+            // Replication starts when the store is opened, so until then a replicated map neither
+            // sends nor receives updates from other hosts.
+            InstallStat stat = new InstallStat();
+            stat.state = InstallStat.LAZY;
+            stat.started = LocalTime.now();
+            InstallTasks.record(assetTree, path, stat);
+            asset.addLeafRule(ObjectKeyValueStore.class, "lazy ChronicleMapKeyValueStore",
+                    (rc2, asset2) -> asset2 == asset ? open(path, rc, asset, assetTree) : null);
+            return null;
+        }
+
         ChronicleMapKeyValueStore chronicleMapKeyValueStore = new ChronicleMapKeyValueStore(rc, asset);
         asset.addView(ObjectKeyValueStore.class, chronicleMapKeyValueStore);
 
         return null;
     }
 
+    @NotNull
+    private static ChronicleMapKeyValueStore open(String path, RequestContext rc, Asset asset, AssetTree assetTree) {
+        long start = System.nanoTime();
+        InstallStat stat = new InstallStat();
+        stat.started = LocalTime.now();
+        stat.thread = Thread.currentThread().getName();
+        try {
+            ChronicleMapKeyValueStore store = new ChronicleMapKeyValueStore(rc, asset);
+            stat.state = InstallStat.READY;
+            return store;
+
+        } catch (RuntimeException e) {
+            stat.state = InstallStat.FAILED;
+            stat.error = e.toString();
+            throw e;
+
+        } finally {
+            stat.durationMs = (System.nanoTime() - start) / 1_000_000;
+            InstallTasks.record(assetTree, path, stat);
+            LOGGER.info("Opened " + path + " " + stat);
+        }
+    }
+
+    @Override
+    public boolean installsInParallel() {
+        return true;
+    }
+
     @Override
     public void readMarshallable(@NotNull WireIn wire) throws IllegalStateException {
         wire.read(() -> "diskPath").text(this, (o, c) -> o.diskPath = c)
@@ -38,17 +38,24 @@ public class EngineCfg implements Installable {
     @Override
     public Void install(String path, AssetTree assetTree) throws Exception {
         LOGGER.info("Building Engine " + assetTree);
-        for (Map.Entry<String, Installable> entry : installableMap.entrySet()) {
-            String path2 = entry.getKey();
-            LOGGER.info("Installing " + path2 + ": " + entry.getValue());
-            Object install = entry.getValue().install(path2, assetTree);
-            if (install != null) {
-                int pos = path2.lastIndexOf('/');
-                String parent = path2.substring(0, pos);
-                MapView<String, Object> map = assetTree.acquireMap(parent, String.class, Object.class);
-                String name = path2.substring(pos + 1);
-                map.put(name, install);
+        try (InstallTasks tasks = new InstallTasks(assetTree)) {
+            for (Map.Entry<String, Installable> entry : installableMap.entrySet()) {
+                String path2 = entry.getKey();
+                Installable installable = entry.getValue();
+                LOGGER.info("Installing " + path2 + ": " + installable);
+                tasks.install(path2, installable.installsInParallel(), () -> {
+                    Object install = installable.install(path2, assetTree);
+                    if (install != null) {
+                        int pos = path2.lastIndexOf('/');
+                        String parent = path2.substring(0, pos);
+                        MapView<String, Object> map = assetTree.acquireMap(parent, String.class, Object.class);
+                        String name = path2.substring(pos + 1);
+                        map.put(name, install);
+                    }
+                    return install;
+                });
             }
+            tasks.awaitPending();
         }
         return null;
     }
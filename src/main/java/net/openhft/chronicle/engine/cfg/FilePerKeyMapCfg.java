@@ -53,6 +53,11 @@ public class FilePerKeyMapCfg implements Installable {
         return null;
     }
 
+    @Override
+    public boolean installsInParallel() {
+        return true;
+    }
+
     @Override
     public void readMarshallable(@NotNull WireIn wire) throws IllegalStateException {
         wire.read(() -> "keyType").typeLiteral(this, (o, c) -> o.keyType = c)
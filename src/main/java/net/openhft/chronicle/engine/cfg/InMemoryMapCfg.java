@@ -55,6 +55,11 @@ public class InMemoryMapCfg implements Installable {
         return null;
     }
 
+    @Override
+    public boolean installsInParallel() {
+        return true;
+    }
+
     @Override
     public void readMarshallable(@NotNull WireIn wire) throws IllegalStateException {
         wire.read(() -> "keyType").typeLiteral(this, (o, c) -> o.keyType = c)
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2016 higherfrequencytrading.com
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package net.openhft.chronicle.engine.cfg;
+
+import net.openhft.chronicle.core.io.IORuntimeException;
+import net.openhft.chronicle.wire.Marshallable;
+import net.openhft.chronicle.wire.WireIn;
+import net.openhft.chronicle.wire.WireOut;
+import org.jetbrains.annotations.NotNull;
+
+import java.time.LocalTime;
+
+/**
+ * How long a store or mount point took to install at startup, or whether it is still to be opened.
+ * Published in {@link InstallTasks#STATS_PATH}.
+ */
+public class InstallStat implements Marshallable {
+    public static final String PENDING = "pending";
+    public static final String LAZY = "lazy";
+    public static final String READY = "ready";
+    public static final String FAILED = "failed";
+
+    public String state = PENDING;
+    public LocalTime started;
+    public long durationMs;
+    public String thread;
+    public String error;
+
+    public String getState() {
+        return state;
+    }
+
+    public LocalTime getStarted() {
+        return started;
+    }
+
+    public long getDurationMs() {
+        return durationMs;
+    }
+
+    public String getThread() {
+        return thread;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    @Override
+    public void readMarshallable(@NotNull WireIn wire) throws IORuntimeException {
+        wire.read(() -> "state").text(this, (o, s) -> o.state = s)
+                .read(() -> "started").time(this, (o, t) -> o.started = t)
+                .read(() -> "durationMs").int64(this, (o, d) -> o.durationMs = d)
+                .read(() -> "thread").text(this, (o, s) -> o.thread = s)
+                .read(() -> "error").text(this, (o, s) -> o.error = s);
+    }
+
+    @Override
+    public void writeMarshallable(@NotNull WireOut wire) {
+        wire.write(() -> "state").text(state)
+                .write(() -> "started").time(started)
+                .write(() -> "durationMs").int64(durationMs)
+                .write(() -> "thread").text(thread)
+                .write(() -> "error").text(error);
+    }
+
+    @Override
+    public String toString() {
+        return "InstallStat{" +
+                "state=" + state +
+                ", started=" + started +
+                ", durationMs=" + durationMs +
+                ", thread=" + thread +
+                (error == null ? "" : ", error=" + error) +
+                '}';
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright 2016 higherfrequencytrading.com
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package net.openhft.chronicle.engine.cfg;
+
+import net.openhft.chronicle.engine.api.map.MapView;
+import net.openhft.chronicle.engine.api.tree.AssetTree;
+import net.openhft.chronicle.threads.NamedThreadFactory;
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.concurrent.Executors.newFixedThreadPool;
+
+/**
+ * Runs the installs of a configuration, recording how long each took in {@link #STATS_PATH}. <p></p>
+ * With <code>engine.install.threads</code> above 1, installs which can run in parallel are run on a
+ * pool of that many threads; an install which can't waits for those before it, so it still sees
+ * everything configured above it. With <code>engine.install.lazy</code> the stores which support
+ * it are opened on their first use instead, and a replicated map doesn't replicate until then.
+ */
+public class InstallTasks implements Closeable {
+    public static final String STATS_PATH = "/proc/startup";
+    public static final int THREADS = Integer.getInteger("engine.install.threads", 1);
+    public static final boolean LAZY = Boolean.getBoolean("engine.install.lazy");
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(InstallTasks.class);
+    private static final long CLOSE_TIMEOUT_MS = Long.getLong("engine.install.closeTimeoutMs", 60_000);
+
+    @NotNull
+    private final AssetTree assetTree;
+    private final int threads;
+    private final ExecutorService pool;
+    private final List<Future<?>> pending = new ArrayList<>();
+    private final long start = System.currentTimeMillis();
+    private int count;
+
+    public InstallTasks(@NotNull AssetTree assetTree) {
+        this(assetTree, THREADS);
+    }
+
+    /**
+     * @param threads to run parallel installs on, 1 or less to run every install in turn.
+     */
+    public InstallTasks(@NotNull AssetTree assetTree, int threads) {
+        this.assetTree = assetTree;
+        this.threads = threads;
+        this.pool = threads > 1 ? newFixedThreadPool(threads, new NamedThreadFactory("install", true)) : null;
+    }
+
+    /**
+     * Record the state of the store at <code>name</code>, e.g. when a lazy store is opened.
+     */
+    public static void record(@NotNull AssetTree assetTree, @NotNull String name, @NotNull InstallStat stat) {
+        stats(assetTree).put(name, stat);
+    }
+
+    @NotNull
+    private static MapView<String, InstallStat> stats(@NotNull AssetTree assetTree) {
+        return assetTree.acquireMap(STATS_PATH, String.class, InstallStat.class);
+    }
+
+    /**
+     * Install <code>name</code> now, or on the pool if <code>parallel</code> and there is one.
+     */
+    public void install(@NotNull String name, boolean parallel, @NotNull Callable<?> install) throws Exception {
+        count++;
+        InstallStat stat = new InstallStat();
+        stat.started = LocalTime.now();
+        record(assetTree, name, stat);
+
+        if (parallel && pool != null) {
+            pending.add(pool.submit(() -> run(name, stat, install)));
+        } else {
+            awaitPending();
+            run(name, stat, install);
+        }
+    }
+
+    private Object run(@NotNull String name, @NotNull InstallStat stat, @NotNull Callable<?> install) throws Exception {
+        long startNs = System.nanoTime();
+        stat.started = LocalTime.now();
+        stat.thread = Thread.currentThread().getName();
+        try {
+            Object result = install.call();
+            // a store which is opened on first use says so itself.
+            InstallStat recorded = stats(assetTree).get(name);
+            stat.state = recorded != null && InstallStat.LAZY.equals(recorded.state)
+                    ? InstallStat.LAZY
+                    : InstallStat.READY;
+            return result;
+
+        } catch (Exception e) {
+            stat.state = InstallStat.FAILED;
+            stat.error = e.toString();
+            throw e;
+
+        } finally {
+            stat.durationMs = (System.nanoTime() - startNs) / 1_000_000;
+            record(assetTree, name, stat);
+            LOGGER.info("Installed " + name + " " + stat);
+        }
+    }
+
+    /**
+     * Wait for every install so far, rethrowing the first to fail.
+     */
+    public void awaitPending() throws Exception {
+        try {
+            for (Future<?> future : pending) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    if (cause instanceof Exception)
+                        throw (Exception) cause;
+                    throw e;
+                }
+            }
+        } finally {
+            pending.clear();
+        }
+    }
+
+    /**
+     * Let the installs already submitted finish, rather than interrupting them part way, waiting up
+     * to <code>engine.install.closeTimeoutMs</code>.
+     */
+    @Override
+    public void close() {
+        if (pool != null) {
+            pool.shutdown();
+            try {
+                if (!pool.awaitTermination(CLOSE_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                    LOGGER.warn("Installs still running after " + CLOSE_TIMEOUT_MS + " ms, interrupting them");
+                    pool.shutdownNow();
+                }
+            } catch (InterruptedException e) {
+                pool.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+        }
+        LOGGER.info("Installed " + count + " in " + (System.currentTimeMillis() - start) + " ms" +
+                (pool == null ? "" : " using " + threads + " threads"));
+    }
+}
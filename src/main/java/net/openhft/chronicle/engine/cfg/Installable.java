@@ -25,5 +25,13 @@ import net.openhft.chronicle.wire.ReadMarshallable;
  */
 public interface Installable extends ReadMarshallable {
     Object install(String path, AssetTree assetTree) throws Exception;
+
+    /**
+     * @return true if this only touches its own asset, so it can be installed at the same time as
+     * others.
+     */
+    default boolean installsInParallel() {
+        return false;
+    }
 }
 
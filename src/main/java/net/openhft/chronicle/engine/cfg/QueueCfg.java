@@ -0,0 +1,83 @@
+/*
+ * Copyright 2016 higherfrequencytrading.com
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package net.openhft.chronicle.engine.cfg;
+
+import net.openhft.chronicle.engine.api.tree.Asset;
+import net.openhft.chronicle.engine.api.tree.AssetTree;
+import net.openhft.chronicle.engine.query.QueueConfig;
+import net.openhft.chronicle.queue.RollCycles;
+import net.openhft.chronicle.wire.WireIn;
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Configures the queues under an asset, overriding the {@link QueueConfig} of its parents with the
+ * block size, roll cycle and retention given.
+ */
+public class QueueCfg implements Installable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(QueueCfg.class);
+    private long blockSize;
+    private String rollCycle;
+    private long retentionMaxAgeMs;
+    private long retentionMaxBytes;
+    private int retentionMaxCycles;
+    private long retentionCheckPeriodMs;
+
+    @Override
+    public Void install(String path, AssetTree assetTree) {
+        Asset asset = assetTree.acquireAsset(path);
+        QueueConfig parent = asset.findView(QueueConfig.class);
+        if (parent == null)
+            throw new IllegalStateException("No QueueConfig to override at " + path);
+
+        QueueConfig queueConfig = new QueueConfig(parent);
+        if (blockSize > 0) queueConfig.blockSize(blockSize);
+        if (rollCycle != null) queueConfig.rollCycle(RollCycles.valueOf(rollCycle));
+        if (retentionMaxAgeMs > 0) queueConfig.retentionMaxAgeMs(retentionMaxAgeMs);
+        if (retentionMaxBytes > 0) queueConfig.retentionMaxBytes(retentionMaxBytes);
+        if (retentionMaxCycles > 0) queueConfig.retentionMaxCycles(retentionMaxCycles);
+        if (retentionCheckPeriodMs > 0) queueConfig.retentionCheckPeriodMs(retentionCheckPeriodMs);
+        asset.addView(QueueConfig.class, queueConfig);
+
+        LOGGER.info("Configured queues under " + path + " " + this);
+        return null;
+    }
+
+    @Override
+    public void readMarshallable(@NotNull WireIn wire) throws IllegalStateException {
+        wire.read(() -> "blockSize").int64(this, (o, e) -> o.blockSize = e)
+                .read(() -> "rollCycle").text(this, (o, c) -> o.rollCycle = c)
+                .read(() -> "retentionMaxAgeMs").int64(this, (o, e) -> o.retentionMaxAgeMs = e)
+                .read(() -> "retentionMaxBytes").int64(this, (o, e) -> o.retentionMaxBytes = e)
+                .read(() -> "retentionMaxCycles").int32(this, (o, e) -> o.retentionMaxCycles = e)
+                .read(() -> "retentionCheckPeriodMs").int64(this, (o, e) -> o.retentionCheckPeriodMs = e);
+    }
+
+    @Override
+    public String toString() {
+        return "QueueCfg{" +
+                "blockSize=" + blockSize +
+                ", rollCycle='" + rollCycle + '\'' +
+                ", retentionMaxAgeMs=" + retentionMaxAgeMs +
+                ", retentionMaxBytes=" + retentionMaxBytes +
+                ", retentionMaxCycles=" + retentionMaxCycles +
+                ", retentionCheckPeriodMs=" + retentionCheckPeriodMs +
+                '}';
+    }
+}
@@ -21,6 +21,8 @@ import net.openhft.chronicle.engine.api.map.KeyValueStore;
 import net.openhft.chronicle.engine.api.tree.Asset;
 import net.openhft.chronicle.engine.api.tree.AssetTree;
 import net.openhft.chronicle.engine.api.tree.RequestContext;
+import net.openhft.chronicle.engine.cfg.InstallStat;
+import net.openhft.chronicle.engine.cfg.InstallTasks;
 import net.openhft.chronicle.engine.map.FilePerKeyValueStore;
 import net.openhft.chronicle.engine.tree.VanillaAsset;
 import net.openhft.chronicle.wire.Marshallable;
@@ -28,6 +30,8 @@ import net.openhft.chronicle.wire.WireIn;
 import net.openhft.chronicle.wire.WireOut;
 import org.jetbrains.annotations.NotNull;
 
+import java.time.LocalTime;
+
 import static net.openhft.chronicle.core.pool.ClassAliasPool.CLASS_ALIASES;
 
 /**
@@ -71,6 +75,38 @@ public class FilePerKeyGroupFS implements Marshallable, MountPoint {
         RequestContext context = RequestContext.requestContext(name).basePath(baseDir + "/" + spec).recurse(this.recurse).keyType(String.class);
         Asset asset = assetTree.acquireAsset(name);
         ((VanillaAsset) asset).enableTranslatingValuesToBytesStore();
+        if (InstallTasks.LAZY) {
+            // only watch the directory once something uses it; assets below fall through to the usual rules.
+            InstallStat stat = new InstallStat();
+            stat.state = InstallStat.LAZY;
+            stat.started = LocalTime.now();
+            InstallTasks.record(assetTree, name, stat);
+            asset.addLeafRule(KeyValueStore.class, "lazy FilePerKeyValueStore",
+                    (rc, asset2) -> asset2 == asset ? open(name, context, asset, assetTree) : null);
+            return;
+        }
         asset.registerView(KeyValueStore.class, new FilePerKeyValueStore(context, asset));
     }
+
+    @NotNull
+    private static FilePerKeyValueStore open(String name, RequestContext context, Asset asset, AssetTree assetTree) {
+        long start = System.nanoTime();
+        InstallStat stat = new InstallStat();
+        stat.started = LocalTime.now();
+        stat.thread = Thread.currentThread().getName();
+        try {
+            FilePerKeyValueStore store = new FilePerKeyValueStore(context, asset);
+            stat.state = InstallStat.READY;
+            return store;
+
+        } catch (RuntimeException e) {
+            stat.state = InstallStat.FAILED;
+            stat.error = e.toString();
+            throw e;
+
+        } finally {
+            stat.durationMs = (System.nanoTime() - start) / 1_000_000;
+            InstallTasks.record(assetTree, name, stat);
+        }
+    }
 }
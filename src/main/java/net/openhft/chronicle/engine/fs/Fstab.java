@@ -17,7 +17,9 @@
 
 package net.openhft.chronicle.engine.fs;
 
+import net.openhft.chronicle.core.Jvm;
 import net.openhft.chronicle.engine.api.tree.AssetTree;
+import net.openhft.chronicle.engine.cfg.InstallTasks;
 import net.openhft.chronicle.wire.Marshallable;
 import net.openhft.chronicle.wire.WireIn;
 import net.openhft.chronicle.wire.WireOut;
@@ -50,7 +52,18 @@ public class Fstab implements Marshallable {
             wire.writeEventName(entry::getKey).typedMarshallable(entry.getValue());
     }
 
-    public void install(String baseDir, AssetTree assetTree) {
-        mounts.values().forEach(mp -> mp.install(baseDir, assetTree));
+    public void install(String baseDir, @NotNull AssetTree assetTree) {
+        // mount points are independent of each other, so they can all be installed at once.
+        try (InstallTasks tasks = new InstallTasks(assetTree)) {
+            for (MountPoint mp : mounts.values())
+                tasks.install(mp.name(), true, () -> {
+                    mp.install(baseDir, assetTree);
+                    return null;
+                });
+            tasks.awaitPending();
+
+        } catch (Exception e) {
+            throw Jvm.rethrow(e);
+        }
     }
 }
@@ -36,6 +36,7 @@ import net.openhft.chronicle.engine.fs.EngineCluster;
 import net.openhft.chronicle.engine.fs.EngineHostDetails;
 import net.openhft.chronicle.engine.server.internal.MapReplicationHandler;
 import net.openhft.chronicle.engine.tree.HostIdentifier;
+import net.openhft.chronicle.engine.tree.Infrastructure;
 import net.openhft.chronicle.hash.replication.EngineReplicationLangBytesConsumer;
 import net.openhft.chronicle.map.*;
 import net.openhft.chronicle.network.api.session.SessionDetails;
@@ -103,9 +104,10 @@ public class ChronicleMapKeyValueStore<K, V> implements ObjectKeyValueStore<K, V
         this.assetFullName = asset.fullName();
         this.subscriptions = asset.acquireView(ObjectSubscription.class, context);
         this.subscriptions.setKvStore(this);
-        this.eventLoop = asset.findOrCreateView(EventLoop.class);
+        final Infrastructure infrastructure = Infrastructure.of(asset);
+        this.eventLoop = infrastructure.eventLoop();
         assert eventLoop != null;
-        sessionProvider = asset.findView(SessionProvider.class);
+        sessionProvider = infrastructure.sessionProvider();
         eventLoop.start();
 
         replicationSessionDetails = asset.root().findView(SessionDetails.class);
@@ -119,7 +121,7 @@ public class ChronicleMapKeyValueStore<K, V> implements ObjectKeyValueStore<K, V
             final EngineReplicationLangBytesConsumer langBytesConsumer = asset.findView
                     (EngineReplicationLangBytesConsumer.class);
 
-            hostIdentifier = asset.findOrCreateView(HostIdentifier.class);
+            hostIdentifier = infrastructure.hostIdentifier();
             assert hostIdentifier != null;
             builder.putReturnsNull(context.putReturnsNull() != Boolean.FALSE)
                     .removeReturnsNull(context.removeReturnsNull() != Boolean.FALSE);
@@ -167,6 +169,7 @@ public class ChronicleMapKeyValueStore<K, V> implements ObjectKeyValueStore<K, V
         if (hostIdentifier == null)
             return;
 
+        // may be configured per map, so not taken from the infrastructure of the tree.
         Clusters clusters = asset.findView(Clusters.class);
 
         if (clusters == null) {
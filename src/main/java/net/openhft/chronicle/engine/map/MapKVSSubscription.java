@@ -21,7 +21,6 @@ import net.openhft.chronicle.core.Jvm;
 import net.openhft.chronicle.engine.api.map.KeyValueStore;
 import net.openhft.chronicle.engine.api.map.KeyValueStore.Entry;
 import net.openhft.chronicle.engine.api.map.MapEvent;
-import net.openhft.chronicle.engine.api.map.MapView;
 import net.openhft.chronicle.engine.api.pubsub.*;
 import net.openhft.chronicle.engine.api.tree.Asset;
 import net.openhft.chronicle.engine.api.tree.RequestContext;
@@ -29,6 +28,8 @@ import net.openhft.chronicle.engine.cfg.SubscriptionStat;
 import net.openhft.chronicle.engine.pubsub.MapSimpleSubscription;
 import net.openhft.chronicle.engine.pubsub.SimpleSubscription;
 import net.openhft.chronicle.engine.query.Filter;
+import net.openhft.chronicle.engine.tree.Infrastructure;
+import net.openhft.chronicle.engine.tree.VanillaAsset;
 import net.openhft.chronicle.network.api.session.SessionDetails;
 import net.openhft.chronicle.network.api.session.SessionProvider;
 import org.jetbrains.annotations.NotNull;
@@ -40,7 +41,7 @@ import java.time.LocalTime;
 import java.util.IdentityHashMap;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static java.lang.Boolean.TRUE;
 import static net.openhft.chronicle.engine.api.pubsub.SubscriptionConsumer.notifyEachSubscriber;
@@ -52,17 +53,19 @@ public class MapKVSSubscription<K, V> implements ObjectSubscription<K, V>,
         RawKVSSubscription<K, V> {
 
     private static final Logger LOG = LoggerFactory.getLogger(MapKVSSubscription.class);
-    private final Set<TopicSubscriber<K, V>> topicSubscribers = new CopyOnWriteArraySet<>();
-    private final Set<Subscriber<MapEvent<K, V>>> subscribers = new CopyOnWriteArraySet<>();
-    private final Set<Subscriber<K>> keySubscribers = new CopyOnWriteArraySet<>();
-    private final Set<EventConsumer<K, V>> downstream = new CopyOnWriteArraySet<>();
-    private final SessionProvider sessionProvider;
+    private final Set<TopicSubscriber<K, V>> topicSubscribers = new SubscriberSet<>();
+    private final Set<Subscriber<MapEvent<K, V>>> subscribers = new SubscriberSet<>();
+    private final Set<Subscriber<K>> keySubscribers = new SubscriberSet<>();
+    private final Set<EventConsumer<K, V>> downstream = new SubscriberSet<>();
+    // the entry subscribers and downstream consumers which have asked for the old value.
+    private final Set<ISubscriber> previousConsumers = ConcurrentHashMap.newKeySet();
+    @Nullable
+    private final Infrastructure infrastructure;
 
     @Nullable
     private final Asset asset;
     private final Map<Subscriber, Subscriber> subscriptionDelegate = new IdentityHashMap<>();
     private KeyValueStore<K, V> kvStore;
-    private Map<String, SubscriptionStat> subscriptionMonitoringMap = null;
 
     public MapKVSSubscription(@NotNull RequestContext requestContext, @NotNull Asset asset) {
         this(requestContext.viewType(), asset);
@@ -73,7 +76,7 @@ public class MapKVSSubscription<K, V> implements ObjectSubscription<K, V>,
         if (viewType != null && asset != null)
             asset.addView(viewType, this);
 
-        sessionProvider = asset == null ? null : asset.findView(SessionProvider.class);
+        infrastructure = asset == null ? null : Infrastructure.of(asset);
     }
 
     @Override
@@ -82,6 +85,7 @@ public class MapKVSSubscription<K, V> implements ObjectSubscription<K, V>,
         notifyEndOfSubscription(subscribers);
         notifyEndOfSubscription(keySubscribers);
         notifyEndOfSubscription(downstream);
+        previousConsumers.clear();
     }
 
     @Override
@@ -157,13 +161,27 @@ public class MapKVSSubscription<K, V> implements ObjectSubscription<K, V>,
             notifyEachSubscriber(topicSubscribers, ts -> ts.onMessage(key, value));
         }
         if (!subscribers.isEmpty()) {
-            notifyEachSubscriber(subscribers, s -> s.onMessage(changeEvent));
+            notifyEachSubscriber(subscribers, s -> {
+                try {
+                    s.onMessage(changeEvent);
+                } catch (InvalidSubscriberException e) {
+                    previousConsumers.remove(s);
+                    throw e;
+                }
+            });
         }
         if (!keySubscribers.isEmpty()) {
             notifyEachSubscriber(keySubscribers, s -> s.onMessage(key));
         }
         if (!downstream.isEmpty()) {
-            notifyEachSubscriber(downstream, d -> d.notifyEvent(changeEvent));
+            notifyEachSubscriber(downstream, d -> {
+                try {
+                    d.notifyEvent(changeEvent);
+                } catch (InvalidSubscriberException e) {
+                    previousConsumers.remove(d);
+                    throw e;
+                }
+            });
         }
     }
 
@@ -172,8 +190,9 @@ public class MapKVSSubscription<K, V> implements ObjectSubscription<K, V>,
         if (asset == null || !asset.hasChildren()) {
             return;
         }
-        String keyStr = key.toString();
-        Asset child = asset.getChild(keyStr);
+        Asset child = asset instanceof VanillaAsset
+                ? ((VanillaAsset) asset).getChildByKey(key)
+                : asset.getChild(key.toString());
         if (child == null) {
             return;
         }
@@ -186,8 +205,17 @@ public class MapKVSSubscription<K, V> implements ObjectSubscription<K, V>,
 
     @Override
     public boolean needsPrevious() {
-        // todo optimise this to reduce false positives.
-        return !subscribers.isEmpty() || !downstream.isEmpty();
+        return !previousConsumers.isEmpty();
+    }
+
+    private void addSubscriber(@NotNull RequestContext rc, @NotNull Subscriber<MapEvent<K, V>> sub) {
+        if (subscribers.add(sub) && rc.needsPrevious() != Boolean.FALSE && sub.needsPrevious())
+            previousConsumers.add(sub);
+    }
+
+    private boolean removeSubscriber(@NotNull Subscriber sub) {
+        previousConsumers.remove(sub);
+        return subscribers.remove(sub);
     }
 
     @Override
@@ -220,7 +248,7 @@ public class MapKVSSubscription<K, V> implements ObjectSubscription<K, V>,
                                      @NotNull Filter<MapEvent<K, V>> filter) {
         addToStats("subscription");
         final Subscriber<MapEvent<K, V>> sub = subscriber(subscriber, filter);
-        this.subscribers.add(sub);
+        addSubscriber(rc, sub);
         Boolean bootstrap = rc.bootstrap();
         if (bootstrap != Boolean.FALSE && kvStore != null) {
             try {
@@ -231,11 +259,11 @@ public class MapKVSSubscription<K, V> implements ObjectSubscription<K, V>,
 
                     sub.onEndOfSubscription();
                     LOG.info("onEndOfSubscription");
-                    this.subscribers.remove(sub);
+                    removeSubscriber(sub);
                 }
 
             } catch (InvalidSubscriberException e) {
-                this.subscribers.remove(sub);
+                removeSubscriber(sub);
             }
         }
     }
@@ -280,11 +308,12 @@ public class MapKVSSubscription<K, V> implements ObjectSubscription<K, V>,
 
     @Override
     public void registerDownstream(@NotNull EventConsumer<K, V> subscription) {
-        downstream.add(subscription);
-
+        if (downstream.add(subscription) && subscription.needsPrevious())
+            previousConsumers.add(subscription);
     }
 
     public void unregisterDownstream(EventConsumer<K, V> subscription) {
+        previousConsumers.remove(subscription);
         downstream.remove(subscription);
     }
 
@@ -292,7 +321,7 @@ public class MapKVSSubscription<K, V> implements ObjectSubscription<K, V>,
     public void unregisterSubscriber(@NotNull Subscriber subscriber) {
         final Subscriber delegate = subscriptionDelegate.remove(subscriber);
         final Subscriber s = delegate != null ? delegate : subscriber;
-        boolean subscription = subscribers.remove(s);
+        boolean subscription = removeSubscriber(s);
         boolean keySubscription = keySubscribers.remove(s);
         if (subscription) removeFromStats("subscription");
         if (keySubscription) removeFromStats("keySubscription");
@@ -308,27 +337,17 @@ public class MapKVSSubscription<K, V> implements ObjectSubscription<K, V>,
         subscriber.onEndOfSubscription();
     }
 
-    //Needs some refactoring - need a definitive way of knowing when this map should become available
-    //3 combinations, not lookedUP, exists or does not exist
-    private Map getSubscriptionMap() {
-        if (subscriptionMonitoringMap != null) return subscriptionMonitoringMap;
-        Asset subscriptionAsset = asset.root().getAsset("proc/subscriptions");
-        if (subscriptionAsset != null && subscriptionAsset.getView(MapView.class) != null) {
-            subscriptionMonitoringMap = subscriptionAsset.getView(MapView.class);
-        }
-        return subscriptionMonitoringMap;
-    }
-
     private void addToStats(String subType) {
+        if (infrastructure == null) return;
+        SessionProvider sessionProvider = infrastructure.sessionProvider();
         if (sessionProvider == null) return;
 
         SessionDetails sessionDetails = sessionProvider.get();
         if (sessionDetails != null) {
-            String userId = sessionDetails.userId();
-
-            Map<String, SubscriptionStat> subStats = getSubscriptionMap();
+            Map<String, SubscriptionStat> subStats = infrastructure.subscriptionStats();
             if (subStats != null) {
-                SubscriptionStat stat = subStats.get(userId + "~" + subType);
+                String key = infrastructure.subscriptionStatKey(sessionDetails.userId(), subType);
+                SubscriptionStat stat = subStats.get(key);
                 if (stat == null) {
                     stat = new SubscriptionStat();
                     stat.setFirstSubscribed(LocalTime.now());
@@ -336,27 +355,28 @@ public class MapKVSSubscription<K, V> implements ObjectSubscription<K, V>,
                 stat.setTotalSubscriptions(stat.getTotalSubscriptions() + 1);
                 stat.setActiveSubscriptions(stat.getActiveSubscriptions() + 1);
                 stat.setRecentlySubscribed(LocalTime.now());
-                subStats.put(userId + "~" + subType, stat);
+                subStats.put(key, stat);
             }
         }
     }
 
     private void removeFromStats(String subType) {
+        if (infrastructure == null) return;
+        SessionProvider sessionProvider = infrastructure.sessionProvider();
         if (sessionProvider == null) return;
 
         SessionDetails sessionDetails = sessionProvider.get();
         if (sessionDetails != null) {
-            String userId = sessionDetails.userId();
-
-            Map<String, SubscriptionStat> subStats = getSubscriptionMap();
+            Map<String, SubscriptionStat> subStats = infrastructure.subscriptionStats();
             if (subStats != null) {
-                SubscriptionStat stat = subStats.get(userId + "~" + subType);
+                String key = infrastructure.subscriptionStatKey(sessionDetails.userId(), subType);
+                SubscriptionStat stat = subStats.get(key);
                 if (stat == null) {
                     throw new AssertionError("There should be an active subscription");
                 }
                 stat.setActiveSubscriptions(stat.getActiveSubscriptions() - 1);
                 stat.setRecentlySubscribed(LocalTime.now());
-                subStats.put(userId + "~" + subType, stat);
+                subStats.put(key, stat);
             }
         }
     }
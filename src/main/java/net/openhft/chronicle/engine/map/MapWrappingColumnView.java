@@ -3,6 +3,8 @@ package net.openhft.chronicle.engine.map;
 import net.openhft.chronicle.core.Jvm;
 import net.openhft.chronicle.core.util.ObjectUtils;
 import net.openhft.chronicle.engine.api.column.Column;
+import net.openhft.chronicle.engine.api.column.ColumnAccessors;
+import net.openhft.chronicle.engine.api.column.ColumnFilter;
 import net.openhft.chronicle.engine.api.column.MapColumnView;
 import net.openhft.chronicle.engine.api.column.Row;
 import net.openhft.chronicle.engine.api.map.MapView;
@@ -15,16 +17,22 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.*;
+import java.util.function.Function;
 import java.util.function.Predicate;
 
-import static net.openhft.chronicle.core.util.ObjectUtils.convertTo;
-
 /**
  * @author Rob Austin.
  */
 public class MapWrappingColumnView<K, V> implements MapColumnView {
 
+    // maps smaller than this are filtered and sorted for each request.
+    static final long SORTED_VIEW_MIN_ROWS = Long.getLong("engine.columnView.sortedViewMinRows", 10_000);
+    static final int MAX_SORTED_VIEWS = Integer.getInteger("engine.columnView.maxSortedViews", 8);
+    static final long SORTED_VIEW_IDLE_MS = Long.getLong("engine.columnView.sortedViewIdleMs", 60_000);
+
     private final MapView<K, V> mapView;
+    // sorted views by filters and order, kept while they are in use.
+    private final Map<String, SortedRows<K, V>> sortedViews = new LinkedHashMap<>(16, 0.75f, true);
     private final boolean valueMarshallable;
     private final boolean valueMap;
     @Nullable
@@ -45,18 +53,38 @@ public class MapWrappingColumnView<K, V> implements MapColumnView {
 
     private Comparator<Map.Entry<K, V>> sort(@NotNull final List<MarshableOrderBy> marshableOrderBy) {
 
-        return (o1, o2) -> {
-            if (o1 == null)
-                return o2 == null ? 0 : -1;
+        return new Comparator<Map.Entry<K, V>>() {
+            // the columns of the last value class compared.
+            Class lastClass;
+            ColumnAccessors accessors;
+            final int[] columns = new int[marshableOrderBy.size()];
 
-            if (o2 == null)
-                return 1;
+            @Override
+            public int compare(Map.Entry<K, V> o1, Map.Entry<K, V> o2) {
+                if (o1 == null)
+                    return o2 == null ? 0 : -1;
+
+                if (o2 == null)
+                    return 1;
+
+                if (valueMarshallable && o1.getValue().getClass() != lastClass) {
+                    lastClass = o1.getValue().getClass();
+                    accessors = ColumnAccessors.wireFields(lastClass);
+                    for (int i = 0; i < columns.length; i++)
+                        columns[i] = accessors.indexOf(marshableOrderBy.get(i).column);
+                }
 
-            for (@NotNull MarshableOrderBy order : marshableOrderBy) {
+                for (int i = 0; i < columns.length; i++) {
+                    final MarshableOrderBy order = marshableOrderBy.get(i);
+                    final int result = compare(order.column, columns[i], o1, o2);
+                    if (result != 0)
+                        return order.isAscending ? result : -result;
+                }
 
-                final String column = order.column;
-                int result = 0;
+                return 0;
+            }
 
+            private int compare(String column, int index, Map.Entry<K, V> o1, Map.Entry<K, V> o2) {
                 Object c1;
                 Object c2;
 
@@ -69,17 +97,16 @@ public class MapWrappingColumnView<K, V> implements MapColumnView {
                     c2 = ((Map) o2).get(column);
 
                 } else if (valueMarshallable) {
-                    try {
-                        FieldInfo field = Wires.fieldInfo(o1.getValue().getClass(), column);
-
-                        c1 = field.get(o1.getValue());
-                        c2 = field.get(o2.getValue());
-
-                    } catch (Exception e) {
-                        Jvm.warn().on(MapWrappingColumnView.class, e);
+                    if (index < 0) {
+                        Jvm.warn().on(MapWrappingColumnView.class, "no such column " + column);
                         // skip the field.
-                        continue;
+                        return 0;
                     }
+                    if (accessors.isNumber(index))
+                        return accessors.compare(index, o1.getValue(), o2.getValue());
+
+                    c1 = accessors.get(index, o1.getValue());
+                    c2 = accessors.get(index, o2.getValue());
 
                 } else if (column.equals("value")) {
                     c1 = o1.getValue();
@@ -87,19 +114,76 @@ public class MapWrappingColumnView<K, V> implements MapColumnView {
 
                 } else {
                     // no such column.
-                    continue;
+                    return 0;
                 }
 
-                if (c1.getClass() == c2.getClass() && c1 instanceof Comparable && !(c1 instanceof CharSequence)) {
-                    result = ((Comparable) c1).compareTo(c2);
-                } else {
-                    result = String.CASE_INSENSITIVE_ORDER.compare(c1.toString(), c2.toString());
+                if (c1.getClass() == c2.getClass() && c1 instanceof Comparable && !(c1 instanceof CharSequence))
+                    return ((Comparable) c1).compareTo(c2);
+                return String.CASE_INSENSITIVE_ORDER.compare(c1.toString(), c2.toString());
+            }
+        };
+    }
+
+    /**
+     * @return the values of the columns to sort by, copied so a value changed in place still sorts
+     * where it was put until the change is published.
+     */
+    @NotNull
+    private Function<Map.Entry<K, V>, Object[]> sortKey(@NotNull final List<MarshableOrderBy> marshableOrderBy) {
+
+        return new Function<Map.Entry<K, V>, Object[]>() {
+            // the columns of the last value class seen.
+            Class lastClass;
+            ColumnAccessors accessors;
+            final int[] columns = new int[marshableOrderBy.size()];
+
+            @Override
+            public Object[] apply(Map.Entry<K, V> entry) {
+                final V value = entry.getValue();
+                if (valueMarshallable && value.getClass() != lastClass) {
+                    lastClass = value.getClass();
+                    accessors = ColumnAccessors.wireFields(lastClass);
+                    for (int i = 0; i < columns.length; i++)
+                        columns[i] = accessors.indexOf(marshableOrderBy.get(i).column);
                 }
 
-                if (result != 0)
-                    return order.isAscending ? result : -result;
+                final Object[] key = new Object[columns.length];
+                for (int i = 0; i < columns.length; i++) {
+                    final String column = marshableOrderBy.get(i).column;
+                    if (column.equals("key"))
+                        key[i] = entry.getKey();
+                    else if (valueMap)
+                        key[i] = ((Map) value).get(column);
+                    else if (valueMarshallable)
+                        key[i] = columns[i] < 0 ? null : accessors.get(columns[i], value);
+                    else if (column.equals("value"))
+                        key[i] = value;
+                }
+                return key;
             }
+        };
+    }
 
+    /**
+     * @return the order of the keys from {@link #sortKey(List)}, as {@link #sort(List)} orders the
+     * entries.
+     */
+    @NotNull
+    private static Comparator<Object[]> sortKeyOrder(@NotNull final List<MarshableOrderBy> marshableOrderBy) {
+        return (k1, k2) -> {
+            for (int i = 0; i < k1.length; i++) {
+                final Object c1 = k1[i];
+                final Object c2 = k2[i];
+                final int result;
+                if (c1 == null || c2 == null)
+                    result = c1 == null ? (c2 == null ? 0 : -1) : 1;
+                else if (c1.getClass() == c2.getClass() && c1 instanceof Comparable && !(c1 instanceof CharSequence))
+                    result = ((Comparable) c1).compareTo(c2);
+                else
+                    result = String.CASE_INSENSITIVE_ORDER.compare(c1.toString(), c2.toString());
+                if (result != 0)
+                    return marshableOrderBy.get(i).isAscending ? result : -result;
+            }
             return 0;
         };
     }
@@ -108,13 +192,28 @@ public class MapWrappingColumnView<K, V> implements MapColumnView {
     @Override
     public Iterator<Row> iterator(@NotNull final SortedFilter sortedFilter) {
 
+        final SortedRows<K, V> sortedRows = sortedRows(sortedFilter);
+        if (sortedRows != null)
+            return rows(sortedRows.iterator(sortedFilter.fromIndex));
+
         final Iterator<Map.Entry<K, V>> core = mapView.entrySet().stream()
                 .filter(filter(sortedFilter.marshableFilters))
                 .sorted(sort(sortedFilter.marshableOrderBy))
                 .iterator();
 
-        @NotNull final Iterator<Row> result = new Iterator<Row>() {
+        @NotNull final Iterator<Row> result = rows(core);
+
+        long x = 0;
+        while (x++ < sortedFilter.fromIndex && result.hasNext()) {
+            result.next();
+        }
+
+        return result;
+    }
 
+    @NotNull
+    private Iterator<Row> rows(@NotNull final Iterator<Map.Entry<K, V>> core) {
+        return new Iterator<Row>() {
             @Override
             public boolean hasNext() {
                 return core.hasNext();
@@ -131,21 +230,15 @@ public class MapWrappingColumnView<K, V> implements MapColumnView {
                     row.set("key", e.getKey());
                 }
 
-                final List<FieldInfo> fieldInfos = Wires.fieldInfos(mapView.valueType());
-                if (fieldInfos.isEmpty()) {
+                if (!valueMarshallable) {
                     row.set("value", e.getValue());
 
                 } else {
                     @NotNull final Marshallable value = (Marshallable) e.getValue();
-                    for (@NotNull final FieldInfo info : fieldInfos) {
-//                        System.out.println(info);
-                        if (!columnNames().contains(info.name()))
-                            continue;
-
+                    final ColumnAccessors accessors = ColumnAccessors.wireFields(valueType());
+                    for (int i = 0; i < accessors.size(); i++) {
                         try {
-                            final Object newValue = info.get(value);
-//                            System.out.println("\t"+newValue);
-                            row.set(info.name(), newValue);
+                            row.set(accessors.name(i), accessors.get(i, value));
 
                         } catch (Exception e1) {
                             Jvm.warn().on(VanillaMapView.class, e1);
@@ -156,13 +249,64 @@ public class MapWrappingColumnView<K, V> implements MapColumnView {
                 return row;
             }
         };
+    }
 
-        long x = 0;
-        while (x++ < sortedFilter.fromIndex && result.hasNext()) {
-            result.next();
+    /**
+     * @return the rows kept in order for this filter and order by, creating them if the map is large
+     * enough to be worth it, or null to filter and sort the map for this request.
+     */
+    @Nullable
+    private SortedRows<K, V> sortedRows(@NotNull SortedFilter sortedFilter) {
+        final String key = sortedKey(sortedFilter.marshableFilters, sortedFilter.marshableOrderBy);
+        synchronized (sortedViews) {
+            SortedRows<K, V> sortedRows = sortedViews.get(key);
+            if (sortedRows != null && !sortedRows.isClosed())
+                return sortedRows;
+
+            if (mapView.longSize() < SORTED_VIEW_MIN_ROWS) {
+                sortedRows = sortedViews.remove(key);
+                if (sortedRows != null)
+                    unregister(sortedRows);
+                return null;
+            }
+
+            evictSortedViews();
+            final List<MarshableOrderBy> orderBy = new ArrayList<>(sortedFilter.marshableOrderBy);
+            sortedRows = new SortedRows<>(filter(new ArrayList<>(sortedFilter.marshableFilters)),
+                    sortKey(orderBy), sortKeyOrder(orderBy));
+            // bootstraps with the current entries before another request can use it.
+            mapView.registerSubscriber(sortedRows);
+            sortedViews.put(key, sortedRows);
+            return sortedRows;
         }
+    }
 
-        return result;
+    @NotNull
+    private static String sortedKey(@NotNull List<MarshableFilter> filters,
+                                    @NotNull List<MarshableOrderBy> orderBy) {
+        return filters + " " + orderBy;
+    }
+
+    // closes the views not used for a while, and the least recently used over the limit.
+    private void evictSortedViews() {
+        final long idleBefore = System.currentTimeMillis() - SORTED_VIEW_IDLE_MS;
+        int excess = sortedViews.size() + 1 - MAX_SORTED_VIEWS;
+        for (Iterator<SortedRows<K, V>> it = sortedViews.values().iterator(); it.hasNext(); ) {
+            final SortedRows<K, V> sortedRows = it.next();
+            if (sortedRows.isClosed() || sortedRows.lastUsedMs() < idleBefore || excess > 0) {
+                unregister(sortedRows);
+                it.remove();
+                excess--;
+            }
+        }
+    }
+
+    // stops sending events to a sorted view, which closes it.
+    private void unregister(@NotNull SortedRows<K, V> sortedRows) {
+        final ObjectSubscription subscription = objectSubscription();
+        if (subscription != null)
+            subscription.unregisterSubscriber(sortedRows);
+        sortedRows.close();
     }
 
     @Override
@@ -276,133 +420,48 @@ public class MapWrappingColumnView<K, V> implements MapColumnView {
         return 1;
     }
 
-    @Nullable
+    /**
+     * @return a predicate for these filters, parsed once rather than for each entry tested.
+     */
+    @NotNull
     public Predicate<Map.Entry<K, V>> filter(@NotNull List<MarshableFilter> filters) {
-        return entry -> {
-
-            if (filters.isEmpty())
-                return true;
-
-            try {
+        if (filters.isEmpty())
+            return entry -> true;
 
-                for (@NotNull MarshableFilter f : filters) {
+        final List<Predicate<Map.Entry<K, V>>> predicates = new ArrayList<>(filters.size());
+        for (@NotNull ColumnFilter f : ColumnFilter.compile(filters))
+            predicates.add(filter(f));
 
-                    Object item;
-
-                    if ("key".equals(f.columnName)) {
-                        item = entry.getKey();
-                    } else if (!(Marshallable.class.isAssignableFrom(mapView.valueType())) &&
-                            "value".equals(f.columnName)) {
-                        item = entry.getValue();
-
-                    } else if (Marshallable.class.isAssignableFrom(mapView.valueType())) {
-                        try {
-                            final Class valueClass = entry.getValue().getClass();
-                            final FieldInfo info = Wires.fieldInfo(valueClass, f.columnName);
-                            final Object o = info.get(entry.getValue());
-
-                            if (o == null)
-                                return false;
-                            if (o instanceof Number) {
-                                if (toRange((Number) o, f.filter.trim()))
-                                    continue;
-                                return false;
-                            }
-                            item = o;
-
-                        } catch (Exception e) {
-                            return false;
-                        }
-
-                    } else {
-                        throw new UnsupportedOperationException();
-                    }
-
-                    if (item instanceof CharSequence) {
-                        if (!item.toString().toLowerCase().contains(f.filter.toLowerCase()))
-                            return false;
-                    } else if (item instanceof Number) {
-                        if (!toRange((Number) item, f.filter.trim()))
-                            return false;
-                    } else {
-                        if (!item.equals(convertTo(item.getClass(), f.filter.trim())))
-                            return false;
-                    }
-
-                }
-
-                return true;
-
-            } catch (NumberFormatException e) {
-                return false;
-            }
+        return entry -> {
+            for (Predicate<Map.Entry<K, V>> predicate : predicates)
+                if (!predicate.test(entry))
+                    return false;
+            return true;
         };
     }
 
-    enum DOp {
-        GE(">=") {
-            @Override
-            boolean compare(double a, double b) {
-                return a >= b;
-            }
-        },
-        LE("<=") {
-            @Override
-            boolean compare(double a, double b) {
-                return a <= b;
-            }
-        },
-        NE("<>", "!=", "!") {
-            @Override
-            boolean compare(double a, double b) {
-                return a != b;
-            }
-        },
-        GT(">") {
-            @Override
-            boolean compare(double a, double b) {
-                return a > b;
-            }
-        },
-        LT("<") {
-            @Override
-            boolean compare(double a, double b) {
-                return a < b;
-            }
-        },
-        EQ("==", "=", "") {
-            @Override
-            boolean compare(double a, double b) {
-                return a == b;
-            }
-        };
-
-        static final DOp[] OPS = values();
-        final String[] op;
+    @NotNull
+    private Predicate<Map.Entry<K, V>> filter(@NotNull ColumnFilter f) {
+        if ("key".equals(f.columnName()))
+            return entry -> f.matches(entry.getKey());
 
-        DOp(String... op) {
-            this.op = op;
-        }
+        if (!valueMarshallable && "value".equals(f.columnName()))
+            return entry -> f.matches(entry.getValue());
 
-        abstract boolean compare(double a, double b);
-    }
+        if (valueMarshallable)
+            return entry -> {
+                try {
+                    final V value = entry.getValue();
+                    return f.matches(ColumnAccessors.wireFields(value.getClass()), value);
 
-    private boolean toRange(@NotNull Number o, @NotNull String trimmed) {
-        for (DOp dop : DOp.OPS) {
-            for (String op : dop.op) {
-                if (trimmed.startsWith(op)) {
-                    @NotNull final String number = trimmed.substring(op.length()).trim();
-
-                    try {
-                        final Number filterNumber = convertTo(o.getClass(), number);
-                        return dop.compare(o.doubleValue(), filterNumber.doubleValue());
-                    } catch (ClassCastException e) {
-                        return false;
-                    }
+                } catch (Exception e) {
+                    return false;
                 }
-            }
-        }
-        return false;
+            };
+
+        return entry -> {
+            throw new UnsupportedOperationException();
+        };
     }
 
     /**
@@ -415,6 +474,16 @@ public class MapWrappingColumnView<K, V> implements MapColumnView {
         if (sortedFilter == null || sortedFilter.isEmpty())
             return (int) mapView.longSize();
 
+        // any sorted view with the same filters has the same rows.
+        final String prefix = sortedFilter + " ";
+        synchronized (sortedViews) {
+            for (Map.Entry<String, SortedRows<K, V>> entry : sortedViews.entrySet()) {
+                final SortedRows<K, V> sortedRows = entry.getValue();
+                if (entry.getKey().startsWith(prefix) && !sortedRows.isClosed())
+                    return sortedRows.size();
+            }
+        }
+
         return (int) mapView.entrySet().stream()
                 .filter(filter(sortedFilter))
                 .count();
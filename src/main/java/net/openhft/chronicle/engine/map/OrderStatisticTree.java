@@ -0,0 +1,231 @@
+/*
+ * Copyright 2016 higherfrequencytrading.com
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package net.openhft.chronicle.engine.map;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * A sorted collection which also finds the element at a position, a treap where each node keeps
+ * the size of its subtree. Adding, removing and seeking to a position are O(log n), so a page of a
+ * sorted view costs O(log n + page size) rather than sorting and skipping the rows before it.
+ * <p></p> Equal elements are kept in the order they were added. Not thread safe.
+ */
+final class OrderStatisticTree<E> {
+
+    @NotNull
+    private final Comparator<? super E> comparator;
+    @Nullable
+    private Node<E> root;
+    private long nextSeq;
+
+    OrderStatisticTree(@NotNull Comparator<? super E> comparator) {
+        this.comparator = comparator;
+    }
+
+    private static int size(@Nullable Node node) {
+        return node == null ? 0 : node.size;
+    }
+
+    private static void update(@NotNull Node node) {
+        node.size = 1 + size(node.left) + size(node.right);
+    }
+
+    @NotNull
+    private static <E> Node<E> rotateRight(@NotNull Node<E> node) {
+        final Node<E> left = node.left;
+        node.left = left.right;
+        left.right = node;
+        update(node);
+        update(left);
+        return left;
+    }
+
+    @NotNull
+    private static <E> Node<E> rotateLeft(@NotNull Node<E> node) {
+        final Node<E> right = node.right;
+        node.right = right.left;
+        right.left = node;
+        update(node);
+        update(right);
+        return right;
+    }
+
+    @Nullable
+    private static <E> Node<E> merge(@Nullable Node<E> a, @Nullable Node<E> b) {
+        if (a == null)
+            return b;
+        if (b == null)
+            return a;
+        if (a.priority > b.priority) {
+            a.right = merge(a.right, b);
+            update(a);
+            return a;
+        }
+        b.left = merge(a, b.left);
+        update(b);
+        return b;
+    }
+
+    public int size() {
+        return size(root);
+    }
+
+    /**
+     * @return the node added, to pass to {@link #remove(Node)}.
+     */
+    @NotNull
+    public Node<E> add(E element) {
+        final Node<E> node = new Node<>(element, nextSeq++, ThreadLocalRandom.current().nextInt());
+        root = insert(root, node);
+        return node;
+    }
+
+    /**
+     * @return false if the node wasn't found, e.g. an element was changed after it was added so it
+     * no longer sorts where it was put.
+     */
+    public boolean remove(@NotNull Node<E> node) {
+        final int size = size();
+        root = remove(root, node);
+        return size() < size;
+    }
+
+    @Nullable
+    public E get(int index) {
+        Node<E> node = root;
+        while (node != null) {
+            final int leftSize = size(node.left);
+            if (index < leftSize) {
+                node = node.left;
+
+            } else if (index == leftSize) {
+                return node.element;
+
+            } else {
+                index -= leftSize + 1;
+                node = node.right;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Copies up to {@code max} elements in order, starting with the one at {@code from}.
+     *
+     * @return the number of elements copied.
+     */
+    public int copyTo(int from, int max, @NotNull List<? super E> to) {
+        // the nodes still to visit, nearest first.
+        final ArrayDeque<Node<E>> path = new ArrayDeque<>();
+        Node<E> node = root;
+        int index = from;
+        while (node != null) {
+            final int leftSize = size(node.left);
+            if (index < leftSize) {
+                path.push(node);
+                node = node.left;
+
+            } else if (index == leftSize) {
+                path.push(node);
+                break;
+
+            } else {
+                index -= leftSize + 1;
+                node = node.right;
+            }
+        }
+
+        int count = 0;
+        while (count < max && !path.isEmpty()) {
+            final Node<E> next = path.pop();
+            to.add(next.element);
+            count++;
+            for (Node<E> n = next.right; n != null; n = n.left)
+                path.push(n);
+        }
+        return count;
+    }
+
+    public void clear() {
+        root = null;
+    }
+
+    private int compare(@NotNull Node<E> a, @NotNull Node<E> b) {
+        final int result = comparator.compare(a.element, b.element);
+        return result != 0 ? result : Long.compare(a.seq, b.seq);
+    }
+
+    @NotNull
+    private Node<E> insert(@Nullable Node<E> node, @NotNull Node<E> added) {
+        if (node == null)
+            return added;
+
+        if (compare(added, node) < 0) {
+            node.left = insert(node.left, added);
+            if (node.left.priority > node.priority)
+                node = rotateRight(node);
+
+        } else {
+            node.right = insert(node.right, added);
+            if (node.right.priority > node.priority)
+                node = rotateLeft(node);
+        }
+        update(node);
+        return node;
+    }
+
+    @Nullable
+    private Node<E> remove(@Nullable Node<E> node, @NotNull Node<E> removed) {
+        if (node == null)
+            return null;
+
+        if (node == removed) {
+            node = merge(node.left, node.right);
+
+        } else if (compare(removed, node) < 0) {
+            node.left = remove(node.left, removed);
+
+        } else {
+            node.right = remove(node.right, removed);
+        }
+        if (node != null)
+            update(node);
+        return node;
+    }
+
+    static final class Node<E> {
+        final E element;
+        final long seq;
+        final int priority;
+        @Nullable
+        Node<E> left, right;
+        int size = 1;
+
+        Node(E element, long seq, int priority) {
+            this.element = element;
+            this.seq = seq;
+            this.priority = priority;
+        }
+    }
+}
@@ -23,16 +23,18 @@ import net.openhft.chronicle.core.threads.InvalidEventHandlerException;
 import net.openhft.chronicle.core.util.ObjectUtils;
 import net.openhft.chronicle.engine.api.map.KeyValueStore;
 import net.openhft.chronicle.engine.api.map.MapEvent;
-import net.openhft.chronicle.engine.api.map.MapView;
 import net.openhft.chronicle.engine.api.pubsub.ISubscriber;
 import net.openhft.chronicle.engine.api.pubsub.InvalidSubscriberException;
 import net.openhft.chronicle.engine.api.pubsub.Subscriber;
+import net.openhft.chronicle.engine.api.pubsub.SubscriberSet;
 import net.openhft.chronicle.engine.api.pubsub.TopicSubscriber;
 import net.openhft.chronicle.engine.api.tree.Asset;
 import net.openhft.chronicle.engine.api.tree.RequestContext;
 import net.openhft.chronicle.engine.cfg.SubscriptionStat;
 import net.openhft.chronicle.engine.query.Filter;
 import net.openhft.chronicle.engine.tree.ChronicleQueueView;
+import net.openhft.chronicle.engine.tree.Infrastructure;
+import net.openhft.chronicle.engine.tree.QueueTopicDemultiplexer;
 import net.openhft.chronicle.engine.tree.QueueView;
 import net.openhft.chronicle.network.api.session.SessionDetails;
 import net.openhft.chronicle.network.api.session.SessionProvider;
@@ -47,7 +49,7 @@ import java.time.LocalTime;
 import java.util.IdentityHashMap;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
@@ -57,17 +59,18 @@ import java.util.concurrent.atomic.AtomicBoolean;
 public class QueueObjectSubscription<T, M> implements ObjectSubscription<T, M> {
 
     private static final Logger LOG = LoggerFactory.getLogger(QueueObjectSubscription.class);
-    private final Set<TopicSubscriber<T, M>> topicSubscribers = new CopyOnWriteArraySet<>();
-    private final Set<Subscriber<ExcerptTailer>> subscribers = new CopyOnWriteArraySet<>();
-    private final Set<EventConsumer<T, M>> downstream = new CopyOnWriteArraySet<>();
-    private final SessionProvider sessionProvider;
+    private final Set<TopicSubscriber<T, M>> topicSubscribers = new SubscriberSet<>();
+    private final Set<Subscriber<ExcerptTailer>> subscribers = new SubscriberSet<>();
+    private final Set<EventConsumer<T, M>> downstream = new SubscriberSet<>();
+    @Nullable
+    private final Infrastructure infrastructure;
 
     @Nullable
     private final Asset asset;
     private final Map<Subscriber, Subscriber> subscriptionDelegate = new IdentityHashMap<>();
+    private final Map<Subscriber, String> subscriberStatKeys = new ConcurrentHashMap<>();
     private final Class<T> topicType;
 
-    private Map<String, SubscriptionStat> subscriptionMonitoringMap = null;
     private EventLoop eventLoop;
 
     public QueueObjectSubscription(@NotNull RequestContext requestContext, @NotNull Asset asset) {
@@ -79,9 +82,9 @@ public class QueueObjectSubscription<T, M> implements ObjectSubscription<T, M> {
         if (viewType != null && asset != null)
             asset.addView(viewType, this);
 
-        sessionProvider = asset == null ? null : asset.findView(SessionProvider.class);
+        infrastructure = asset == null ? null : Infrastructure.of(asset);
 
-        eventLoop = asset.root().acquireView(EventLoop.class);
+        eventLoop = infrastructure == null ? null : infrastructure.eventLoop();
         this.topicType = topicType;
     }
 
@@ -141,33 +144,44 @@ public class QueueObjectSubscription<T, M> implements ObjectSubscription<T, M> {
 
     @Override
     public boolean needsPrevious() {
-        // todo optimise this to reduce false positives.
-        return !subscribers.isEmpty() || !downstream.isEmpty();
+        // map events are not published to queue subscribers, so there is no old value to provide.
+        return false;
     }
 
     @Override
     public void registerSubscriber(@NotNull final RequestContext rc,
                                    @NotNull final Subscriber subscriber,
                                    @NotNull final Filter filter) {
-        final QueueView<T, M> chronicleQueue = asset.acquireView(QueueView.class, rc);
+        final ChronicleQueueView<T, M> chronicleQueue = (ChronicleQueueView) asset.acquireView
+                (QueueView.class, rc);
 
         final T topic = ObjectUtils.convertTo(topicType, rc.name());
-        eventLoop.addHandler(() -> {
+        subscribers.add(subscriber);
+        // the stats are removed with the key they were added with, as a subscriber dropped as
+        // invalid is removed on the event loop, which has no session.
+        final String statKey = statKey("subscription");
+        if (statKey != null) {
+            addToStats(statKey);
+            subscriberStatKeys.put(subscriber, statKey);
+        }
+        chronicleQueue.demultiplexer().subscribe(topic, QueueTopicDemultiplexer.FROM_START, subscriber,
+                () -> removeSubscriber(subscriber));
+    }
 
-            QueueView.Excerpt<T, M> excerpt = chronicleQueue.getExcerpt(topic);
-            if (excerpt == null)
-                return false;
-            final M e = excerpt.message();
-            if (e == null)
-                return false;
-            subscriber.accept(e);
-            return true;
-        });
+    private boolean removeSubscriber(@NotNull Subscriber subscriber) {
+        if (!subscribers.remove(subscriber))
+            return false;
+        final String statKey = subscriberStatKeys.remove(subscriber);
+        if (statKey != null)
+            removeFromStats(statKey);
+        return true;
     }
 
     @Override
     public void registerTopicSubscriber(@NotNull RequestContext rc, @NotNull final TopicSubscriber<T, M> subscriber) {
-        addToStats("topicSubscription");
+        final String statKey = statKey("topicSubscription");
+        if (statKey != null)
+            addToStats(statKey);
 
         topicSubscribers.add(subscriber);
         AtomicBoolean terminate = new AtomicBoolean();
@@ -232,9 +246,8 @@ public class QueueObjectSubscription<T, M> implements ObjectSubscription<T, M> {
     public void unregisterSubscriber(@NotNull Subscriber subscriber) {
         final Subscriber delegate = subscriptionDelegate.get(subscriber);
         final Subscriber s = delegate != null ? delegate : subscriber;
-        boolean subscription = subscribers.remove(s);
-
-        if (subscription) removeFromStats("subscription");
+        if (removeSubscriber(s))
+            ((ChronicleQueueView) asset.acquireView(QueueView.class)).demultiplexer().unsubscribe(s);
 
         s.onEndOfSubscription();
     }
@@ -251,61 +264,47 @@ public class QueueObjectSubscription<T, M> implements ObjectSubscription<T, M> {
 
     @Override
     public void unregisterTopicSubscriber(@NotNull TopicSubscriber subscriber) {
-        topicSubscribers.remove(subscriber);
-        removeFromStats("topicSubscription");
+        final String statKey = statKey("topicSubscription");
+        if (topicSubscribers.remove(subscriber) && statKey != null)
+            removeFromStats(statKey);
         subscriber.onEndOfSubscription();
     }
 
-    //Needs some refactoring - need a definitive way of knowing when this map should become available
-    //3 combinations, not lookedUP, exists or does not exist
-    private Map getSubscriptionMap() {
-        if (subscriptionMonitoringMap != null) return subscriptionMonitoringMap;
-        Asset subscriptionAsset = asset.root().getAsset("proc/subscriptions");
-        if (subscriptionAsset != null && subscriptionAsset.getView(MapView.class) != null) {
-            subscriptionMonitoringMap = subscriptionAsset.getView(MapView.class);
-        }
-        return subscriptionMonitoringMap;
-    }
-
-    private void addToStats(String subType) {
-        if (sessionProvider == null) return;
+    /**
+     * @return the key of the stats for the user of this session, or null if the stats aren't kept.
+     */
+    @Nullable
+    private String statKey(String subType) {
+        if (infrastructure == null) return null;
+        SessionProvider sessionProvider = infrastructure.sessionProvider();
+        if (sessionProvider == null) return null;
 
         SessionDetails sessionDetails = sessionProvider.get();
-        if (sessionDetails != null) {
-            String userId = sessionDetails.userId();
-
-            Map<String, SubscriptionStat> subStats = getSubscriptionMap();
-            if (subStats != null) {
-                SubscriptionStat stat = subStats.get(userId + "~" + subType);
-                if (stat == null) {
-                    stat = new SubscriptionStat();
-                    stat.setFirstSubscribed(LocalTime.now());
-                }
-                stat.setTotalSubscriptions(stat.getTotalSubscriptions() + 1);
-                stat.setActiveSubscriptions(stat.getActiveSubscriptions() + 1);
-                stat.setRecentlySubscribed(LocalTime.now());
-                subStats.put(userId + "~" + subType, stat);
-            }
-        }
+        if (sessionDetails == null || infrastructure.subscriptionStats() == null) return null;
+        return infrastructure.subscriptionStatKey(sessionDetails.userId(), subType);
     }
 
-    private void removeFromStats(String subType) {
-        if (sessionProvider == null) return;
+    private void addToStats(@NotNull String key) {
+        Map<String, SubscriptionStat> subStats = infrastructure.subscriptionStats();
+        SubscriptionStat stat = subStats.get(key);
+        if (stat == null) {
+            stat = new SubscriptionStat();
+            stat.setFirstSubscribed(LocalTime.now());
+        }
+        stat.setTotalSubscriptions(stat.getTotalSubscriptions() + 1);
+        stat.setActiveSubscriptions(stat.getActiveSubscriptions() + 1);
+        stat.setRecentlySubscribed(LocalTime.now());
+        subStats.put(key, stat);
+    }
 
-        SessionDetails sessionDetails = sessionProvider.get();
-        if (sessionDetails != null) {
-            String userId = sessionDetails.userId();
-
-            Map<String, SubscriptionStat> subStats = getSubscriptionMap();
-            if (subStats != null) {
-                SubscriptionStat stat = subStats.get(userId + "~" + subType);
-                if (stat == null) {
-                    throw new AssertionError("There should be an active subscription");
-                }
-                stat.setActiveSubscriptions(stat.getActiveSubscriptions() - 1);
-                stat.setRecentlySubscribed(LocalTime.now());
-                subStats.put(userId + "~" + subType, stat);
-            }
+    private void removeFromStats(@NotNull String key) {
+        Map<String, SubscriptionStat> subStats = infrastructure.subscriptionStats();
+        SubscriptionStat stat = subStats.get(key);
+        if (stat == null) {
+            throw new AssertionError("There should be an active subscription");
         }
+        stat.setActiveSubscriptions(stat.getActiveSubscriptions() - 1);
+        stat.setRecentlySubscribed(LocalTime.now());
+        subStats.put(key, stat);
     }
 }
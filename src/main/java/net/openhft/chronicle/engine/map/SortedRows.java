@@ -0,0 +1,156 @@
+/*
+ * Copyright 2016 higherfrequencytrading.com
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package net.openhft.chronicle.engine.map;
+
+import net.openhft.chronicle.engine.api.map.MapEvent;
+import net.openhft.chronicle.engine.api.pubsub.InvalidSubscriberException;
+import net.openhft.chronicle.engine.api.pubsub.Subscriber;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * The entries of a map which pass a filter, kept in sort order as the map changes, so a page of a
+ * {@link MapWrappingColumnView} is found by position rather than by filtering and sorting the whole
+ * map for every request. <p></p> Registered as a subscriber to the map, it is populated by the
+ * bootstrap and then updated by each event. Each row is sorted by a copy of its sort columns taken
+ * when it was added, so a value changed in place stays where it was put until its event moves it.
+ * Once closed it unsubscribes on the next event.
+ */
+class SortedRows<K, V> implements Subscriber<MapEvent<K, V>> {
+
+    // rows copied per lock taken while iterating.
+    static final int CHUNK = 256;
+
+    @NotNull
+    private final Predicate<Map.Entry<K, V>> filter;
+    @NotNull
+    private final Function<Map.Entry<K, V>, Object[]> sortKey;
+    @NotNull
+    private final OrderStatisticTree<SortedRow<K, V>> rows;
+    private final Map<K, OrderStatisticTree.Node<SortedRow<K, V>>> nodes = new HashMap<>();
+    private volatile long lastUsedMs = System.currentTimeMillis();
+    private volatile boolean closed;
+
+    /**
+     * @param sortKey    copies the columns to sort an entry by
+     * @param comparator orders the sort keys
+     */
+    SortedRows(@NotNull Predicate<Map.Entry<K, V>> filter,
+               @NotNull Function<Map.Entry<K, V>, Object[]> sortKey,
+               @NotNull Comparator<Object[]> comparator) {
+        this.filter = filter;
+        this.sortKey = sortKey;
+        this.rows = new OrderStatisticTree<>((r1, r2) -> comparator.compare(r1.sortKey, r2.sortKey));
+    }
+
+    @Override
+    public synchronized void onMessage(@NotNull MapEvent<K, V> event) throws InvalidSubscriberException {
+        if (closed)
+            throw new InvalidSubscriberException();
+
+        final K key = event.getKey();
+        final OrderStatisticTree.Node<SortedRow<K, V>> previous = nodes.remove(key);
+        if (previous != null && !rows.remove(previous)) {
+            // the comparator isn't consistent so the order can't be trusted, build it again when next used.
+            close();
+            throw new InvalidSubscriberException();
+        }
+
+        final V value = event.getValue();
+        if (event instanceof RemovedEvent || value == null)
+            return;
+
+        final Map.Entry<K, V> entry = new AbstractMap.SimpleImmutableEntry<>(key, value);
+        if (filter.test(entry))
+            nodes.put(key, rows.add(new SortedRow<>(entry, sortKey.apply(entry))));
+    }
+
+    @Override
+    public void onEndOfSubscription() {
+        close();
+    }
+
+    synchronized void close() {
+        closed = true;
+        rows.clear();
+        nodes.clear();
+    }
+
+    boolean isClosed() {
+        return closed;
+    }
+
+    long lastUsedMs() {
+        return lastUsedMs;
+    }
+
+    synchronized int size() {
+        lastUsedMs = System.currentTimeMillis();
+        return rows.size();
+    }
+
+    /**
+     * @return the rows in order from {@code fromIndex}, a chunk at a time so changes to the map
+     * aren't held up by a slow reader.
+     */
+    @NotNull
+    Iterator<Map.Entry<K, V>> iterator(long fromIndex) {
+        return new Iterator<Map.Entry<K, V>>() {
+            final List<SortedRow<K, V>> chunk = new ArrayList<>();
+            long next = fromIndex;
+            int pos;
+
+            @Override
+            public boolean hasNext() {
+                if (pos < chunk.size())
+                    return true;
+                chunk.clear();
+                pos = 0;
+                copyTo(next, chunk);
+                return !chunk.isEmpty();
+            }
+
+            @Override
+            public Map.Entry<K, V> next() {
+                if (!hasNext())
+                    throw new NoSuchElementException();
+                next++;
+                return chunk.get(pos++).entry;
+            }
+        };
+    }
+
+    private synchronized void copyTo(long from, @NotNull List<SortedRow<K, V>> chunk) {
+        lastUsedMs = System.currentTimeMillis();
+        if (from < rows.size())
+            rows.copyTo((int) from, CHUNK, chunk);
+    }
+
+    static final class SortedRow<K, V> {
+        final Map.Entry<K, V> entry;
+        final Object[] sortKey;
+
+        SortedRow(Map.Entry<K, V> entry, Object[] sortKey) {
+            this.entry = entry;
+            this.sortKey = sortKey;
+        }
+    }
+}
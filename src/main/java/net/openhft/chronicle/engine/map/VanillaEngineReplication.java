@@ -22,6 +22,7 @@ import net.openhft.chronicle.bytes.BytesStore;
 import net.openhft.chronicle.core.values.IntValue;
 import net.openhft.chronicle.engine.api.EngineReplication;
 import net.openhft.chronicle.engine.api.map.KeyValueStore;
+import net.openhft.chronicle.engine.api.map.MapEvent;
 import net.openhft.chronicle.engine.api.map.MapEventListener;
 import net.openhft.chronicle.engine.api.map.SubscriptionKeyValueStore;
 import net.openhft.chronicle.wire.Marshallable;
@@ -115,7 +116,18 @@ public class VanillaEngineReplication<K, V, MV, Store extends SubscriptionKeyVal
             }
         };
 
-        store.subscription(true).registerDownstream(e -> e.apply(eventListener));
+        store.subscription(true).registerDownstream(new EventConsumer<K, MV>() {
+            @Override
+            public void notifyEvent(MapEvent<K, MV> changeEvent) {
+                changeEvent.apply(eventListener);
+            }
+
+            @Override
+            public boolean needsPrevious() {
+                // only the key is replicated, the value is read from the store when sent.
+                return false;
+            }
+        });
     }
 
     private static int idToInt(byte identifier) {
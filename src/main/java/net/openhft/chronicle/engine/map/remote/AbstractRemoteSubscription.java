@@ -92,6 +92,10 @@ abstract class AbstractRemoteSubscription<E> extends AbstractStatelessClient imp
             csp = csp + "&throttlePeriodMs=" + rc.throttlePeriodMs();
         if (rc.dontPersist())
             csp = csp + "&dontPersist=" + rc.dontPersist();
+        if (rc.needsPrevious() == Boolean.FALSE || !subscriber.needsPrevious())
+            csp = csp + "&needsPrevious=false";
+        if (rc.batched() != null)
+            csp = csp + "&batched=" + rc.batched();
 
         hub.subscribe(new AbstractAsyncSubscription(hub, csp, this.getClass().getSimpleName()) {
             {
@@ -21,6 +21,7 @@ import net.openhft.chronicle.core.Jvm;
 import net.openhft.chronicle.core.util.SerializableBiFunction;
 import net.openhft.chronicle.core.util.SerializableUpdaterWithArg;
 import net.openhft.chronicle.core.util.ThrowingConsumer;
+import net.openhft.chronicle.core.threads.EventLoop;
 import net.openhft.chronicle.core.util.Time;
 import net.openhft.chronicle.engine.api.EngineReplication.ReplicationEntry;
 import net.openhft.chronicle.engine.api.map.KeyValueStore;
@@ -35,10 +36,13 @@ import net.openhft.chronicle.engine.collection.ClientWiredStatelessChronicleSet;
 import net.openhft.chronicle.engine.map.InsertedEvent;
 import net.openhft.chronicle.engine.map.ObjectKeyValueStore;
 import net.openhft.chronicle.engine.map.ObjectSubscription;
+import net.openhft.chronicle.engine.server.internal.MapWireHandler;
+import net.openhft.chronicle.engine.tree.CoalescingWriter;
 import net.openhft.chronicle.network.connection.AbstractStatelessClient;
 import net.openhft.chronicle.network.connection.CoreFields;
 import net.openhft.chronicle.network.connection.TcpChannelHub;
 import net.openhft.chronicle.wire.ValueIn;
+import net.openhft.chronicle.wire.WireKey;
 import net.openhft.chronicle.wire.Wires;
 import net.openhft.chronicle.wire.WriteMarshallable;
 import net.openhft.chronicle.wire.WriteValue;
@@ -68,6 +72,10 @@ public class RemoteKeyValueStore<K, V> extends AbstractStatelessClient<EventId>
     // todo
     @NotNull
     private final ObjectSubscription<K, V> subscriptions;
+    @Nullable
+    private final CoalescingWriter writer;
+    @Nullable
+    private final WriteBehindBuffer<K, V> writeBehind;
 
     public RemoteKeyValueStore(@NotNull final RequestContext context,
                                @NotNull Asset asset,
@@ -77,6 +85,19 @@ public class RemoteKeyValueStore<K, V> extends AbstractStatelessClient<EventId>
         this.kClass = context.keyType();
         this.vClass = context.valueType();
         this.context = context;
+        this.writer = asset.findView(CoalescingWriter.class);
+
+        if (context.writeBehindMs() > 0) {
+            // without an event loop nothing would send the puts after writeBehindMs.
+            EventLoop eventLoop = asset.findView(EventLoop.class);
+            if (eventLoop == null)
+                throw new IllegalStateException("writeBehindMs needs an EventLoop for " + context.fullName());
+            writeBehind = new WriteBehindBuffer<>(context.writeBehindMs(), context.writeBehindKeys(), this::sendPutAll);
+            asset.addView(WriteBehindBuffer.class, writeBehind);
+            eventLoop.addHandler(writeBehind);
+        } else {
+            writeBehind = null;
+        }
 
         subscriptions = asset.acquireView(ObjectSubscription.class, context);
         subscriptions.setKvStore(this);
@@ -154,7 +175,8 @@ public class RemoteKeyValueStore<K, V> extends AbstractStatelessClient<EventId>
     }
 
     public <A> void asyncUpdate(SerializableUpdaterWithArg updateFunction, A arg) {
-        sendEventAsync(update2, toParameters(update2, updateFunction, arg), true);
+        flushWriteBehind();
+        sendAsync(update2, toParameters(update2, updateFunction, arg));
     }
 
     @Override
@@ -252,7 +274,8 @@ public class RemoteKeyValueStore<K, V> extends AbstractStatelessClient<EventId>
 
     public boolean remove(Object key) {
         checkKey(key);
-        sendEventAsync(remove, toParameters(remove, key), true);
+        flushWriteBehind();
+        sendAsync(remove, toParameters(remove, key));
         return false;
     }
 
@@ -271,7 +294,10 @@ public class RemoteKeyValueStore<K, V> extends AbstractStatelessClient<EventId>
     public boolean put(K key, V value) {
         checkKey(key);
         checkValue(value);
-        sendEventAsync(put, toParameters(put, key, value), true);
+        if (writeBehind != null)
+            writeBehind.put(key, value);
+        else
+            sendAsync(put, toParameters(put, key, value));
         return false;
     }
 
@@ -378,6 +404,46 @@ public class RemoteKeyValueStore<K, V> extends AbstractStatelessClient<EventId>
                 csp.toString(), cid, valueIn -> valueIn.object(kClass));
     }
 
+    /**
+     * Send the puts held back when writing behind.
+     */
+    public void flush() {
+        flushWriteBehind();
+        if (writer != null)
+            writer.flush();
+    }
+
+    private void flushWriteBehind() {
+        if (writeBehind != null)
+            writeBehind.flush();
+    }
+
+    private void sendPutAll(@NotNull final Map<K, V> entries) {
+        sendAsync(putAll, valueOut -> valueOut.sequence(v -> {
+            for (Map.Entry<K, V> entry : entries.entrySet())
+                v.marshallable(m -> {
+                    m.write(MapWireHandler.Params.key).object(entry.getKey());
+                    m.write(MapWireHandler.Params.value).object(entry.getValue());
+                });
+        }));
+    }
+
+    private void sendAsync(@NotNull final EventId eventId, @Nullable final WriteValue consumer) {
+        if (writer == null)
+            sendEventAsync(eventId, consumer, true);
+        else
+            writer.write(csp, eventId, consumer);
+    }
+
+    // a request has to follow the writes buffered before it.
+    @Override
+    protected long sendEvent(final long startTime,
+                             @NotNull final WireKey eventId,
+                             @Nullable final WriteValue consumer) {
+        flush();
+        return super.sendEvent(startTime, eventId, consumer);
+    }
+
     @SuppressWarnings("SameParameterValue")
     private boolean proxyReturnBoolean(@NotNull final EventId eventId,
                                        @Nullable final WriteValue consumer) {
@@ -17,12 +17,17 @@
 
 package net.openhft.chronicle.engine.map.remote;
 
+import net.openhft.chronicle.engine.api.pubsub.InvalidSubscriberException;
+import net.openhft.chronicle.engine.api.pubsub.Subscriber;
 import net.openhft.chronicle.engine.api.tree.Asset;
 import net.openhft.chronicle.engine.api.tree.RequestContext;
+import net.openhft.chronicle.engine.query.Filter;
+import net.openhft.chronicle.engine.tree.BatchedAssetEvent;
 import net.openhft.chronicle.engine.tree.TopologicalEvent;
 import net.openhft.chronicle.engine.tree.TopologySubscription;
 import net.openhft.chronicle.network.connection.TcpChannelHub;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 /**
  * Created by rob austin on 28/06/2015.
@@ -38,6 +43,30 @@ public class RemoteTopologySubscription extends AbstractRemoteSubscription<Topol
         return context.fullName() + "?view=topologySubscription";
     }
 
+    /**
+     * Asks the server to batch the children added to an asset, as there can be very many of them,
+     * each batch is passed to the subscriber one child at a time.
+     */
+    @Override
+    public void registerSubscriber(@NotNull RequestContext rc,
+                                   @NotNull Subscriber<TopologicalEvent> subscriber,
+                                   @NotNull Filter<TopologicalEvent> filter) {
+        registerSubscriber0(rc.clone().batched(true), subscriber, filter);
+    }
+
+    @Override
+    void onEvent(@Nullable Object message, @NotNull Subscriber subscriber) {
+        if (message instanceof BatchedAssetEvent) {
+            try {
+                ((BatchedAssetEvent) message).forEachEvent(subscriber);
+            } catch (InvalidSubscriberException noLongerValid) {
+                unregisterSubscriber(subscriber);
+            }
+        } else {
+            super.onEvent(message, subscriber);
+        }
+    }
+
     @Override
     public void notifyEvent(TopologicalEvent event) {
         throw new UnsupportedOperationException("Remote client should not attempt to notify of a change");
@@ -0,0 +1,183 @@
+/*
+ * Copyright 2016 higherfrequencytrading.com
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package net.openhft.chronicle.engine.map.remote;
+
+import net.openhft.chronicle.bytes.Bytes;
+import net.openhft.chronicle.core.io.Closeable;
+import net.openhft.chronicle.core.threads.EventHandler;
+import net.openhft.chronicle.core.threads.HandlerPriority;
+import net.openhft.chronicle.core.threads.InvalidEventHandlerException;
+import net.openhft.chronicle.wire.Marshallable;
+import net.openhft.chronicle.wire.Wire;
+import net.openhft.chronicle.wire.WireType;
+import net.openhft.chronicle.wire.Wires;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Holds the latest value put for each key of a remote map, so a key updated many times between
+ * sends is only sent once. The keys held are sent together once there are
+ * {@link net.openhft.chronicle.engine.api.tree.RequestContext#writeBehindKeys()} of them, or
+ * {@link net.openhft.chronicle.engine.api.tree.RequestContext#writeBehindMs()} after the first was
+ * put, or on {@link #flush()}. <p></p> A put is sent no later than that, and always before a
+ * request made after it by the same map, so the map reads its own writes. Enabled with
+ * <code>?writeBehindMs=</code> in the uri of the map. <p></p> Keys and values are copied when put,
+ * so a caller can reuse a mutable value, and what is sent is what was put.
+ */
+public class WriteBehindBuffer<K, V> implements EventHandler, Closeable {
+
+    private static final ThreadLocal<Wire> COPY_WIRE =
+            ThreadLocal.withInitial(() -> WireType.BINARY.apply(Bytes.elasticByteBuffer()));
+
+    @NotNull
+    private final Consumer<Map<K, V>> sender;
+    private final long periodMs;
+    private final int maxKeys;
+    @NotNull
+    private Map<K, V> pending = new LinkedHashMap<>();
+    // when the oldest key held was put, or 0 if none are.
+    private volatile long oldestMs;
+    private volatile boolean closed;
+
+    private volatile long puts;
+    private volatile long conflated;
+    private volatile long flushes;
+    private volatile long keysSent;
+
+    public WriteBehindBuffer(long periodMs, int maxKeys, @NotNull Consumer<Map<K, V>> sender) {
+        this.periodMs = periodMs;
+        this.maxKeys = Math.max(1, maxKeys);
+        this.sender = sender;
+    }
+
+    /**
+     * @return a copy of a value which could be changed after it is put, or the value if it can't.
+     */
+    @NotNull
+    static <T> T copyOf(@NotNull T value) {
+        if (value instanceof String || value instanceof Number || value instanceof Boolean
+                || value instanceof Character || value instanceof Enum)
+            return value;
+        if (value instanceof Marshallable)
+            return (T) Wires.deepCopy((Marshallable) value);
+
+        final Wire wire = COPY_WIRE.get();
+        wire.clear();
+        wire.getValueOut().object(value);
+        return (T) wire.getValueIn().object(value.getClass());
+    }
+
+    public void put(@NotNull K key, @NotNull V value) {
+        // copied before taking the lock.
+        put0(copyOf(key), copyOf(value));
+    }
+
+    private synchronized void put0(@NotNull K key, @NotNull V value) {
+        puts++;
+        if (pending.put(key, value) != null)
+            conflated++;
+        else if (pending.size() == 1)
+            oldestMs = System.currentTimeMillis();
+
+        if (pending.size() >= maxKeys)
+            flush();
+    }
+
+    /**
+     * Send every key held now.
+     */
+    public synchronized void flush() {
+        if (pending.isEmpty())
+            return;
+
+        final Map<K, V> batch = pending;
+        pending = new LinkedHashMap<>();
+        oldestMs = 0;
+        flushes++;
+        keysSent += batch.size();
+        sender.accept(batch);
+    }
+
+    /**
+     * @return the number of puts made.
+     */
+    public long puts() {
+        return puts;
+    }
+
+    /**
+     * @return the number of puts replaced by a later put of the same key before being sent.
+     */
+    public long conflated() {
+        return conflated;
+    }
+
+    /**
+     * @return the number of times keys were sent.
+     */
+    public long flushes() {
+        return flushes;
+    }
+
+    /**
+     * @return the number of keys sent.
+     */
+    public long keysSent() {
+        return keysSent;
+    }
+
+    @Override
+    public boolean action() throws InvalidEventHandlerException {
+        if (closed)
+            throw new InvalidEventHandlerException();
+
+        final long oldest = oldestMs;
+        if (oldest == 0 || System.currentTimeMillis() - oldest < periodMs)
+            return false;
+        flush();
+        return true;
+    }
+
+    @NotNull
+    @Override
+    public HandlerPriority priority() {
+        return HandlerPriority.MEDIUM;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        flush();
+    }
+
+    @NotNull
+    @Override
+    public String toString() {
+        return "WriteBehindBuffer{" +
+                "periodMs=" + periodMs +
+                ", maxKeys=" + maxKeys +
+                ", puts=" + puts +
+                ", conflated=" + conflated +
+                ", flushes=" + flushes +
+                ", keysSent=" + keysSent +
+                '}';
+    }
+}
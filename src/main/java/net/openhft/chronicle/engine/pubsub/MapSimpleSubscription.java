@@ -22,16 +22,18 @@ import net.openhft.chronicle.core.Jvm;
 import net.openhft.chronicle.engine.api.pubsub.InvalidSubscriberException;
 import net.openhft.chronicle.engine.api.pubsub.Reference;
 import net.openhft.chronicle.engine.api.pubsub.Subscriber;
+import net.openhft.chronicle.engine.api.pubsub.SubscriberSet;
 import net.openhft.chronicle.engine.api.pubsub.SubscriptionConsumer;
 import net.openhft.chronicle.engine.api.tree.RequestContext;
 import net.openhft.chronicle.engine.query.Filter;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.Set;
-import java.util.concurrent.CopyOnWriteArraySet;
 import java.util.function.Function;
+import java.util.function.IntConsumer;
 
 /**
  * Created by peter on 29/05/15.
@@ -39,13 +41,25 @@ import java.util.function.Function;
 public class MapSimpleSubscription<E> implements SimpleSubscription<E> {
 
     private static final Logger LOG = LoggerFactory.getLogger(MapSimpleSubscription.class);
-    private final Set<Subscriber<E>> subscribers = new CopyOnWriteArraySet<>();
+    private final Set<Subscriber<E>> subscribers = new SubscriberSet<>();
     private final Reference<E> currentValue;
     private final Function<Object, E> valueReader;
+    @Nullable
+    private final IntConsumer onSubscribersChanged;
 
     public MapSimpleSubscription(Reference<E> reference, Function<Object, E> valueReader) {
+        this(reference, valueReader, null);
+    }
+
+    /**
+     * @param onSubscribersChanged is passed the number of subscribers whenever one is added or
+     *                             removed, one call at a time.
+     */
+    public MapSimpleSubscription(Reference<E> reference, Function<Object, E> valueReader,
+                                 @Nullable IntConsumer onSubscribersChanged) {
         this.currentValue = reference;
         this.valueReader = valueReader;
+        this.onSubscribersChanged = onSubscribersChanged;
     }
 
     @Override
@@ -53,20 +67,45 @@ public class MapSimpleSubscription<E> implements SimpleSubscription<E> {
                                    @NotNull Subscriber<E> subscriber,
                                    @NotNull Filter<E> filter) {
         subscribers.add(subscriber);
+        subscribersChanged();
         if (rc.bootstrap() != Boolean.FALSE)
             try {
                 subscriber.onMessage(currentValue.get());
             } catch (InvalidSubscriberException e) {
                 subscribers.remove(subscriber);
+                subscribersChanged();
             }
     }
 
     @Override
     public void unregisterSubscriber(@NotNull Subscriber subscriber) {
         subscribers.remove(subscriber);
+        subscribersChanged();
         subscriber.onEndOfSubscription();
     }
 
+    /**
+     * Move the subscribers to another subscription of the same value, without bootstrapping them
+     * again.
+     */
+    public void moveSubscribersTo(@NotNull MapSimpleSubscription<E> to) {
+        for (Subscriber<E> subscriber : subscribers) {
+            to.subscribers.add(subscriber);
+            subscribers.remove(subscriber);
+        }
+        to.subscribersChanged();
+        subscribersChanged();
+    }
+
+    private void subscribersChanged() {
+        if (onSubscribersChanged == null)
+            return;
+        // the count is read under the lock, so the last call always sees the latest count.
+        synchronized (this) {
+            onSubscribersChanged.accept(subscribers.size());
+        }
+    }
+
     @Override
     public int keySubscriberCount() {
         return subscriberCount();
@@ -92,6 +131,9 @@ public class MapSimpleSubscription<E> implements SimpleSubscription<E> {
         try {
             E ee = e instanceof BytesStore ? valueReader.apply(e) : (E) e;
             SubscriptionConsumer.notifyEachSubscriber(subscribers, s -> s.onMessage(ee));
+            // subscribers which are no longer valid are removed as they are notified.
+            if (subscribers.isEmpty())
+                subscribersChanged();
         } catch (ClassCastException e1) {
             if (LOG.isDebugEnabled())
                 Jvm.debug().on(getClass(), "Is " + valueReader + " the correct ValueReader?");
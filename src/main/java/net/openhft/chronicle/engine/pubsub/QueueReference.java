@@ -50,7 +50,7 @@ public class QueueReference<T, M> implements Reference<M> {
         this.name = name;
         eventLoop = asset.root().acquireView(EventLoop.class);
         this.asset = asset;
-        tailer = this.chronicleQueue.tailer();
+        tailer = this.chronicleQueue.tailer(name);
     }
 
     public QueueReference(RequestContext requestContext, Asset asset, QueueView<T, M> queueView) {
@@ -87,7 +87,7 @@ public class QueueReference<T, M> implements Reference<M> {
 
         final ChronicleQueueView<T, M> chronicleQueue = (ChronicleQueueView<T, M>) asset.acquireView(QueueView.class);
 
-        final QueueView.Tailer<T, M> iterator = chronicleQueue.tailer();
+        final QueueView.Tailer<T, M> iterator = chronicleQueue.tailer(name);
 
         eventLoop.addHandler(() -> {
 
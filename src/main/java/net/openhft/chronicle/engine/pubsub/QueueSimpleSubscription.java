@@ -19,23 +19,20 @@ package net.openhft.chronicle.engine.pubsub;
 
 import net.openhft.chronicle.bytes.BytesStore;
 import net.openhft.chronicle.core.Jvm;
-import net.openhft.chronicle.core.threads.EventLoop;
-import net.openhft.chronicle.core.threads.InvalidEventHandlerException;
-import net.openhft.chronicle.engine.api.pubsub.InvalidSubscriberException;
 import net.openhft.chronicle.engine.api.pubsub.Subscriber;
 import net.openhft.chronicle.engine.api.tree.Asset;
 import net.openhft.chronicle.engine.api.tree.AssetNotFoundException;
 import net.openhft.chronicle.engine.api.tree.RequestContext;
 import net.openhft.chronicle.engine.query.Filter;
 import net.openhft.chronicle.engine.tree.ChronicleQueueView;
+import net.openhft.chronicle.engine.tree.QueueTopicDemultiplexer;
 import net.openhft.chronicle.engine.tree.QueueView;
 import org.jetbrains.annotations.NotNull;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Function;
 
 /**
@@ -44,13 +41,12 @@ import java.util.function.Function;
 public class QueueSimpleSubscription<E> implements SimpleSubscription<E> {
 
     private static final Logger LOG = LoggerFactory.getLogger(QueueSimpleSubscription.class);
-    private final Map<Subscriber<E>, AtomicBoolean> subscribers = new ConcurrentHashMap<>();
+    private final Set<Subscriber<E>> subscribers = ConcurrentHashMap.newKeySet();
     private final Function<Object, E> valueReader;
 
     // private final ObjectSubscription objectSubscription;
 
     private final ChronicleQueueView<?, E> chronicleQueue;
-    private final EventLoop eventLoop;
     private final String topic;
 
     public QueueSimpleSubscription(Function<Object, E> valueReader,
@@ -58,7 +54,6 @@ public class QueueSimpleSubscription<E> implements SimpleSubscription<E> {
         this.valueReader = valueReader;
         this.topic = topic;
         chronicleQueue = (ChronicleQueueView) parent.acquireView(QueueView.class);
-        eventLoop = parent.acquireView(EventLoop.class);
     }
 
     @Override
@@ -72,42 +67,14 @@ public class QueueSimpleSubscription<E> implements SimpleSubscription<E> {
                                    int throttlePeriodMs,
                                    Subscriber<E> subscriber) throws AssetNotFoundException {
 
-        AtomicBoolean terminate = new AtomicBoolean();
-        subscribers.put(subscriber, terminate);
-
-        final QueueView.Tailer<?, E> tailer = chronicleQueue.tailer();
-
-        eventLoop.addHandler(() -> {
-
-            // this will be set to true if onMessage throws InvalidSubscriberException
-            if (terminate.get())
-                throw new InvalidEventHandlerException();
-
-            final QueueView.Excerpt<?, E> next = tailer.read();
-
-            if (next == null)
-                return false;
-            try {
-                Object topic = next.topic();
-
-                if (!this.topic.equals(topic.toString()))
-                    return true;
-
-                subscriber.onMessage(next.message());
-            } catch (InvalidSubscriberException e) {
-                terminate.set(true);
-            }
-
-            return true;
-        });
-
+        subscribers.add(subscriber);
+        chronicleQueue.demultiplexer().subscribe(topic, QueueTopicDemultiplexer.FROM_START, subscriber);
     }
 
     @Override
     public void unregisterSubscriber(Subscriber subscriber) {
-        final AtomicBoolean terminator = subscribers.remove(subscriber);
-        if (terminator != null)
-            terminator.set(true);
+        if (subscribers.remove(subscriber))
+            chronicleQueue.demultiplexer().unsubscribe(topic, subscriber);
     }
 
     @Override
@@ -144,7 +111,7 @@ public class QueueSimpleSubscription<E> implements SimpleSubscription<E> {
 
     @Override
     public void close() {
-        for (Subscriber<E> subscriber : subscribers.keySet()) {
+        for (Subscriber<E> subscriber : subscribers) {
             try {
                 subscriber.onEndOfSubscription();
             } catch (Exception e) {
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2016 higherfrequencytrading.com
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package net.openhft.chronicle.engine.pubsub;
+
+import net.openhft.chronicle.core.Jvm;
+import net.openhft.chronicle.engine.tree.QueueView;
+import net.openhft.chronicle.engine.tree.QueueView.Excerpt;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Reads a remote queue in windows of excerpts, requesting the next window as soon as one arrives so
+ * it is usually there by the time it is needed. <p></p> The index of the last excerpt read is kept
+ * here rather than on the server, so after a reconnect the tailer carries on from where it was, as
+ * a window requested when the connection was lost is requested again on the next read. Not thread
+ * safe.
+ */
+public class RemoteQueueTailer<T, M> implements QueueView.Tailer<T, M> {
+
+    private final RemoteQueueView<T, M> queueView;
+    private final int windowMessages;
+    private final int windowBytes;
+    private final long timeoutMs;
+
+    private long lastIndex;
+    @NotNull
+    private List<Excerpt<T, M>> window = Collections.emptyList();
+    private int position;
+    @Nullable
+    private CompletableFuture<List<Excerpt<T, M>>> next;
+
+    RemoteQueueTailer(@NotNull RemoteQueueView<T, M> queueView, long afterIndex,
+                      int windowMessages, int windowBytes, long timeoutMs) {
+        this.queueView = queueView;
+        this.lastIndex = afterIndex;
+        this.windowMessages = windowMessages;
+        this.windowBytes = windowBytes;
+        this.timeoutMs = timeoutMs;
+    }
+
+    /**
+     * @return the next excerpt, or null if there are none yet, or the next window didn't arrive
+     * within the timeout.
+     */
+    @Nullable
+    @Override
+    public Excerpt<T, M> read() {
+        if (position == window.size() && !nextWindow())
+            return null;
+
+        final Excerpt<T, M> excerpt = window.get(position++);
+        lastIndex = excerpt.index();
+        return excerpt;
+    }
+
+    /**
+     * @return the index of the last excerpt read, which a new tailer can resume after.
+     */
+    public long lastIndex() {
+        return lastIndex;
+    }
+
+    private boolean nextWindow() {
+        if (next == null)
+            next = queueView.readBatchAsync(lastIndex, windowMessages, windowBytes);
+
+        final List<Excerpt<T, M>> batch;
+        try {
+            batch = next.get(timeoutMs, TimeUnit.MILLISECONDS);
+
+        } catch (TimeoutException e) {
+            // leave it to be picked up by the next read.
+            return false;
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+
+        } catch (ExecutionException e) {
+            Jvm.warn().on(getClass(), "Unable to read " + queueView.asset().fullName()
+                    + " after index " + Long.toHexString(lastIndex), e.getCause());
+            next = null;
+            return false;
+        }
+
+        window = batch;
+        position = 0;
+        // an empty window means we have caught up, so ask again when next read.
+        next = batch.isEmpty()
+                ? null
+                : queueView.readBatchAsync(batch.get(batch.size() - 1).index(), windowMessages, windowBytes);
+        return !batch.isEmpty();
+    }
+}
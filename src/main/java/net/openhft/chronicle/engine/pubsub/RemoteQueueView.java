@@ -17,13 +17,31 @@
 
 package net.openhft.chronicle.engine.pubsub;
 
+import net.openhft.chronicle.core.Jvm;
+import net.openhft.chronicle.core.io.IORuntimeException;
 import net.openhft.chronicle.engine.api.tree.Asset;
 import net.openhft.chronicle.engine.api.tree.RequestContext;
+import net.openhft.chronicle.engine.server.internal.TopicPublisherHandler.Params;
 import net.openhft.chronicle.engine.tree.ChronicleQueueView.LocalExcept;
+import net.openhft.chronicle.engine.tree.IndexRange;
 import net.openhft.chronicle.engine.tree.QueueView;
+import net.openhft.chronicle.network.connection.AbstractAsyncSubscription;
+import net.openhft.chronicle.network.connection.CoreFields;
+import net.openhft.chronicle.wire.ValueIn;
+import net.openhft.chronicle.wire.WireIn;
+import net.openhft.chronicle.wire.WireOut;
+import net.openhft.chronicle.wire.Wires;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
 import static net.openhft.chronicle.engine.server.internal.TopicPublisherHandler.EventId.*;
 
 /**
@@ -31,6 +49,11 @@ import static net.openhft.chronicle.engine.server.internal.TopicPublisherHandler
  */
 public class RemoteQueueView<T, M> extends RemoteTopicPublisher<T, M> implements QueueView<T, M> {
 
+    private static final int DEFAULT_WINDOW_MESSAGES = 1000;
+    private static final int DEFAULT_WINDOW_BYTES = 1 << 20;
+    // the event name of the reply, when the server fails to process a request.
+    private static final String EXCEPTION = "exception";
+
     final ThreadLocal<LocalExcept<T, M>> threadLocal = ThreadLocal.withInitial(LocalExcept::new);
     private final Asset asset;
 
@@ -56,6 +79,171 @@ public class RemoteQueueView<T, M> extends RemoteTopicPublisher<T, M> implements
         return proxyReturnLongWithArgs(publishAndIndex, topic, message);
     }
 
+    /**
+     * @param afterIndex the index of the last excerpt already read, or -1 to read from the start
+     * @return a tailer which reads up to 1000 excerpts or 1 MB per request, and prefetches the
+     * next window.
+     */
+    @NotNull
+    public RemoteQueueTailer<T, M> tailer(long afterIndex) {
+        return tailer(afterIndex, DEFAULT_WINDOW_MESSAGES, DEFAULT_WINDOW_BYTES);
+    }
+
+    @NotNull
+    public RemoteQueueTailer<T, M> tailer(long afterIndex, int windowMessages, int windowBytes) {
+        return new RemoteQueueTailer<>(this, afterIndex, windowMessages, windowBytes, hub.timeoutMs);
+    }
+
+    @NotNull
+    @Override
+    public List<Excerpt<T, M>> readBatch(long afterIndex, int maxMessages, int maxBytes) {
+        return join(readBatchAsync(afterIndex, maxMessages, maxBytes),
+                "read a batch after index " + Long.toHexString(afterIndex));
+    }
+
+    /**
+     * As {@link #readBatch(long, int, int)}, the future is completed when the server replies, or
+     * completed exceptionally if the connection is lost first.
+     */
+    @NotNull
+    public CompletableFuture<List<Excerpt<T, M>>> readBatchAsync(long afterIndex, int maxMessages, int maxBytes) {
+        return request(new OneReplySubscription<List<Excerpt<T, M>>>("Remote queue read batch") {
+
+            @Override
+            public void onSubscribe(@NotNull final WireOut wireOut) {
+                wireOut.writeEventName(readBatch).marshallable(m -> m
+                        .write(Params.index).int64(afterIndex)
+                        .write(Params.maxMessages).int32(maxMessages)
+                        .write(Params.maxBytes).int32(maxBytes));
+            }
+
+            @NotNull
+            @Override
+            List<Excerpt<T, M>> readReply(@NotNull ValueIn valueIn) {
+                final List<Excerpt<T, M>> batch = new ArrayList<>();
+                valueIn.sequence(batch, (b, v) -> {
+                    while (v.hasNextSequenceItem()) {
+                        final LocalExcept<T, M> excerpt = new LocalExcept<>();
+                        v.marshallable(excerpt);
+                        b.add(excerpt);
+                    }
+                });
+                return batch;
+            }
+        });
+    }
+
+    @Override
+    public long firstIndexAtOrAfter(long timeMs) {
+        return proxyReturnLongWithArgs(firstIndexAtOrAfter, timeMs);
+    }
+
+    @NotNull
+    @Override
+    public IndexRange publishBatchAndIndex(@NotNull List<? extends Map.Entry<T, M>> batch) {
+        return join(publishBatchAndIndexAsync(batch), "publish a batch of " + batch.size());
+    }
+
+    /**
+     * Sends the batch as one request, the future is completed when the server replies, or
+     * completed exceptionally if the connection is lost first, in which case the batch may or may
+     * not have been published.
+     */
+    @NotNull
+    @Override
+    public CompletableFuture<IndexRange> publishBatchAndIndexAsync(@NotNull List<? extends Map.Entry<T, M>> batch) {
+        return request(new OneReplySubscription<IndexRange>("Remote queue publish batch") {
+
+            @Override
+            public void onSubscribe(@NotNull final WireOut wireOut) {
+                wireOut.writeEventName(publishBatchAndIndex).sequence(v -> {
+                    for (Map.Entry<T, M> entry : batch)
+                        v.marshallable(m -> {
+                            m.write(Params.topic).object(entry.getKey());
+                            m.write(Params.message).object(entry.getValue());
+                        });
+                });
+            }
+
+            @NotNull
+            @Override
+            IndexRange readReply(@NotNull ValueIn valueIn) {
+                final IndexRange range = new IndexRange();
+                valueIn.marshallable(range);
+                return range;
+            }
+        });
+    }
+
+    @NotNull
+    private <R> CompletableFuture<R> request(@NotNull OneReplySubscription<R> subscription) {
+        flush();
+        hub.subscribe(subscription);
+        return subscription.result;
+    }
+
+    /**
+     * Waits for the reply as long as the hub waits for the reply to any other request.
+     */
+    private <R> R join(@NotNull CompletableFuture<R> future, @NotNull String request) {
+        try {
+            return future.get(hub.timeoutMs, TimeUnit.MILLISECONDS);
+
+        } catch (TimeoutException e) {
+            // drop the reply if it comes later.
+            future.completeExceptionally(e);
+            throw new IORuntimeException("Timed out waiting to " + request + " on " + csp);
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IORuntimeException(e);
+
+        } catch (ExecutionException e) {
+            throw Jvm.rethrow(e.getCause());
+        }
+    }
+
+    /**
+     * A request with one reply, which completes the result with the reply or the exception the
+     * server replied with. The request isn't sent again on reconnect, as the server may have acted
+     * on it already, rather the result is completed exceptionally when the connection is lost.
+     */
+    private abstract class OneReplySubscription<R> extends AbstractAsyncSubscription {
+
+        final CompletableFuture<R> result = new CompletableFuture<>();
+        private final String name;
+
+        OneReplySubscription(@NotNull String name) {
+            super(hub, csp, name);
+            this.name = name;
+            result.whenComplete((r, t) -> hub.unsubscribe(tid()));
+        }
+
+        abstract R readReply(@NotNull ValueIn valueIn);
+
+        @Override
+        public void onConsumer(@NotNull final WireIn w) {
+            w.readDocument(null, d -> {
+                final StringBuilder eventName = Wires.acquireStringBuilder();
+                final ValueIn valueIn = d.readEventName(eventName);
+                if (CoreFields.reply.contentEquals(eventName))
+                    result.complete(readReply(valueIn));
+                else if (EXCEPTION.contentEquals(eventName))
+                    result.completeExceptionally(valueIn.throwable(false));
+                else
+                    result.completeExceptionally(new IllegalStateException(
+                            "Unexpected reply " + eventName + " to " + name));
+            });
+        }
+
+        @Override
+        public void onClose() {
+            hub.preventSubscribeUponReconnect(tid());
+            result.completeExceptionally(new IORuntimeException(
+                    "Connection lost waiting for the reply to " + name + " on " + csp));
+        }
+    }
+
     @Override
     public Asset asset() {
         return asset;
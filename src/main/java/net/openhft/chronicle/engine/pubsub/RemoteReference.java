@@ -29,14 +29,17 @@ import net.openhft.chronicle.engine.api.tree.AssetNotFoundException;
 import net.openhft.chronicle.engine.api.tree.RequestContext;
 import net.openhft.chronicle.engine.server.internal.ReferenceHandler;
 import net.openhft.chronicle.engine.server.internal.ReferenceHandler.EventId;
+import net.openhft.chronicle.engine.tree.CoalescingWriter;
 import net.openhft.chronicle.network.connection.AbstractAsyncSubscription;
 import net.openhft.chronicle.network.connection.AbstractStatelessClient;
 import net.openhft.chronicle.network.connection.CoreFields;
 import net.openhft.chronicle.network.connection.TcpChannelHub;
 import net.openhft.chronicle.wire.ValueIn;
 import net.openhft.chronicle.wire.WireIn;
+import net.openhft.chronicle.wire.WireKey;
 import net.openhft.chronicle.wire.WireOut;
 import net.openhft.chronicle.wire.Wires;
+import net.openhft.chronicle.wire.WriteValue;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.slf4j.Logger;
@@ -54,16 +57,25 @@ public class RemoteReference<E> extends AbstractStatelessClient<ReferenceHandler
     private static final Logger LOG = LoggerFactory.getLogger(ReferenceHandler.class);
     private final Class<E> messageClass;
     private final Map<Object, Long> subscribersToTid = new ConcurrentHashMap<>();
+    @Nullable
+    private final CoalescingWriter writer;
 
     public RemoteReference(@NotNull RequestContext requestContext, @NotNull Asset asset) {
-        this(asset.findView(TcpChannelHub.class), requestContext.messageType(), asset.fullName());
+        this(asset.findView(TcpChannelHub.class), requestContext.messageType(), asset.fullName(),
+                asset.findView(CoalescingWriter.class));
     }
 
     public RemoteReference(@NotNull TcpChannelHub hub, Class<E> messageClass, String fullName)
             throws AssetNotFoundException {
+        this(hub, messageClass, fullName, null);
+    }
+
+    private RemoteReference(@NotNull TcpChannelHub hub, Class<E> messageClass, String fullName,
+                            @Nullable CoalescingWriter writer) throws AssetNotFoundException {
         super(hub, (long) 0, toUri(fullName, messageClass));
 
         this.messageClass = messageClass;
+        this.writer = writer;
     }
 
     private static String toUri(String fullName, Class messageClass) {
@@ -79,10 +91,31 @@ public class RemoteReference<E> extends AbstractStatelessClient<ReferenceHandler
     @Override
     public long set(final E event) {
         checkEvent(event);
-        sendEventAsync(set, valueOut -> valueOut.object(event), true);
+        sendAsync(set, valueOut -> valueOut.object(event));
         return 0;
     }
 
+    private void sendAsync(@NotNull final EventId eventId, @Nullable final WriteValue consumer) {
+        if (writer == null)
+            sendEventAsync(eventId, consumer, true);
+        else
+            writer.write(csp, eventId, consumer);
+    }
+
+    // a request has to follow the writes buffered before it.
+    @Override
+    protected long sendEvent(final long startTime,
+                             @NotNull final WireKey eventId,
+                             @Nullable final WriteValue consumer) {
+        flush();
+        return super.sendEvent(startTime, eventId, consumer);
+    }
+
+    private void flush() {
+        if (writer != null)
+            writer.flush();
+    }
+
     @Nullable
     @Override
     public E get() {
@@ -97,7 +130,7 @@ public class RemoteReference<E> extends AbstractStatelessClient<ReferenceHandler
 
     @Override
     public void remove() {
-        sendEventAsync(remove, null, true);
+        sendAsync(remove, null);
     }
 
     @Nullable
@@ -122,6 +155,7 @@ public class RemoteReference<E> extends AbstractStatelessClient<ReferenceHandler
             return;
         }
 
+        flush();
         sendEventAsync(unregisterSubscriber, valueOut -> valueOut.int64(tid), false);
 
     }
@@ -172,6 +206,7 @@ public class RemoteReference<E> extends AbstractStatelessClient<ReferenceHandler
 
         };
 
+        flush();
         hub.subscribe(asyncSubscription);
     }
 
@@ -221,7 +256,7 @@ public class RemoteReference<E> extends AbstractStatelessClient<ReferenceHandler
 
     @Override
     public <T> void asyncUpdate(@NotNull SerializableBiFunction<E, T, E> updateFunction, T argument) {
-        sendEventAsync(update2, toParameters(update2, updateFunction, argument), true);
+        sendAsync(update2, toParameters(update2, updateFunction, argument));
     }
 
     @Nullable
@@ -24,14 +24,17 @@ import net.openhft.chronicle.engine.api.tree.AssetNotFoundException;
 import net.openhft.chronicle.engine.api.tree.RequestContext;
 import net.openhft.chronicle.engine.server.internal.TopicPublisherHandler.EventId;
 import net.openhft.chronicle.engine.server.internal.TopicPublisherHandler.Params;
+import net.openhft.chronicle.engine.tree.CoalescingWriter;
 import net.openhft.chronicle.network.connection.AbstractAsyncSubscription;
 import net.openhft.chronicle.network.connection.AbstractStatelessClient;
 import net.openhft.chronicle.network.connection.CoreFields;
 import net.openhft.chronicle.network.connection.TcpChannelHub;
 import net.openhft.chronicle.wire.ValueIn;
 import net.openhft.chronicle.wire.WireIn;
+import net.openhft.chronicle.wire.WireKey;
 import net.openhft.chronicle.wire.WireOut;
 import net.openhft.chronicle.wire.Wires;
+import net.openhft.chronicle.wire.WriteValue;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
@@ -47,12 +50,15 @@ public class RemoteTopicPublisher<T, M> extends AbstractStatelessClient<EventId>
 
     final Class<T> topicClass;
     final Class<M> messageClass;
+    @Nullable
+    private final CoalescingWriter writer;
 
     public RemoteTopicPublisher(@NotNull RequestContext context, @NotNull Asset asset)
             throws AssetNotFoundException {
         super(asset.findView(TcpChannelHub.class), (long) 0, toUri(context, "topicPublisher"));
         topicClass = context.topicType();
         messageClass = context.messageType();
+        writer = asset.findView(CoalescingWriter.class);
 
     }
 
@@ -61,6 +67,7 @@ public class RemoteTopicPublisher<T, M> extends AbstractStatelessClient<EventId>
         super(asset.findView(TcpChannelHub.class), (long) 0, toUri(context, view));
         topicClass = context.topicType();
         messageClass = context.messageType();
+        writer = asset.findView(CoalescingWriter.class);
 
     }
 
@@ -84,10 +91,31 @@ public class RemoteTopicPublisher<T, M> extends AbstractStatelessClient<EventId>
     public void publish(@NotNull final T topic, @NotNull final M message) {
         checkTopic(topic);
         checkMessage(message);
-        sendEventAsync(publish, valueOut -> valueOut.marshallable(m -> {
+        final WriteValue params = valueOut -> valueOut.marshallable(m -> {
             m.write(Params.topic).object(topic);
             m.write(Params.message).object(message);
-        }), true);
+        });
+        if (writer == null)
+            sendEventAsync(publish, params, true);
+        else
+            writer.write(csp, publish, params);
+    }
+
+    // a request has to follow the messages buffered before it.
+    @Override
+    protected long sendEvent(final long startTime,
+                             @NotNull final WireKey eventId,
+                             @Nullable final WriteValue consumer) {
+        flush();
+        return super.sendEvent(startTime, eventId, consumer);
+    }
+
+    /**
+     * Send the messages published and buffered by the {@link CoalescingWriter}, if there is one.
+     */
+    protected void flush() {
+        if (writer != null)
+            writer.flush();
     }
 
     private void checkTopic(@Nullable Object topic) {
@@ -107,6 +135,7 @@ public class RemoteTopicPublisher<T, M> extends AbstractStatelessClient<EventId>
         if (hub.outBytesLock().isHeldByCurrentThread())
             throw new IllegalStateException("Cannot view map while debugging");
 
+        flush();
         hub.subscribe(new AbstractAsyncSubscription(hub, csp, "Remote Topic publisher register subscribe") {
 
             @Override
@@ -201,5 +201,11 @@ public class Filter<E> implements Marshallable, Iterable<Operation> {
         public void onEndOfSubscription() {
             subscriber.onEndOfSubscription();
         }
+
+        @Override
+        public boolean needsPrevious() {
+            // the filter operations may look at the whole event, including the old value.
+            return true;
+        }
     }
 }
@@ -18,6 +18,7 @@
 package net.openhft.chronicle.engine.query;
 
 import net.openhft.chronicle.engine.tree.MessageAdaptor;
+import net.openhft.chronicle.queue.RollCycle;
 import net.openhft.chronicle.wire.WireType;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -33,6 +34,25 @@ public class QueueConfig {
     private final boolean acknowledgment;
     private final MessageAdaptor messageAdaptor;
     private final WireType wireType;
+    private boolean topicIndex;
+    private long topicIndexEntries = 1 << 16;
+    private long topicIndexMessagesPerTopic = 256;
+    private long indexCheckpointPeriodMs = 0;
+    private long indexCheckpointEntries = 1 << 20;
+    private boolean sharedIndexTailer;
+    private int sharedIndexTailerBacklog = 1 << 16;
+    private long mapSnapshotPeriodMs = 0;
+    private long mapSnapshotEntries = 1 << 20;
+    private boolean timeIndex;
+    private long timeIndexResolutionMs = 10;
+    private long timeIndexEntries = 1 << 20;
+    private long blockSize = 0;
+    @Nullable
+    private RollCycle rollCycle;
+    private long retentionMaxAgeMs = 0;
+    private long retentionMaxBytes = 0;
+    private int retentionMaxCycles = 0;
+    private long retentionCheckPeriodMs = 10_000;
 
     /**
      * @param queueSource
@@ -47,6 +67,33 @@ public class QueueConfig {
         this.wireType = wireType;
     }
 
+    /**
+     * @param queueConfig to copy, e.g. to configure the queues under an asset differently from the
+     *                    rest of the tree.
+     */
+    public QueueConfig(@NotNull QueueConfig queueConfig) {
+        this(queueConfig.sourceB, queueConfig.acknowledgment, queueConfig.messageAdaptor,
+                queueConfig.wireType);
+        topicIndex = queueConfig.topicIndex;
+        topicIndexEntries = queueConfig.topicIndexEntries;
+        topicIndexMessagesPerTopic = queueConfig.topicIndexMessagesPerTopic;
+        indexCheckpointPeriodMs = queueConfig.indexCheckpointPeriodMs;
+        indexCheckpointEntries = queueConfig.indexCheckpointEntries;
+        sharedIndexTailer = queueConfig.sharedIndexTailer;
+        sharedIndexTailerBacklog = queueConfig.sharedIndexTailerBacklog;
+        mapSnapshotPeriodMs = queueConfig.mapSnapshotPeriodMs;
+        mapSnapshotEntries = queueConfig.mapSnapshotEntries;
+        timeIndex = queueConfig.timeIndex;
+        timeIndexResolutionMs = queueConfig.timeIndexResolutionMs;
+        timeIndexEntries = queueConfig.timeIndexEntries;
+        blockSize = queueConfig.blockSize;
+        rollCycle = queueConfig.rollCycle;
+        retentionMaxAgeMs = queueConfig.retentionMaxAgeMs;
+        retentionMaxBytes = queueConfig.retentionMaxBytes;
+        retentionMaxCycles = queueConfig.retentionMaxCycles;
+        retentionCheckPeriodMs = queueConfig.retentionCheckPeriodMs;
+    }
+
     public Integer sourceHostId(@NotNull String uri) {
         return sourceB.apply(uri);
     }
@@ -63,4 +110,230 @@ public class QueueConfig {
     public WireType wireType() {
         return wireType;
     }
+
+    /**
+     * @return true if the queues maintain a persisted topic index, see {@link
+     * net.openhft.chronicle.engine.tree.QueueTopicIndex}
+     */
+    public boolean topicIndex() {
+        return topicIndex;
+    }
+
+    public QueueConfig topicIndex(boolean topicIndex) {
+        this.topicIndex = topicIndex;
+        return this;
+    }
+
+    /**
+     * @return the maximum number of distinct topics the topic index is sized for.
+     */
+    public long topicIndexEntries() {
+        return topicIndexEntries;
+    }
+
+    public QueueConfig topicIndexEntries(long topicIndexEntries) {
+        this.topicIndexEntries = topicIndexEntries;
+        return this;
+    }
+
+    /**
+     * @return the average number of messages per topic the topic index is sized for.
+     */
+    public long topicIndexMessagesPerTopic() {
+        return topicIndexMessagesPerTopic;
+    }
+
+    public QueueConfig topicIndexMessagesPerTopic(long topicIndexMessagesPerTopic) {
+        this.topicIndexMessagesPerTopic = topicIndexMessagesPerTopic;
+        return this;
+    }
+
+    /**
+     * @return how often an index queue view checkpoints its index, so it doesn't have to read the
+     * whole queue on restart, or 0 if it doesn't.
+     */
+    public long indexCheckpointPeriodMs() {
+        return indexCheckpointPeriodMs;
+    }
+
+    public QueueConfig indexCheckpointPeriodMs(long indexCheckpointPeriodMs) {
+        this.indexCheckpointPeriodMs = indexCheckpointPeriodMs;
+        return this;
+    }
+
+    /**
+     * @return the maximum number of keys, over all event names, the index checkpoint is sized for.
+     */
+    public long indexCheckpointEntries() {
+        return indexCheckpointEntries;
+    }
+
+    public QueueConfig indexCheckpointEntries(long indexCheckpointEntries) {
+        this.indexCheckpointEntries = indexCheckpointEntries;
+        return this;
+    }
+
+    /**
+     * @return true if the subscribers of an index queue view which have caught up are fed from the
+     * tailer of the index, rather than each reading the queue with its own tailer.
+     */
+    public boolean sharedIndexTailer() {
+        return sharedIndexTailer;
+    }
+
+    public QueueConfig sharedIndexTailer(boolean sharedIndexTailer) {
+        this.sharedIndexTailer = sharedIndexTailer;
+        return this;
+    }
+
+    /**
+     * @return how many values a subscriber fed from the tailer of the index can be behind, before
+     * it goes back to reading the queue with its own tailer.
+     */
+    public int sharedIndexTailerBacklog() {
+        return sharedIndexTailerBacklog;
+    }
+
+    public QueueConfig sharedIndexTailerBacklog(int sharedIndexTailerBacklog) {
+        this.sharedIndexTailerBacklog = sharedIndexTailerBacklog;
+        return this;
+    }
+
+    /**
+     * @return how often the map view of a queue snapshots the latest message of each topic, so it
+     * doesn't have to read the whole queue when it is next opened, or 0 if it doesn't.
+     */
+    public long mapSnapshotPeriodMs() {
+        return mapSnapshotPeriodMs;
+    }
+
+    public QueueConfig mapSnapshotPeriodMs(long mapSnapshotPeriodMs) {
+        this.mapSnapshotPeriodMs = mapSnapshotPeriodMs;
+        return this;
+    }
+
+    /**
+     * @return the maximum number of topics the map snapshot is sized for.
+     */
+    public long mapSnapshotEntries() {
+        return mapSnapshotEntries;
+    }
+
+    public QueueConfig mapSnapshotEntries(long mapSnapshotEntries) {
+        this.mapSnapshotEntries = mapSnapshotEntries;
+        return this;
+    }
+
+    /**
+     * @return true if the queues maintain a persisted index of the time excerpts were appended, see
+     * {@link net.openhft.chronicle.engine.tree.QueueTimeIndex}
+     */
+    public boolean timeIndex() {
+        return timeIndex;
+    }
+
+    public QueueConfig timeIndex(boolean timeIndex) {
+        this.timeIndex = timeIndex;
+        return this;
+    }
+
+    /**
+     * @return how precisely the time index can seek, as it samples the first excerpt appended in
+     * each period of this length.
+     */
+    public long timeIndexResolutionMs() {
+        return timeIndexResolutionMs;
+    }
+
+    public QueueConfig timeIndexResolutionMs(long timeIndexResolutionMs) {
+        this.timeIndexResolutionMs = timeIndexResolutionMs;
+        return this;
+    }
+
+    /**
+     * @return the maximum number of samples the time index is sized for.
+     */
+    public long timeIndexEntries() {
+        return timeIndexEntries;
+    }
+
+    public QueueConfig timeIndexEntries(long timeIndexEntries) {
+        this.timeIndexEntries = timeIndexEntries;
+        return this;
+    }
+
+    /**
+     * @return the size of the blocks the queue files are mapped in, or 0 for the queue's default.
+     */
+    public long blockSize() {
+        return blockSize;
+    }
+
+    public QueueConfig blockSize(long blockSize) {
+        this.blockSize = blockSize;
+        return this;
+    }
+
+    /**
+     * @return how often the queues roll to a new file, or null for the queue's default.
+     */
+    @Nullable
+    public RollCycle rollCycle() {
+        return rollCycle;
+    }
+
+    public QueueConfig rollCycle(@Nullable RollCycle rollCycle) {
+        this.rollCycle = rollCycle;
+        return this;
+    }
+
+    /**
+     * @return how long a rolled cycle file is kept after it was last written to, or 0 to keep them
+     * regardless of age.
+     */
+    public long retentionMaxAgeMs() {
+        return retentionMaxAgeMs;
+    }
+
+    public QueueConfig retentionMaxAgeMs(long retentionMaxAgeMs) {
+        this.retentionMaxAgeMs = retentionMaxAgeMs;
+        return this;
+    }
+
+    /**
+     * @return the total size of cycle files above which the oldest are deleted, or 0 for no limit.
+     */
+    public long retentionMaxBytes() {
+        return retentionMaxBytes;
+    }
+
+    public QueueConfig retentionMaxBytes(long retentionMaxBytes) {
+        this.retentionMaxBytes = retentionMaxBytes;
+        return this;
+    }
+
+    /**
+     * @return the number of cycle files, including the current one, above which the oldest are
+     * deleted, or 0 for no limit.
+     */
+    public int retentionMaxCycles() {
+        return retentionMaxCycles;
+    }
+
+    public QueueConfig retentionMaxCycles(int retentionMaxCycles) {
+        this.retentionMaxCycles = retentionMaxCycles;
+        return this;
+    }
+
+    /**
+     * @return how often the cycle files are checked against the retention limits.
+     */
+    public long retentionCheckPeriodMs() {
+        return retentionCheckPeriodMs;
+    }
+
+    public QueueConfig retentionCheckPeriodMs(long retentionCheckPeriodMs) {
+        this.retentionCheckPeriodMs = retentionCheckPeriodMs;
+        return this;
+    }
 }
@@ -3,6 +3,8 @@ package net.openhft.chronicle.engine.queue;
 import net.openhft.chronicle.core.Jvm;
 import net.openhft.chronicle.engine.api.column.ChronicleQueueRow;
 import net.openhft.chronicle.engine.api.column.Column;
+import net.openhft.chronicle.engine.api.column.ColumnAccessors;
+import net.openhft.chronicle.engine.api.column.ColumnFilter;
 import net.openhft.chronicle.engine.api.column.QueueColumnView;
 import net.openhft.chronicle.engine.api.tree.Asset;
 import net.openhft.chronicle.engine.api.tree.RequestContext;
@@ -21,7 +23,6 @@ import java.util.function.Predicate;
 import java.util.stream.StreamSupport;
 
 import static java.util.Spliterators.spliteratorUnknownSize;
-import static net.openhft.chronicle.core.util.ObjectUtils.convertTo;
 
 /**
  * @author Rob Austin.
@@ -32,6 +33,8 @@ public class QueueWrappingColumnView<K, V> implements QueueColumnView {
     @Nullable
     private ArrayList<String> columnNames = null;
     private final Class<?> messageClass;
+    // value class -> the columns of its accessors shown in a row.
+    private final Map<Class, int[]> rowColumns = new ConcurrentHashMap<>();
 
     public QueueWrappingColumnView(
             RequestContext requestContext,
@@ -58,6 +61,9 @@ public class QueueWrappingColumnView<K, V> implements QueueColumnView {
         return iterator(filters.marshableFilters, filters.fromIndex);
     }
 
+    private static final int WINDOW_MESSAGES = 256;
+    private static final int WINDOW_BYTES = 1 << 20;
+
     Map<List<MarshableFilter>, NavigableMap<Long, ChronicleQueueRow>> indexCache = new ConcurrentHashMap<>();
 
     @NotNull
@@ -69,35 +75,80 @@ public class QueueWrappingColumnView<K, V> implements QueueColumnView {
         if (longChronicleQueueRowEntry != null)
             count = longChronicleQueueRowEntry.getValue().seqNumber();
 
+        // the time range is used to seek, rather than to filter every excerpt.
+        final List<MarshableFilter> fieldFilters = new ArrayList<>(filters.size());
+        MarshableFilter timeRange = null;
+        for (MarshableFilter f : filters) {
+            if (QueueColumnView.TIME_RANGE.equals(f.columnName))
+                timeRange = f;
+            else
+                fieldFilters.add(f);
+        }
+
+        long startIndex = 0;
+        long endIndex = -1;
+        if (timeRange != null) {
+            final String range = timeRange.filter.trim();
+            final int dots = range.indexOf("..");
+            final String from = (dots < 0 ? range : range.substring(0, dots)).trim();
+            final String to = dots < 0 ? "" : range.substring(dots + 2).trim();
+            try {
+                if (!from.isEmpty())
+                    startIndex = queueView.firstIndexAtOrAfter(Long.parseLong(from));
+                if (!to.isEmpty())
+                    endIndex = queueView.firstIndexAtOrAfter(Long.parseLong(to));
+            } catch (NumberFormatException e) {
+                startIndex = -1;
+            }
+            if (startIndex == -1)
+                return Collections.emptyIterator();
+        }
+        // the excerpt after this index is the first one read.
+        final long after = longChronicleQueueRowEntry != null
+                ? longChronicleQueueRowEntry.getValue().index() - 1
+                : startIndex - 1;
+        final long end = endIndex;
+
+        // reads the queue in windows of its own, rather than sharing the position of a tailer.
         final Iterator<QueueView.Excerpt<String, V>> i = new Iterator<QueueView.Excerpt<String, V>>() {
 
-            QueueView.Excerpt<String, V> next = (longChronicleQueueRowEntry != null)
-                    ? queueView.getExcerpt(longChronicleQueueRowEntry.getValue().index())
-                    : queueView.getExcerpt(0);
+            List<QueueView.Excerpt<String, V>> window = Collections.emptyList();
+            int pos;
+            long lastIndex = after;
+            boolean done;
 
             @Override
             public boolean hasNext() {
-                if (next == null)
-                    next = queueView.getExcerpt("");
-                return next != null;
+                if (done)
+                    return false;
+                if (pos >= window.size()) {
+                    window = queueView.readBatch(lastIndex, WINDOW_MESSAGES, WINDOW_BYTES);
+                    pos = 0;
+                    if (window.isEmpty()) {
+                        done = true;
+                        return false;
+                    }
+                    lastIndex = window.get(window.size() - 1).index();
+                }
+                if (end != -1 && window.get(pos).index() >= end) {
+                    done = true;
+                    return false;
+                }
+                return true;
             }
 
             @Override
             public QueueView.Excerpt<String, V> next() {
-                if (this.next == null)
+                if (!hasNext())
                     throw new NoSuchElementException();
-                try {
-                    return this.next;
-                } finally {
-                    this.next = null;
-                }
+                return window.get(pos++);
             }
         };
 
         final Spliterator<QueueView.Excerpt<String, V>> spliterator = spliteratorUnknownSize(i, Spliterator.DISTINCT | Spliterator.SORTED | Spliterator.ORDERED);
         final Iterator<QueueView.Excerpt<String, V>> core = StreamSupport.stream(spliterator,
                 false)
-                .filter(filter(filters))
+                .filter(filter(fieldFilters))
                 .iterator();
 
         @NotNull final Iterator<ChronicleQueueRow> result = new Iterator<ChronicleQueueRow>() {
@@ -118,12 +169,10 @@ public class QueueWrappingColumnView<K, V> implements QueueColumnView {
                 row.set("index", Long.toHexString(e.index()));
                 row.index(e.index());
 
-                for (@NotNull final Field declaredFields : value.getClass().getDeclaredFields()) {
-                    if (!columnNames().contains(declaredFields.getName()))
-                        continue;
+                final ColumnAccessors accessors = ColumnAccessors.declaredFields(value.getClass());
+                for (final int i : rowColumns(value.getClass(), accessors)) {
                     try {
-                        declaredFields.setAccessible(true);
-                        row.set(declaredFields.getName(), declaredFields.get(value));
+                        row.set(accessors.name(i), accessors.get(i, value));
                     } catch (Exception e1) {
                         Jvm.warn().on(VanillaMapView.class, e1);
                     }
@@ -148,6 +197,18 @@ public class QueueWrappingColumnView<K, V> implements QueueColumnView {
         return result;
     }
 
+    @NotNull
+    private int[] rowColumns(@NotNull Class valueClass, @NotNull ColumnAccessors accessors) {
+        return rowColumns.computeIfAbsent(valueClass, c -> {
+            final Set<String> columnNames = new HashSet<>(columnNames());
+            final List<Integer> columns = new ArrayList<>();
+            for (int i = 0; i < accessors.size(); i++)
+                if (columnNames.contains(accessors.name(i)))
+                    columns.add(i);
+            return columns.stream().mapToInt(Integer::intValue).toArray();
+        });
+    }
+
     @Override
     public boolean containsRowWithKey(@NotNull Object[] keys) {
         if (keys.length == 1 && keys[0] instanceof String) {
@@ -208,92 +269,34 @@ public class QueueWrappingColumnView<K, V> implements QueueColumnView {
         return 0;
     }
 
-    @Nullable
+    /**
+     * @return a predicate for these filters, parsed once rather than for each excerpt tested.
+     */
+    @NotNull
     public Predicate<QueueView.Excerpt<String, V>> filter(@Nullable List<MarshableFilter> filters) {
-        return excerpt -> {
+        if (filters == null || filters.isEmpty())
+            return excerpt -> true;
 
-            if (filters == null || filters.isEmpty())
-                return true;
+        final List<ColumnFilter> compiled = ColumnFilter.compile(filters);
+        return excerpt -> {
+            final Object message = excerpt.message();
+            final Class messageClass = message.getClass();
+            if (!AbstractMarshallable.class.isAssignableFrom(messageClass))
+                throw new UnsupportedOperationException();
 
             try {
-
-                for (@NotNull MarshableFilter f : filters) {
-
-                    Object item;
-                    final Class messageClass = excerpt.message().getClass();
-
-                    if (AbstractMarshallable.class.isAssignableFrom(messageClass)) {
-                        try {
-
-                            final Field field = messageClass.getDeclaredField(f.columnName);
-                            field.setAccessible(true);
-                            final Object o = field.get(excerpt.message());
-
-                            if (o == null)
-                                return false;
-                            if (o instanceof Number) {
-                                if (toRange((Number) o, f.filter.trim()))
-                                    continue;
-                                return false;
-                            }
-                            item = o;
-
-                        } catch (Exception e) {
-                            return false;
-                        }
-
-                    } else {
-                        throw new UnsupportedOperationException();
-                    }
-
-                    if (item instanceof CharSequence) {
-                        if (!item.toString().toLowerCase().contains(f.filter.toLowerCase()))
-                            return false;
-                    } else if (item instanceof Number) {
-                        if (!toRange((Number) item, f.filter.trim()))
-                            return false;
-                    } else {
-                        if (!item.equals(convertTo(item.getClass(), f.filter.trim())))
-                            return false;
-                    }
-
-                }
-
+                final ColumnAccessors accessors = ColumnAccessors.declaredFields(messageClass);
+                for (@NotNull ColumnFilter f : compiled)
+                    if (!f.matches(accessors, message))
+                        return false;
                 return true;
 
-            } catch (NumberFormatException e) {
+            } catch (Exception e) {
                 return false;
             }
         };
     }
 
-    private boolean toRange(@NotNull Number o, @NotNull String trimmed) {
-        if (trimmed.startsWith(">") || trimmed.startsWith("<")) {
-
-            @NotNull final String number = trimmed.substring(1, trimmed.length()).trim();
-
-            final Number filterNumber;
-            try {
-                filterNumber = convertTo(o.getClass(), number);
-            } catch (ClassCastException e) {
-                return false;
-            }
-
-            boolean result;
-            if (trimmed.startsWith(">"))
-                result = o.doubleValue() > filterNumber.doubleValue();
-            else if (trimmed.startsWith("<"))
-                result = o.doubleValue() < filterNumber.doubleValue();
-            else
-                throw new UnsupportedOperationException();
-            return result;
-
-        } else {
-            final Object filterNumber = convertTo(o.getClass(), trimmed);
-            return o.equals(filterNumber);
-        }
-    }
-
     /**
      * @param filters if {@code sortedFilter} == null or empty all the total number of rows is
      *                returned
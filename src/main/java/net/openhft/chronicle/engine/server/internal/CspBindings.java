@@ -0,0 +1,174 @@
+/*
+ * Copyright 2016 higherfrequencytrading.com
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package net.openhft.chronicle.engine.server.internal;
+
+import net.openhft.chronicle.core.Maths;
+import net.openhft.chronicle.core.util.StringUtils;
+import net.openhft.chronicle.engine.api.tree.Asset;
+import net.openhft.chronicle.engine.api.tree.RequestContext;
+import net.openhft.chronicle.engine.tree.VanillaAsset;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+
+/**
+ * What each csp used on a connection resolved to, its request context, asset, view and wire
+ * adapter, so switching back to a csp is one lookup rather than parsing it and acquiring its view
+ * again. <p></p> Unlike {@link net.openhft.chronicle.engine.api.tree.RequestContextInterner}
+ * colliding csps are chained rather than evicting each other. A csp is found by its text without
+ * allocating. A binding is dropped if its asset, or one of its parents, has been removed from the
+ * tree, or a view of its type has been added or replaced since. Not thread safe, as a connection
+ * is handled by one thread.
+ */
+final class CspBindings {
+
+    static final int MAX_BINDINGS = Integer.getInteger("engine.cspBindings.max", 1024);
+
+    private Binding[] table = new Binding[64];
+    private int size;
+
+    @Nullable
+    Binding get(@NotNull CharSequence csp) {
+        final Binding[] table = this.table;
+        for (Binding b = table[Maths.hash32(csp) & (table.length - 1)]; b != null; b = b.next) {
+            if (StringUtils.isEqual(b.csp, csp)) {
+                if (b.isCurrent())
+                    return b;
+                remove(b);
+                return null;
+            }
+        }
+        return null;
+    }
+
+    void put(@NotNull CharSequence csp,
+             @NotNull RequestContext requestContext,
+             @NotNull Asset asset,
+             @Nullable Object view,
+             @Nullable Class viewType,
+             @Nullable WireAdapter<?, ?> wireAdapter) {
+        final Binding existing = get(csp);
+        if (existing != null)
+            remove(existing);
+
+        // a client shouldn't use this many, but don't grow without bound if one does.
+        if (size >= MAX_BINDINGS)
+            clear();
+        if (size >= table.length * 3 / 4)
+            resize();
+
+        final int h = Maths.hash32(csp) & (table.length - 1);
+        table[h] = new Binding(csp.toString(), requestContext, asset, view, viewType, wireAdapter,
+                viewVersion(asset, viewType), table[h]);
+        size++;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * @return the version of this type of view in the tree of this asset, or 0 if it isn't known.
+     */
+    static long viewVersion(@NotNull Asset asset, @Nullable Class viewType) {
+        if (viewType == null)
+            return 0;
+        Asset root = asset;
+        for (Asset parent = root.parent(); parent != null; parent = parent.parent())
+            root = parent;
+        return root instanceof VanillaAsset ? ((VanillaAsset) root).viewVersion(viewType) : 0;
+    }
+
+    void clear() {
+        Arrays.fill(table, null);
+        size = 0;
+    }
+
+    private void remove(@NotNull Binding binding) {
+        final int h = Maths.hash32(binding.csp) & (table.length - 1);
+        if (table[h] == binding) {
+            table[h] = binding.next;
+        } else {
+            for (Binding b = table[h]; b != null; b = b.next) {
+                if (b.next == binding) {
+                    b.next = binding.next;
+                    break;
+                }
+            }
+        }
+        size--;
+    }
+
+    private void resize() {
+        final Binding[] old = table;
+        table = new Binding[old.length * 2];
+        for (Binding head : old) {
+            for (Binding b = head; b != null; ) {
+                final Binding next = b.next;
+                final int h = Maths.hash32(b.csp) & (table.length - 1);
+                b.next = table[h];
+                table[h] = b;
+                b = next;
+            }
+        }
+    }
+
+    static final class Binding {
+        final String csp;
+        final RequestContext requestContext;
+        final Asset asset;
+        @Nullable
+        final Object view;
+        @Nullable
+        final Class viewType;
+        @Nullable
+        final WireAdapter<?, ?> wireAdapter;
+        final long viewVersion;
+        @Nullable
+        Binding next;
+
+        Binding(String csp, RequestContext requestContext, Asset asset, @Nullable Object view,
+                @Nullable Class viewType, @Nullable WireAdapter<?, ?> wireAdapter, long viewVersion,
+                @Nullable Binding next) {
+            this.csp = csp;
+            this.requestContext = requestContext;
+            this.asset = asset;
+            this.view = view;
+            this.viewType = viewType;
+            this.wireAdapter = wireAdapter;
+            this.viewVersion = viewVersion;
+            this.next = next;
+        }
+
+        /**
+         * @return false if the asset or one of its parents has been removed from the tree, or the
+         * view may have been replaced, so the csp has to be resolved again.
+         */
+        boolean isCurrent() {
+            Asset a = asset;
+            for (Asset parent = a.parent(); parent != null; a = parent, parent = a.parent()) {
+                if (parent.getChild(a.name()) != a)
+                    return false;
+            }
+            return viewType == null
+                    || !(a instanceof VanillaAsset)
+                    || ((VanillaAsset) a).viewVersion(viewType) == viewVersion;
+        }
+    }
+}
@@ -34,6 +34,7 @@ import net.openhft.chronicle.engine.cfg.UserStat;
 import net.openhft.chronicle.engine.collection.CollectionWireHandler;
 import net.openhft.chronicle.engine.map.ObjectSubscription;
 import net.openhft.chronicle.engine.tree.HostIdentifier;
+import net.openhft.chronicle.engine.tree.Infrastructure;
 import net.openhft.chronicle.engine.tree.QueueView;
 import net.openhft.chronicle.engine.tree.TopologySubscription;
 import net.openhft.chronicle.network.ClientClosedProvider;
@@ -99,12 +100,14 @@ public class EngineWireHandler extends WireTcpHandler<EngineWireNetworkContext>
     @NotNull
     private final SystemHandler systemHandler;
     private final RequestContextInterner requestContextInterner = new RequestContextInterner(128);
+    private final CspBindings cspBindings = new CspBindings();
     private final StringBuilder currentLogMessage = new StringBuilder();
     private final StringBuilder prevLogMessage = new StringBuilder();
     @NotNull
     private Asset rootAsset;
     @Nullable
     private SessionProvider sessionProvider;
+    private Infrastructure infrastructure;
     @Nullable
     private EventLoop eventLoop;
     private boolean isServerSocket;
@@ -149,13 +152,14 @@ public class EngineWireHandler extends WireTcpHandler<EngineWireNetworkContext>
 
         rootAsset = nc.rootAsset().root();
         contextAsset = nc.isAcceptor() ? rootAsset : nc.rootAsset();
-        hostIdentifier = rootAsset.findOrCreateView(HostIdentifier.class);
+        infrastructure = Infrastructure.of(rootAsset);
+        hostIdentifier = infrastructure.hostIdentifier();
 
         if (hostIdentifier != null)
             localIdentifier = hostIdentifier.hostId();
 
-        this.sessionProvider = rootAsset.getView(SessionProvider.class);
-        this.eventLoop = rootAsset.findOrCreateView(EventLoop.class);
+        this.sessionProvider = infrastructure.sessionProvider();
+        this.eventLoop = infrastructure.eventLoop();
         assert eventLoop != null;
 
         try {
@@ -207,6 +211,20 @@ public class EngineWireHandler extends WireTcpHandler<EngineWireNetworkContext>
                         if (LOG.isDebugEnabled())
                             Jvm.debug().on(getClass(), "received meta-data:\n" + wire.bytes().toHexString());
 
+                        final CspBindings.Binding binding = cspBindings.get(cspText);
+                        if (binding != null) {
+                            requestContext = binding.requestContext;
+                            contextAsset = binding.asset;
+                            viewType = binding.viewType;
+                            view = binding.view;
+                            wireAdapter = binding.wireAdapter;
+                            if (viewType == null) {
+                                if (LOG.isDebugEnabled()) Jvm.debug().on(getClass(), "received system-meta-data");
+                                isSystemMessage = true;
+                            }
+                            return;
+                        }
+
                         requestContext = requestContextInterner.intern(cspText);
                         final String fullName = requestContext.fullName();
                         if (!"/".equals(fullName))
@@ -216,6 +234,7 @@ public class EngineWireHandler extends WireTcpHandler<EngineWireNetworkContext>
                         if (viewType == null) {
                             if (LOG.isDebugEnabled()) Jvm.debug().on(getClass(), "received system-meta-data");
                             isSystemMessage = true;
+                            cspBindings.put(cspText, requestContext, contextAsset, null, null, null);
                             return;
                         }
 
@@ -246,6 +265,7 @@ public class EngineWireHandler extends WireTcpHandler<EngineWireNetworkContext>
                         } else {
                             throw new UnsupportedOperationException("unsupported view type");
                         }
+                        cspBindings.put(cspText, requestContext, contextAsset, view, viewType, wireAdapter);
                     }
                 } catch (Throwable e) {
                     Jvm.warn().on(getClass(), "", e);
@@ -441,13 +461,9 @@ public class EngineWireHandler extends WireTcpHandler<EngineWireNetworkContext>
         }
     }
 
+    @Nullable
     private Map<String, UserStat> getMonitoringMap() {
-        Map<String, UserStat> userMonitoringMap = null;
-        Asset userAsset = rootAsset.root().getAsset("proc/users");
-        if (userAsset != null && userAsset.getView(MapView.class) != null) {
-            userMonitoringMap = userAsset.getView(MapView.class);
-        }
-        return userMonitoringMap;
+        return infrastructure.userStats();
     }
 
     private void logYamlToStandardOut(@NotNull WireIn in) {
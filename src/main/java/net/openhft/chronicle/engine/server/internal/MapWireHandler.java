@@ -101,6 +101,18 @@ public class MapWireHandler<K, V> extends AbstractHandler {
                     return;
                 }
 
+                // sent without a tid by clients writing behind
+                if (putAll.contentEquals(eventName)) {
+                    valueIn.sequence(map, (m, v) -> {
+                        while (v.hasNextSequenceItem()) {
+                            v.marshallable(wire -> m.put(
+                                    wireToK.apply(wire.read(put.params()[0])),
+                                    wireToV.apply(wire.read(put.params()[1]))));
+                        }
+                    });
+                    return;
+                }
+
                 if (remove.contentEquals(eventName)) {
                     final K key = wireToK.apply(valueIn);
                     nullCheck(key);
@@ -127,17 +139,6 @@ public class MapWireHandler<K, V> extends AbstractHandler {
                         return;
                     }
 
-                    if (putAll.contentEquals(eventName)) {
-                        valueIn.sequence(map, (m, v) -> {
-                            while (v.hasNextSequenceItem()) {
-                                valueIn.marshallable(wire -> m.put(
-                                        wireToK.apply(wire.read(put.params()[0])),
-                                        wireToV.apply(wire.read(put.params()[1]))));
-                            }
-                        });
-                        return;
-                    }
-
                     if (EventId.putIfAbsent.contentEquals(eventName)) {
                         valueIn.marshallable(wire -> {
                             final Params[] params = putIfAbsent.params();
@@ -158,11 +158,13 @@ public class SubscriptionHandler<T extends SubscriptionCollection> extends Abstr
     class LocalSubscriber implements Subscriber<Object> {
         private final Long tid;
         private final WireOutPublisher publisher;
+        private final boolean needsPrevious;
         volatile boolean subscriptionEnded;
 
         LocalSubscriber(Long tid, WireOutPublisher publisher) {
             this.tid = tid;
             this.publisher = publisher;
+            this.needsPrevious = requestContext.needsPrevious() != Boolean.FALSE;
         }
 
         @Override
@@ -181,6 +183,11 @@ public class SubscriptionHandler<T extends SubscriptionCollection> extends Abstr
             }
         }
 
+        @Override
+        public boolean needsPrevious() {
+            return needsPrevious;
+        }
+
         @Override
         public void onEndOfSubscription() {
             subscriptionEnded = true;
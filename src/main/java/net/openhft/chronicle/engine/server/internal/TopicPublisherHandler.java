@@ -25,6 +25,10 @@ import net.openhft.chronicle.wire.*;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.function.BiConsumer;
 import java.util.function.Function;
 
@@ -135,6 +139,40 @@ public class TopicPublisherHandler<T, M> extends AbstractHandler {
                     return;
                 }
 
+                if (readBatch.contentEquals(eventName)) {
+                    final List<QueueView.Excerpt> batch = valueIn.applyToMarshallable(wire ->
+                            ((QueueView) view).readBatch(wire.read(index).int64(),
+                                    wire.read(maxMessages).int32(),
+                                    wire.read(maxBytes).int32()));
+                    out.writeEventName(reply).sequence(v -> {
+                        for (QueueView.Excerpt excerpt : batch)
+                            v.marshallable((WriteMarshallable) excerpt);
+                    });
+                    return;
+                }
+
+                if (firstIndexAtOrAfter.contentEquals(eventName)) {
+                    out.writeEventName(reply).int64(((QueueView) view).firstIndexAtOrAfter(valueIn.int64()));
+                    return;
+                }
+
+                if (publishBatchAndIndex.contentEquals(eventName)) {
+                    final List<Map.Entry<T, M>> batch = new ArrayList<>();
+                    valueIn.sequence(batch, (b, v) -> {
+                        while (v.hasNextSequenceItem())
+                            v.marshallable(wire -> {
+                                final T t = wireToT.apply(wire.read(Params.topic));
+                                final M m = wireToM.apply(wire.read(Params.message));
+                                nullCheck(t);
+                                nullCheck(m);
+                                b.add(new AbstractMap.SimpleEntry<>(t, m));
+                            });
+                    });
+                    out.writeEventName(reply).marshallable(
+                            ((QueueView<T, M>) view).publishBatchAndIndex(batch));
+                    return;
+                }
+
             });
 
         }
@@ -160,7 +198,9 @@ public class TopicPublisherHandler<T, M> extends AbstractHandler {
     public enum Params implements WireKey {
         topic,
         message,
-        index
+        index,
+        maxMessages,
+        maxBytes
     }
 
     public enum EventId implements ParameterizeWireKey {
@@ -171,7 +211,10 @@ public class TopicPublisherHandler<T, M> extends AbstractHandler {
         getNextAtIndex(index),      // used only by the queue view
         getNextAtTopic(topic),      // used only by the queue view
         next,                // used only by the queue view
-        publishAndIndex(topic, message);     // used only by the queue view
+        publishAndIndex(topic, message),     // used only by the queue view
+        publishBatchAndIndex,     // used only by the queue view
+        firstIndexAtOrAfter(index),     // used only by the queue view
+        readBatch(index, maxMessages, maxBytes);     // used only by the queue view
 
         private final WireKey[] params;
 
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2016 higherfrequencytrading.com
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package net.openhft.chronicle.engine.tree;
+
+import net.openhft.chronicle.engine.api.pubsub.InvalidSubscriberException;
+import net.openhft.chronicle.engine.api.pubsub.Subscriber;
+import net.openhft.chronicle.wire.AbstractMarshallable;
+import net.openhft.chronicle.wire.WireIn;
+import net.openhft.chronicle.wire.WireOut;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Many children of the same asset which were added, or which already existed when subscribing,
+ * sent as one event. <p></p> {@link #name()} is the first of them, use {@link
+ * #forEachEvent(Subscriber)} to see each one as an {@link AddedAssetEvent} or {@link
+ * ExistingAssetEvent}.
+ */
+public class BatchedAssetEvent extends AbstractMarshallable implements TopologicalEvent {
+    private String assetName;
+    private boolean existing;
+    private List<String> names = new ArrayList<>();
+
+    private BatchedAssetEvent(String assetName, boolean existing, @NotNull Collection<String> names) {
+        this.assetName = assetName;
+        this.existing = existing;
+        this.names.addAll(names);
+    }
+
+    @NotNull
+    public static BatchedAssetEvent added(String assetName, @NotNull Collection<String> names) {
+        return new BatchedAssetEvent(assetName, false, names);
+    }
+
+    @NotNull
+    public static BatchedAssetEvent existing(String assetName, @NotNull Collection<String> names) {
+        return new BatchedAssetEvent(assetName, true, names);
+    }
+
+    @Override
+    public boolean added() {
+        return true;
+    }
+
+    public boolean existing() {
+        return existing;
+    }
+
+    @Override
+    public String assetName() {
+        return assetName;
+    }
+
+    @Override
+    public String name() {
+        return names.isEmpty() ? null : names.get(0);
+    }
+
+    @NotNull
+    public List<String> names() {
+        return names;
+    }
+
+    @Override
+    public void forEachEvent(@NotNull Subscriber<TopologicalEvent> subscriber) throws InvalidSubscriberException {
+        for (String name : names)
+            subscriber.onMessage(existing
+                    ? ExistingAssetEvent.of(assetName, name)
+                    : AddedAssetEvent.of(assetName, name));
+    }
+
+    @Override
+    public void readMarshallable(@NotNull WireIn wire) throws IllegalStateException {
+        assetName = wire.read(TopologicalFields.assetName).text();
+        existing = wire.read(() -> "existing").bool();
+        if (names == null)
+            names = new ArrayList<>();
+        else
+            names.clear();
+        wire.read(() -> "names").sequence(names, (l, v) -> {
+            while (v.hasNextSequenceItem())
+                l.add(v.text());
+        });
+    }
+
+    @Override
+    public void writeMarshallable(@NotNull WireOut wire) {
+        wire.write(TopologicalFields.assetName).text(assetName);
+        wire.write(() -> "existing").bool(existing);
+        wire.write(() -> "names").sequence(v -> names.forEach(v::text));
+    }
+}
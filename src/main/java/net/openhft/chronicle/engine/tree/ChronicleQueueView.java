@@ -57,8 +57,11 @@ import java.io.File;
 import java.io.IOException;
 import java.lang.reflect.Constructor;
 import java.nio.file.Files;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.function.BiConsumer;
@@ -84,6 +87,7 @@ public class ChronicleQueueView<T, M> implements QueueView<T, M>, MapView<T, M>,
     private final String defaultPath;
     private final RequestContext context;
     private final Asset asset;
+    private final EventLoop eventLoop;
     private boolean isSource;
     private boolean isReplicating;
     private boolean dontPersist;
@@ -92,6 +96,13 @@ public class ChronicleQueueView<T, M> implements QueueView<T, M>, MapView<T, M>,
     private QueueConfig queueConfig;
 
     private volatile MapView<T, M> mapView;
+    private volatile QueueTopicDemultiplexer<T, M> demultiplexer;
+    @Nullable
+    private final QueueTopicIndex topicIndex;
+    @Nullable
+    private final QueueTimeIndex timeIndex;
+    @Nullable
+    private final QueueRetention retention;
 
     public ChronicleQueueView(@NotNull RequestContext context, @NotNull Asset asset) throws IOException {
         this(null, context, asset);
@@ -115,16 +126,40 @@ public class ChronicleQueueView<T, M> implements QueueView<T, M>, MapView<T, M>,
             throw anfe;
         }
 
-        chronicleQueue = queue != null ? queue : newInstance(context.name(), context.basePath(), hostId, queueConfig.wireType());
+        chronicleQueue = queue != null ? queue : newInstance(context.name(), context.basePath(), hostId, queueConfig);
         messageTypeClass = context.messageType();
         elementTypeClass = context.elementType();
         threadLocal = ThreadLocal.withInitial(() -> new ThreadLocalData(chronicleQueue));
         dontPersist = context.dontPersist();
 
+        if (queueConfig.topicIndex()) {
+            final File queueDir = chronicleQueue.file();
+            topicIndex = new QueueTopicIndex(chronicleQueue,
+                    new File(queueDir.getParentFile(), queueDir.getName() + ".topic-index"),
+                    queueConfig.topicIndexEntries(), queueConfig.topicIndexMessagesPerTopic());
+        } else {
+            topicIndex = null;
+        }
+
+        if (queueConfig.timeIndex()) {
+            final File queueDir = chronicleQueue.file();
+            timeIndex = new QueueTimeIndex(
+                    new File(queueDir.getParentFile(), queueDir.getName() + ".time-index"),
+                    queueConfig.timeIndexResolutionMs(), queueConfig.timeIndexEntries());
+        } else {
+            timeIndex = null;
+        }
+
         if (hostId != null)
             replication(context, asset);
 
-        EventLoop eventLoop = asset.findOrCreateView(EventLoop.class);
+        eventLoop = asset.findOrCreateView(EventLoop.class);
+        if (QueueRetention.isEnabled(queueConfig)) {
+            retention = new QueueRetention(chronicleQueue.file(), queueConfig, this::onCyclesDeleted);
+            eventLoop.addHandler(retention);
+        } else {
+            retention = null;
+        }
         eventLoop.addHandler(new EventHandler() {
             @Override
             public boolean action() throws InvalidEventHandlerException, InterruptedException {
@@ -157,6 +192,28 @@ public class ChronicleQueueView<T, M> implements QueueView<T, M>, MapView<T, M>,
 
     }
 
+    /**
+     * @return the demultiplexer which reads this queue once on behalf of all its topic subscribers.
+     */
+    public QueueTopicDemultiplexer<T, M> demultiplexer() {
+        final QueueTopicDemultiplexer<T, M> demultiplexer = this.demultiplexer;
+
+        if (demultiplexer != null)
+            return demultiplexer;
+
+        synchronized (this) {
+            QueueTopicDemultiplexer<T, M> demultiplexer0 = this.demultiplexer;
+            if (demultiplexer0 != null)
+                return demultiplexer0;
+
+            demultiplexer0 = new QueueTopicDemultiplexer<>(chronicleQueue, messageTypeClass,
+                    elementTypeClass);
+            eventLoop.addHandler(demultiplexer0);
+            this.demultiplexer = demultiplexer0;
+            return demultiplexer0;
+        }
+    }
+
     @SuppressWarnings("WeakerAccess")
     public static WriteMarshallable newSource(long nextIndexRequired,
                                               @NotNull Class topicType,
@@ -435,7 +492,8 @@ public class ChronicleQueueView<T, M> implements QueueView<T, M>, MapView<T, M>,
     private RollingChronicleQueue newInstance(@NotNull String name,
                                               @Nullable String basePath,
                                               @Nullable Byte hostID,
-                                              @NotNull WireType wireType) throws IOException {
+                                              @NotNull QueueConfig queueConfig) throws IOException {
+        final WireType wireType = queueConfig.wireType();
 
         if (wireType == DELTA_BINARY)
             throw new IllegalArgumentException("Chronicle Queues can not be set to use delta wire");
@@ -457,8 +515,10 @@ public class ChronicleQueueView<T, M> implements QueueView<T, M>, MapView<T, M>,
         final SingleChronicleQueueBuilder builder = wireType == DEFAULT_ZERO_BINARY
                 ? defaultZeroBinary(baseFilePath)
                 : binary(baseFilePath);
-        // TODO make configurable
-//        builder.blockSize(256 << 20);
+        if (queueConfig.blockSize() > 0)
+            builder.blockSize(queueConfig.blockSize());
+        if (queueConfig.rollCycle() != null)
+            builder.rollCycle(queueConfig.rollCycle());
 
         return builder.build();
     }
@@ -477,6 +537,39 @@ public class ChronicleQueueView<T, M> implements QueueView<T, M>, MapView<T, M>,
         return () -> ChronicleQueueView.this.next(tailer, localExcept);
     }
 
+    /**
+     * @param topic to read
+     * @return a tailer which only returns the excerpts for this topic, using the topic index if
+     * there is one.
+     */
+    public Tailer<T, M> tailer(@NotNull T topic) {
+        final ExcerptTailer tailer = ChronicleQueueView.this.chronicleQueue.createTailer();
+        final LocalExcept localExcept = new LocalExcept();
+        final QueueTopicIndex topicIndex = this.topicIndex;
+
+        if (topicIndex == null)
+            return () -> {
+                for (; ; ) {
+                    final Excerpt<T, M> excerpt = next(tailer, localExcept);
+                    if (excerpt == null || topic.equals(excerpt.topic()))
+                        return excerpt;
+                }
+            };
+
+        final String topicName = topic.toString();
+        return () -> {
+            final long index = topicIndex.nextIndex(topicName, tailer.index());
+            if (index < 0 || !tailer.moveToIndex(index))
+                return null;
+            return next(tailer, localExcept);
+        };
+    }
+
+    @Nullable
+    public QueueTopicIndex topicIndex() {
+        return topicIndex;
+    }
+
     private Excerpt<T, M> next(ExcerptTailer excerptTailer, final LocalExcept excerpt) {
         excerpt.clear();
         try (DocumentContext dc = excerptTailer.readingDocument()) {
@@ -513,17 +606,39 @@ public class ChronicleQueueView<T, M> implements QueueView<T, M>, MapView<T, M>,
         else if (!excerptTailer.moveToIndex(index))
             return null;
 
-        try (DocumentContext dc = excerptTailer.readingDocument()) {
-            if (!dc.isPresent())
-                return null;
-            final StringBuilder topic = Wires.acquireStringBuilder();
-            final M message = dc.wire().readEventName(topic).object(elementTypeClass);
+        return readExcerpt(threadLocalData, excerptTailer);
+    }
 
-            return threadLocalData.excerpt
-                    .message(message)
-                    .topic(convertTo(messageTypeClass, topic))
-                    .index(excerptTailer.index());
+    @NotNull
+    @Override
+    public List<Excerpt<T, M>> readBatch(long afterIndex, int maxMessages, int maxBytes) {
+        final ExcerptTailer excerptTailer = threadLocal.get().replayTailer;
+
+        // seek to the excerpt after, as one before the first of a cycle isn't a valid index. If
+        // neither is still in the queue, read from the start skipping those before it.
+        if (afterIndex == -1
+                || !(excerptTailer.moveToIndex(afterIndex + 1) || excerptTailer.moveToIndex(afterIndex)))
+            excerptTailer.toStart();
+
+        final List<Excerpt<T, M>> batch = new ArrayList<>();
+        long bytes = 0;
+        while (batch.size() < maxMessages && bytes < maxBytes) {
+            try (DocumentContext dc = excerptTailer.readingDocument()) {
+                if (!dc.isPresent())
+                    break;
+                if (dc.index() <= afterIndex)
+                    continue;
+
+                bytes += dc.wire().bytes().readRemaining();
+                final StringBuilder topic = Wires.acquireStringBuilder();
+                final M message = dc.wire().readEventName(topic).object(elementTypeClass);
+                batch.add(new LocalExcept<T, M>()
+                        .message(message)
+                        .topic(convertTo(messageTypeClass, topic))
+                        .index(dc.index()));
+            }
         }
+        return batch;
     }
 
     @Override
@@ -531,6 +646,14 @@ public class ChronicleQueueView<T, M> implements QueueView<T, M>, MapView<T, M>,
 
         final ThreadLocalData threadLocalData = threadLocal.get();
         ExcerptTailer excerptTailer = threadLocalData.replayTailer;
+
+        if (topicIndex != null) {
+            final long index = topicIndex.nextIndex(topic.toString(), excerptTailer.index());
+            if (index < 0 || !excerptTailer.moveToIndex(index))
+                return null;
+            return readExcerpt(threadLocalData, excerptTailer);
+        }
+
         for (; ; ) {
 
             try (DocumentContext dc = excerptTailer.readingDocument()) {
@@ -554,6 +677,45 @@ public class ChronicleQueueView<T, M> implements QueueView<T, M>, MapView<T, M>,
         }
     }
 
+    /**
+     * @param topic to look up
+     * @return the latest excerpt published on this topic, or null if there isn't one
+     */
+    @Nullable
+    public Excerpt<T, M> getLatestExcerpt(@NotNull T topic) {
+        final ThreadLocalData threadLocalData = threadLocal.get();
+        final ExcerptTailer excerptTailer = threadLocalData.replayTailer;
+
+        if (topicIndex != null) {
+            final long index = topicIndex.latestIndex(topic.toString());
+            if (index < 0 || !excerptTailer.moveToIndex(index))
+                return null;
+            return readExcerpt(threadLocalData, excerptTailer);
+        }
+
+        long latest = -1;
+        final Tailer<T, M> tailer = tailer(topic);
+        for (Excerpt<T, M> excerpt; (excerpt = tailer.read()) != null; )
+            latest = excerpt.index();
+        return latest < 0 ? null : getExcerpt(latest);
+    }
+
+    @Nullable
+    private Excerpt<T, M> readExcerpt(@NotNull ThreadLocalData threadLocalData,
+                                      @NotNull ExcerptTailer excerptTailer) {
+        try (DocumentContext dc = excerptTailer.readingDocument()) {
+            if (!dc.isPresent())
+                return null;
+            final StringBuilder topic = Wires.acquireStringBuilder();
+            final M message = dc.wire().readEventName(topic).object(elementTypeClass);
+
+            return threadLocalData.excerpt
+                    .message(message)
+                    .topic(convertTo(messageTypeClass, topic))
+                    .index(excerptTailer.index());
+        }
+    }
+
     @Override
     public void set(T key, M element) {
         throw new UnsupportedOperationException("todo");
@@ -579,6 +741,13 @@ public class ChronicleQueueView<T, M> implements QueueView<T, M>, MapView<T, M>,
         });
     }
 
+    // drop the time samples of deleted cycles, run by retention.
+    private void onCyclesDeleted() {
+        final QueueTimeIndex timeIndex = this.timeIndex;
+        if (timeIndex != null)
+            timeIndex.prune(chronicleQueue.firstIndex());
+    }
+
     public long publishAndIndex(@NotNull T topic, @NotNull M message) {
 
         if (isReplicating && !isSource)
@@ -590,7 +759,87 @@ public class ChronicleQueueView<T, M> implements QueueView<T, M>, MapView<T, M>,
         try (final DocumentContext dc = excerptAppender.writingDocument()) {
             dc.wire().writeEvent(messageTypeClass, topic).object(elementTypeClass, message);
         }
-        return excerptAppender.lastIndexAppended();
+        final long index = excerptAppender.lastIndexAppended();
+        sampleTime(index);
+        updateTopicIndex();
+        return index;
+    }
+
+    /**
+     * Sample the time an excerpt was appended. The excerpt has been written by now, so a failure
+     * to sample it is logged rather than failing the publish.
+     */
+    private void sampleTime(long index) {
+        final QueueTimeIndex timeIndex = this.timeIndex;
+        if (timeIndex == null)
+            return;
+        try {
+            timeIndex.onAppended(index);
+        } catch (RuntimeException e) {
+            Jvm.warn().on(getClass(), "Unable to update the time index of " + defaultPath, e);
+        }
+    }
+
+    /**
+     * Index what has been appended, if no other thread is. The excerpt has been written by now, so
+     * a failure to index it is logged rather than failing the publish.
+     */
+    private void updateTopicIndex() {
+        final QueueTopicIndex topicIndex = this.topicIndex;
+        if (topicIndex == null)
+            return;
+        try {
+            topicIndex.tryUpdate();
+        } catch (RuntimeException e) {
+            Jvm.warn().on(getClass(), "Unable to update the topic index of " + defaultPath, e);
+        }
+    }
+
+    /**
+     * Seeks using the time index, so a queue without one has nothing to find, and returns -1.
+     * Where retention has deleted the excerpt found, the first excerpt still in the queue was
+     * appended after it, so is returned instead.
+     */
+    @Override
+    public long firstIndexAtOrAfter(long timeMs) {
+        final QueueTimeIndex timeIndex = this.timeIndex;
+        if (timeIndex == null) {
+            Jvm.debug().on(getClass(), "The queue " + defaultPath + " has no time index");
+            return -1;
+        }
+        final long index = timeIndex.firstIndexAtOrAfter(timeMs);
+        return index == -1 ? -1 : Math.max(index, chronicleQueue.firstIndex());
+    }
+
+    /**
+     * Appends the whole batch with one appender, and updates the topic index once at the end.
+     */
+    @NotNull
+    @Override
+    public IndexRange publishBatchAndIndex(@NotNull List<? extends Map.Entry<T, M>> batch) {
+
+        if (isReplicating && !isSource)
+            throw new IllegalStateException("You can not publish to a sink used in replication, " +
+                    "you have to publish to the source");
+
+        if (batch.isEmpty())
+            return new IndexRange();
+
+        final ExcerptAppender excerptAppender = threadLocalAppender();
+        long first = -1;
+        for (Map.Entry<T, M> entry : batch) {
+            try (final DocumentContext dc = excerptAppender.writingDocument()) {
+                dc.wire().writeEvent(messageTypeClass, entry.getKey())
+                        .object(elementTypeClass, entry.getValue());
+            }
+            final long index = excerptAppender.lastIndexAppended();
+            if (first == -1)
+                first = index;
+            sampleTime(index);
+        }
+        final long last = excerptAppender.lastIndexAppended();
+        updateTopicIndex();
+        return new IndexRange(first, last);
     }
 
     public long set(@NotNull M event) {
@@ -654,11 +903,26 @@ public class ChronicleQueueView<T, M> implements QueueView<T, M>, MapView<T, M>,
 
     public void close() {
 
+        if (retention != null)
+            retention.close();
+        Closeable.closeQuietly(demultiplexer);
+        Closeable.closeQuietly(topicIndex);
+        final MapView<T, M> mapView = this.mapView;
+        final QueueMapSnapshot snapshot = mapView instanceof QueueViewAsMapView
+                ? ((QueueViewAsMapView) mapView).closeSnapshot()
+                : null;
+        Closeable.closeQuietly(timeIndex);
         File file = chronicleQueue.file();
         chronicleQueue.close();
         if (dontPersist) {
             try {
                 deleteFiles(file);
+                if (topicIndex != null)
+                    deleteFiles(topicIndex.directory());
+                if (snapshot != null)
+                    deleteFiles(snapshot.directory());
+                if (timeIndex != null)
+                    deleteFiles(timeIndex.directory());
 
             } catch (Exception e) {
                 Jvm.debug().on(getClass(), "Unable to delete " + file, e);
@@ -844,20 +1108,131 @@ public class ChronicleQueueView<T, M> implements QueueView<T, M>, MapView<T, M>,
     private static class QueueViewAsMapView<K, V> extends VanillaMapView<K, V> {
 
         private final QueueView<K, V> queueView;
-
-        QueueViewAsMapView(final QueueView<K, V> queueView,
+        @Nullable
+        private final QueueMapSnapshot<K, V> snapshot;
+        private final long snapshotPeriodMs;
+        // guards the fields below, held while an excerpt is applied.
+        private final Object snapshotLock = new Object();
+        // topics changed since the last snapshot.
+        private final Set<K> dirty = new HashSet<>();
+        private long lastIndexRead;
+        private long lastSnapshotMs = System.currentTimeMillis();
+        private boolean closed;
+
+        QueueViewAsMapView(final ChronicleQueueView<K, V> queueView,
                            @NotNull RequestContext context,
                            @NotNull Asset asset) {
             super(context, asset, new VanillaKeyValueStore<>(context, asset));
             this.queueView = queueView;
+            // created with the map view, as a queue used without one doesn't need a snapshot.
+            final QueueConfig queueConfig = queueView.queueConfig;
+            if (queueConfig.mapSnapshotPeriodMs() > 0) {
+                final File queueDir = queueView.chronicleQueue.file();
+                this.snapshot = new QueueMapSnapshot<>(
+                        new File(queueDir.getParentFile(), queueDir.getName() + ".map-snapshot"),
+                        queueConfig.mapSnapshotEntries(), queueView.messageTypeClass,
+                        queueView.elementTypeClass);
+            } else {
+                this.snapshot = null;
+            }
 
-            queueView.registerTopicSubscriber((topic, message) -> {
-                if (message == null)
-                    super.remove(topic);
-                else
-                    super.put(topic, message);
-            });
+            if (snapshot == null) {
+                snapshotPeriodMs = 0;
+                queueView.registerTopicSubscriber((topic, message) -> {
+                    if (message == null)
+                        super.remove(topic);
+                    else
+                        super.put(topic, message);
+                });
 
+            } else {
+                snapshotPeriodMs = queueConfig.mapSnapshotPeriodMs();
+                final ExcerptTailer tailer = queueView.chronicleQueue.createTailer();
+                loadSnapshot(tailer, queueView.chronicleQueue.file());
+                queueView.eventLoop.addHandler(() -> readExcerpt(tailer,
+                        queueView.messageTypeClass, queueView.elementTypeClass));
+            }
+        }
+
+        /**
+         * Load the latest messages from the snapshot and move the tailer to the first excerpt
+         * after it.
+         */
+        private void loadSnapshot(@NotNull ExcerptTailer tailer, @NotNull File queueFile) {
+            assert snapshot != null;
+            if (!snapshot.resume(tailer))
+                return;
+
+            final long lastIndex = snapshot.lastIndex();
+            snapshot.forEach(super::put);
+            lastIndexRead = lastIndex;
+            LOG.info("loaded the map of " + queueFile + " up to index "
+                    + Long.toHexString(lastIndex) + " from " + snapshot.directory());
+        }
+
+        private boolean readExcerpt(@NotNull ExcerptTailer tailer,
+                                    @NotNull Class<K> topicClass,
+                                    @NotNull Class<V> messageClass) throws InvalidEventHandlerException {
+            synchronized (snapshotLock) {
+                if (closed)
+                    throw new InvalidEventHandlerException();
+
+                // between excerpts, so the snapshot never holds part of one.
+                final long now = System.currentTimeMillis();
+                if (now >= lastSnapshotMs + snapshotPeriodMs) {
+                    lastSnapshotMs = now;
+                    snapshot();
+                }
+
+                try (DocumentContext dc = tailer.readingDocument()) {
+                    if (!dc.isPresent())
+                        return false;
+
+                    final Wire wire = dc.wire();
+                    final K topic = wire.readEvent(topicClass);
+                    final V message = wire.getValueIn().object(messageClass);
+                    if (message == null)
+                        super.remove(topic);
+                    else
+                        super.put(topic, message);
+                    dirty.add(topic);
+                    lastIndexRead = dc.index();
+                }
+                return true;
+            }
+        }
+
+        /**
+         * Write the latest message of the topics which have changed since the last snapshot,
+         * then the last index read.
+         */
+        private void snapshot() {
+            assert snapshot != null;
+            if (dirty.isEmpty())
+                return;
+            for (K topic : dirty)
+                snapshot.put(topic, super.get(topic));
+            dirty.clear();
+            snapshot.lastIndex(lastIndexRead);
+        }
+
+        /**
+         * Take a last snapshot, and close it before the queue is closed.
+         *
+         * @return the snapshot, or null if there isn't one
+         */
+        @Nullable
+        QueueMapSnapshot<K, V> closeSnapshot() {
+            if (snapshot == null)
+                return null;
+            synchronized (snapshotLock) {
+                if (!closed) {
+                    closed = true;
+                    snapshot();
+                    snapshot.close();
+                }
+            }
+            return snapshot;
         }
 
         @Nullable
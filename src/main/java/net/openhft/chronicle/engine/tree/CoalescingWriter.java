@@ -0,0 +1,162 @@
+/*
+ * Copyright 2016 higherfrequencytrading.com
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package net.openhft.chronicle.engine.tree;
+
+import net.openhft.chronicle.bytes.Bytes;
+import net.openhft.chronicle.core.Jvm;
+import net.openhft.chronicle.core.io.Closeable;
+import net.openhft.chronicle.core.threads.EventHandler;
+import net.openhft.chronicle.core.threads.HandlerPriority;
+import net.openhft.chronicle.core.threads.InvalidEventHandlerException;
+import net.openhft.chronicle.network.connection.CoreFields;
+import net.openhft.chronicle.network.connection.TcpChannelHub;
+import net.openhft.chronicle.wire.ValueOut;
+import net.openhft.chronicle.wire.Wire;
+import net.openhft.chronicle.wire.WireKey;
+import net.openhft.chronicle.wire.WriteMarshallable;
+import net.openhft.chronicle.wire.WriteValue;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Packs the asynchronous messages of the remote views sharing a {@link TcpChannelHub} into one
+ * buffer, which is written to the hub once it holds <code>engine.client.coalesce.bytes</code> or
+ * its oldest message is <code>engine.client.coalesce.latencyUs</code> old. Consecutive messages
+ * for the same csp share one metadata document. <p></p> Messages are kept in the order written,
+ * but a view has to {@link #flush()} before a synchronous request, so the request sees its writes.
+ * If the hub can't take them, e.g. while it reconnects, they are kept and sent on a later flush.
+ * Only used when <code>engine.client.coalesce.latencyUs</code> is set.
+ */
+public class CoalescingWriter implements EventHandler, Closeable {
+    public static final long LATENCY_US = Long.getLong("engine.client.coalesce.latencyUs", 0);
+    static final int MAX_BYTES = Integer.getInteger("engine.client.coalesce.bytes", 64 << 10);
+
+    @NotNull
+    private final Predicate<Bytes> sink;
+    @NotNull
+    private final Bytes bytes = Bytes.elasticByteBuffer();
+    @NotNull
+    private final Wire wire;
+    private final long latencyNs;
+    private final int maxBytes;
+    // the csp of the last metadata written, compared by identity as each view has its own.
+    @Nullable
+    private CharSequence lastCsp;
+    private volatile long firstPendingNs;
+    private volatile boolean closed;
+    private boolean failing;
+
+    public CoalescingWriter(@NotNull TcpChannelHub hub, @NotNull Function<Bytes, Wire> wireType) {
+        this(b -> hub.lock(() -> hub.outWire().bytes().write(b)), wireType, LATENCY_US, MAX_BYTES);
+    }
+
+    /**
+     * @param sink      writes the buffered messages, returns false if they couldn't be written
+     * @param latencyUs the longest a message is buffered for
+     * @param maxBytes  the buffer size which is written without waiting
+     */
+    CoalescingWriter(@NotNull Predicate<Bytes> sink, @NotNull Function<Bytes, Wire> wireType,
+                     long latencyUs, int maxBytes) {
+        this.sink = sink;
+        this.wire = wireType.apply(bytes);
+        this.latencyNs = TimeUnit.MICROSECONDS.toNanos(latencyUs);
+        this.maxBytes = maxBytes;
+    }
+
+    public static boolean isEnabled() {
+        return LATENCY_US > 0;
+    }
+
+    /**
+     * Buffer a message as {@link net.openhft.chronicle.network.connection.AbstractStatelessClient}
+     * would send it asynchronously.
+     */
+    public synchronized void write(@NotNull CharSequence csp,
+                                   @NotNull WireKey eventId,
+                                   @Nullable WriteValue consumer) {
+        if (csp != lastCsp) {
+            wire.writeDocument(true, wireOut -> wireOut.writeEventName(CoreFields.csp).text(csp));
+            lastCsp = csp;
+        }
+        wire.writeDocument(false, wireOut -> {
+            final ValueOut valueOut = wireOut.writeEventName(eventId);
+            if (consumer == null)
+                valueOut.marshallable(WriteMarshallable.EMPTY);
+            else
+                consumer.writeValue(valueOut);
+        });
+
+        if (firstPendingNs == 0)
+            firstPendingNs = System.nanoTime();
+        if (bytes.writePosition() >= maxBytes && !failing)
+            flush();
+    }
+
+    /**
+     * Write everything buffered to the hub.
+     *
+     * @return false if it couldn't be written, in which case it is kept to be written again.
+     */
+    public synchronized boolean flush() {
+        if (bytes.writePosition() == 0)
+            return true;
+
+        if (!sink.test(bytes)) {
+            if (!failing)
+                Jvm.warn().on(getClass(), "Unable to send " + bytes.writePosition() + " bytes, will retry");
+            failing = true;
+            // try again after another period, rather than on every action.
+            firstPendingNs = System.nanoTime();
+            return false;
+        }
+        failing = false;
+
+        bytes.clear();
+        // another view may write to the hub before the next flush
+        lastCsp = null;
+        firstPendingNs = 0;
+        return true;
+    }
+
+    @Override
+    public boolean action() throws InvalidEventHandlerException {
+        if (closed)
+            throw new InvalidEventHandlerException();
+
+        final long first = firstPendingNs;
+        if (first == 0 || System.nanoTime() - first < latencyNs)
+            return false;
+        return flush();
+    }
+
+    @NotNull
+    @Override
+    public HandlerPriority priority() {
+        return HandlerPriority.MEDIUM;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        flush();
+    }
+}
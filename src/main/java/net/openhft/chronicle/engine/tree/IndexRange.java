@@ -0,0 +1,48 @@
+/*
+ * Copyright 2016 higherfrequencytrading.com
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package net.openhft.chronicle.engine.tree;
+
+import net.openhft.chronicle.wire.AbstractMarshallable;
+
+/**
+ * The indexes of the first and last excerpts of a batch published to a {@link QueueView}. The
+ * excerpts are consecutive, however if the queue rolled during the batch they are in more than one
+ * cycle. An empty batch has a first and last index of -1.
+ */
+public class IndexRange extends AbstractMarshallable {
+
+    private long first;
+    private long last;
+
+    public IndexRange() {
+        this(-1, -1);
+    }
+
+    public IndexRange(long first, long last) {
+        this.first = first;
+        this.last = last;
+    }
+
+    public long first() {
+        return first;
+    }
+
+    public long last() {
+        return last;
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright 2016 higherfrequencytrading.com
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package net.openhft.chronicle.engine.tree;
+
+import net.openhft.chronicle.core.threads.EventLoop;
+import net.openhft.chronicle.engine.api.map.MapView;
+import net.openhft.chronicle.engine.api.tree.Asset;
+import net.openhft.chronicle.engine.cfg.SubscriptionStat;
+import net.openhft.chronicle.engine.cfg.UserStat;
+import net.openhft.chronicle.engine.fs.Clusters;
+import net.openhft.chronicle.network.api.session.SessionProvider;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The views of an asset tree which subscriptions, stores and handlers use on every operation, the
+ * session provider, event loop, host identifier, clusters and the /proc maps, found once for the
+ * whole tree rather than by each of them. <p></p> A view which hasn't been added yet is looked
+ * for again until it has been, as the /proc maps and clusters are installed after the tree is
+ * built.
+ */
+public final class Infrastructure {
+    static final String SUBSCRIPTIONS = "proc/subscriptions";
+    static final String USERS = "proc/users";
+
+    @NotNull
+    private final Asset root;
+    // subType -> userId -> the key of its SubscriptionStat
+    private final ConcurrentMap<String, ConcurrentMap<String, String>> statKeys = new ConcurrentHashMap<>();
+
+    @Nullable
+    private volatile SessionProvider sessionProvider;
+    @Nullable
+    private volatile EventLoop eventLoop;
+    @Nullable
+    private volatile HostIdentifier hostIdentifier;
+    @Nullable
+    private volatile Clusters clusters;
+    @Nullable
+    private volatile MapView<String, SubscriptionStat> subscriptionStats;
+    @Nullable
+    private volatile MapView<String, UserStat> userStats;
+
+    Infrastructure(@NotNull Asset root) {
+        this.root = root;
+    }
+
+    @NotNull
+    public static Infrastructure of(@NotNull Asset asset) {
+        // sub assets share the infrastructure of the asset they are under.
+        for (Asset a = asset; a != null; a = a.parent())
+            if (a instanceof VanillaAsset)
+                return ((VanillaAsset) a).infrastructure();
+        return new Infrastructure(asset.root());
+    }
+
+    @Nullable
+    public SessionProvider sessionProvider() {
+        SessionProvider sessionProvider = this.sessionProvider;
+        if (sessionProvider == null)
+            this.sessionProvider = sessionProvider = root.findView(SessionProvider.class);
+        return sessionProvider;
+    }
+
+    @NotNull
+    public EventLoop eventLoop() {
+        EventLoop eventLoop = this.eventLoop;
+        if (eventLoop == null)
+            this.eventLoop = eventLoop = root.findOrCreateView(EventLoop.class);
+        return eventLoop;
+    }
+
+    @NotNull
+    public HostIdentifier hostIdentifier() {
+        HostIdentifier hostIdentifier = this.hostIdentifier;
+        if (hostIdentifier == null)
+            this.hostIdentifier = hostIdentifier = root.findOrCreateView(HostIdentifier.class);
+        return hostIdentifier;
+    }
+
+    @Nullable
+    public Clusters clusters() {
+        Clusters clusters = this.clusters;
+        if (clusters == null)
+            this.clusters = clusters = root.findView(Clusters.class);
+        return clusters;
+    }
+
+    /**
+     * @return the map of {@link SubscriptionStat} in /proc/subscriptions, or null if there isn't one.
+     */
+    @Nullable
+    public MapView<String, SubscriptionStat> subscriptionStats() {
+        MapView<String, SubscriptionStat> subscriptionStats = this.subscriptionStats;
+        if (subscriptionStats == null)
+            this.subscriptionStats = subscriptionStats = procMap(SUBSCRIPTIONS);
+        return subscriptionStats;
+    }
+
+    /**
+     * @return the map of {@link UserStat} in /proc/users, or null if there isn't one.
+     */
+    @Nullable
+    public MapView<String, UserStat> userStats() {
+        MapView<String, UserStat> userStats = this.userStats;
+        if (userStats == null)
+            this.userStats = userStats = procMap(USERS);
+        return userStats;
+    }
+
+    /**
+     * @return the key of the {@link SubscriptionStat} of this user and type of subscription,
+     * without building it again each time.
+     */
+    @NotNull
+    public String subscriptionStatKey(@NotNull String userId, @NotNull String subType) {
+        ConcurrentMap<String, String> keys = statKeys.get(subType);
+        if (keys == null)
+            keys = statKeys.computeIfAbsent(subType, t -> new ConcurrentHashMap<>());
+        String key = keys.get(userId);
+        if (key == null)
+            key = keys.computeIfAbsent(userId, u -> u + "~" + subType);
+        return key;
+    }
+
+    @Nullable
+    private <K, V> MapView<K, V> procMap(@NotNull String name) {
+        Asset asset = root.getAsset(name);
+        return asset == null ? null : asset.getView(MapView.class);
+    }
+}
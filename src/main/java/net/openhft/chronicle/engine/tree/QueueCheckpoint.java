@@ -0,0 +1,176 @@
+/*
+ * Copyright 2016 higherfrequencytrading.com
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package net.openhft.chronicle.engine.tree;
+
+import net.openhft.chronicle.bytes.Bytes;
+import net.openhft.chronicle.core.Jvm;
+import net.openhft.chronicle.core.io.Closeable;
+import net.openhft.chronicle.core.io.IORuntimeException;
+import net.openhft.chronicle.map.ChronicleMap;
+import net.openhft.chronicle.map.ChronicleMapBuilder;
+import net.openhft.chronicle.queue.ExcerptTailer;
+import net.openhft.chronicle.wire.DocumentContext;
+import net.openhft.chronicle.wire.Wire;
+import net.openhft.chronicle.wire.WireIn;
+import net.openhft.chronicle.wire.WireType;
+import net.openhft.chronicle.wire.WriteMarshallable;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * The persisted state of a view built by reading a queue, as the latest entry for each key and the
+ * index of the last excerpt it covers, so on restart the view loads the entries and only reads the
+ * queue after that index. <p></p> The entries are kept off heap in a persisted Chronicle Map. They
+ * are written before the last index, so after a crash the checkpoint may hold entries newer than
+ * its last index, which are overwritten as the queue is read again.
+ */
+public class QueueCheckpoint implements Closeable {
+
+    private static final String LAST_INDEX = "lastIndex";
+
+    private final File directory;
+    private final ChronicleMap<byte[], byte[]> entries;
+    private final ChronicleMap<String, Long> position;
+    private final Bytes bytes = Bytes.elasticByteBuffer();
+    private final Wire wire = WireType.BINARY.apply(bytes);
+    private boolean closed;
+
+    public QueueCheckpoint(@NotNull File directory, long entries) {
+        this.directory = directory;
+        //noinspection ResultOfMethodCallIgnored
+        directory.mkdirs();
+        try {
+            this.entries = ChronicleMapBuilder.of(byte[].class, byte[].class)
+                    .entries(entries)
+                    .averageKeySize(64)
+                    .averageValueSize(512)
+                    .createPersistedTo(new File(directory, "entries"));
+            this.position = ChronicleMapBuilder.of(String.class, Long.class)
+                    .entries(16)
+                    .createPersistedTo(new File(directory, "position"));
+
+        } catch (IOException e) {
+            IORuntimeException iore = new IORuntimeException("Could not access " + directory);
+            iore.initCause(e);
+            throw iore;
+        }
+    }
+
+    /**
+     * @return the index of the last excerpt checkpointed, or 0 if there is no checkpoint.
+     */
+    public synchronized long lastIndex() {
+        return position.getOrDefault(LAST_INDEX, 0L);
+    }
+
+    public synchronized void lastIndex(long lastIndex) {
+        if (!closed)
+            position.put(LAST_INDEX, lastIndex);
+    }
+
+    /**
+     * Move the tailer to the first excerpt after the checkpoint. If the excerpt checkpointed is no
+     * longer in the queue, e.g. it was deleted by retention, the checkpoint is discarded and the
+     * tailer is moved to the start.
+     *
+     * @return true if there is a checkpoint to load.
+     */
+    public synchronized boolean resume(@NotNull ExcerptTailer tailer) {
+        final long lastIndex = lastIndex();
+        if (lastIndex == 0)
+            return false;
+
+        if (!tailer.moveToIndex(lastIndex)) {
+            Jvm.warn().on(getClass(), "Unable to find index " + Long.toHexString(lastIndex)
+                    + " in the queue, discarding " + directory);
+            clear();
+            tailer.toStart();
+            return false;
+        }
+
+        // skip the excerpt already checkpointed.
+        try (DocumentContext dc = tailer.readingDocument()) {
+            assert dc.isPresent();
+        }
+        return true;
+    }
+
+    /**
+     * @param key   writes the key of the entry
+     * @param value writes its latest value, or null to remove the entry
+     */
+    protected synchronized void put(@NotNull WriteMarshallable key, @Nullable WriteMarshallable value) {
+        if (closed)
+            return;
+        bytes.clear();
+        key.writeMarshallable(wire);
+        final byte[] keyBytes = bytes.toByteArray();
+        if (value == null) {
+            entries.remove(keyBytes);
+            return;
+        }
+
+        bytes.clear();
+        value.writeMarshallable(wire);
+        entries.put(keyBytes, bytes.toByteArray());
+    }
+
+    /**
+     * @param consumer is passed the key and value of each entry to read, an entry which can't be
+     *                 read is skipped.
+     */
+    protected synchronized void forEachEntry(@NotNull BiConsumer<WireIn, WireIn> consumer) {
+        for (Map.Entry<byte[], byte[]> entry : entries.entrySet()) {
+            try {
+                consumer.accept(WireType.BINARY.apply(Bytes.wrapForRead(entry.getKey())),
+                        WireType.BINARY.apply(Bytes.wrapForRead(entry.getValue())));
+
+            } catch (RuntimeException e) {
+                Jvm.warn().on(getClass(), "Unable to read an entry in " + directory, e);
+            }
+        }
+    }
+
+    /**
+     * Discard the checkpoint, e.g. if it refers to an excerpt no longer in the queue.
+     */
+    public synchronized void clear() {
+        entries.clear();
+        position.clear();
+    }
+
+    @NotNull
+    public File directory() {
+        return directory;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (closed)
+            return;
+        closed = true;
+        Closeable.closeQuietly(entries);
+        Closeable.closeQuietly(position);
+        bytes.release();
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2016 higherfrequencytrading.com
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package net.openhft.chronicle.engine.tree;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.util.function.BiConsumer;
+
+/**
+ * A compacted copy of the latest message of each topic of a {@link ChronicleQueueView}, as seen
+ * by its map view, and of the index of the last excerpt it covers. On restart the map view loads
+ * the snapshot and only reads the queue after that index.
+ */
+class QueueMapSnapshot<K, V> extends QueueCheckpoint {
+
+    private final Class<K> keyClass;
+    private final Class<V> valueClass;
+
+    QueueMapSnapshot(@NotNull File directory, long entries,
+                     @NotNull Class<K> keyClass, @NotNull Class<V> valueClass) {
+        super(directory, entries);
+        this.keyClass = keyClass;
+        this.valueClass = valueClass;
+    }
+
+    /**
+     * @param consumer is passed the topic and latest message of each entry in the snapshot.
+     */
+    void forEach(@NotNull BiConsumer<K, V> consumer) {
+        forEachEntry((key, value) -> consumer.accept(key.getValueIn().object(keyClass),
+                value.getValueIn().object(valueClass)));
+    }
+
+    /**
+     * @param key   the topic
+     * @param value its latest message, or null if it has been removed
+     */
+    void put(@NotNull K key, @Nullable V value) {
+        put(w -> w.getValueOut().object(key),
+                value == null ? null : w -> w.getValueOut().object(value));
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright 2016 higherfrequencytrading.com
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package net.openhft.chronicle.engine.tree;
+
+import net.openhft.chronicle.core.Jvm;
+import net.openhft.chronicle.core.threads.EventHandler;
+import net.openhft.chronicle.core.threads.HandlerPriority;
+import net.openhft.chronicle.core.threads.InvalidEventHandlerException;
+import net.openhft.chronicle.engine.query.QueueConfig;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.File;
+import java.util.Arrays;
+
+/**
+ * Deletes the oldest cycle files of a queue once it holds more than its {@link QueueConfig}
+ * retention allows, by age, total size or number of cycles. <p></p> The current cycle is never
+ * deleted, and files are only deleted oldest first, so the queue never has a gap. A file a tailer
+ * still has mapped is unlinked rather than truncated, so it can still be read until the tailer
+ * moves on, and where the OS won't delete a mapped file it is tried again on the next check.
+ * <p></p> The readers of the side indexes of the queue treat an index before the first cycle as
+ * missing. The topic index skips such indexes, and an index checkpoint or map snapshot taken in a
+ * deleted cycle is discarded and rebuilt from the start. The time index, which grows with time
+ * rather than with topics, is pruned by {@code onDeleted} after cycles are deleted.
+ */
+class QueueRetention implements EventHandler {
+
+    static final String CYCLE_FILE_SUFFIX = ".cq4";
+
+    private final File directory;
+    private final long maxAgeMs;
+    private final long maxBytes;
+    private final int maxCycles;
+    private final long checkPeriodMs;
+    @NotNull
+    private final Runnable onDeleted;
+    private volatile boolean closed;
+    private long nextCheckMs;
+
+    QueueRetention(@NotNull File directory, @NotNull QueueConfig queueConfig) {
+        this(directory, queueConfig, () -> {
+        });
+    }
+
+    /**
+     * @param onDeleted run after cycle files have been deleted
+     */
+    QueueRetention(@NotNull File directory, @NotNull QueueConfig queueConfig, @NotNull Runnable onDeleted) {
+        this.directory = directory;
+        this.onDeleted = onDeleted;
+        this.maxAgeMs = queueConfig.retentionMaxAgeMs();
+        this.maxBytes = queueConfig.retentionMaxBytes();
+        this.maxCycles = queueConfig.retentionMaxCycles();
+        this.checkPeriodMs = queueConfig.retentionCheckPeriodMs();
+    }
+
+    /**
+     * @return true if the queue config limits the size of the queue.
+     */
+    static boolean isEnabled(@NotNull QueueConfig queueConfig) {
+        return queueConfig.retentionMaxAgeMs() > 0
+                || queueConfig.retentionMaxBytes() > 0
+                || queueConfig.retentionMaxCycles() > 0;
+    }
+
+    @Override
+    public boolean action() throws InvalidEventHandlerException {
+        if (closed)
+            throw new InvalidEventHandlerException();
+
+        final long now = System.currentTimeMillis();
+        if (now < nextCheckMs)
+            return false;
+        nextCheckMs = now + checkPeriodMs;
+
+        return deleteExpiredCycles(now) > 0;
+    }
+
+    /**
+     * @return the number of cycle files deleted.
+     */
+    int deleteExpiredCycles(long now) {
+        final File[] files = directory.listFiles((dir, name) -> name.endsWith(CYCLE_FILE_SUFFIX));
+        if (files == null || files.length < 2)
+            return 0;
+
+        // the cycle file names sort in the order they were rolled.
+        Arrays.sort(files);
+
+        long totalBytes = 0;
+        for (File file : files)
+            totalBytes += file.length();
+
+        int deleted = 0;
+        final int last = files.length - 1;
+        for (int i = 0; i < last; i++) {
+            final File file = files[i];
+            final boolean expired = (maxCycles > 0 && files.length - i > maxCycles)
+                    || (maxBytes > 0 && totalBytes > maxBytes)
+                    || (maxAgeMs > 0 && file.lastModified() < now - maxAgeMs);
+            if (!expired)
+                break;
+
+            final long length = file.length();
+            if (!file.delete()) {
+                Jvm.debug().on(getClass(), "Unable to delete " + file + ", will retry");
+                break;
+            }
+            totalBytes -= length;
+            deleted++;
+        }
+        if (deleted > 0) {
+            Jvm.debug().on(getClass(), "Deleted " + deleted + " cycle files from " + directory);
+            onDeleted.run();
+        }
+        return deleted;
+    }
+
+    @NotNull
+    @Override
+    public HandlerPriority priority() {
+        return HandlerPriority.MONITOR;
+    }
+
+    void close() {
+        closed = true;
+    }
+}
@@ -0,0 +1,186 @@
+/*
+ * Copyright 2016 higherfrequencytrading.com
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package net.openhft.chronicle.engine.tree;
+
+import net.openhft.chronicle.core.io.Closeable;
+import net.openhft.chronicle.core.io.IORuntimeException;
+import net.openhft.chronicle.map.ChronicleMap;
+import net.openhft.chronicle.map.ChronicleMapBuilder;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * A persisted side index of a queue, mapping wall clock time to the excerpts appended at that
+ * time. <p></p> The first excerpt appended in each period of {@code resolutionMs} is sampled with
+ * the time it was appended, so the first excerpt appended at or after a time can be found to
+ * within that resolution, without reading the queue. Only excerpts appended through the {@link
+ * ChronicleQueueView} are sampled, not those written by replication. <p></p> At most {@code
+ * entries} samples are kept, past that the oldest is dropped for each one added, and samples of
+ * cycles deleted by retention are dropped by {@link #prune(long)}.
+ */
+public class QueueTimeIndex implements Closeable {
+
+    private final File directory;
+    private final long resolutionMs;
+    private final int maxSamples;
+    // sample number -> { time appended, index }
+    private final ChronicleMap<Long, long[]> samples;
+
+    // a copy of the samples, to search in memory, a ring of count samples from head.
+    private long[] times;
+    private long[] indexes;
+    private int head;
+    private int count;
+    // the sample number of the oldest sample.
+    private long firstSample;
+    // the start of the period after the last sample, as the clock may go backwards.
+    private volatile long nextSampleMs = Long.MIN_VALUE;
+
+    public QueueTimeIndex(@NotNull File directory, long resolutionMs, long entries) {
+        this.directory = directory;
+        this.resolutionMs = resolutionMs;
+        this.maxSamples = (int) Math.max(2, Math.min(entries, Integer.MAX_VALUE - 8));
+        //noinspection ResultOfMethodCallIgnored
+        directory.mkdirs();
+        try {
+            samples = ChronicleMapBuilder.of(Long.class, long[].class)
+                    .entries(maxSamples)
+                    .averageValueSize(32)
+                    .createPersistedTo(new File(directory, "samples"));
+
+        } catch (IOException e) {
+            IORuntimeException iore = new IORuntimeException("Could not access " + directory);
+            iore.initCause(e);
+            throw iore;
+        }
+
+        final int size = samples.size();
+        firstSample = size == 0 ? 0 : Long.MAX_VALUE;
+        for (Long sample : samples.keySet())
+            firstSample = Math.min(firstSample, sample);
+        times = new long[Math.min(maxSamples, Math.max(16, size))];
+        indexes = new long[times.length];
+        for (long i = firstSample; count < times.length; i++) {
+            final long[] sample = samples.get(i);
+            if (sample == null)
+                break;
+            times[count] = sample[0];
+            indexes[count++] = sample[1];
+        }
+        if (count > 0)
+            nextSampleMs = periodStart(timeAt(count - 1)) + resolutionMs;
+    }
+
+    private long timeAt(int i) {
+        return times[(head + i) % times.length];
+    }
+
+    private long indexAt(int i) {
+        return indexes[(head + i) % times.length];
+    }
+
+    /**
+     * Called after an excerpt is appended.
+     *
+     * @param index of the excerpt
+     */
+    public void onAppended(long index) {
+        final long time = System.currentTimeMillis();
+        if (time < nextSampleMs)
+            return;
+        synchronized (this) {
+            if (time < nextSampleMs || (count > 0 && index <= indexAt(count - 1)))
+                return;
+
+            if (count == maxSamples)
+                dropOldest();
+            else if (count == times.length)
+                grow();
+            final int slot = (head + count) % times.length;
+            times[slot] = time;
+            indexes[slot] = index;
+            samples.put(firstSample + count, new long[]{time, index});
+            count++;
+            nextSampleMs = periodStart(time) + resolutionMs;
+        }
+    }
+
+    private void grow() {
+        final int length = (int) Math.min(maxSamples, times.length * 2L);
+        final long[] times2 = new long[length];
+        final long[] indexes2 = new long[length];
+        for (int i = 0; i < count; i++) {
+            times2[i] = timeAt(i);
+            indexes2[i] = indexAt(i);
+        }
+        times = times2;
+        indexes = indexes2;
+        head = 0;
+    }
+
+    private void dropOldest() {
+        samples.remove(firstSample++);
+        head = (head + 1) % times.length;
+        count--;
+    }
+
+    /**
+     * Drop the samples of the excerpts before this index, keeping the one this index comes after,
+     * e.g. once retention has deleted the cycles before it.
+     *
+     * @param firstIndex the first index still in the queue
+     */
+    public synchronized void prune(long firstIndex) {
+        while (count > 1 && indexAt(1) <= firstIndex)
+            dropOldest();
+    }
+
+    private long periodStart(long timeMs) {
+        return timeMs - Math.floorMod(timeMs, resolutionMs);
+    }
+
+    /**
+     * @param timeMs the wall clock time in milliseconds since the epoch
+     * @return the index of the first excerpt appended at or after the start of the period this
+     * time is in, or -1 if none were.
+     */
+    public synchronized long firstIndexAtOrAfter(long timeMs) {
+        final long from = periodStart(timeMs);
+        int lo = 0, hi = count;
+        while (lo < hi) {
+            final int mid = (lo + hi) >>> 1;
+            if (timeAt(mid) < from)
+                lo = mid + 1;
+            else
+                hi = mid;
+        }
+        return lo < count ? indexAt(lo) : -1;
+    }
+
+    @NotNull
+    public File directory() {
+        return directory;
+    }
+
+    @Override
+    public synchronized void close() {
+        Closeable.closeQuietly(samples);
+    }
+}
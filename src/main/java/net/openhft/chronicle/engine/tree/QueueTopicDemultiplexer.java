@@ -0,0 +1,382 @@
+/*
+ * Copyright 2016 higherfrequencytrading.com
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package net.openhft.chronicle.engine.tree;
+
+import net.openhft.chronicle.core.Jvm;
+import net.openhft.chronicle.core.io.Closeable;
+import net.openhft.chronicle.core.threads.EventHandler;
+import net.openhft.chronicle.core.threads.InvalidEventHandlerException;
+import net.openhft.chronicle.engine.api.pubsub.InvalidSubscriberException;
+import net.openhft.chronicle.engine.api.pubsub.Subscriber;
+import net.openhft.chronicle.queue.ChronicleQueue;
+import net.openhft.chronicle.queue.ExcerptTailer;
+import net.openhft.chronicle.wire.DocumentContext;
+import net.openhft.chronicle.wire.Wire;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import static net.openhft.chronicle.core.util.ObjectUtils.convertTo;
+
+/**
+ * Reads a queue once, on a single shared tailer, and dispatches each excerpt to the subscribers of
+ * its topic. The message is only decoded if the topic has subscribers. <p></p> A subscriber which
+ * starts behind the shared tailer is given a catch-up tailer of its own, which only delivers its
+ * topic, and is merged into the shared tailer once it has reached it. <p></p> All reads and
+ * dispatches are done on the event loop the demultiplexer is added to.
+ */
+public class QueueTopicDemultiplexer<T, M> implements EventHandler, Closeable {
+
+    /**
+     * start from the first excerpt in the queue.
+     */
+    public static final long FROM_START = 0;
+
+    /**
+     * start from the next excerpt written to the queue.
+     */
+    public static final long FROM_END = -1;
+
+    private static final int MAX_READS_PER_ACTION = 256;
+
+    private final ChronicleQueue chronicleQueue;
+    private final Class<T> topicClass;
+    private final Class<M> messageClass;
+    private final ExcerptTailer tailer;
+
+    // only accessed on the event loop thread.
+    private final Map<T, List<TopicSubscription<T, M>>> subscriptionsByTopic = new HashMap<>();
+    private final List<CatchUp> catchUps = new ArrayList<>();
+
+    private final Queue<TopicSubscription<T, M>> pending = new ConcurrentLinkedQueue<>();
+    private final Map<SubscriptionKey, TopicSubscription<T, M>> subscriptions = new ConcurrentHashMap<>();
+    private volatile boolean closed;
+
+    public QueueTopicDemultiplexer(@NotNull ChronicleQueue chronicleQueue,
+                                   @NotNull Class<T> topicClass,
+                                   @NotNull Class<M> messageClass) {
+        this.chronicleQueue = chronicleQueue;
+        this.topicClass = topicClass;
+        this.messageClass = messageClass;
+        this.tailer = chronicleQueue.createTailer();
+    }
+
+    /**
+     * @param topic      to subscribe to, converted to the topic type of the queue
+     * @param fromIndex  the index of the first excerpt to deliver, or {@link #FROM_START} or
+     *                   {@link #FROM_END}
+     * @param subscriber to notify of each message on this topic
+     */
+    public void subscribe(@NotNull Object topic, long fromIndex, @NotNull Subscriber<M> subscriber) {
+        subscribe(topic, fromIndex, subscriber, null);
+    }
+
+    /**
+     * @param onInvalid called on the event loop if the subscriber is dropped because it threw
+     *                  {@link InvalidSubscriberException} or a RuntimeException, but not when it is
+     *                  unsubscribed. Subscribing it again to the same topic replaces it.
+     */
+    public void subscribe(@NotNull Object topic, long fromIndex, @NotNull Subscriber<M> subscriber,
+                          @Nullable Runnable onInvalid) {
+        if (closed)
+            throw new IllegalStateException("closed");
+        final TopicSubscription<T, M> subscription =
+                new TopicSubscription<>(convertTo(topicClass, topic), fromIndex, subscriber, onInvalid);
+        final TopicSubscription<T, M> replaced = subscriptions.put(subscription.key, subscription);
+        if (replaced != null)
+            replaced.terminated = true;
+        pending.add(subscription);
+    }
+
+    /**
+     * @param subscriber to stop notifying of any topic, it is removed on the next action
+     * @return true if the subscriber was subscribed.
+     */
+    public boolean unsubscribe(@NotNull Subscriber subscriber) {
+        boolean removed = false;
+        for (Iterator<TopicSubscription<T, M>> iterator = subscriptions.values().iterator(); iterator.hasNext(); ) {
+            final TopicSubscription<T, M> subscription = iterator.next();
+            if (subscription.subscriber.equals(subscriber)) {
+                iterator.remove();
+                subscription.terminated = true;
+                removed = true;
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * @param topic      the subscriber was subscribed to
+     * @param subscriber to stop notifying of this topic, it is removed on the next action
+     * @return true if the subscriber was subscribed to this topic.
+     */
+    public boolean unsubscribe(@NotNull Object topic, @NotNull Subscriber subscriber) {
+        final TopicSubscription<T, M> subscription =
+                subscriptions.remove(new SubscriptionKey(convertTo(topicClass, topic), subscriber));
+        if (subscription == null)
+            return false;
+        subscription.terminated = true;
+        return true;
+    }
+
+    public int subscriberCount() {
+        return subscriptions.size();
+    }
+
+    @Override
+    public boolean action() throws InvalidEventHandlerException {
+        if (closed)
+            throw new InvalidEventHandlerException();
+
+        boolean busy = addPending();
+        busy |= readCatchUps();
+        busy |= readShared();
+        return busy;
+    }
+
+    private boolean addPending() {
+        boolean busy = false;
+        for (TopicSubscription<T, M> s; (s = pending.poll()) != null; ) {
+            busy = true;
+            if (s.terminated)
+                continue;
+
+            if (s.fromIndex == FROM_END) {
+                // the shared tailer reads every excerpt, so it is at the end unless it is busy.
+                s.lastIndex = tailer.index() - 1;
+                merge(s);
+
+            } else if (s.fromIndex != FROM_START && s.fromIndex >= tailer.index()) {
+                // the shared tailer will skip everything before the start index.
+                s.lastIndex = s.fromIndex - 1;
+                merge(s);
+
+            } else {
+                final ExcerptTailer catchUpTailer = chronicleQueue.createTailer();
+                if (s.fromIndex != FROM_START && !catchUpTailer.moveToIndex(s.fromIndex))
+                    catchUpTailer.toStart();
+                catchUps.add(new CatchUp(s, catchUpTailer));
+            }
+        }
+        return busy;
+    }
+
+    private boolean readCatchUps() {
+        boolean busy = false;
+        for (Iterator<CatchUp> iterator = catchUps.iterator(); iterator.hasNext(); ) {
+            final CatchUp catchUp = iterator.next();
+            final TopicSubscription<T, M> s = catchUp.subscription;
+            if (s.terminated || catchUp.read()) {
+                iterator.remove();
+                if (s.terminated)
+                    drop(s);
+                else
+                    merge(s);
+            }
+            busy = true;
+        }
+        return busy;
+    }
+
+    private boolean readShared() {
+        for (int i = 0; i < MAX_READS_PER_ACTION; i++) {
+            try (DocumentContext dc = tailer.readingDocument()) {
+                if (!dc.isPresent())
+                    return i > 0;
+
+                if (subscriptionsByTopic.isEmpty())
+                    continue;
+
+                final Wire wire = dc.wire();
+                final T topic = wire.readEvent(topicClass);
+                final List<TopicSubscription<T, M>> topicSubscriptions = subscriptionsByTopic.get(topic);
+                if (topicSubscriptions == null)
+                    continue;
+
+                final long index = tailer.index();
+                final M message;
+                try {
+                    message = wire.getValueIn().object(messageClass);
+                } catch (RuntimeException e) {
+                    Jvm.warn().on(getClass(), "Unable to read the message at index " + index, e);
+                    continue;
+                }
+                for (Iterator<TopicSubscription<T, M>> iterator = topicSubscriptions.iterator(); iterator.hasNext(); ) {
+                    final TopicSubscription<T, M> s = iterator.next();
+                    if (s.terminated || !s.onMessage(index, message)) {
+                        iterator.remove();
+                        drop(s);
+                    }
+                }
+                if (topicSubscriptions.isEmpty())
+                    subscriptionsByTopic.remove(topic);
+            }
+        }
+        return true;
+    }
+
+    private void drop(@NotNull TopicSubscription<T, M> subscription) {
+        // if it was unsubscribed it has been removed already.
+        if (subscriptions.remove(subscription.key, subscription) && subscription.onInvalid != null) {
+            try {
+                subscription.onInvalid.run();
+            } catch (RuntimeException e) {
+                Jvm.warn().on(getClass(), e);
+            }
+        }
+    }
+
+    private void merge(@NotNull TopicSubscription<T, M> subscription) {
+        subscriptionsByTopic.computeIfAbsent(subscription.topic, t -> new ArrayList<>())
+                .add(subscription);
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        for (TopicSubscription<T, M> subscription : subscriptions.values()) {
+            subscription.terminated = true;
+            try {
+                subscription.subscriber.onEndOfSubscription();
+            } catch (Exception e) {
+                Jvm.debug().on(getClass(), e);
+            }
+        }
+        subscriptions.clear();
+    }
+
+    static class TopicSubscription<T, M> {
+        final T topic;
+        final long fromIndex;
+        final Subscriber<M> subscriber;
+        final SubscriptionKey key;
+        @Nullable
+        final Runnable onInvalid;
+        // the index of the last excerpt delivered, so the catch-up and shared tailers never
+        // deliver the same excerpt twice.
+        long lastIndex = -1;
+        volatile boolean terminated;
+
+        TopicSubscription(T topic, long fromIndex, Subscriber<M> subscriber, @Nullable Runnable onInvalid) {
+            this.topic = topic;
+            this.fromIndex = fromIndex;
+            this.subscriber = subscriber;
+            this.onInvalid = onInvalid;
+            this.key = new SubscriptionKey(topic, subscriber);
+        }
+
+        /**
+         * @return false if the subscriber is no longer valid.
+         */
+        boolean onMessage(long index, M message) {
+            if (index <= lastIndex)
+                return true;
+            lastIndex = index;
+            try {
+                subscriber.onMessage(message);
+                return true;
+
+            } catch (InvalidSubscriberException e) {
+                terminated = true;
+                return false;
+
+            } catch (RuntimeException e) {
+                // only this subscriber is dropped, the others of the topic are still notified.
+                Jvm.warn().on(QueueTopicDemultiplexer.class, e);
+                terminated = true;
+                return false;
+            }
+        }
+    }
+
+    /**
+     * A subscriber may be subscribed to more than one topic.
+     */
+    static final class SubscriptionKey {
+        final Object topic;
+        final Subscriber subscriber;
+
+        SubscriptionKey(Object topic, Subscriber subscriber) {
+            this.topic = topic;
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof SubscriptionKey)) return false;
+            final SubscriptionKey that = (SubscriptionKey) o;
+            return Objects.equals(topic, that.topic) && subscriber.equals(that.subscriber);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * Objects.hashCode(topic) + subscriber.hashCode();
+        }
+    }
+
+    class CatchUp {
+        final TopicSubscription<T, M> subscription;
+        final ExcerptTailer catchUpTailer;
+
+        CatchUp(TopicSubscription<T, M> subscription, ExcerptTailer catchUpTailer) {
+            this.subscription = subscription;
+            this.catchUpTailer = catchUpTailer;
+        }
+
+        /**
+         * @return true once this has reached the shared tailer and should be merged into it.
+         */
+        boolean read() {
+            for (int i = 0; i < MAX_READS_PER_ACTION; i++) {
+                if (catchUpTailer.index() >= tailer.index())
+                    return true;
+
+                try (DocumentContext dc = catchUpTailer.readingDocument()) {
+                    if (!dc.isPresent())
+                        return true;
+
+                    final long index = catchUpTailer.index();
+                    // the shared tailer has not read this excerpt yet so it will deliver it.
+                    if (index >= tailer.index())
+                        return true;
+
+                    final Wire wire = dc.wire();
+                    final T topic = wire.readEvent(topicClass);
+                    if (!subscription.topic.equals(topic))
+                        continue;
+
+                    final M message;
+                    try {
+                        message = wire.getValueIn().object(messageClass);
+                    } catch (RuntimeException e) {
+                        Jvm.warn().on(QueueTopicDemultiplexer.class,
+                                "Unable to read the message at index " + index, e);
+                        continue;
+                    }
+                    if (!subscription.onMessage(index, message))
+                        return false;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,289 @@
+/*
+ * Copyright 2016 higherfrequencytrading.com
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package net.openhft.chronicle.engine.tree;
+
+import net.openhft.chronicle.core.Jvm;
+import net.openhft.chronicle.core.io.Closeable;
+import net.openhft.chronicle.core.io.IORuntimeException;
+import net.openhft.chronicle.map.ChronicleMap;
+import net.openhft.chronicle.map.ChronicleMapBuilder;
+import net.openhft.chronicle.queue.ChronicleQueue;
+import net.openhft.chronicle.queue.ExcerptTailer;
+import net.openhft.chronicle.wire.DocumentContext;
+import net.openhft.chronicle.wire.Wires;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A persisted side index of a queue, mapping each topic to its latest index and to the list of
+ * all its indexes. <p></p> The index is kept in Chronicle Maps next to the queue files. It is
+ * brought up to date by tailing the queue from the last position indexed, so on restart it only
+ * reads what was written since, and excerpts written by replication are indexed as well as those
+ * appended locally. <p></p> Indexes of excerpts in cycles deleted by retention are treated as
+ * missing, so lookups only return indexes still in the queue.
+ */
+public class QueueTopicIndex implements Closeable {
+
+    // the bits of a position key holding the position in the topic, the topic id is above them.
+    private static final int POSITION_BITS = 40;
+
+    private final File directory;
+    // topic -> id of the topic in positions
+    private final ChronicleMap<String, Long> topicIds;
+    // topic -> latest index
+    private final ChronicleMap<String, Long> latest;
+    // topic -> number of indexes recorded
+    private final ChronicleMap<String, Long> counts;
+    // topic id << POSITION_BITS | position in the topic -> index
+    private final ChronicleMap<Long, Long> positions;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final ChronicleQueue chronicleQueue;
+    private final ExcerptTailer tailer;
+
+    public QueueTopicIndex(@NotNull ChronicleQueue chronicleQueue, @NotNull File directory, long topics) {
+        this(chronicleQueue, directory, topics, 256);
+    }
+
+    /**
+     * @param topics           the number of distinct topics to size the index for
+     * @param messagesPerTopic the average number of messages per topic to size the index for
+     */
+    public QueueTopicIndex(@NotNull ChronicleQueue chronicleQueue, @NotNull File directory,
+                           long topics, long messagesPerTopic) {
+        this.directory = directory;
+        //noinspection ResultOfMethodCallIgnored
+        directory.mkdirs();
+        final File positionsFile = new File(directory, "positions");
+        final boolean reindex = !positionsFile.exists();
+        try {
+            topicIds = ChronicleMapBuilder.of(String.class, Long.class)
+                    .entries(topics)
+                    .createPersistedTo(new File(directory, "topicIds"));
+            latest = ChronicleMapBuilder.of(String.class, Long.class)
+                    .entries(topics)
+                    .createPersistedTo(new File(directory, "latest"));
+            counts = ChronicleMapBuilder.of(String.class, Long.class)
+                    .entries(topics)
+                    .createPersistedTo(new File(directory, "counts"));
+            // one fixed size entry per index, so appending one doesn't rewrite the ones before it.
+            positions = ChronicleMapBuilder.of(Long.class, Long.class)
+                    .entries(topics * Math.max(1, messagesPerTopic))
+                    .createPersistedTo(positionsFile);
+
+        } catch (IOException e) {
+            IORuntimeException iore = new IORuntimeException("Could not access " + directory);
+            iore.initCause(e);
+            throw iore;
+        }
+
+        if (reindex && !latest.isEmpty()) {
+            // written by an earlier layout without positions.
+            Jvm.warn().on(getClass(), "Rebuilding " + directory);
+            latest.clear();
+            counts.clear();
+            topicIds.clear();
+            //noinspection ResultOfMethodCallIgnored
+            new File(directory, "chunks").delete();
+        }
+
+        this.chronicleQueue = chronicleQueue;
+        tailer = chronicleQueue.createTailer();
+        long lastIndexed = -1;
+        for (Long index : latest.values())
+            lastIndexed = Math.max(lastIndexed, index);
+
+        if (lastIndexed >= 0) {
+            if (tailer.moveToIndex(lastIndexed)) {
+                // skip the excerpt already indexed.
+                try (DocumentContext dc = tailer.readingDocument()) {
+                    assert dc.isPresent();
+                }
+            } else {
+                Jvm.warn().on(getClass(), "Unable to find index " + Long.toHexString(lastIndexed)
+                        + " in the queue, reindexing " + directory);
+                tailer.toStart();
+            }
+        }
+    }
+
+    private static long positionKey(long topicId, long position) {
+        return (topicId << POSITION_BITS) | position;
+    }
+
+    /**
+     * Index everything written to the queue since the last call.
+     */
+    public void update() {
+        lock.lock();
+        try {
+            update0();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * As {@link #update()} but returns immediately if another thread is updating the index, as
+     * that thread or the next lookup will index what has been written.
+     */
+    public void tryUpdate() {
+        if (!lock.tryLock())
+            return;
+        try {
+            update0();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void update0() {
+        final StringBuilder topic = Wires.acquireStringBuilder();
+        for (; ; ) {
+            try (DocumentContext dc = tailer.readingDocument()) {
+                if (!dc.isPresent())
+                    return;
+                final long index = tailer.index();
+                topic.setLength(0);
+                dc.wire().readEventName(topic);
+                add(topic.toString(), index);
+            }
+        }
+    }
+
+    private void add(@NotNull String topic, long index) {
+        final Long latestIndex = latest.get(topic);
+        if (latestIndex != null && index <= latestIndex)
+            return;
+
+        final long topicId = topicId(topic);
+        final long count = counts.getOrDefault(topic, 0L);
+        // after a restart, the count may have been written when the latest index was not.
+        final boolean recorded = count > 0 && indexAt(topicId, count - 1) == index;
+        if (!recorded) {
+            positions.put(positionKey(topicId, count), index);
+            counts.put(topic, count + 1);
+        }
+        latest.put(topic, index);
+    }
+
+    private long topicId(@NotNull String topic) {
+        final Long id = topicIds.get(topic);
+        if (id != null)
+            return id;
+        // only added to while holding the lock, so the size is the next id.
+        final long next = topicIds.longSize();
+        topicIds.put(topic, next);
+        return next;
+    }
+
+    private long indexAt(long topicId, long position) {
+        final Long index = positions.get(positionKey(topicId, position));
+        return index == null ? -1 : index;
+    }
+
+    /**
+     * @param topic to look up
+     * @return the index of the latest excerpt for this topic or -1 if there isn't one.
+     */
+    public long latestIndex(@NotNull String topic) {
+        update();
+        final Long index = latest.get(topic);
+        return index == null || index < chronicleQueue.firstIndex() ? -1 : index;
+    }
+
+    /**
+     * @param topic     to look up
+     * @param fromIndex the lowest index to return
+     * @return the index of the first excerpt for this topic at or after {@code fromIndex}, or -1 if
+     * there isn't one.
+     */
+    public long nextIndex(@NotNull String topic, long fromIndex) {
+        update();
+        // the cycles before the first index have been deleted.
+        fromIndex = Math.max(fromIndex, chronicleQueue.firstIndex());
+        final Long latestIndex = latest.get(topic);
+        if (latestIndex == null || latestIndex < fromIndex)
+            return -1;
+
+        final Long topicId = topicIds.get(topic);
+        if (topicId == null)
+            return -1;
+
+        // find the first position with an index at or after fromIndex, the indexes are ascending.
+        final long count = counts.getOrDefault(topic, 0L);
+        long lo = 0, hi = count;
+        while (lo < hi) {
+            final long mid = (lo + hi) >>> 1;
+            if (indexAt(topicId, mid) < fromIndex)
+                lo = mid + 1;
+            else
+                hi = mid;
+        }
+        return lo < count ? indexAt(topicId, lo) : -1;
+    }
+
+    /**
+     * @param topic     to iterate over
+     * @param fromIndex the lowest index to return
+     * @return the indexes of the excerpts for this topic, in order.
+     */
+    @NotNull
+    public PrimitiveIterator.OfLong indexes(@NotNull String topic, long fromIndex) {
+        return new PrimitiveIterator.OfLong() {
+            long next = nextIndex(topic, fromIndex);
+
+            @Override
+            public boolean hasNext() {
+                return next >= 0;
+            }
+
+            @Override
+            public long nextLong() {
+                if (next < 0)
+                    throw new NoSuchElementException();
+                final long index = next;
+                next = nextIndex(topic, index + 1);
+                return index;
+            }
+        };
+    }
+
+    @NotNull
+    public File directory() {
+        return directory;
+    }
+
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            Closeable.closeQuietly(topicIds);
+            Closeable.closeQuietly(latest);
+            Closeable.closeQuietly(counts);
+            Closeable.closeQuietly(positions);
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -23,6 +23,10 @@ import net.openhft.chronicle.engine.api.tree.KeyedView;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
 /**
  * @author Rob Austin.
  */
@@ -53,6 +57,57 @@ public interface QueueView<T, M> extends TopicPublisher<T, M>, KeyedView, Assett
      */
     long publishAndIndex(@NotNull T topic, @NotNull M message);
 
+    /**
+     * Publish a batch of messages, each to its own topic, as consecutive excerpts.
+     *
+     * @param batch of topic and message pairs to publish, in order
+     * @return the indexes of the first and last excerpts of the batch
+     */
+    @NotNull
+    default IndexRange publishBatchAndIndex(@NotNull List<? extends Map.Entry<T, M>> batch) {
+        long first = -1, last = -1;
+        for (Map.Entry<T, M> entry : batch) {
+            last = publishAndIndex(entry.getKey(), entry.getValue());
+            if (first == -1)
+                first = last;
+        }
+        return new IndexRange(first, last);
+    }
+
+    /**
+     * Publish a batch of messages without waiting for them to be written, for a remote queue the
+     * batch is sent as one request.
+     *
+     * @param batch of topic and message pairs to publish, in order
+     * @return the indexes of the first and last excerpts of the batch, once they are written
+     */
+    @NotNull
+    default CompletableFuture<IndexRange> publishBatchAndIndexAsync(@NotNull List<? extends Map.Entry<T, M>> batch) {
+        return CompletableFuture.completedFuture(publishBatchAndIndex(batch));
+    }
+
+    /**
+     * Read a window of the excerpts after an index, so a reader needs one request per window rather
+     * than one per excerpt. At least one excerpt is read if there is one, even if it is larger than
+     * {@code maxBytes}.
+     *
+     * @param afterIndex  the index of the last excerpt already read, or -1 to read from the start
+     * @param maxMessages the most excerpts to read
+     * @param maxBytes    stop once this many bytes of excerpts have been read
+     * @return the excerpts in order, or an empty list if there are none after this index yet
+     */
+    @NotNull
+    List<Excerpt<T, M>> readBatch(long afterIndex, int maxMessages, int maxBytes);
+
+    /**
+     * Seek by the wall clock time excerpts were appended, to within the resolution of the time
+     * index of the queue.
+     *
+     * @param timeMs the time in milliseconds since the epoch
+     * @return the index of the first excerpt appended at or after this time, or -1 if none were
+     */
+    long firstIndexAtOrAfter(long timeMs);
+
     interface Excerpt<T, M> {
         T topic();
 
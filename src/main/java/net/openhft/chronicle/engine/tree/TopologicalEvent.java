@@ -17,6 +17,8 @@
 
 package net.openhft.chronicle.engine.tree;
 
+import net.openhft.chronicle.engine.api.pubsub.InvalidSubscriberException;
+import net.openhft.chronicle.engine.api.pubsub.Subscriber;
 import net.openhft.chronicle.engine.api.tree.ChangeEvent;
 import net.openhft.chronicle.wire.WireKey;
 import org.jetbrains.annotations.NotNull;
@@ -37,6 +39,14 @@ public interface TopologicalEvent extends ChangeEvent {
                 : parent + "/" + name();
     }
 
+    /**
+     * @param subscriber to pass each change in this event to, one at a time.
+     * @throws InvalidSubscriberException if the subscriber is no longer valid.
+     */
+    default void forEachEvent(@NotNull Subscriber<TopologicalEvent> subscriber) throws InvalidSubscriberException {
+        subscriber.onMessage(this);
+    }
+
     enum TopologicalFields implements WireKey {
         assetName, name
     }
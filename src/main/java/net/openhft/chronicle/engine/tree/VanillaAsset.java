@@ -21,6 +21,7 @@ import net.openhft.chronicle.core.annotation.ForceInline;
 import net.openhft.chronicle.core.io.Closeable;
 import net.openhft.chronicle.core.threads.EventLoop;
 import net.openhft.chronicle.core.threads.HandlerPriority;
+import net.openhft.chronicle.core.util.ObjectUtils;
 import net.openhft.chronicle.core.util.ThrowingConsumer;
 import net.openhft.chronicle.engine.api.collection.ValuesCollection;
 import net.openhft.chronicle.engine.api.column.ColumnView;
@@ -63,8 +64,13 @@ import org.slf4j.LoggerFactory;
 import java.util.Comparator;
 import java.util.Map;
 import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.function.BiPredicate;
 import java.util.function.Function;
 
@@ -77,20 +83,51 @@ public class VanillaAsset implements Asset, Closeable {
     public static final String LAST = "{last}";
     private static final Logger LOG = LoggerFactory.getLogger(VanillaAsset.class);
     private static final BiPredicate<RequestContext, Asset> ALWAYS = (rc, asset) -> true;
-    final Map<Class, Object> viewMap = new ConcurrentSkipListMap<>(CLASS_COMPARATOR);
+    // the network stats are appended to every second, so are only kept for a day by default.
+    private static final long THROUGHPUT_RETENTION_MS =
+            Long.getLong("engine.throughput.retentionMs", TimeUnit.DAYS.toMillis(1));
+    // the views for iterating over, they are looked up in views.
+    final Map<Class, Object> viewMap = new ConcurrentHashMap<>();
     final ConcurrentMap<String, Asset> children = new ConcurrentSkipListMap<>();
+    // for a keyed asset, its sub-assets by key, so events for a key don't have to convert it to a name.
+    private final ConcurrentMap<Object, Asset> childrenByKey = new ConcurrentHashMap<>();
+    // set if a sub-asset's name couldn't be converted to a key, so it isn't in childrenByKey.
+    private volatile boolean unkeyedChildren;
+    private final ViewSlots<Object> views = new ViewSlots<>();
+    // the views found up the tree, valid while the version of their view type is unchanged.
+    private final ViewSlots<FoundView> foundViews = new ViewSlots<>();
+    // only used by the root, the number of times a view of each type was added in the tree.
+    private final ViewSlots<AtomicLong> viewVersions = new ViewSlots<>();
+    private final VanillaAsset root;
+    private final Infrastructure infrastructure;
+    // only in the root, every asset under it by full name, so a full name is found in one lookup.
+    // Sub-assets aren't included, they are found by their keyed parent.
+    @Nullable
+    private final ConcurrentMap<String, Asset> assetsByFullName;
+    private static final ThreadLocal<LookupKey> LOOKUP_KEY = ThreadLocal.withInitial(LookupKey::new);
+    private static final boolean COMPACT_SUB_ASSETS = Boolean.getBoolean("engine.subAsset.compact");
+    // a keyed asset's detached sub-assets last looked up, by hash, so looking one up again
+    // doesn't create another.
+    private static final int DETACHED_SUB_ASSETS = 64;
+    @Nullable
+    private volatile AtomicReferenceArray<Asset> detachedSubAssets;
+    // only used by the root.
+    private volatile boolean compactSubAssets = COMPACT_SUB_ASSETS;
     private final Asset parent;
     @NotNull
     private final String name;
     private final Map<Class, SortedMap<String, WrappingViewRecord>> wrappingViewFactoryMap =
-            new ConcurrentSkipListMap<>(CLASS_COMPARATOR);
-    private final Map<Class, LeafView> leafViewMap = new ConcurrentSkipListMap<>(CLASS_COMPARATOR);
+            new ConcurrentHashMap<>();
+    private final Map<Class, LeafView> leafViewMap = new ConcurrentHashMap<>();
     private String fullName = null;
     private Boolean keyedAsset;
 
     public VanillaAsset(Asset asset, @NotNull String name) {
         this.parent = asset;
         this.name = name;
+        this.root = asset instanceof VanillaAsset ? ((VanillaAsset) asset).root : this;
+        this.assetsByFullName = root == this ? new ConcurrentHashMap<>() : null;
+        this.infrastructure = root == this ? new Infrastructure(this) : root.infrastructure;
 
         if ("".equals(name)) {
             assert parent == null;
@@ -241,7 +278,10 @@ public class VanillaAsset implements Asset, Closeable {
 
         clusterConnections.configQueueServer();
 
-        addView(QueueConfig.class, new QueueConfig(uriToHostId, true, null, WireType.BINARY));
+        final QueueConfig queueConfig = new QueueConfig(uriToHostId, true, null, WireType.BINARY);
+        addView(QueueConfig.class, queueConfig);
+        clusterConnections.addView(QueueConfig.class,
+                new QueueConfig(queueConfig).retentionMaxAgeMs(THROUGHPUT_RETENTION_MS));
 
         addView(ObjectCacheFactory.class, VanillaObjectCacheFactory.INSTANCE);
 
@@ -279,6 +319,12 @@ public class VanillaAsset implements Asset, Closeable {
                     () -> new TcpChannelHub(sessionProvider, eventLoop, wire, name.isEmpty() ? "/" : name,
                             socketAddressSupplier, true, clientConnectionMonitor, HandlerPriority.TIMER));
             addView(TcpChannelHub.class, view);
+
+            if (CoalescingWriter.isEnabled()) {
+                CoalescingWriter writer = new CoalescingWriter(view, wire);
+                addView(CoalescingWriter.class, writer);
+                eventLoop.addHandler(writer);
+            }
         }
     }
 
@@ -338,6 +384,32 @@ public class VanillaAsset implements Asset, Closeable {
         return ((VanillaAsset) parent).createLeafView(viewType, rc, asset);
     }
 
+    /**
+     * @return the views of this tree used on every operation, shared by all its assets.
+     */
+    @NotNull
+    public Infrastructure infrastructure() {
+        return infrastructure;
+    }
+
+    /**
+     * @return true if the sub-assets of the local maps in this tree only hold their Reference and
+     * subscription once used, and are only attached to their parent while they have subscribers.
+     */
+    public boolean compactSubAssets() {
+        return root.compactSubAssets;
+    }
+
+    /**
+     * Set for the whole tree before its maps have sub-assets, -Dengine.subAsset.compact sets the
+     * default.
+     */
+    @NotNull
+    public VanillaAsset compactSubAssets(boolean compactSubAssets) {
+        root.compactSubAssets = compactSubAssets;
+        return this;
+    }
+
     @Override
     public boolean isSubAsset() {
         return false;
@@ -360,10 +432,61 @@ public class VanillaAsset implements Asset, Closeable {
     @ForceInline
     public <V> V getView(@NotNull Class<V> viewType) {
         @SuppressWarnings("unchecked")
-        V view = (V) viewMap.get(viewType);
+        V view = (V) views.get(ViewSlots.slotOf(viewType));
         return view;
     }
 
+    /**
+     * As {@link Asset#findView(Class)}, remembering what was found up the tree until a view of this
+     * type is next added anywhere in the tree.
+     */
+    @Nullable
+    @Override
+    public <V> V findView(@NotNull Class<V> viewType) {
+        final int slot = ViewSlots.slotOf(viewType);
+        final Object view = views.get(slot);
+        if (view != null || parent == null) {
+            //noinspection unchecked
+            return (V) view;
+        }
+
+        // read the version before looking, so a view added meanwhile means we look again next time.
+        final long version = root.viewVersion(slot);
+        final FoundView found = foundViews.get(slot);
+        if (found != null && found.version == version) {
+            //noinspection unchecked
+            return (V) found.view;
+        }
+
+        final V v = parent.findView(viewType);
+        foundViews.put(slot, new FoundView(v, version));
+        return v;
+    }
+
+    /**
+     * @return the number of times a view of this type has been added anywhere in the tree, so a
+     * view looked up before can be checked to still be current.
+     */
+    public long viewVersion(@NotNull Class viewType) {
+        return root.viewVersion(ViewSlots.slotOf(viewType));
+    }
+
+    private long viewVersion(int slot) {
+        final AtomicLong version = viewVersions.get(slot);
+        return version == null ? 0 : version.get();
+    }
+
+    private void viewAdded(int slot) {
+        AtomicLong version = viewVersions.get(slot);
+        if (version == null) {
+            final AtomicLong created = new AtomicLong();
+            version = viewVersions.putIfAbsent(slot, created);
+            if (version == null)
+                version = created;
+        }
+        version.incrementAndGet();
+    }
+
     @NotNull
     @Override
     @ForceInline
@@ -431,16 +554,22 @@ public class VanillaAsset implements Asset, Closeable {
     }
 
     private void dumpRules(Wire wire) {
+        final SortedMap<Class, LeafView> leafViews = new TreeMap<>(CLASS_COMPARATOR);
+        leafViews.putAll(leafViewMap);
+        final SortedMap<Class, SortedMap<String, WrappingViewRecord>> wrappingViewFactories =
+                new TreeMap<>(CLASS_COMPARATOR);
+        wrappingViewFactories.putAll(wrappingViewFactoryMap);
+
         wire.bytes().append8bit("---\n");
         wire.write("name").text(fullName())
                 .write("leaf").marshallable(w -> {
-            for (Map.Entry<Class, LeafView> entry : leafViewMap.entrySet()) {
+            for (Map.Entry<Class, LeafView> entry : leafViews.entrySet()) {
                 w.writeEvent(Class.class, entry.getKey()).leaf(false)
                         .text(entry.getValue().name);
             }
         })
                 .write("wrapping").marshallable(w -> {
-            for (Map.Entry<Class, SortedMap<String, WrappingViewRecord>> entry : wrappingViewFactoryMap.entrySet()) {
+            for (Map.Entry<Class, SortedMap<String, WrappingViewRecord>> entry : wrappingViewFactories.entrySet()) {
                 w.writeEvent(Class.class, entry.getKey()).marshallable(ww -> {
                     for (Map.Entry<String, WrappingViewRecord> recordEntry : entry.getValue().entrySet()) {
                         ww.writeEventName(recordEntry.getKey()).object(Class.class, recordEntry.getValue().underlyingType);
@@ -455,7 +584,12 @@ public class VanillaAsset implements Asset, Closeable {
         if (view instanceof KeyedView)
             keyedAsset = ((KeyedView) view).keyedView();
 
-        Object o = viewMap.putIfAbsent(viewType, view);
+        final int slot = ViewSlots.slotOf(viewType);
+        Object o = views.putIfAbsent(slot, view);
+        if (o == null) {
+            viewMap.put(viewType, view);
+            root.viewAdded(slot);
+        }
         // TODO FIX tests so this works.
 //        if (o != null && !o.equals(view))
 //            throw new IllegalStateException("Attempt to replace " + viewType + " with " + view + " was " + viewMap.get(viewType));
@@ -475,7 +609,10 @@ public class VanillaAsset implements Asset, Closeable {
 
     @Override
     public <I> void registerView(Class<I> viewType, I view) {
+        final int slot = ViewSlots.slotOf(viewType);
+        views.put(slot, view);
         viewMap.put(viewType, view);
+        root.viewAdded(slot);
     }
 
     @Nullable
@@ -512,6 +649,10 @@ public class VanillaAsset implements Asset, Closeable {
     @NotNull
     @Override
     public Asset acquireAsset(@NotNull String childName) {
+        final Asset indexed = indexedAsset(childName, true);
+        if (indexed != null)
+            return indexed;
+
         if (keyedAsset != Boolean.TRUE) {
             int pos = childName.indexOf('/');
             if (pos == 0) {
@@ -532,6 +673,81 @@ public class VanillaAsset implements Asset, Closeable {
         return leafViewMap.containsKey(viewType) || wrappingViewFactoryMap.containsKey(viewType);
     }
 
+    @Nullable
+    @Override
+    public Asset getAsset(@NotNull String fullName) {
+        final Asset indexed = indexedAsset(fullName, false);
+        return indexed != null ? indexed : Asset.super.getAsset(fullName);
+    }
+
+    /**
+     * @return the asset with this full name if this is the root and it exists, otherwise null and
+     * the name has to be resolved a level at a time.
+     */
+    @Nullable
+    private Asset indexedAsset(@NotNull String fullName, boolean create) {
+        if (assetsByFullName == null || !fullName.startsWith("/"))
+            return null;
+        final Asset asset = indexedAsset(fullName, fullName.length());
+        if (asset != null)
+            return asset;
+
+        // a sub-asset isn't indexed, look up its keyed parent without copying the prefix.
+        final int pos = fullName.lastIndexOf('/');
+        if (pos <= 0)
+            return null;
+        final Asset parent = indexedAsset(fullName, pos);
+        if (!(parent instanceof VanillaAsset) || ((VanillaAsset) parent).keyedAsset != Boolean.TRUE)
+            return null;
+        // the children are sorted by String so the key itself has to be copied.
+        final String name = fullName.substring(pos + 1);
+        return create ? parent.acquireAsset(name) : parent.getChild(name);
+    }
+
+    /**
+     * @return the attached asset indexed under the first {@code length} characters of the name,
+     * or null, without allocating.
+     */
+    @Nullable
+    private Asset indexedAsset(@NotNull CharSequence fullName, int length) {
+        assert assetsByFullName != null;
+        final Object key = fullName instanceof String && length == fullName.length()
+                ? fullName
+                : LOOKUP_KEY.get().set(fullName, length);
+        final Asset asset = assetsByFullName.get(key);
+        if (asset == null || isAttached(asset))
+            return asset;
+        // removed, or lost the race to be added, the walk finds the asset attached instead.
+        assetsByFullName.remove(asset.fullName(), asset);
+        return null;
+    }
+
+    private boolean isAttached(@NotNull Asset asset) {
+        for (Asset a = asset, p; a != this; a = p) {
+            p = a.parent();
+            if (p == null || p.getChild(a.name()) != a)
+                return false;
+        }
+        return true;
+    }
+
+    private void indexAsset(@NotNull Asset asset) {
+        assert assetsByFullName != null;
+        // replaces an entry left by a remove which hasn't been unindexed yet.
+        assetsByFullName.put(asset.fullName(), asset);
+    }
+
+    private void reindexAsset(@NotNull Asset asset) {
+        assert assetsByFullName != null;
+        assetsByFullName.putIfAbsent(asset.fullName(), asset);
+    }
+
+    private void unindexAsset(@NotNull Asset asset) {
+        assert assetsByFullName != null;
+        assetsByFullName.remove(asset.fullName(), asset);
+        asset.forEachChild(this::unindexAsset);
+    }
+
     @Nullable
     private Asset getAssetOrANFE(@NotNull String name) throws AssetNotFoundException {
         Asset asset = children.get(name);
@@ -539,6 +755,9 @@ public class VanillaAsset implements Asset, Closeable {
             asset = createAsset(name);
             if (asset == null)
                 throw new AssetNotFoundException(name);
+        } else if (!asset.isSubAsset()) {
+            // found by walking, index it again if a stale entry was dropped.
+            root.reindexAsset(asset);
         }
         return asset;
     }
@@ -546,19 +765,147 @@ public class VanillaAsset implements Asset, Closeable {
     @Nullable
     protected Asset createAsset(@NotNull String name) {
         assert name.length() > 0;
-        return children.computeIfAbsent(name, keyedAsset != Boolean.TRUE
-                ? n -> new VanillaAsset(this, name)
-                : n -> {
-            MapView map = getView(MapView.class);
-
-            if (map != null) {
-                SubAssetFactory saFactory = findOrCreateView(SubAssetFactory.class);
-                return saFactory.createSubAsset(this, name, map.valueType());
+        if (keyedAsset == Boolean.TRUE && compactSubAssets()) {
+            final Asset attached = children.get(name);
+            if (attached != null)
+                return attached;
+            final Asset detached = detachedSubAsset(name);
+            if (detached != null)
+                return detached;
+            final Asset asset = createSubAsset(name);
+            // a compact sub-asset is attached once it has subscribers.
+            if (asset instanceof VanillaSubAsset && ((VanillaSubAsset) asset).isCompact()) {
+                rememberDetached(asset);
+                return asset;
             }
+            final Asset added = attachChild(name, asset);
+            if (added != asset)
+                Closeable.closeQuietly(asset);
+            return added;
+        }
+
+        if (keyedAsset != Boolean.TRUE)
+            // indexed as it is added so a concurrent remove unindexes it after.
+            return children.computeIfAbsent(name, n -> {
+                final VanillaAsset asset = new VanillaAsset(this, name);
+                root.indexAsset(asset);
+                return asset;
+            });
+
+        final Asset asset = children.computeIfAbsent(name, n -> createSubAsset(name));
+        if (asset != null) {
+            if (asset.isSubAsset())
+                indexByKey(name, asset);
+            else
+                root.indexAsset(asset);
+        }
+        return asset;
+    }
 
+    @NotNull
+    private Asset createSubAsset(@NotNull String name) {
+        MapView map = getView(MapView.class);
+
+        if (map != null) {
             SubAssetFactory saFactory = findOrCreateView(SubAssetFactory.class);
-            return saFactory.createSubAsset(this, name, String.class);
-        });
+            return saFactory.createSubAsset(this, name, map.valueType());
+        }
+
+        SubAssetFactory saFactory = findOrCreateView(SubAssetFactory.class);
+        return saFactory.createSubAsset(this, name, String.class);
+    }
+
+    private void indexByKey(@NotNull String name, @NotNull Asset asset) {
+        final Object key = keyOf(name);
+        if (key == null)
+            unkeyedChildren = true;
+        else
+            childrenByKey.put(key, asset);
+    }
+
+    private void unindexByKey(@NotNull String name, @NotNull Asset asset) {
+        final Object key = keyOf(name);
+        if (key != null)
+            childrenByKey.remove(key, asset);
+    }
+
+    /**
+     * @return the key of the map this sub-asset is named after, or null if it can't be converted
+     * or the key's name is different, e.g. "01" for the key 1 whose sub-asset is "1".
+     */
+    @Nullable
+    private Object keyOf(@NotNull String name) {
+        final MapView map = getView(MapView.class);
+        final Class keyType = map == null ? String.class : map.keyType();
+        if (keyType == String.class)
+            return name;
+        try {
+            final Object key = ObjectUtils.convertTo(keyType, name);
+            return key != null && name.equals(key.toString()) ? key : null;
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    @Nullable
+    private Asset detachedSubAsset(@NotNull String name) {
+        final AtomicReferenceArray<Asset> detached = detachedSubAssets;
+        if (detached == null)
+            return null;
+        final Asset asset = detached.get(name.hashCode() & (DETACHED_SUB_ASSETS - 1));
+        return asset != null && name.equals(asset.name()) ? asset : null;
+    }
+
+    private void rememberDetached(@NotNull Asset asset) {
+        AtomicReferenceArray<Asset> detached = detachedSubAssets;
+        if (detached == null)
+            detachedSubAssets = detached = new AtomicReferenceArray<>(DETACHED_SUB_ASSETS);
+        detached.set(asset.name().hashCode() & (DETACHED_SUB_ASSETS - 1), asset);
+    }
+
+    /**
+     * For a keyed asset, find the sub-asset for a key without converting it to a name.
+     *
+     * @param key of the map
+     * @return the child for this key or null if there isn't one.
+     */
+    @Nullable
+    public Asset getChildByKey(@NotNull Object key) {
+        if (keyedAsset != Boolean.TRUE)
+            return children.isEmpty() ? null : children.get(key.toString());
+        final Asset child = childrenByKey.get(key);
+        if (child != null || !unkeyedChildren)
+            return child;
+        return children.get(key.toString());
+    }
+
+    /**
+     * Attach a sub-asset unless there is one with this name already.
+     *
+     * @return the sub-asset attached with this name.
+     */
+    @NotNull
+    Asset attachChild(@NotNull String name, @NotNull Asset asset) {
+        synchronized (childrenByKey) {
+            final Asset attached = children.putIfAbsent(name, asset);
+            if (attached != null)
+                return attached;
+            indexByKey(name, asset);
+            return asset;
+        }
+    }
+
+    /**
+     * Remove a sub-asset which has no subscribers, without a topology event as none was sent when
+     * it was created.
+     */
+    void removeIdleChild(@NotNull String name, @NotNull Asset asset) {
+        synchronized (childrenByKey) {
+            if (children.remove(name, asset)) {
+                unindexByKey(name, asset);
+                rememberDetached(asset);
+            }
+        }
     }
 
     @Override
@@ -570,6 +917,10 @@ public class VanillaAsset implements Asset, Closeable {
     public void removeChild(String name) {
         Asset removed = children.remove(name);
         if (removed == null) return;
+        if (removed.isSubAsset())
+            unindexByKey(name, removed);
+        else
+            root.unindexAsset(removed);
         TopologySubscription topologySubscription = removed.findView(TopologySubscription.class);
         if (topologySubscription != null)
             topologySubscription.notifyEvent(RemovedAssetEvent.of(fullName(), name));
@@ -597,6 +948,17 @@ public class VanillaAsset implements Asset, Closeable {
         forEachChild(ca -> ca.getUsageStats(ats));
     }
 
+    static class FoundView {
+        @Nullable
+        final Object view;
+        final long version;
+
+        FoundView(@Nullable Object view, long version) {
+            this.view = view;
+            this.version = version;
+        }
+    }
+
     static class LeafView extends AbstractMarshallable {
         String name;
         transient LeafViewFactory factory;
@@ -628,4 +990,42 @@ public class VanillaAsset implements Asset, Closeable {
             return "wraps " + underlyingType;
         }
     }
+
+    /**
+     * Looks up a String keyed map with a range of a CharSequence, it has the hashCode of the
+     * String it equals.
+     */
+    static final class LookupKey {
+        private CharSequence chars;
+        private int length;
+        private int hash;
+
+        LookupKey set(@NotNull CharSequence chars, int length) {
+            this.chars = chars;
+            this.length = length;
+            int h = 0;
+            for (int i = 0; i < length; i++)
+                h = 31 * h + chars.charAt(i);
+            this.hash = h;
+            return this;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof String))
+                return false;
+            final String s = (String) obj;
+            if (s.length() != length)
+                return false;
+            for (int i = 0; i < length; i++)
+                if (s.charAt(i) != chars.charAt(i))
+                    return false;
+            return true;
+        }
+    }
 }
@@ -48,6 +48,7 @@ public class VanillaAssetTree implements AssetTree {
         CLASS_ALIASES.addAlias(AddedAssetEvent.class,
                 ExistingAssetEvent.class,
                 RemovedAssetEvent.class,
+                BatchedAssetEvent.class,
                 InsertedEvent.class,
                 UpdatedEvent.class,
                 MapFunction.class,
@@ -141,7 +142,7 @@ public class VanillaAssetTree implements AssetTree {
                                             @Nullable ClientConnectionMonitor clientConnectionMonitor) {
 
         if (clientConnectionMonitor != null)
-            root.viewMap.put(ClientConnectionMonitor.class, clientConnectionMonitor);
+            root.registerView(ClientConnectionMonitor.class, clientConnectionMonitor);
 
         root.forRemoteAccess(hostPortDescription, wire, clientSession(), clientConnectionMonitor);
         return this;
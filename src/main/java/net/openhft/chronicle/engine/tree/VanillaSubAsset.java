@@ -43,50 +43,120 @@ public class VanillaSubAsset<E> implements SubAsset<E>, Closeable, TopicSubscrib
     @NotNull
     private final VanillaAsset parent;
     private final String name;
-    @NotNull
-    private final SimpleSubscription<E> subscription;
+    private final Class<E> type;
+    private final Function<Object, E> valueReader;
+    private final boolean compact;
+    @Nullable
+    private volatile SimpleSubscription<E> subscription;
     @Nullable
-    private final Reference<E> reference;
+    private volatile Reference<E> reference;
 
     public VanillaSubAsset(@NotNull VanillaAsset parent, String name, Class<E> type, Function<Object, E> valueReader) throws AssetNotFoundException {
         this.parent = parent;
         this.name = name;
+        this.type = type;
+        this.valueReader = valueReader;
         TcpChannelHub tcpChannelHub = parent.findView(TcpChannelHub.class);
         if (tcpChannelHub == null) {
             QueueView queueView = parent.getView(QueueView.class);
             if (queueView == null) {
-                reference = new MapReference<>(name, type, this, parent.acquireView(MapView.class));
-                subscription = new MapSimpleSubscription<>(reference, valueReader);
+                compact = parent.compactSubAssets();
+                if (!compact) {
+                    reference = new MapReference<>(name, type, this, parent.acquireView(MapView.class));
+                    subscription = new MapSimpleSubscription<>(reference, valueReader);
+                }
             } else {
+                compact = false;
                 reference = new QueueReference<>(type, parent, queueView, name);
                 subscription = new QueueSimpleSubscription<>(valueReader, parent, name);
 
             }
         } else {
+            compact = false;
             reference = new RemoteReference<>(tcpChannelHub, type, fullName());
             subscription = new RemoteSimpleSubscription<>(reference);
         }
     }
 
+    /**
+     * @return true if this sub-asset is only attached to its parent while it has subscribers.
+     */
+    boolean isCompact() {
+        return compact;
+    }
+
+    @NotNull
+    private Reference<E> reference() {
+        Reference<E> reference = this.reference;
+        if (reference == null) {
+            synchronized (this) {
+                reference = this.reference;
+                if (reference == null)
+                    this.reference = reference = new MapReference<>(name, type, this,
+                            parent.acquireView(MapView.class));
+            }
+        }
+        return reference;
+    }
+
+    @NotNull
+    private SimpleSubscription<E> subscription() {
+        if (compact) {
+            // events are only delivered to the sub-asset attached, so share its subscription.
+            final Asset attached = parent.attachChild(name, this);
+            if (attached != this)
+                return (SimpleSubscription<E>) attached.subscription(true);
+
+            synchronized (this) {
+                if (subscription == null)
+                    subscription = new MapSimpleSubscription<>(reference(), valueReader,
+                            this::onSubscribersChanged);
+            }
+        }
+        return subscription;
+    }
+
+    private void onSubscribersChanged(int subscribers) {
+        if (subscribers == 0) {
+            parent.removeIdleChild(name, this);
+            return;
+        }
+        final Asset attached = parent.attachChild(name, this);
+        if (attached == this)
+            return;
+        // another sub-asset was attached for this key while this one was idle, only it gets the
+        // events so move the subscribers to it.
+        final SubscriptionCollection to = attached.subscription(true);
+        final SimpleSubscription<E> from = this.subscription;
+        if (from instanceof MapSimpleSubscription && to instanceof MapSimpleSubscription)
+            ((MapSimpleSubscription<E>) from).moveSubscribersTo((MapSimpleSubscription<E>) to);
+    }
+
     @Override
     public String dumpRules() {
         return parent.dumpRules();
     }
 
-    @NotNull
+    @Nullable
     @Override
     public SubscriptionCollection subscription(boolean createIfAbsent) {
-        return subscription;
+        if (createIfAbsent)
+            return subscription();
+        if (!compact)
+            return subscription;
+        // the subscription of the sub-asset attached is the one which gets the events.
+        final Asset attached = parent.getChild(name);
+        return attached == null || attached == this ? subscription : attached.subscription(false);
     }
 
     @NotNull
     @Override
     public <V> V getView(Class<V> viewType) {
         if (viewType == Reference.class || viewType == Publisher.class || viewType == Supplier.class)
-            return (V) reference;
+            return (V) reference();
         if (viewType == SubscriptionCollection.class || viewType == MapSimpleSubscription.class
                 || viewType == ObjectSubscription.class)
-            return (V) subscription;
+            return (V) subscription();
         throw new UnsupportedOperationException("Unable to classify view type " + viewType);
     }
 
@@ -99,24 +169,17 @@ public class VanillaSubAsset<E> implements SubAsset<E>, Closeable, TopicSubscrib
     @Override
     public <V> V acquireView(@NotNull Class<V> viewType, @NotNull RequestContext rc) throws AssetNotFoundException {
         if (viewType == Reference.class || viewType == Supplier.class) {
-            return (V) reference;
+            return (V) reference();
         }
         if (viewType == Publisher.class) {
-            if (reference == null)
-                return acquireViewFor(viewType, rc);
-            return (V) reference;
+            return (V) reference();
         }
         if (viewType == MapSimpleSubscription.class || viewType == ObjectSubscription.class) {
-            return (V) subscription;
+            return (V) subscription();
         }
         throw new UnsupportedOperationException("todo vClass: " + viewType + ", rc: " + rc);
     }
 
-    @NotNull
-    private <V> V acquireViewFor(@NotNull Class<V> viewType, @NotNull RequestContext rc) throws AssetNotFoundException {
-        return parent.getView(viewType);
-    }
-
     @Override
     public <V> V addView(Class<V> viewType, V view) {
         return view;
@@ -154,7 +217,9 @@ public class VanillaSubAsset<E> implements SubAsset<E>, Closeable, TopicSubscrib
 
     @Override
     public void close() {
-        subscription.close();
+        final SimpleSubscription<E> subscription = this.subscription;
+        if (subscription != null)
+            subscription.close();
     }
 
     @Override
@@ -185,7 +250,8 @@ public class VanillaSubAsset<E> implements SubAsset<E>, Closeable, TopicSubscrib
 
     @Override
     public void onMessage(@NotNull String name, E e) {
-        if (name.equals(this.name))
+        final SimpleSubscription<E> subscription = this.subscription;
+        if (subscription != null && name.equals(this.name))
             subscription.notifyMessage(e);
     }
 
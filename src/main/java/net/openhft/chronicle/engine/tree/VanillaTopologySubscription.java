@@ -18,8 +18,13 @@
 package net.openhft.chronicle.engine.tree;
 
 import net.openhft.chronicle.core.Jvm;
+import net.openhft.chronicle.core.threads.EventHandler;
+import net.openhft.chronicle.core.threads.EventLoop;
+import net.openhft.chronicle.core.threads.HandlerPriority;
+import net.openhft.chronicle.core.threads.InvalidEventHandlerException;
 import net.openhft.chronicle.engine.api.pubsub.InvalidSubscriberException;
 import net.openhft.chronicle.engine.api.pubsub.Subscriber;
+import net.openhft.chronicle.engine.api.pubsub.SubscriberSet;
 import net.openhft.chronicle.engine.api.tree.Asset;
 import net.openhft.chronicle.engine.api.tree.RequestContext;
 import net.openhft.chronicle.engine.query.Filter;
@@ -27,8 +32,12 @@ import org.jetbrains.annotations.NotNull;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Created by peter on 11/06/15.
@@ -36,9 +45,22 @@ import java.util.concurrent.CopyOnWriteArraySet;
 public class VanillaTopologySubscription implements TopologySubscription {
 
     private static final Logger LOG = LoggerFactory.getLogger(VanillaTopologySubscription.class);
+    // the most children sent in one BatchedAssetEvent.
+    private static final int MAX_BATCH = Integer.getInteger("topology.maxBatch", 1024);
+    // how long added assets are held before being sent to batched subscribers.
+    private static final long BATCH_WINDOW_NS =
+            TimeUnit.MILLISECONDS.toNanos(Long.getLong("topology.batchWindowMs", 5));
 
     private final Asset asset;
-    private final Set<Subscriber<TopologicalEvent>> subscribers = new CopyOnWriteArraySet<>();
+    private final Set<Subscriber<TopologicalEvent>> subscribers = new SubscriberSet<>();
+    private final Set<Subscriber<TopologicalEvent>> batchedSubscribers = new SubscriberSet<>();
+
+    // parent name -> children added since the last flush, guarded by this.
+    private final Map<String, List<String>> pendingAdds = new LinkedHashMap<>();
+    // when the oldest pending add was made, or 0 if there are none.
+    private volatile long firstPendingNS = 0;
+    private boolean flusherAdded = false;
+    private volatile boolean closed = false;
 
     public VanillaTopologySubscription(RequestContext requestContext, Asset asset) {
         this.asset = asset;
@@ -51,8 +73,29 @@ public class VanillaTopologySubscription implements TopologySubscription {
         });
     }
 
+    void bootstrapTreeBatched(@NotNull Asset asset, @NotNull Subscriber<TopologicalEvent> subscriber) throws InvalidSubscriberException {
+        final List<Asset> children = new ArrayList<>();
+        asset.forEachChild(children::add);
+        final List<String> names = new ArrayList<>();
+        for (Asset child : children) {
+            names.add(child.name());
+            if (names.size() >= MAX_BATCH) {
+                subscriber.onMessage(BatchedAssetEvent.existing(asset.fullName(), names));
+                names.clear();
+            }
+        }
+        if (!names.isEmpty())
+            subscriber.onMessage(BatchedAssetEvent.existing(asset.fullName(), names));
+        for (Asset child : children)
+            bootstrapTreeBatched(child, subscriber);
+    }
+
     @Override
     public void registerSubscriber(@NotNull RequestContext rc, @NotNull Subscriber<TopologicalEvent> subscriber, @NotNull Filter<TopologicalEvent> filter) {
+        if (rc.batched() == Boolean.TRUE) {
+            registerBatchedSubscriber(rc, subscriber);
+            return;
+        }
         try {
             if (rc.bootstrap() != Boolean.FALSE) {
                 // root node.
@@ -67,9 +110,36 @@ public class VanillaTopologySubscription implements TopologySubscription {
         }
     }
 
+    private synchronized void registerBatchedSubscriber(@NotNull RequestContext rc, @NotNull Subscriber<TopologicalEvent> subscriber) {
+        // anything pending is already in the tree so the bootstrap will include it.
+        flush();
+        try {
+            if (rc.bootstrap() != Boolean.FALSE) {
+                Asset parent = asset.parent();
+                String assetName = parent == null ? null : parent.fullName();
+                subscriber.onMessage(ExistingAssetEvent.of(assetName, asset.name()));
+                bootstrapTreeBatched(asset, subscriber);
+            }
+            batchedSubscribers.add(subscriber);
+        } catch (InvalidSubscriberException e) {
+            Jvm.debug().on(getClass(), "discarding " + subscriber, e);
+            return;
+        }
+
+        if (!flusherAdded) {
+            flusherAdded = true;
+            final EventLoop eventLoop = asset.findOrCreateView(EventLoop.class);
+            if (eventLoop == null)
+                LOG.warn("No event loop for " + asset.fullName() + ", topology events will not be batched");
+            else
+                eventLoop.addHandler(new Flusher());
+        }
+    }
+
     @Override
     public void unregisterSubscriber(@NotNull Subscriber subscriber) {
         subscribers.remove(subscriber);
+        batchedSubscribers.remove(subscriber);
     }
 
     @Override
@@ -89,18 +159,21 @@ public class VanillaTopologySubscription implements TopologySubscription {
 
     @Override
     public int subscriberCount() {
-        return subscribers.size();
+        return subscribers.size() + batchedSubscribers.size();
     }
 
     @Override
     public void notifyEvent(TopologicalEvent event) {
         for (Subscriber<TopologicalEvent> sub : subscribers) {
             try {
-                sub.onMessage(event);
+                event.forEachEvent(sub);
             } catch (InvalidSubscriberException expected) {
                 subscribers.remove(sub);
             }
         }
+        if (!batchedSubscribers.isEmpty())
+            batch(event);
+
         Asset parent = asset.parent();
         if (parent != null) {
             TopologySubscription topologySubscription = parent.findView(TopologySubscription.class);
@@ -109,8 +182,48 @@ public class VanillaTopologySubscription implements TopologySubscription {
         }
     }
 
+    private synchronized void batch(@NotNull TopologicalEvent event) {
+        if (flusherAdded && event instanceof AddedAssetEvent) {
+            final List<String> names = pendingAdds.computeIfAbsent(event.assetName(), k -> new ArrayList<>());
+            names.add(event.name());
+            if (firstPendingNS == 0)
+                firstPendingNS = System.nanoTime();
+            if (names.size() >= MAX_BATCH)
+                flush();
+
+        } else {
+            // keep the events in order.
+            flush();
+            notifyBatchedSubscribers(event);
+        }
+    }
+
+    /**
+     * Send everything pending to the batched subscribers.
+     */
+    private synchronized void flush() {
+        if (pendingAdds.isEmpty())
+            return;
+        for (Map.Entry<String, List<String>> entry : pendingAdds.entrySet())
+            notifyBatchedSubscribers(BatchedAssetEvent.added(entry.getKey(), entry.getValue()));
+        pendingAdds.clear();
+        firstPendingNS = 0;
+    }
+
+    private void notifyBatchedSubscribers(@NotNull TopologicalEvent event) {
+        for (Subscriber<TopologicalEvent> sub : batchedSubscribers) {
+            try {
+                sub.onMessage(event);
+            } catch (InvalidSubscriberException expected) {
+                batchedSubscribers.remove(sub);
+            }
+        }
+    }
+
     @Override
     public void close() {
+        closed = true;
+        flush();
         for (Subscriber<TopologicalEvent> subscriber : subscribers) {
             try {
                 subscriber.onEndOfSubscription();
@@ -118,5 +231,31 @@ public class VanillaTopologySubscription implements TopologySubscription {
                 Jvm.debug().on(getClass(), e);
             }
         }
+        for (Subscriber<TopologicalEvent> subscriber : batchedSubscribers) {
+            try {
+                subscriber.onEndOfSubscription();
+            } catch (Exception e) {
+                Jvm.debug().on(getClass(), e);
+            }
+        }
+    }
+
+    class Flusher implements EventHandler {
+        @Override
+        public boolean action() throws InvalidEventHandlerException {
+            if (closed)
+                throw new InvalidEventHandlerException();
+            final long firstPendingNS = VanillaTopologySubscription.this.firstPendingNS;
+            if (firstPendingNS == 0 || System.nanoTime() - firstPendingNS < BATCH_WINDOW_NS)
+                return false;
+            flush();
+            return true;
+        }
+
+        @NotNull
+        @Override
+        public HandlerPriority priority() {
+            return HandlerPriority.TIMER;
+        }
     }
 }
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2016 higherfrequencytrading.com
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package net.openhft.chronicle.engine.tree;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Values held by view type, in an array indexed by a slot number given to each view type the first
+ * time it is used, so a lookup is an array access rather than a search by class name. <p></p>
+ * Reads don't lock, writes are synchronized and publish the array again so a read after a write
+ * sees it.
+ */
+final class ViewSlots<E> {
+
+    private static final AtomicInteger NEXT_SLOT = new AtomicInteger();
+    private static final ClassValue<Integer> SLOTS = new ClassValue<Integer>() {
+        @NotNull
+        @Override
+        protected Integer computeValue(Class<?> type) {
+            return NEXT_SLOT.getAndIncrement();
+        }
+    };
+
+    private volatile Object[] values = new Object[0];
+
+    static int slotOf(@NotNull Class viewType) {
+        return SLOTS.get(viewType);
+    }
+
+    @Nullable
+    E get(int slot) {
+        final Object[] values = this.values;
+        //noinspection unchecked
+        return slot < values.length ? (E) values[slot] : null;
+    }
+
+    @Nullable
+    synchronized E put(int slot, @Nullable E value) {
+        final E previous = get(slot);
+        Object[] values = this.values;
+        if (slot >= values.length)
+            values = Arrays.copyOf(values, Math.max(slot + 1, NEXT_SLOT.get()));
+        values[slot] = value;
+        this.values = values;
+        return previous;
+    }
+
+    @Nullable
+    synchronized E putIfAbsent(int slot, @NotNull E value) {
+        final E previous = get(slot);
+        if (previous == null)
+            put(slot, value);
+        return previous;
+    }
+}
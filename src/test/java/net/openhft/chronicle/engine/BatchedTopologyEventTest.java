@@ -0,0 +1,97 @@
+/*
+ * Copyright 2016 higherfrequencytrading.com
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package net.openhft.chronicle.engine;
+
+import net.openhft.chronicle.core.Jvm;
+import net.openhft.chronicle.core.threads.ThreadDump;
+import net.openhft.chronicle.engine.api.pubsub.InvalidSubscriberException;
+import net.openhft.chronicle.engine.api.pubsub.Subscriber;
+import net.openhft.chronicle.engine.api.tree.AssetTree;
+import net.openhft.chronicle.engine.api.tree.RequestContext;
+import net.openhft.chronicle.engine.query.Filter;
+import net.openhft.chronicle.engine.tree.*;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import static net.openhft.chronicle.engine.api.tree.RequestContext.requestContext;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class BatchedTopologyEventTest {
+
+    private ThreadDump threadDump;
+
+    @Before
+    public void threadDump() {
+        threadDump = new ThreadDump();
+    }
+
+    @After
+    public void checkThreadDump() {
+        threadDump.assertNoNewThreads();
+    }
+
+    @Test
+    public void addedAssetsAreBatched() throws InvalidSubscriberException {
+        AssetTree tree = new VanillaAssetTree().forTesting();
+        tree.acquireAsset("/group");
+
+        BlockingQueue<TopologicalEvent> batched = new LinkedBlockingQueue<>();
+        RequestContext rc = requestContext("/group").elementType(TopologicalEvent.class).batched(true);
+        Subscriber<TopologicalEvent> subscriber = batched::add;
+        tree.acquireSubscription(rc).registerSubscriber(rc, subscriber, Filter.empty());
+
+        List<TopologicalEvent> unbatched = new ArrayList<>();
+        tree.registerSubscriber("/group", TopologicalEvent.class, unbatched::add);
+
+        int count = 3000;
+        for (int i = 0; i < count; i++)
+            tree.acquireAsset("/group/a" + i);
+
+        // the root and each asset are sent one at a time without batching.
+        assertEquals(1 + count, unbatched.size());
+
+        List<TopologicalEvent> events = new ArrayList<>();
+        for (int i = 0; i < 100 && count(events) < 1 + count; i++) {
+            Jvm.pause(20);
+            batched.drainTo(events);
+        }
+        assertEquals(1 + count, count(events));
+        assertTrue("events: " + events.size(), events.size() < 10);
+
+        List<TopologicalEvent> unpacked = new ArrayList<>();
+        for (TopologicalEvent event : events)
+            event.forEachEvent(unpacked::add);
+        assertEquals(unbatched, unpacked);
+
+        tree.close();
+    }
+
+    private static int count(List<TopologicalEvent> events) {
+        int count = 0;
+        for (TopologicalEvent event : events)
+            count += event instanceof BatchedAssetEvent ? ((BatchedAssetEvent) event).names().size() : 1;
+        return count;
+    }
+}
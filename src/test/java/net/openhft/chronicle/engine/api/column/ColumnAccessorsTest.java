@@ -0,0 +1,139 @@
+/*
+ * Copyright 2016 higherfrequencytrading.com
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+
+package net.openhft.chronicle.engine.api.column;
+
+import net.openhft.chronicle.wire.AbstractMarshallable;
+import net.openhft.chronicle.wire.FieldInfo;
+import net.openhft.chronicle.wire.Wires;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ColumnAccessorsTest {
+
+    private static AllTypes values(int n) {
+        final AllTypes v = new AllTypes();
+        v.z = n % 2 == 0;
+        v.b = (byte) -n;
+        v.c = (char) ('a' + n);
+        v.s = (short) (n * 1000);
+        v.i = n * -100_000;
+        v.l = Long.MAX_VALUE - n;
+        v.f = n / 3f;
+        v.d = -n / 7.0;
+        v.boxedZ = n % 3 == 0;
+        v.boxedB = (byte) n;
+        v.boxedC = (char) ('A' + n);
+        v.boxedS = (short) -n;
+        v.boxedI = n;
+        v.boxedL = (long) n << 40;
+        v.boxedF = n * 1.5f;
+        v.boxedD = n * 2.5;
+        v.text = "text" + n;
+        v.nested = new Nested("nested" + n, n);
+        return v;
+    }
+
+    @Test
+    public void matchesTheFieldInfoOfEachField() {
+        final ColumnAccessors accessors = ColumnAccessors.wireFields(AllTypes.class);
+        final List<FieldInfo> infos = Wires.fieldInfos(AllTypes.class);
+        assertEquals(infos.size(), accessors.size());
+
+        // null for every reference field.
+        final AllTypes[] rows = {values(1), values(2), new AllTypes()};
+        for (FieldInfo info : infos) {
+            final int column = accessors.indexOf(info.name());
+            assertEquals(info.name(), accessors.name(column));
+            for (AllTypes row : rows)
+                assertEquals(info.name(), info.get(row), accessors.get(column, row));
+        }
+        assertEquals(-1, accessors.indexOf("noSuchField"));
+    }
+
+    @Test
+    public void primitiveNumbersAreReadWithoutBoxing() {
+        final ColumnAccessors accessors = ColumnAccessors.wireFields(AllTypes.class);
+        final AllTypes a = values(1), b = values(2);
+        for (int column = 0; column < accessors.size(); column++) {
+            final String name = accessors.name(column);
+            final Class type = Wires.fieldInfo(AllTypes.class, name).type();
+            final boolean integral = type == byte.class || type == short.class || type == int.class || type == long.class;
+            final boolean number = integral || type == float.class || type == double.class;
+            assertEquals(name, number, accessors.isNumber(column));
+            assertEquals(name, integral, accessors.isIntegral(column));
+            if (!number)
+                continue;
+
+            final Number boxedA = (Number) accessors.get(column, a);
+            final Number boxedB = (Number) accessors.get(column, b);
+            assertSame(name, boxedA.getClass(), accessors.numberType(column));
+            assertEquals(name, boxedA.doubleValue(), accessors.getDouble(column, a), 0.0);
+            if (integral)
+                assertEquals(name, boxedA.longValue(), accessors.getLong(column, a));
+            assertEquals(name, Integer.signum(((Comparable) boxedA).compareTo(boxedB)),
+                    Integer.signum(accessors.compare(column, a, b)));
+            assertEquals(name, 0, accessors.compare(column, a, a));
+        }
+    }
+
+    @Test
+    public void declaredFieldsIncludeTransientFields() {
+        final ColumnAccessors accessors = ColumnAccessors.declaredFields(Nested.class);
+        assertEquals(3, accessors.size());
+        final Nested nested = new Nested("x", 5);
+        assertEquals(5, accessors.getLong(accessors.indexOf("count"), nested));
+        assertEquals("x", accessors.get(accessors.indexOf("name"), nested));
+        assertNull(accessors.get(accessors.indexOf("cached"), nested));
+    }
+
+    static class AllTypes extends AbstractMarshallable {
+        boolean z;
+        byte b;
+        char c;
+        short s;
+        int i;
+        long l;
+        float f;
+        double d;
+        Boolean boxedZ;
+        Byte boxedB;
+        Character boxedC;
+        Short boxedS;
+        Integer boxedI;
+        Long boxedL;
+        Float boxedF;
+        Double boxedD;
+        String text;
+        Nested nested;
+    }
+
+    static class Nested extends AbstractMarshallable {
+        String name;
+        int count;
+        transient String cached;
+
+        Nested(String name, int count) {
+            this.name = name;
+            this.count = count;
+        }
+    }
+}
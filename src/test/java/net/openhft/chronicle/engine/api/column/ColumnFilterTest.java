@@ -0,0 +1,81 @@
+/*
+ * Copyright 2016 higherfrequencytrading.com
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package net.openhft.chronicle.engine.api.column;
+
+import net.openhft.chronicle.engine.api.column.ColumnView.MarshableFilter;
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ColumnFilterTest {
+
+    private static ColumnFilter filter(String filter) {
+        return new ColumnFilter(new MarshableFilter("column", filter));
+    }
+
+    @Test
+    public void comparesNumbers() {
+        assertTrue(filter(">= 5").matches(5.0, Integer.class));
+        assertFalse(filter(">= 5").matches(4.0, Integer.class));
+        assertTrue(filter("<5").matches(4L));
+        assertTrue(filter("!= 5").matches(4));
+        assertTrue(filter(" 5 ").matches(5));
+        assertFalse(filter("5").matches(6));
+        assertTrue(filter("> 1.5").matches(2.0));
+        assertFalse(filter("> x").matches(2));
+    }
+
+    @Test
+    public void comparesIntegersExactly() {
+        // equal as doubles.
+        assertFalse(filter("9007199254740993").matches(9007199254740992L, Long.class));
+        assertTrue(filter("9007199254740993").matches(9007199254740993L, Long.class));
+        assertTrue(filter("> 9007199254740992").matches(9007199254740993L));
+        assertFalse(filter("< 9007199254740993").matches(9007199254740993L));
+
+        final ColumnAccessors accessors = ColumnAccessors.declaredFields(Row.class);
+        final ColumnFilter filter = new ColumnFilter(new MarshableFilter("id", "> 9007199254740992"));
+        assertTrue(filter.matches(accessors, new Row(9007199254740993L)));
+        assertFalse(filter.matches(accessors, new Row(9007199254740992L)));
+    }
+
+    @Test
+    public void textContainsTheFilterIgnoringCase() {
+        final ColumnFilter filter = filter("LO W");
+        assertTrue(filter.matches("Hello World"));
+        assertTrue(filter.matches(new StringBuilder("lo w")));
+        assertFalse(filter.matches("Hello"));
+        assertFalse(filter.matches(null));
+        assertTrue(filter("").matches("anything"));
+    }
+
+    @Test
+    public void otherTypesEqualTheConvertedFilter() {
+        assertTrue(filter(" true").matches(Boolean.TRUE));
+        assertFalse(filter("true").matches(Boolean.FALSE));
+    }
+
+    static class Row {
+        final long id;
+
+        Row(long id) {
+            this.id = id;
+        }
+    }
+}
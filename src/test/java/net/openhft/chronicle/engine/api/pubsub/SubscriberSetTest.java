@@ -0,0 +1,98 @@
+/*
+ * Copyright 2016 higherfrequencytrading.com
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package net.openhft.chronicle.engine.api.pubsub;
+
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class SubscriberSetTest {
+
+    @Test
+    public void addAndRemove() {
+        SubscriberSet<Integer> set = new SubscriberSet<>();
+        for (int i = 0; i < 5000; i++)
+            assertTrue(set.add(i));
+        assertFalse(set.add(10));
+        assertEquals(5000, set.size());
+
+        for (int i = 0; i < 5000; i += 2)
+            assertTrue(set.remove(i));
+        assertFalse(set.remove(0));
+        assertEquals(2500, set.size());
+
+        for (int i = 5000; i < 6000; i++)
+            set.add(i);
+
+        Set<Integer> expected = new HashSet<>();
+        for (int i = 1; i < 5000; i += 2)
+            expected.add(i);
+        for (int i = 5000; i < 6000; i++)
+            expected.add(i);
+        assertEquals(expected, new HashSet<>(set));
+        assertEquals(expected.size(), set.size());
+        assertTrue(set.contains(5999));
+        assertFalse(set.contains(4998));
+    }
+
+    @Test
+    public void removeWhileIterating() {
+        SubscriberSet<String> set = new SubscriberSet<>();
+        set.add("a");
+        set.add("b");
+        set.add("c");
+
+        for (String s : set)
+            if (s.equals("b"))
+                set.remove(s);
+        assertEquals(2, set.size());
+
+        for (Iterator<String> iterator = set.iterator(); iterator.hasNext(); )
+            if (iterator.next().equals("a"))
+                iterator.remove();
+        assertEquals("[c]", set.toString());
+
+        set.clear();
+        assertTrue(set.isEmpty());
+        assertFalse(set.iterator().hasNext());
+    }
+
+    @Test
+    public void iterateASnapshotInTheOrderAdded() {
+        SubscriberSet<String> set = new SubscriberSet<>();
+        set.add("c");
+        set.add("a");
+        set.add("b");
+        set.remove("a");
+        set.add("a");
+        assertEquals("[c, b, a]", set.toString());
+
+        final Iterator<String> iterator = set.iterator();
+        assertEquals("c", iterator.next());
+        set.add("d");
+        set.remove("b");
+        assertEquals("b", iterator.next());
+        assertEquals("a", iterator.next());
+        assertFalse(iterator.hasNext());
+        assertEquals("[c, a, d]", set.toString());
+    }
+}
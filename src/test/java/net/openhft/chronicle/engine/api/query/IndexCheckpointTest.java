@@ -0,0 +1,155 @@
+/*
+ * Copyright 2016 higherfrequencytrading.com
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+
+package net.openhft.chronicle.engine.api.query;
+
+import net.openhft.chronicle.core.OS;
+import net.openhft.chronicle.core.time.SetTimeProvider;
+import net.openhft.chronicle.engine.api.query.VanillaIndexQueueViewTest.Price;
+import net.openhft.chronicle.engine.queue.SimpleQueueViewTest;
+import net.openhft.chronicle.queue.ExcerptAppender;
+import net.openhft.chronicle.queue.ExcerptTailer;
+import net.openhft.chronicle.queue.RollCycles;
+import net.openhft.chronicle.queue.impl.RollingChronicleQueue;
+import net.openhft.chronicle.queue.impl.single.SingleChronicleQueueBuilder;
+import net.openhft.chronicle.wire.DocumentContext;
+import org.jetbrains.annotations.NotNull;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class IndexCheckpointTest {
+
+    private final SetTimeProvider timeProvider = new SetTimeProvider();
+    private File queueDir;
+    private File checkpointDir;
+    private RollingChronicleQueue queue;
+
+    @Before
+    public void before() {
+        queueDir = new File(OS.TARGET, "IndexCheckpointTest-" + System.nanoTime());
+        checkpointDir = new File(queueDir.getPath() + ".index-checkpoint");
+        queue = open();
+    }
+
+    @After
+    public void after() {
+        queue.close();
+        SimpleQueueViewTest.deleteFiles(queueDir);
+        SimpleQueueViewTest.deleteFiles(checkpointDir);
+    }
+
+    private RollingChronicleQueue open() {
+        return SingleChronicleQueueBuilder.binary(queueDir)
+                .rollCycle(RollCycles.TEST_SECONDLY)
+                .timeProvider(timeProvider)
+                .build();
+    }
+
+    private long append(@NotNull ExcerptAppender appender, String message) {
+        try (DocumentContext dc = appender.writingDocument()) {
+            dc.wire().writeEventName("Price").text(message);
+        }
+        return appender.lastIndexAppended();
+    }
+
+    private String read(@NotNull ExcerptTailer tailer) {
+        try (DocumentContext dc = tailer.readingDocument()) {
+            assertTrue(dc.isPresent());
+            return dc.wire().readEventName(new StringBuilder()).text();
+        }
+    }
+
+    @NotNull
+    private Map<Object, Long> entries(@NotNull IndexCheckpoint checkpoint) {
+        final Map<Object, Long> entries = new TreeMap<>();
+        checkpoint.<Price>forEach((eventName, value) -> {
+            assertEquals("Price", eventName);
+            entries.put(value.v().seq, value.index());
+        });
+        return entries;
+    }
+
+    @Test
+    public void testResumeAfterRestart() {
+        final ExcerptAppender appender = queue.acquireAppender();
+        final long p1 = append(appender, "p1");
+        final long p2 = append(appender, "p2");
+
+        try (IndexCheckpoint checkpoint = new IndexCheckpoint(checkpointDir, 1024)) {
+            assertFalse(checkpoint.resume(queue.createTailer()));
+            checkpoint.put("Price", 1, new IndexedValue<>(new Price(1), p1));
+            checkpoint.put("Price", 2, new IndexedValue<>(new Price(2), p2));
+            checkpoint.lastIndex(p2);
+        }
+
+        append(appender, "p3");
+        queue.close();
+        queue = open();
+
+        try (IndexCheckpoint checkpoint = new IndexCheckpoint(checkpointDir, 1024)) {
+            assertEquals(p2, checkpoint.lastIndex());
+            assertEquals("{1=" + p1 + ", 2=" + p2 + "}", entries(checkpoint).toString());
+
+            // only what was appended after the checkpoint is read again.
+            final ExcerptTailer tailer = queue.createTailer();
+            assertTrue(checkpoint.resume(tailer));
+            assertEquals("p3", read(tailer));
+        }
+    }
+
+    @Test
+    public void testStaleCheckpointIsDiscarded() {
+        final ExcerptAppender appender = queue.acquireAppender();
+        final long p1 = append(appender, "p1");
+        timeProvider.currentTimeMillis(timeProvider.currentTimeMillis() + 1000);
+        append(appender, "p2");
+
+        try (IndexCheckpoint checkpoint = new IndexCheckpoint(checkpointDir, 1024)) {
+            checkpoint.put("Price", 1, new IndexedValue<>(new Price(1), p1));
+            checkpoint.lastIndex(p1);
+        }
+        queue.close();
+
+        // as retention would, delete the cycle holding the excerpt checkpointed.
+        final File[] cycles = queueDir.listFiles((dir, name) -> name.endsWith(".cq4"));
+        Arrays.sort(cycles);
+        assertEquals(2, cycles.length);
+        assertTrue(cycles[0].delete());
+        queue = open();
+
+        try (IndexCheckpoint checkpoint = new IndexCheckpoint(checkpointDir, 1024)) {
+            final ExcerptTailer tailer = queue.createTailer();
+            assertFalse(checkpoint.resume(tailer));
+            assertEquals(0, checkpoint.lastIndex());
+            assertTrue(entries(checkpoint).isEmpty());
+
+            // the view is rebuilt from what is left of the queue.
+            assertEquals("p2", read(tailer));
+        }
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2016 higherfrequencytrading.com
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package net.openhft.chronicle.engine.api.query;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class ParameterisedSelectTest {
+
+    @Test
+    public void literalsBecomeParameters() {
+        final ParameterisedSelect a = ParameterisedSelect.of("value.price > 1.3 && \"EUR\".equals(value.ccy)");
+        final ParameterisedSelect b = ParameterisedSelect.of("value.price > 1.4 && \"USD\".equals(value.ccy)");
+        assertEquals("value.price > ((java.lang.Double) $p[0]).doubleValue()"
+                + " && ((java.lang.String) $p[1]).equals(value.ccy)", a.template);
+        assertEquals(a.template, b.template);
+        assertEquals("[1.3, EUR]", Arrays.toString(a.params));
+        assertEquals("[1.4, USD]", Arrays.toString(b.params));
+    }
+
+    @Test
+    public void namesAndOtherLiteralsAreLeft() {
+        final ParameterisedSelect s = ParameterisedSelect.of("value.x1 == 10L && value.c == 'a' && value.y == 010");
+        assertEquals("value.x1 == ((java.lang.Long) $p[0]).longValue() && value.c == 'a' && value.y == 010",
+                s.template);
+        assertEquals("[10]", Arrays.toString(s.params));
+
+        assertEquals("[a\"b]", Arrays.toString(ParameterisedSelect.of("value.s.equals(\"a\\\"b\")").params));
+    }
+
+    @Test
+    public void interpretSimpleConjunctions() {
+        final InterpretedSelect<TestBean> select = InterpretedSelect.of(TestBean.class, "value.x > 1 && value.x <= 3");
+        assertNotNull(select);
+        assertFalse(select.test(new TestBean(1)));
+        assertTrue(select.test(new TestBean(2)));
+        assertTrue(select.test(new TestBean(3)));
+        assertFalse(select.test(new TestBean(4)));
+
+        // has to be compiled
+        assertNull(InterpretedSelect.of(TestBean.class, "value.x > 1.5"));
+        assertNull(InterpretedSelect.of(TestBean.class, "value.x == 1 || value.x == 2"));
+        assertNull(InterpretedSelect.of(TestBean.class, "value.x % 2 == 0"));
+        assertNull(InterpretedSelect.of(Quote.class, "value.ccyPair == \"EURUSD\" && value.price > 1.3"));
+        assertNotNull(InterpretedSelect.of(Quote.class, "value.price > 1.3"));
+    }
+
+    @Test
+    public void interpretStringEquals() {
+        final InterpretedSelect<Quote> select = InterpretedSelect.of(Quote.class,
+                "value.ccyPair.equals(\"EURUSD\") && \"EURUSD\".equals(value.ccyPair)");
+        assertNotNull(select);
+        assertTrue(select.test(new Quote(new String("EURUSD"), 1.3)));
+        assertFalse(select.test(new Quote("GBPUSD", 1.3)));
+        assertFalse(select.test(new Quote(null, 1.3)));
+
+        assertNull(InterpretedSelect.of(Quote.class, "value.price.equals(1.3)"));
+    }
+
+    @Test
+    public void interpretDoublesAsPrimitives() {
+        final InterpretedSelect<Quote> zero = InterpretedSelect.of(Quote.class, "value.price == 0.0");
+        assertNotNull(zero);
+        assertTrue(zero.test(new Quote("EURUSD", -0.0)));
+        assertTrue(zero.test(new Quote("EURUSD", 0.0)));
+
+        final InterpretedSelect<Quote> negative = InterpretedSelect.of(Quote.class, "value.price < 0.0");
+        assertNotNull(negative);
+        assertFalse(negative.test(new Quote("EURUSD", -0.0)));
+
+        final InterpretedSelect<Quote> above = InterpretedSelect.of(Quote.class, "value.price > 1.3");
+        assertNotNull(above);
+        assertFalse(above.test(new Quote("EURUSD", Double.NaN)));
+        assertTrue(above.test(new Quote("EURUSD", 1.4)));
+    }
+
+    static class Quote {
+        String ccyPair;
+        double price;
+
+        Quote() {
+        }
+
+        Quote(String ccyPair, double price) {
+            this.ccyPair = ccyPair;
+            this.price = price;
+        }
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2016 higherfrequencytrading.com
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package net.openhft.chronicle.engine.api.query;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class SecondaryIndexTest {
+
+    private static List<Object> sorted(List<SelectCondition> conditions, SecondaryIndex index) {
+        final List<Object> keys = new ArrayList<>(index.candidates(conditions));
+        Collections.sort(keys, (a, b) -> ((String) a).compareTo((String) b));
+        return keys;
+    }
+
+    @Test
+    public void parseConjunctions() {
+        assertEquals("[value.x == 2]", SelectCondition.parse("value.x == 2").toString());
+        assertEquals("[value.ccy == EUR&&USD, value.x > 1.5]",
+                SelectCondition.parse("(\"EUR&&USD\".equals(value.ccy) && 1.5 < value.x)").toString());
+        assertEquals("[value.x <= 10]",
+                SelectCondition.parse("value.x() <= 10L && (value.y == 1 || value.y == 2)").toString());
+        assertNull(SelectCondition.parse("value.x == 1 || value.x == 2"));
+        assertNull(SelectCondition.parse("value.x == 1 ? true : false"));
+    }
+
+    @Test
+    public void hashAndRangeCandidates() {
+        final SecondaryIndex index = new SecondaryIndex(new IndexedFields().sorted("x"));
+        for (int i = 0; i < 10; i++)
+            index.update("k" + i, new TestBean(i));
+        // k9 moves from 9 to 3
+        index.update("k9", new TestBean(3));
+
+        assertEquals("[k3, k9]", sorted(SelectCondition.parse("value.x == 3"), index).toString());
+        assertEquals("[k7, k8]", sorted(SelectCondition.parse("value.x > 6 && value.x < 9"), index).toString());
+        assertEquals("[]", sorted(SelectCondition.parse("value.x > 6 && value.x < 2"), index).toString());
+        assertEquals("[]", sorted(SelectCondition.parse("value.x == 9"), index).toString());
+        assertNull(index.candidates(SelectCondition.parse("value.y == 1")));
+    }
+}
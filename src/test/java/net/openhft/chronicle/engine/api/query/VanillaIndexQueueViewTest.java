@@ -0,0 +1,188 @@
+/*
+ * Copyright 2016 higherfrequencytrading.com
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package net.openhft.chronicle.engine.api.query;
+
+import net.openhft.chronicle.core.Jvm;
+import net.openhft.chronicle.core.io.Closeable;
+import net.openhft.chronicle.engine.api.pubsub.ConsumingSubscriber;
+import net.openhft.chronicle.engine.query.QueueConfig;
+import net.openhft.chronicle.engine.tree.ChronicleQueueView;
+import net.openhft.chronicle.engine.tree.QueueView;
+import net.openhft.chronicle.engine.tree.VanillaAsset;
+import net.openhft.chronicle.engine.tree.VanillaAssetTree;
+import net.openhft.chronicle.queue.ExcerptAppender;
+import net.openhft.chronicle.wire.AbstractMarshallable;
+import net.openhft.chronicle.wire.Marshallable;
+import org.jetbrains.annotations.NotNull;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+import static net.openhft.chronicle.engine.api.tree.RequestContext.requestContext;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Subscribers fed from the tailer of the index, with a backlog of two values, so they fall behind
+ * and go back to their own tailer.
+ */
+public class VanillaIndexQueueViewTest {
+
+    private VanillaAssetTree assetTree;
+    private VanillaIndexQueueView<Price> indexQueueView;
+    private ExcerptAppender appender;
+    private int seq;
+
+    @Before
+    public void before() {
+        assetTree = new VanillaAssetTree(1).forTesting();
+        assetTree.root().addView(TypeToString.class, new TypeToString() {
+            @Override
+            public String typeToSting(Class type) {
+                return type.getSimpleName();
+            }
+
+            @Override
+            public Class<? extends Marshallable> toType(CharSequence type) {
+                return Price.class;
+            }
+        });
+
+        final String uri = "/queue/VanillaIndexQueueViewTest/" + System.nanoTime();
+        final QueueView<String, Price> queueView = assetTree.acquireQueue(uri + "?dontPersist=true",
+                String.class, Price.class);
+        final VanillaAsset asset = (VanillaAsset) assetTree.acquireAsset(uri);
+        asset.addView(QueueConfig.class, new QueueConfig(asset.findView(QueueConfig.class))
+                .sharedIndexTailer(true)
+                .sharedIndexTailerBacklog(2));
+        //noinspection unchecked
+        asset.addView(ValueToKey.class, (ValueToKey) v -> ((Price) v).seq % 2);
+
+        indexQueueView = new VanillaIndexQueueView<>(requestContext(uri), asset, queueView);
+        appender = ((ChronicleQueueView) queueView).chronicleQueue().acquireAppender();
+    }
+
+    @After
+    public void after() {
+        Closeable.closeQuietly(indexQueueView);
+        Closeable.closeQuietly(assetTree);
+    }
+
+    private void publish(int count) {
+        for (int i = 0; i < count; i++) {
+            final Price price = new Price(seq++);
+            appender.writeDocument(w -> w.write(() -> "Price").marshallable(price));
+        }
+    }
+
+    @NotNull
+    private Supplier<Marshallable> subscribe() {
+        final List<Supplier<Marshallable>> suppliers = new ArrayList<>();
+        indexQueueView.registerSubscriber(new ConsumingSubscriber<IndexedValue<Price>>() {
+            @Override
+            public void addSupplier(Supplier<Marshallable> supplier) {
+                suppliers.add(supplier);
+            }
+
+            @Override
+            public void onMessage(IndexedValue<Price> indexedValue) {
+            }
+
+            @Override
+            public void close() {
+            }
+        }, new IndexQuery<Price>() {
+            @Override
+            public long fromIndex() {
+                return FROM_START;
+            }
+
+            @Override
+            public Predicate<Price> filter() {
+                return p -> true;
+            }
+
+            @Override
+            public String eventName() {
+                return "Price";
+            }
+        });
+        assertEquals(1, suppliers.size());
+        return suppliers.get(0);
+    }
+
+    @NotNull
+    private static List<Integer> read(@NotNull Supplier<Marshallable> supplier, int count) {
+        final List<Integer> read = new ArrayList<>();
+        final long timeout = System.currentTimeMillis() + 5_000;
+        while (read.size() < count && System.currentTimeMillis() < timeout) {
+            //noinspection unchecked
+            final IndexedValue<Price> indexedValue = (IndexedValue<Price>) supplier.get();
+            if (indexedValue == null)
+                Thread.yield();
+            else
+                read.add(indexedValue.v().seq);
+        }
+        // nothing more, and time for the subscriber to join the tailer of the index.
+        for (int i = 0; i < 50; i++) {
+            assertNull(supplier.get());
+            Jvm.pause(2);
+        }
+        return read;
+    }
+
+    @Test
+    public void joinFallBehindAndRejoin() {
+        publish(3);
+        final Supplier<Marshallable> supplier = subscribe();
+        assertEquals("[0, 1, 2]", read(supplier, 3).toString());
+
+        // more than the backlog, while the subscriber isn't reading.
+        publish(5);
+        Jvm.pause(200);
+        assertEquals("[3, 4, 5, 6, 7]", read(supplier, 5).toString());
+
+        publish(2);
+        assertEquals("[8, 9]", read(supplier, 2).toString());
+    }
+
+    @Test
+    public void subscribersAreIndependent() {
+        publish(2);
+        final Supplier<Marshallable> slow = subscribe();
+        final Supplier<Marshallable> fast = subscribe();
+        assertEquals("[0, 1]", read(fast, 2).toString());
+
+        publish(4);
+        assertEquals("[2, 3, 4, 5]", read(fast, 4).toString());
+        assertEquals("[0, 1, 2, 3, 4, 5]", read(slow, 6).toString());
+    }
+
+    public static class Price extends AbstractMarshallable {
+        int seq;
+
+        Price(int seq) {
+            this.seq = seq;
+        }
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2016 higherfrequencytrading.com
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+
+package net.openhft.chronicle.engine.cfg;
+
+import net.openhft.chronicle.core.Jvm;
+import net.openhft.chronicle.engine.api.map.MapView;
+import net.openhft.chronicle.engine.tree.VanillaAssetTree;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class InstallTasksTest {
+
+    private VanillaAssetTree assetTree;
+    private MapView<String, InstallStat> stats;
+
+    @Before
+    public void before() {
+        assetTree = new VanillaAssetTree().forTesting();
+        stats = assetTree.acquireMap(InstallTasks.STATS_PATH, String.class, InstallStat.class);
+    }
+
+    @After
+    public void after() {
+        assetTree.close();
+    }
+
+    @Test
+    public void testSerialInstallWaitsForParallelOnes() throws Exception {
+        final AtomicInteger installed = new AtomicInteger();
+        try (InstallTasks tasks = new InstallTasks(assetTree, 4)) {
+            for (int i = 0; i < 3; i++) {
+                tasks.install("/maps/m" + i, true, () -> {
+                    Jvm.pause(100);
+                    return installed.incrementAndGet();
+                });
+            }
+            // the parallel installs are still running.
+            assertTrue(installed.get() < 3);
+
+            tasks.install("/serial", false, () -> {
+                assertEquals(3, installed.get());
+                return null;
+            });
+        }
+
+        for (int i = 0; i < 3; i++) {
+            final InstallStat stat = stats.get("/maps/m" + i);
+            assertEquals(InstallStat.READY, stat.state);
+            assertTrue(stat.thread, stat.thread.startsWith("install"));
+            assertTrue(stat.durationMs >= 100);
+        }
+        assertEquals(InstallStat.READY, stats.get("/serial").state);
+        assertEquals(Thread.currentThread().getName(), stats.get("/serial").thread);
+    }
+
+    @Test
+    public void testParallelFailureIsRethrown() throws Exception {
+        try (InstallTasks tasks = new InstallTasks(assetTree, 2)) {
+            tasks.install("/ok", true, () -> null);
+            tasks.install("/bad", true, () -> {
+                throw new IOException("no disk");
+            });
+            try {
+                tasks.awaitPending();
+                fail();
+            } catch (IOException e) {
+                assertEquals("no disk", e.getMessage());
+            }
+        }
+
+        assertEquals(InstallStat.READY, stats.get("/ok").state);
+        final InstallStat bad = stats.get("/bad");
+        assertEquals(InstallStat.FAILED, bad.state);
+        assertEquals("java.io.IOException: no disk", bad.error);
+    }
+
+    @Test
+    public void testSerialFailureIsThrown() throws Exception {
+        try (InstallTasks tasks = new InstallTasks(assetTree, 1)) {
+            tasks.install("/bad", true, () -> {
+                throw new IllegalStateException("bad config");
+            });
+            fail();
+        } catch (IllegalStateException e) {
+            assertEquals("bad config", e.getMessage());
+        }
+        assertEquals(InstallStat.FAILED, stats.get("/bad").state);
+    }
+
+    @Test
+    public void testLazyStoreStaysLazy() throws Exception {
+        try (InstallTasks tasks = new InstallTasks(assetTree, 1)) {
+            tasks.install("/lazy", false, () -> {
+                final InstallStat stat = new InstallStat();
+                stat.state = InstallStat.LAZY;
+                InstallTasks.record(assetTree, "/lazy", stat);
+                return null;
+            });
+        }
+        assertEquals(InstallStat.LAZY, stats.get("/lazy").state);
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2016 higherfrequencytrading.com
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package net.openhft.chronicle.engine.map;
+
+import net.openhft.chronicle.engine.api.map.MapEvent;
+import net.openhft.chronicle.engine.api.pubsub.Subscriber;
+import net.openhft.chronicle.engine.api.tree.RequestContext;
+import net.openhft.chronicle.engine.query.Filter;
+import org.junit.Test;
+
+import static net.openhft.chronicle.engine.api.tree.RequestContext.requestContext;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class MapKVSSubscriptionTest {
+
+    @Test
+    public void needsPreviousOnlyWhenAConsumerAsksForIt() {
+        MapKVSSubscription<String, String> subscription = new MapKVSSubscription<>((Class) null, null);
+        assertFalse(subscription.needsPrevious());
+
+        RequestContext rc = requestContext("/test").elementType(MapEvent.class);
+        Subscriber<MapEvent<String, String>> newValueOnly = new Subscriber<MapEvent<String, String>>() {
+            @Override
+            public void onMessage(MapEvent<String, String> event) {
+            }
+
+            @Override
+            public boolean needsPrevious() {
+                return false;
+            }
+        };
+        subscription.registerSubscriber(rc, newValueOnly, Filter.empty());
+        assertFalse(subscription.needsPrevious());
+
+        Subscriber<MapEvent<String, String>> withPrevious = e -> {
+        };
+        subscription.registerSubscriber(rc, withPrevious, Filter.empty());
+        assertTrue(subscription.needsPrevious());
+
+        subscription.unregisterSubscriber(withPrevious);
+        assertFalse(subscription.needsPrevious());
+
+        Subscriber<MapEvent<String, String>> declaredByUri = e -> {
+        };
+        subscription.registerSubscriber(requestContext("/test?needsPrevious=false").elementType(MapEvent.class),
+                declaredByUri, Filter.empty());
+        assertFalse(subscription.needsPrevious());
+
+        EventConsumer<String, String> downstream = e -> {
+        };
+        subscription.registerDownstream(downstream);
+        assertTrue(subscription.needsPrevious());
+
+        subscription.unregisterDownstream(downstream);
+        assertFalse(subscription.needsPrevious());
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2016 higherfrequencytrading.com
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package net.openhft.chronicle.engine.map;
+
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class OrderStatisticTreeTest {
+
+    @Test
+    public void findsElementsByPosition() {
+        final OrderStatisticTree<Integer> tree = new OrderStatisticTree<>(Comparator.naturalOrder());
+        final Map<Integer, OrderStatisticTree.Node<Integer>> nodes = new HashMap<>();
+        final TreeSet<Integer> expected = new TreeSet<>();
+        final Random random = new Random(1);
+        for (int i = 0; i < 2000; i++) {
+            final int n = random.nextInt(1000);
+            if (nodes.containsKey(n)) {
+                assertTrue(tree.remove(nodes.remove(n)));
+                expected.remove(n);
+            } else {
+                nodes.put(n, tree.add(n));
+                expected.add(n);
+            }
+        }
+
+        assertEquals(expected.size(), tree.size());
+        final List<Integer> list = new ArrayList<>(expected);
+        for (int i = 0; i < list.size(); i++)
+            assertEquals(list.get(i), tree.get(i));
+        assertNull(tree.get(list.size()));
+
+        final List<Integer> page = new ArrayList<>();
+        assertEquals(20, tree.copyTo(100, 20, page));
+        assertEquals(list.subList(100, 120), page);
+
+        page.clear();
+        assertEquals(3, tree.copyTo(list.size() - 3, 20, page));
+        assertEquals(list.subList(list.size() - 3, list.size()), page);
+    }
+
+    @Test
+    public void equalElementsKeepTheOrderAdded() {
+        final OrderStatisticTree<String> tree = new OrderStatisticTree<>(String.CASE_INSENSITIVE_ORDER);
+        tree.add("b");
+        final OrderStatisticTree.Node<String> a1 = tree.add("a");
+        tree.add("A");
+        tree.add("a");
+
+        final List<String> all = new ArrayList<>();
+        tree.copyTo(0, 10, all);
+        assertEquals(Arrays.asList("a", "A", "a", "b"), all);
+
+        assertTrue(tree.remove(a1));
+        assertFalse(tree.remove(a1));
+        all.clear();
+        tree.copyTo(0, 10, all);
+        assertEquals(Arrays.asList("A", "a", "b"), all);
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2016 higherfrequencytrading.com
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+
+package net.openhft.chronicle.engine.map;
+
+import net.openhft.chronicle.engine.api.pubsub.InvalidSubscriberException;
+import org.junit.Test;
+
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class SortedRowsTest {
+
+    private static String keys(Iterator<Map.Entry<String, Cell>> iterator) {
+        final StringBuilder sb = new StringBuilder();
+        iterator.forEachRemaining(e -> sb.append(e.getKey()));
+        return sb.toString();
+    }
+
+    @Test
+    public void valueChangedInPlaceIsMovedByItsEvent() throws InvalidSubscriberException {
+        final SortedRows<String, Cell> rows = new SortedRows<String, Cell>(e -> e.getValue().n >= 0,
+                e -> new Object[]{e.getValue().n},
+                Comparator.comparing((Object[] k) -> (Integer) k[0]));
+        final Cell a = new Cell(3);
+        final Cell b = new Cell(1);
+        rows.onMessage(InsertedEvent.of("/cells", "a", a, false));
+        rows.onMessage(InsertedEvent.of("/cells", "b", b, false));
+        rows.onMessage(InsertedEvent.of("/cells", "c", new Cell(2), false));
+        assertEquals("bca", keys(rows.iterator(0)));
+        assertEquals("ca", keys(rows.iterator(1)));
+
+        // the map holds the same object, so the event has it as the old and the new value.
+        b.n = 5;
+        rows.onMessage(UpdatedEvent.of("/cells", "b", b, b, false, true));
+        assertFalse(rows.isClosed());
+        assertEquals("cab", keys(rows.iterator(0)));
+
+        // filtered out, then removed.
+        a.n = -1;
+        rows.onMessage(UpdatedEvent.of("/cells", "a", a, a, false, true));
+        rows.onMessage(RemovedEvent.of("/cells", "c", new Cell(2), false));
+        assertEquals("b", keys(rows.iterator(0)));
+        assertEquals(1, rows.size());
+    }
+
+    static class Cell {
+        int n;
+
+        Cell(int n) {
+            this.n = n;
+        }
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2016 higherfrequencytrading.com
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package net.openhft.chronicle.engine.map.remote;
+
+import net.openhft.chronicle.wire.AbstractMarshallable;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+
+public class WriteBehindBufferTest {
+
+    @Test
+    public void keepsTheLatestValuePerKey() {
+        final List<Map<String, Integer>> sent = new ArrayList<>();
+        final WriteBehindBuffer<String, Integer> buffer = new WriteBehindBuffer<>(1000, 3, sent::add);
+
+        for (int i = 0; i < 10; i++) {
+            buffer.put("a", i);
+            buffer.put("b", -i);
+        }
+        assertEquals(0, sent.size());
+
+        buffer.flush();
+        assertEquals("[{a=9, b=-9}]", sent.toString());
+        assertEquals(20, buffer.puts());
+        assertEquals(18, buffer.conflated());
+        assertEquals(1, buffer.flushes());
+        assertEquals(2, buffer.keysSent());
+
+        buffer.flush();
+        assertEquals(1, sent.size());
+    }
+
+    @Test
+    public void sendsOnceMaxKeysAreHeld() {
+        final List<Map<String, Integer>> sent = new ArrayList<>();
+        final WriteBehindBuffer<String, Integer> buffer = new WriteBehindBuffer<>(1000, 3, sent::add);
+
+        buffer.put("a", 1);
+        buffer.put("b", 2);
+        buffer.put("a", 3);
+        assertEquals(0, sent.size());
+        buffer.put("c", 4);
+        assertEquals("[{a=3, b=2, c=4}]", sent.toString());
+    }
+
+    @Test
+    public void sendsOnceThePeriodHasPassed() throws Exception {
+        final List<Map<String, Integer>> sent = new ArrayList<>();
+        final WriteBehindBuffer<String, Integer> buffer = new WriteBehindBuffer<>(20, 100, sent::add);
+
+        buffer.put("a", 1);
+        assertEquals(false, buffer.action());
+        Thread.sleep(50);
+        assertEquals(true, buffer.action());
+        assertEquals("[{a=1}]", sent.toString());
+        assertEquals(false, buffer.action());
+    }
+
+    @Test
+    public void sendsTheValueAsItWasWhenPut() {
+        final List<Map<String, Price>> sent = new ArrayList<>();
+        final WriteBehindBuffer<String, Price> buffer = new WriteBehindBuffer<>(1000, 100, sent::add);
+
+        // a producer which reuses its value.
+        final Price price = new Price();
+        price.bid = 1.5;
+        buffer.put("a", price);
+        price.bid = 2.5;
+        buffer.put("b", price);
+        price.bid = 3.5;
+
+        buffer.flush();
+        assertEquals(1.5, sent.get(0).get("a").bid, 0.0);
+        assertEquals(2.5, sent.get(0).get("b").bid, 0.0);
+    }
+
+    static class Price extends AbstractMarshallable {
+        double bid;
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2016 higherfrequencytrading.com
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package net.openhft.chronicle.engine.mit;
+
+import net.openhft.chronicle.engine.api.map.MapEvent;
+import net.openhft.chronicle.engine.api.map.MapView;
+import net.openhft.chronicle.engine.api.pubsub.Subscriber;
+import net.openhft.chronicle.engine.tree.VanillaAssetTree;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Ignore;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static net.openhft.chronicle.engine.api.tree.RequestContext.requestContext;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Registers and unregisters many subscribers on a map while events are flowing to it.
+ */
+@Ignore("Long running test")
+public class SubscriberChurnPerformanceTest {
+
+    private static final int SUBSCRIBERS = Integer.getInteger("subscribers", 50_000);
+    private static final int RUNS = Boolean.getBoolean("quick") ? 2 : 5;
+    private static final String URI = "/test/churn";
+
+    private VanillaAssetTree tree;
+
+    @Before
+    public void setUp() {
+        tree = new VanillaAssetTree().forTesting();
+    }
+
+    @After
+    public void tearDown() {
+        tree.close();
+    }
+
+    @Test
+    public void registerAndUnregisterWhileEventsFlow() throws InterruptedException {
+        final MapView<String, String> map = tree.acquireMap(URI, String.class, String.class);
+        final AtomicBoolean running = new AtomicBoolean(true);
+        final AtomicLong puts = new AtomicLong();
+        final Thread publisher = new Thread(() -> {
+            for (int i = 0; running.get(); i++) {
+                map.put("key-" + (i & 1023), "value-" + i);
+                puts.incrementAndGet();
+            }
+        }, "publisher");
+        publisher.start();
+
+        final AtomicLong events = new AtomicLong();
+        try {
+            for (int run = 0; run < RUNS; run++) {
+                final List<Subscriber<MapEvent>> subscribers = new ArrayList<>(SUBSCRIBERS);
+                for (int i = 0; i < SUBSCRIBERS; i++)
+                    subscribers.add(e -> events.incrementAndGet());
+
+                final long puts0 = puts.get();
+                final long start = System.nanoTime();
+                for (Subscriber<MapEvent> subscriber : subscribers)
+                    tree.registerSubscriber(URI, MapEvent.class, subscriber);
+                final long registered = System.nanoTime();
+                for (Subscriber<MapEvent> subscriber : subscribers)
+                    tree.unregisterSubscriber(URI, subscriber);
+                final long unregistered = System.nanoTime();
+
+                System.out.printf("run %d: registered %,d subscribers in %,d ms, unregistered in %,d ms, " +
+                                "%,d puts and %,d events in the meantime%n",
+                        run, SUBSCRIBERS,
+                        (registered - start) / 1_000_000,
+                        (unregistered - registered) / 1_000_000,
+                        puts.get() - puts0, events.getAndSet(0));
+            }
+        } finally {
+            running.set(false);
+            publisher.join();
+        }
+
+        assertEquals(0, tree.acquireSubscription(requestContext(URI).type2(MapEvent.class)).subscriberCount());
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2016 higherfrequencytrading.com
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package net.openhft.chronicle.engine.queue;
+
+import net.openhft.chronicle.core.Jvm;
+import net.openhft.chronicle.core.OS;
+import net.openhft.chronicle.core.io.Closeable;
+import net.openhft.chronicle.engine.query.QueueConfig;
+import net.openhft.chronicle.engine.tree.ChronicleQueueView;
+import net.openhft.chronicle.engine.tree.VanillaAsset;
+import net.openhft.chronicle.engine.tree.VanillaAssetTree;
+import org.jetbrains.annotations.NotNull;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class QueueMapSnapshotTest {
+
+    private File base;
+    private VanillaAssetTree assetTree;
+
+    @Before
+    public void before() {
+        base = new File(OS.TARGET, "QueueMapSnapshotTest-" + System.nanoTime());
+    }
+
+    @After
+    public void after() {
+        Closeable.closeQuietly(assetTree);
+        SimpleQueueViewTest.deleteFiles(base);
+    }
+
+    @NotNull
+    private ChronicleQueueView<String, String> open() {
+        assetTree = new VanillaAssetTree(1).forTesting();
+        final VanillaAsset asset = (VanillaAsset) assetTree.acquireAsset("/queue/snapshot");
+        asset.addView(QueueConfig.class, new QueueConfig(asset.findView(QueueConfig.class))
+                .mapSnapshotPeriodMs(1));
+        return (ChronicleQueueView<String, String>) assetTree.<String, String>acquireQueue(
+                "/queue/snapshot?basePath=" + base.getPath(), String.class, String.class);
+    }
+
+    @Test
+    public void testMapIsLoadedFromTheSnapshotOnRestart() {
+        ChronicleQueueView<String, String> queue = open();
+        final File queueDir = queue.chronicleQueue().file();
+        final File snapshotDir = new File(queueDir.getParentFile(), queueDir.getName() + ".map-snapshot");
+
+        // only a queue used as a map has a snapshot.
+        queue.publishAndIndex("a", "1");
+        assertFalse(snapshotDir.exists());
+
+        queue.put("b", "2");
+        queue.put("a", "3");
+        assertTrue(snapshotDir.exists());
+        // give the map view time to read what was published.
+        Jvm.pause(200);
+        assetTree.close();
+
+        queue = open();
+        assertEquals("3", queue.get("a"));
+        assertEquals("2", queue.get("b"));
+
+        queue.put("c", "4");
+        Jvm.pause(200);
+        assetTree.close();
+
+        queue = open();
+        assertEquals("3", queue.get("a"));
+        assertEquals("2", queue.get("b"));
+        assertEquals("4", queue.get("c"));
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2016 higherfrequencytrading.com
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package net.openhft.chronicle.engine.queue;
+
+import net.openhft.chronicle.core.OS;
+import net.openhft.chronicle.engine.tree.QueueTimeIndex;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+
+import static org.junit.Assert.assertEquals;
+
+public class QueueTimeIndexTest {
+
+    private File indexDir;
+
+    @Before
+    public void before() {
+        indexDir = new File(OS.TARGET, "QueueTimeIndexTest-" + System.nanoTime() + ".time-index");
+    }
+
+    @After
+    public void after() {
+        SimpleQueueViewTest.deleteFiles(indexDir);
+    }
+
+    /**
+     * @return the next millisecond, once the clock has reached it.
+     */
+    static long nextMs() {
+        final long now = System.currentTimeMillis();
+        long time;
+        while ((time = System.currentTimeMillis()) == now)
+            Thread.yield();
+        return time;
+    }
+
+    @Test
+    public void testSeekByTime() {
+        try (QueueTimeIndex index = new QueueTimeIndex(indexDir, 1, 1024)) {
+            assertEquals(-1, index.firstIndexAtOrAfter(0));
+
+            index.onAppended(1);
+            index.onAppended(2);
+            final long between = nextMs();
+            index.onAppended(10);
+
+            assertEquals(1, index.firstIndexAtOrAfter(0));
+            assertEquals(10, index.firstIndexAtOrAfter(between));
+            assertEquals(-1, index.firstIndexAtOrAfter(nextMs()));
+        }
+    }
+
+    @Test
+    public void testSamplesAreReloadedOnRestart() {
+        final long between;
+        try (QueueTimeIndex index = new QueueTimeIndex(indexDir, 1, 1024)) {
+            index.onAppended(1);
+            between = nextMs();
+            index.onAppended(10);
+        }
+
+        try (QueueTimeIndex index = new QueueTimeIndex(indexDir, 1, 1024)) {
+            assertEquals(1, index.firstIndexAtOrAfter(0));
+            assertEquals(10, index.firstIndexAtOrAfter(between));
+
+            // an index at or before the last sample isn't sampled again.
+            nextMs();
+            index.onAppended(10);
+            assertEquals(-1, index.firstIndexAtOrAfter(System.currentTimeMillis()));
+        }
+    }
+
+    @Test
+    public void testOldestSamplesAreDroppedPastTheEntries() {
+        final long[] times = new long[5];
+        try (QueueTimeIndex index = new QueueTimeIndex(indexDir, 1, 3)) {
+            for (int i = 0; i < times.length; i++) {
+                times[i] = nextMs();
+                index.onAppended(10 * (i + 1));
+            }
+            // only the last three are kept, an earlier time finds the oldest of them.
+            assertEquals(30, index.firstIndexAtOrAfter(0));
+            assertEquals(40, index.firstIndexAtOrAfter(times[3]));
+        }
+
+        try (QueueTimeIndex index = new QueueTimeIndex(indexDir, 1, 3)) {
+            assertEquals(30, index.firstIndexAtOrAfter(0));
+            assertEquals(50, index.firstIndexAtOrAfter(times[4]));
+        }
+    }
+
+    @Test
+    public void testPruneKeepsTheSampleBeforeTheFirstIndex() {
+        try (QueueTimeIndex index = new QueueTimeIndex(indexDir, 1, 1024)) {
+            for (int i = 1; i <= 4; i++) {
+                nextMs();
+                index.onAppended(10 * i);
+            }
+            // retention deleted up to 25, which was appended in the period sampled by 20.
+            index.prune(25);
+            assertEquals(20, index.firstIndexAtOrAfter(0));
+        }
+
+        try (QueueTimeIndex index = new QueueTimeIndex(indexDir, 1, 1024)) {
+            assertEquals(20, index.firstIndexAtOrAfter(0));
+        }
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright 2016 higherfrequencytrading.com
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package net.openhft.chronicle.engine.queue;
+
+import net.openhft.chronicle.core.OS;
+import net.openhft.chronicle.core.threads.InvalidEventHandlerException;
+import net.openhft.chronicle.engine.api.pubsub.InvalidSubscriberException;
+import net.openhft.chronicle.engine.api.pubsub.Subscriber;
+import net.openhft.chronicle.engine.tree.QueueTopicDemultiplexer;
+import net.openhft.chronicle.queue.ExcerptAppender;
+import net.openhft.chronicle.queue.impl.RollingChronicleQueue;
+import net.openhft.chronicle.queue.impl.single.SingleChronicleQueueBuilder;
+import net.openhft.chronicle.wire.DocumentContext;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+
+public class QueueTopicDemultiplexerTest {
+
+    private File queueDir;
+    private RollingChronicleQueue queue;
+    private ExcerptAppender appender;
+    private QueueTopicDemultiplexer<String, String> demultiplexer;
+
+    @Before
+    public void before() {
+        queueDir = new File(OS.TARGET, "QueueTopicDemultiplexerTest-" + System.nanoTime());
+        queue = SingleChronicleQueueBuilder.binary(queueDir).build();
+        appender = queue.acquireAppender();
+        demultiplexer = new QueueTopicDemultiplexer<>(queue, String.class, String.class);
+    }
+
+    @After
+    public void after() {
+        demultiplexer.close();
+        queue.close();
+        SimpleQueueViewTest.deleteFiles(queueDir);
+    }
+
+    private void append(String topic, String message) {
+        try (DocumentContext dc = appender.writingDocument()) {
+            dc.wire().writeEventName(topic).text(message);
+        }
+    }
+
+    private void run() throws InvalidEventHandlerException {
+        while (demultiplexer.action()) {
+            // until there is nothing more to read.
+        }
+    }
+
+    @Test
+    public void aLateSubscriberCatchesUpAndIsMergedIntoTheSharedTailer() throws InvalidEventHandlerException {
+        append("a", "a1");
+        append("b", "b1");
+        append("a", "a2");
+        // the shared tailer reads past them before anyone subscribes.
+        run();
+
+        final List<String> messages = new ArrayList<>();
+        demultiplexer.subscribe("a", QueueTopicDemultiplexer.FROM_START, messages::add);
+        run();
+        assertEquals("[a1, a2]", messages.toString());
+
+        append("b", "b2");
+        append("a", "a3");
+        run();
+        assertEquals("[a1, a2, a3]", messages.toString());
+    }
+
+    @Test
+    public void fromEndOnlyDeliversNewExcerpts() throws InvalidEventHandlerException {
+        append("a", "a1");
+        run();
+
+        final List<String> messages = new ArrayList<>();
+        demultiplexer.subscribe("a", QueueTopicDemultiplexer.FROM_END, messages::add);
+        run();
+        append("a", "a2");
+        run();
+        assertEquals("[a2]", messages.toString());
+    }
+
+    @Test
+    public void unsubscribeStopsDelivery() throws InvalidEventHandlerException {
+        final List<String> messages = new ArrayList<>();
+        final Subscriber<String> subscriber = messages::add;
+        demultiplexer.subscribe("a", QueueTopicDemultiplexer.FROM_START, subscriber);
+        append("a", "a1");
+        run();
+        assertEquals(1, demultiplexer.subscriberCount());
+
+        assertEquals(true, demultiplexer.unsubscribe(subscriber));
+        append("a", "a2");
+        run();
+        assertEquals("[a1]", messages.toString());
+        assertEquals(0, demultiplexer.subscriberCount());
+        assertEquals(false, demultiplexer.unsubscribe(subscriber));
+    }
+
+    @Test
+    public void anInvalidSubscriberIsDropped() throws InvalidEventHandlerException {
+        final AtomicInteger dropped = new AtomicInteger();
+        demultiplexer.subscribe("a", QueueTopicDemultiplexer.FROM_START, m -> {
+            throw new InvalidSubscriberException();
+        }, dropped::incrementAndGet);
+        append("a", "a1");
+        append("a", "a2");
+        run();
+
+        assertEquals(1, dropped.get());
+        assertEquals(0, demultiplexer.subscriberCount());
+    }
+
+    @Test
+    public void aFailingSubscriberIsDroppedAndTheOthersAreNotified() throws InvalidEventHandlerException {
+        final AtomicInteger dropped = new AtomicInteger();
+        demultiplexer.subscribe("a", QueueTopicDemultiplexer.FROM_END, m -> {
+            throw new IllegalStateException("expected");
+        }, dropped::incrementAndGet);
+        final List<String> messages = new ArrayList<>();
+        demultiplexer.subscribe("a", QueueTopicDemultiplexer.FROM_END, messages::add);
+        run();
+
+        append("a", "a1");
+        append("a", "a2");
+        run();
+
+        assertEquals("[a1, a2]", messages.toString());
+        assertEquals(1, dropped.get());
+        assertEquals(1, demultiplexer.subscriberCount());
+    }
+
+    @Test
+    public void aSubscriberCanSubscribeToMoreThanOneTopic() throws InvalidEventHandlerException {
+        final List<String> messages = new ArrayList<>();
+        final Subscriber<String> subscriber = messages::add;
+        demultiplexer.subscribe("a", QueueTopicDemultiplexer.FROM_START, subscriber);
+        demultiplexer.subscribe("b", QueueTopicDemultiplexer.FROM_START, subscriber);
+        append("a", "a1");
+        append("b", "b1");
+        run();
+        assertEquals("[a1, b1]", messages.toString());
+        assertEquals(2, demultiplexer.subscriberCount());
+
+        assertEquals(true, demultiplexer.unsubscribe("a", subscriber));
+        append("a", "a2");
+        append("b", "b2");
+        run();
+        assertEquals("[a1, b1, b2]", messages.toString());
+
+        assertEquals(true, demultiplexer.unsubscribe(subscriber));
+        assertEquals(0, demultiplexer.subscriberCount());
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright 2016 higherfrequencytrading.com
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package net.openhft.chronicle.engine.queue;
+
+import net.openhft.chronicle.core.OS;
+import net.openhft.chronicle.core.time.SetTimeProvider;
+import net.openhft.chronicle.engine.tree.QueueTopicIndex;
+import net.openhft.chronicle.queue.ExcerptAppender;
+import net.openhft.chronicle.queue.RollCycles;
+import net.openhft.chronicle.queue.impl.RollingChronicleQueue;
+import net.openhft.chronicle.queue.impl.single.SingleChronicleQueueBuilder;
+import net.openhft.chronicle.wire.DocumentContext;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PrimitiveIterator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class QueueTopicIndexTest {
+
+    private File queueDir;
+    private File indexDir;
+    private RollingChronicleQueue queue;
+
+    @Before
+    public void before() {
+        queueDir = new File(OS.TARGET, "QueueTopicIndexTest-" + System.nanoTime());
+        indexDir = new File(queueDir.getPath() + ".topic-index");
+        queue = SingleChronicleQueueBuilder.binary(queueDir).build();
+    }
+
+    @After
+    public void after() {
+        queue.close();
+        SimpleQueueViewTest.deleteFiles(queueDir);
+        SimpleQueueViewTest.deleteFiles(indexDir);
+    }
+
+    private long append(ExcerptAppender appender, String topic, String message) {
+        try (DocumentContext dc = appender.writingDocument()) {
+            dc.wire().writeEventName(topic).text(message);
+        }
+        return appender.lastIndexAppended();
+    }
+
+    @Test
+    public void testLatestAndNextIndex() {
+        final ExcerptAppender appender = queue.acquireAppender();
+        final long a1 = append(appender, "a", "a1");
+        final long b1 = append(appender, "b", "b1");
+        final long a2 = append(appender, "a", "a2");
+
+        try (QueueTopicIndex index = new QueueTopicIndex(queue, indexDir, 1024)) {
+            assertEquals(a2, index.latestIndex("a"));
+            assertEquals(b1, index.latestIndex("b"));
+            assertEquals(-1, index.latestIndex("c"));
+
+            assertEquals(a1, index.nextIndex("a", 0));
+            assertEquals(a2, index.nextIndex("a", a1 + 1));
+            assertEquals(-1, index.nextIndex("a", a2 + 1));
+
+            final List<Long> indexes = new ArrayList<>();
+            for (PrimitiveIterator.OfLong i = index.indexes("a", 0); i.hasNext(); )
+                indexes.add(i.nextLong());
+            assertEquals("[" + a1 + ", " + a2 + "]", indexes.toString());
+        }
+    }
+
+    @Test
+    public void testMoreIndexesThanSizedFor() {
+        final ExcerptAppender appender = queue.acquireAppender();
+        final List<Long> as = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            as.add(append(appender, "a", "a" + i));
+            append(appender, "b", "b" + i);
+        }
+
+        try (QueueTopicIndex index = new QueueTopicIndex(queue, indexDir, 16, 8)) {
+            assertEquals(as.get(0), (Long) index.nextIndex("a", 0));
+            assertEquals(as.get(500), (Long) index.nextIndex("a", as.get(499) + 1));
+            assertEquals(as.get(999), (Long) index.latestIndex("a"));
+
+            final List<Long> indexes = new ArrayList<>();
+            for (PrimitiveIterator.OfLong i = index.indexes("a", as.get(990)); i.hasNext(); )
+                indexes.add(i.nextLong());
+            assertEquals(as.subList(990, 1000), indexes);
+        }
+    }
+
+    @Test
+    public void testRestartOnlyIndexesTheTail() {
+        final ExcerptAppender appender = queue.acquireAppender();
+        final long a1 = append(appender, "a", "a1");
+
+        try (QueueTopicIndex index = new QueueTopicIndex(queue, indexDir, 1024)) {
+            assertEquals(a1, index.latestIndex("a"));
+        }
+
+        final long a2 = append(appender, "a", "a2");
+
+        try (QueueTopicIndex index = new QueueTopicIndex(queue, indexDir, 1024)) {
+            assertEquals(a2, index.latestIndex("a"));
+
+            final List<Long> indexes = new ArrayList<>();
+            for (PrimitiveIterator.OfLong i = index.indexes("a", 0); i.hasNext(); )
+                indexes.add(i.nextLong());
+            assertEquals("[" + a1 + ", " + a2 + "]", indexes.toString());
+        }
+    }
+
+    @Test
+    public void testIndexesInDeletedCyclesAreMissing() {
+        queue.close();
+        SimpleQueueViewTest.deleteFiles(queueDir);
+        final SetTimeProvider timeProvider = new SetTimeProvider();
+        queue = SingleChronicleQueueBuilder.binary(queueDir)
+                .rollCycle(RollCycles.TEST_SECONDLY)
+                .timeProvider(timeProvider)
+                .build();
+
+        final ExcerptAppender appender = queue.acquireAppender();
+        final long a1 = append(appender, "a", "a1");
+        append(appender, "b", "b1");
+        timeProvider.currentTimeMillis(timeProvider.currentTimeMillis() + 1000);
+        final long a2 = append(appender, "a", "a2");
+
+        try (QueueTopicIndex index = new QueueTopicIndex(queue, indexDir, 1024)) {
+            assertEquals(a1, index.nextIndex("a", 0));
+
+            // as retention would, delete the first cycle.
+            final File[] cycles = queueDir.listFiles((dir, name) -> name.endsWith(".cq4"));
+            Arrays.sort(cycles);
+            assertEquals(2, cycles.length);
+            assertTrue(cycles[0].delete());
+
+            assertEquals(a2, index.nextIndex("a", 0));
+            assertEquals(a2, index.latestIndex("a"));
+            assertEquals(-1, index.latestIndex("b"));
+            assertEquals(-1, index.nextIndex("b", 0));
+        }
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2016 higherfrequencytrading.com
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package net.openhft.chronicle.engine.queue;
+
+import net.openhft.chronicle.core.io.Closeable;
+import net.openhft.chronicle.engine.api.column.ChronicleQueueRow;
+import net.openhft.chronicle.engine.api.column.ColumnView.MarshableFilter;
+import net.openhft.chronicle.engine.api.column.ColumnView.SortedFilter;
+import net.openhft.chronicle.engine.api.column.QueueColumnView;
+import net.openhft.chronicle.engine.query.QueueConfig;
+import net.openhft.chronicle.engine.tree.QueueView;
+import net.openhft.chronicle.engine.tree.VanillaAsset;
+import net.openhft.chronicle.engine.tree.VanillaAssetTree;
+import net.openhft.chronicle.wire.AbstractMarshallable;
+import org.jetbrains.annotations.NotNull;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import static net.openhft.chronicle.engine.queue.QueueTimeIndexTest.nextMs;
+import static org.junit.Assert.assertEquals;
+
+public class QueueWrappingColumnViewTest {
+
+    private VanillaAssetTree assetTree;
+
+    @Before
+    public void before() {
+        assetTree = new VanillaAssetTree(1).forTesting();
+    }
+
+    @After
+    public void after() {
+        Closeable.closeQuietly(assetTree);
+    }
+
+    @NotNull
+    private QueueView<String, Tick> acquireQueue(String name, boolean timeIndex) {
+        final VanillaAsset asset = (VanillaAsset) assetTree.acquireAsset("/queue/" + name);
+        final QueueConfig queueConfig = assetTree.root().findView(QueueConfig.class);
+        asset.addView(QueueConfig.class, new QueueConfig(queueConfig)
+                .timeIndex(timeIndex)
+                .timeIndexResolutionMs(1));
+        return assetTree.acquireQueue("/queue/" + name + "/" + System.nanoTime() + "?dontPersist=true",
+                String.class, Tick.class);
+    }
+
+    @NotNull
+    private static List<Object> rows(@NotNull Iterator<ChronicleQueueRow> iterator) {
+        final List<Object> rows = new ArrayList<>();
+        iterator.forEachRemaining(r -> rows.add(r.get("s")));
+        return rows;
+    }
+
+    @Test
+    public void testTimeRange() {
+        final QueueView<String, Tick> queueView = acquireQueue("testTimeRange", true);
+        queueView.publishAndIndex("t", new Tick("a"));
+        final long from = nextMs();
+        queueView.publishAndIndex("t", new Tick("b"));
+        queueView.publishAndIndex("t", new Tick("c"));
+        final long to = nextMs();
+        queueView.publishAndIndex("t", new Tick("d"));
+
+        final QueueWrappingColumnView<String, Tick> columnView =
+                new QueueWrappingColumnView<>(null, null, queueView);
+
+        final MarshableFilter range = QueueColumnView.timeRange(from, to);
+        assertEquals(2, columnView.rowCount(Collections.singletonList(range)));
+
+        final SortedFilter filter = new SortedFilter();
+        filter.marshableFilters.add(range);
+        assertEquals("[b, c]", rows(columnView.iterator(filter)).toString());
+
+        final SortedFilter fromOnly = new SortedFilter();
+        fromOnly.marshableFilters.add(QueueColumnView.timeRange(from, Long.MAX_VALUE));
+        assertEquals("[b, c, d]", rows(columnView.iterator(fromOnly)).toString());
+
+        final SortedFilter future = new SortedFilter();
+        future.marshableFilters.add(QueueColumnView.timeRange(nextMs(), Long.MAX_VALUE));
+        assertEquals("[]", rows(columnView.iterator(future)).toString());
+    }
+
+    @Test
+    public void testTimeRangeWithoutATimeIndexIsEmpty() {
+        final QueueView<String, Tick> queueView = acquireQueue("testTimeRangeWithoutATimeIndex", false);
+        final long from = System.currentTimeMillis();
+        queueView.publishAndIndex("t", new Tick("a"));
+
+        assertEquals(-1, queueView.firstIndexAtOrAfter(from));
+
+        final QueueWrappingColumnView<String, Tick> columnView =
+                new QueueWrappingColumnView<>(null, null, queueView);
+        assertEquals(0, columnView.rowCount(Collections.singletonList(
+                QueueColumnView.timeRange(from, Long.MAX_VALUE))));
+        assertEquals(1, columnView.rowCount(Collections.emptyList()));
+    }
+
+    static class Tick extends AbstractMarshallable {
+        String s;
+
+        Tick(String s) {
+            this.s = s;
+        }
+    }
+}
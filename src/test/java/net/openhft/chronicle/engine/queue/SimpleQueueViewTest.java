@@ -26,12 +26,17 @@ import net.openhft.chronicle.engine.api.pubsub.Subscriber;
 import net.openhft.chronicle.engine.api.pubsub.TopicPublisher;
 import net.openhft.chronicle.engine.api.pubsub.TopicSubscriber;
 import net.openhft.chronicle.engine.api.tree.AssetTree;
+import net.openhft.chronicle.engine.pubsub.RemoteQueueTailer;
+import net.openhft.chronicle.engine.pubsub.RemoteQueueView;
 import net.openhft.chronicle.engine.server.ServerEndpoint;
+import net.openhft.chronicle.engine.tree.ChronicleQueueView;
+import net.openhft.chronicle.engine.tree.IndexRange;
 import net.openhft.chronicle.engine.tree.QueueView;
 import net.openhft.chronicle.engine.tree.QueueView.Excerpt;
 import net.openhft.chronicle.engine.tree.VanillaAssetTree;
 import net.openhft.chronicle.network.TCPRegistry;
 import net.openhft.chronicle.network.connection.TcpChannelHub;
+import net.openhft.chronicle.queue.RollCycle;
 import net.openhft.chronicle.wire.WireType;
 import net.openhft.chronicle.wire.YamlLogging;
 import org.jetbrains.annotations.NotNull;
@@ -42,16 +47,21 @@ import org.junit.runners.Parameterized;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.AbstractMap.SimpleEntry;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.List;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.LinkedBlockingQueue;
 
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static java.util.concurrent.TimeUnit.SECONDS;
 import static net.openhft.chronicle.engine.Utils.methodName;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
 
 /**
  * @author Rob Austin.
@@ -296,6 +306,120 @@ public class SimpleQueueViewTest extends ThreadMonitoringTest {
         assertEquals("Message-1", excerpt.message());
     }
 
+    @Test
+    public void testPublishBatchAndIndex() throws Exception {
+        String uri = "/queue/" + methodName + DELETE_CHRONICLE_FILE;
+        QueueView<String, String> queue = assetTree.acquireQueue(uri, String.class, String.class);
+
+        final IndexRange range = queue.publishBatchAndIndexAsync(Arrays.asList(
+                new SimpleEntry<>("a", "Message-1"),
+                new SimpleEntry<>("b", "Message-2"),
+                new SimpleEntry<>("a", "Message-3"))).get(5, SECONDS);
+
+        final Excerpt<String, String> first = queue.getExcerpt(range.first());
+        assertEquals("a", first.topic());
+        assertEquals("Message-1", first.message());
+        final Excerpt<String, String> last = queue.getExcerpt(range.last());
+        assertEquals("a", last.topic());
+        assertEquals("Message-3", last.message());
+
+        assertEquals(range.last() + 1, queue.publishBatchAndIndex(
+                Arrays.asList(new SimpleEntry<>("b", "Message-4"))).first());
+    }
+
+    @Test
+    public void testPublishBatchFailureIsReplied() throws Exception {
+        if (!isRemote)
+            return;
+
+        String uri = "/queue/" + methodName + DELETE_CHRONICLE_FILE;
+        QueueView<String, String> queue = assetTree.acquireQueue(uri, String.class, String.class);
+
+        try {
+            queue.publishBatchAndIndexAsync(Arrays.asList(
+                    new SimpleEntry<>("a", "Message-1"),
+                    new SimpleEntry<>("b", null))).get(5, SECONDS);
+            fail();
+        } catch (ExecutionException e) {
+            assertEquals(NullPointerException.class, e.getCause().getClass());
+        }
+
+        // the connection is still usable.
+        assertEquals("Message-2", queue.getExcerpt(queue.publishAndIndex("c", "Message-2")).message());
+    }
+
+    @NotNull
+    private static String messages(@NotNull List<Excerpt<String, String>> batch) {
+        final List<String> messages = new ArrayList<>();
+        for (Excerpt<String, String> excerpt : batch)
+            messages.add(excerpt.message());
+        return messages.toString();
+    }
+
+    @NotNull
+    private long[] publish(@NotNull QueueView<String, String> queue, String... messages) {
+        final long[] indexes = new long[messages.length];
+        for (int i = 0; i < messages.length; i++)
+            indexes[i] = queue.publishAndIndex("topic", messages[i]);
+        return indexes;
+    }
+
+    @Test
+    public void testReadBatchWindows() {
+        String uri = "/queue/" + methodName + DELETE_CHRONICLE_FILE;
+        QueueView<String, String> queue = assetTree.acquireQueue(uri, String.class, String.class);
+        final long[] indexes = publish(queue, "m1", "m2", "m3", "m4", "m5");
+
+        assertEquals("[m1, m2]", messages(queue.readBatch(-1, 2, 1 << 20)));
+        assertEquals("[m3, m4]", messages(queue.readBatch(indexes[1], 2, 1 << 20)));
+        assertEquals("[m5]", messages(queue.readBatch(indexes[3], 2, 1 << 20)));
+        assertEquals("[]", messages(queue.readBatch(indexes[4], 2, 1 << 20)));
+
+        // at least one excerpt is read, however large.
+        assertEquals("[m1]", messages(queue.readBatch(-1, 10, 1)));
+        assertEquals("[m2]", messages(queue.readBatch(indexes[0], 10, 1)));
+    }
+
+    @Test
+    public void testReadBatchAfterADeletedIndex() {
+        String uri = "/queue/" + methodName + DELETE_CHRONICLE_FILE;
+        QueueView<String, String> queue = assetTree.acquireQueue(uri, String.class, String.class);
+        final long[] indexes = publish(queue, "m1", "m2");
+
+        // an index in the cycle before the first, as if it had been deleted.
+        final RollCycle rollCycle = ((ChronicleQueueView) (isRemote ? serverAssetTree : assetTree)
+                .acquireQueue(uri, String.class, String.class)).chronicleQueue().rollCycle();
+        final long deleted = rollCycle.toIndex(rollCycle.toCycle(indexes[0]) - 1, 0);
+
+        assertEquals("[m1, m2]", messages(queue.readBatch(deleted, 10, 1 << 20)));
+    }
+
+    @Test
+    public void testRemoteTailerResumesAfterItsLastIndex() {
+        if (!isRemote)
+            return;
+
+        String uri = "/queue/" + methodName + DELETE_CHRONICLE_FILE;
+        RemoteQueueView<String, String> queue = (RemoteQueueView<String, String>)
+                assetTree.<String, String>acquireQueue(uri, String.class, String.class);
+        publish(queue, "m1", "m2", "m3", "m4", "m5");
+
+        final List<Excerpt<String, String>> read = new ArrayList<>();
+        final RemoteQueueTailer<String, String> tailer = queue.tailer(-1, 2, 1 << 20);
+        for (int i = 0; i < 3; i++)
+            read.add(tailer.read());
+        assertEquals("[m1, m2, m3]", messages(read));
+
+        read.clear();
+        final RemoteQueueTailer<String, String> resumed = queue.tailer(tailer.lastIndex(), 2, 1 << 20);
+        for (Excerpt<String, String> excerpt; (excerpt = resumed.read()) != null; )
+            read.add(excerpt);
+        assertEquals("[m4, m5]", messages(read));
+
+        publish(queue, "m6");
+        assertEquals("m6", resumed.read().message());
+    }
+
     @Test
     public void testMarshablePublishToATopic() throws InterruptedException {
         Publisher<MyMarshallable> publisher = null;
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2016 higherfrequencytrading.com
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+
+package net.openhft.chronicle.engine.server.internal;
+
+import net.openhft.chronicle.engine.api.map.MapView;
+import net.openhft.chronicle.engine.api.tree.Asset;
+import net.openhft.chronicle.engine.api.tree.RequestContext;
+import net.openhft.chronicle.engine.tree.VanillaAssetTree;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static net.openhft.chronicle.engine.api.tree.RequestContext.requestContext;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class CspBindingsTest {
+
+    private VanillaAssetTree assetTree;
+    private CspBindings bindings;
+
+    @Before
+    public void before() {
+        assetTree = new VanillaAssetTree().forTesting();
+        bindings = new CspBindings();
+    }
+
+    @After
+    public void after() {
+        assetTree.close();
+    }
+
+    private void put(String name) {
+        put(name, name + "?view=map");
+    }
+
+    private void put(String name, String csp) {
+        assetTree.acquireMap(name, String.class, String.class);
+        final Asset asset = assetTree.acquireAsset(name);
+        final RequestContext rc = requestContext(name).viewType(MapView.class);
+        bindings.put(csp, rc, asset, asset.getView(MapView.class), MapView.class, null);
+    }
+
+    @Test
+    public void testBindingIsFoundByCspText() {
+        put("/a/b");
+
+        final CspBindings.Binding binding = bindings.get(new StringBuilder("/a/b?view=map"));
+        assertNotNull(binding);
+        assertSame(assetTree.acquireAsset("/a/b"), binding.asset);
+        assertSame(MapView.class, binding.viewType);
+        assertNull(bindings.get("/a/c?view=map"));
+
+        // binding a csp again replaces it.
+        put("/a/b");
+        assertEquals(1, bindings.size());
+    }
+
+    @Test
+    public void testCollidingCspsAreKept() {
+        for (int i = 0; i < 200; i++)
+            put("/a/b", "/a/b?view=map&n=" + i);
+        assertEquals(200, bindings.size());
+        for (int i = 0; i < 200; i++)
+            assertNotNull(bindings.get("/a/b?view=map&n=" + i));
+    }
+
+    @Test
+    public void testRemovedAssetIsDropped() {
+        put("/a/b");
+        put("/c");
+
+        // removing a parent detaches the asset as well.
+        assetTree.root().removeChild("a");
+        assertNull(bindings.get("/a/b?view=map"));
+        assertNotNull(bindings.get("/c?view=map"));
+        assertEquals(1, bindings.size());
+    }
+
+    @Test
+    public void testReplacedViewIsDropped() {
+        put("/a/b");
+        put("/c");
+
+        final MapView other = assetTree.acquireMap("/d", String.class, String.class);
+        assetTree.acquireAsset("/a/b").registerView(MapView.class, other);
+        assertNull(bindings.get("/a/b?view=map"));
+
+        // the csp is bound again to the current view.
+        put("/a/b");
+        final CspBindings.Binding binding = bindings.get("/a/b?view=map");
+        assertNotNull(binding);
+        assertSame(other, binding.view);
+    }
+
+    @Test
+    public void testClearedPastTheMaximum() {
+        for (int i = 0; i <= CspBindings.MAX_BINDINGS; i++)
+            put("/a/b", "/a/b?view=map&n=" + i);
+        assertEquals(1, bindings.size());
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2016 higherfrequencytrading.com
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package net.openhft.chronicle.engine.tree;
+
+import net.openhft.chronicle.bytes.Bytes;
+import net.openhft.chronicle.core.threads.InvalidEventHandlerException;
+import net.openhft.chronicle.wire.WireKey;
+import net.openhft.chronicle.wire.WireType;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class CoalescingWriterTest {
+
+    private static final WireKey PUT = () -> "put";
+
+    private final List<String> sent = new ArrayList<>();
+    private boolean connected = true;
+
+    private CoalescingWriter writer(long latencyUs, int maxBytes) {
+        return new CoalescingWriter(b -> {
+            if (!connected)
+                return false;
+            sent.add(b.toString());
+            return true;
+        }, WireType.TEXT, latencyUs, maxBytes);
+    }
+
+    private static int indexOf(String text, String find, int from) {
+        final int index = text.indexOf(find, from);
+        assertTrue(find + " not found in " + text, index >= 0);
+        return index;
+    }
+
+    @Test
+    public void messagesAreSentInOrderWithACspWhenItChanges() {
+        final CoalescingWriter writer = writer(1_000_000, 1 << 20);
+        final String a = "/a?view=map", b = "/b?view=map";
+        writer.write(a, PUT, v -> v.text("a1"));
+        writer.write(a, PUT, v -> v.text("a2"));
+        writer.write(b, PUT, v -> v.text("b1"));
+        writer.write(a, PUT, v -> v.text("a3"));
+        assertTrue(sent.isEmpty());
+
+        assertTrue(writer.flush());
+        assertEquals(1, sent.size());
+        final String text = sent.get(0);
+        int pos = indexOf(text, a, 0);
+        pos = indexOf(text, "a1", pos);
+        pos = indexOf(text, "a2", pos);
+        pos = indexOf(text, b, pos);
+        pos = indexOf(text, "b1", pos);
+        pos = indexOf(text, a, pos);
+        indexOf(text, "a3", pos);
+        // the csp of a is only written again after b.
+        assertEquals(text.lastIndexOf(a), pos);
+    }
+
+    @Test
+    public void flushesOnceTheOldestMessageIsOldEnough() throws InvalidEventHandlerException, InterruptedException {
+        final CoalescingWriter writer = writer(20_000, 1 << 20);
+        assertFalse(writer.action());
+
+        writer.write("/a", PUT, v -> v.text("a1"));
+        assertFalse(writer.action());
+        assertTrue(sent.isEmpty());
+
+        Thread.sleep(30);
+        assertTrue(writer.action());
+        assertEquals(1, sent.size());
+        assertFalse(writer.action());
+    }
+
+    @Test
+    public void flushesOnceTheBufferIsFull() {
+        final CoalescingWriter writer = writer(1_000_000, 64);
+        for (int i = 0; sent.isEmpty(); i++) {
+            assertTrue(i < 10);
+            writer.write("/a", PUT, v -> v.text("0123456789"));
+        }
+        assertTrue(sent.get(0).contains("0123456789"));
+    }
+
+    @Test
+    public void messagesAreKeptUntilTheyCanBeSent() {
+        final CoalescingWriter writer = writer(1_000_000, 1 << 20);
+        writer.write("/a", PUT, v -> v.text("a1"));
+        connected = false;
+        assertFalse(writer.flush());
+        writer.write("/a", PUT, v -> v.text("a2"));
+
+        connected = true;
+        assertTrue(writer.flush());
+        assertEquals(1, sent.size());
+        indexOf(sent.get(0), "a2", indexOf(sent.get(0), "a1", 0));
+        assertTrue(writer.flush());
+        assertEquals(1, sent.size());
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2016 higherfrequencytrading.com
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+
+package net.openhft.chronicle.engine.tree;
+
+import net.openhft.chronicle.engine.api.map.MapView;
+import net.openhft.chronicle.engine.api.tree.Asset;
+import net.openhft.chronicle.engine.cfg.SubscriptionStat;
+import net.openhft.chronicle.engine.fs.Clusters;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class InfrastructureTest {
+
+    private VanillaAssetTree assetTree;
+    private Infrastructure infrastructure;
+
+    @Before
+    public void before() {
+        assetTree = new VanillaAssetTree().forTesting();
+        infrastructure = Infrastructure.of(assetTree.root());
+    }
+
+    @After
+    public void after() {
+        assetTree.close();
+    }
+
+    @Test
+    public void testSharedByTheAssetsOfATree() {
+        assetTree.acquireMap("/a/b", String.class, String.class);
+        assetTree.acquireReference("/a/b/c", String.class);
+        final Asset subAsset = assetTree.acquireAsset("/a/b").getChild("c");
+
+        assertSame(infrastructure, Infrastructure.of(assetTree.acquireAsset("/a")));
+        assertSame(infrastructure, Infrastructure.of(subAsset));
+        assertSame(assetTree.root().getView(HostIdentifier.class), infrastructure.hostIdentifier());
+    }
+
+    @Test
+    public void testViewsAreLookedForUntilAdded() {
+        assertNull(infrastructure.subscriptionStats());
+        assertNull(infrastructure.clusters());
+
+        final MapView<String, SubscriptionStat> stats = assetTree.acquireMap(
+                "/" + Infrastructure.SUBSCRIPTIONS, String.class, SubscriptionStat.class);
+        final Clusters clusters = new Clusters();
+        assetTree.root().addView(Clusters.class, clusters);
+
+        assertSame(stats, infrastructure.subscriptionStats());
+        assertSame(clusters, infrastructure.clusters());
+    }
+
+    @Test
+    public void testSubscriptionStatKeysAreCached() {
+        final String key = infrastructure.subscriptionStatKey("user", "subscription");
+        assertEquals("user~subscription", key);
+        assertSame(key, infrastructure.subscriptionStatKey("user", "subscription"));
+        assertEquals("user~keySubscription", infrastructure.subscriptionStatKey("user", "keySubscription"));
+        assertEquals("other~subscription", infrastructure.subscriptionStatKey("other", "subscription"));
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2016 higherfrequencytrading.com
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package net.openhft.chronicle.engine.tree;
+
+import net.openhft.chronicle.core.OS;
+import net.openhft.chronicle.engine.query.QueueConfig;
+import net.openhft.chronicle.wire.WireType;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+
+public class QueueRetentionTest {
+
+    private File dir;
+
+    @Before
+    public void setUp() throws IOException {
+        dir = new File(OS.TARGET, "QueueRetentionTest-" + System.nanoTime());
+        //noinspection ResultOfMethodCallIgnored
+        dir.mkdirs();
+        for (int i = 1; i <= 5; i++) {
+            try (RandomAccessFile raf = new RandomAccessFile(new File(dir, "2016010" + i + ".cq4"), "rw")) {
+                raf.setLength(1000);
+            }
+        }
+        //noinspection ResultOfMethodCallIgnored
+        new File(dir, "directory-listing.cq4t").createNewFile();
+    }
+
+    @After
+    public void tearDown() {
+        for (File file : dir.listFiles())
+            //noinspection ResultOfMethodCallIgnored
+            file.delete();
+        //noinspection ResultOfMethodCallIgnored
+        dir.delete();
+    }
+
+    @Test
+    public void maxCyclesKeepsTheNewest() {
+        final QueueRetention retention = new QueueRetention(dir, config().retentionMaxCycles(2));
+        assertEquals(3, retention.deleteExpiredCycles(System.currentTimeMillis()));
+        assertEquals("[20160104.cq4, 20160105.cq4, directory-listing.cq4t]", files());
+        assertEquals(0, retention.deleteExpiredCycles(System.currentTimeMillis()));
+    }
+
+    @Test
+    public void maxBytesNeverDeletesTheCurrentCycle() {
+        final QueueRetention retention = new QueueRetention(dir, config().retentionMaxBytes(2500));
+        assertEquals(3, retention.deleteExpiredCycles(System.currentTimeMillis()));
+        assertEquals("[20160104.cq4, 20160105.cq4, directory-listing.cq4t]", files());
+
+        final QueueRetention tiny = new QueueRetention(dir, config().retentionMaxBytes(1));
+        assertEquals(1, tiny.deleteExpiredCycles(System.currentTimeMillis()));
+        assertEquals("[20160105.cq4, directory-listing.cq4t]", files());
+    }
+
+    @Test
+    public void maxAgeDeletesOldestFirst() {
+        final long now = System.currentTimeMillis();
+        for (int i = 1; i <= 5; i++)
+            //noinspection ResultOfMethodCallIgnored
+            new File(dir, "2016010" + i + ".cq4").setLastModified(now - (6 - i) * 60_000L);
+
+        final QueueRetention retention = new QueueRetention(dir, config().retentionMaxAgeMs(150_000));
+        assertEquals(3, retention.deleteExpiredCycles(now));
+        assertEquals("[20160104.cq4, 20160105.cq4, directory-listing.cq4t]", files());
+    }
+
+    private static QueueConfig config() {
+        return new QueueConfig(uri -> null, false, null, WireType.BINARY);
+    }
+
+    private String files() {
+        final String[] names = dir.list();
+        Arrays.sort(names);
+        return Arrays.toString(names);
+    }
+}
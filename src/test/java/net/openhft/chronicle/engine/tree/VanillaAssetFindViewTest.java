@@ -0,0 +1,47 @@
+/*
+ * Copyright 2016 higherfrequencytrading.com
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package net.openhft.chronicle.engine.tree;
+
+import net.openhft.chronicle.engine.api.tree.Asset;
+import org.junit.Test;
+
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class VanillaAssetFindViewTest {
+
+    @Test
+    public void foundViewsSeeViewsAddedLater() {
+        final VanillaAsset root = new VanillaAsset(null, "");
+        final Asset a = root.acquireAsset("a");
+        final Asset b = a.acquireAsset("b");
+
+        assertNull(b.findView(String.class));
+
+        root.addView(String.class, "root");
+        assertSame("root", b.findView(String.class));
+        assertSame("root", b.findView(String.class));
+
+        a.addView(String.class, "a");
+        assertSame("a", b.findView(String.class));
+
+        b.registerView(String.class, "b");
+        assertSame("b", b.findView(String.class));
+        assertSame("a", a.findView(String.class));
+    }
+}
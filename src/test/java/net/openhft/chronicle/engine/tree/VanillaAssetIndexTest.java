@@ -0,0 +1,103 @@
+/*
+ * Copyright 2016 higherfrequencytrading.com
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+
+package net.openhft.chronicle.engine.tree;
+
+import net.openhft.chronicle.engine.api.tree.Asset;
+import org.junit.Test;
+
+import java.util.concurrent.CyclicBarrier;
+
+import static org.junit.Assert.*;
+
+public class VanillaAssetIndexTest {
+
+    @Test
+    public void fullNameFindsTheAssetInTheTree() {
+        final VanillaAsset root = new VanillaAsset(null, "");
+        final Asset b = root.acquireAsset("/a/b");
+
+        assertSame(b, root.getChild("a").getChild("b"));
+        assertSame(b, root.getAsset("/a/b"));
+        assertSame(b, root.acquireAsset("/a/b"));
+        assertSame(root.getChild("a"), root.getAsset("/a"));
+        assertNull(root.getAsset("/a/c"));
+    }
+
+    @Test
+    public void removedAssetIsNotFound() {
+        final VanillaAsset root = new VanillaAsset(null, "");
+        root.acquireAsset("/a/b/c");
+
+        root.getChild("a").removeChild("b");
+        assertNull(root.getAsset("/a/b"));
+        assertNull(root.getAsset("/a/b/c"));
+        assertNotNull(root.getAsset("/a"));
+    }
+
+    @Test
+    public void recreatedAssetReplacesTheRemovedOne() {
+        final VanillaAsset root = new VanillaAsset(null, "");
+        final Asset b1 = root.acquireAsset("/a/b");
+        root.getChild("a").removeChild("b");
+
+        final Asset b2 = root.acquireAsset("/a/b");
+        assertNotSame(b1, b2);
+        assertSame(b2, root.getAsset("/a/b"));
+        assertSame(b2, root.getChild("a").getChild("b"));
+    }
+
+    @Test
+    public void lookupKeyEqualsTheStringItIsAPrefixOf() {
+        final VanillaAsset.LookupKey key = new VanillaAsset.LookupKey();
+        final StringBuilder sb = new StringBuilder("/a/b/c");
+
+        assertEquals("/a/b".hashCode(), key.set(sb, 4).hashCode());
+        assertTrue(key.equals("/a/b"));
+        assertFalse(key.equals("/a/c"));
+        assertFalse(key.equals("/a/b/c"));
+    }
+
+    @Test
+    public void concurrentRemoveLeavesNoStaleEntry() throws Exception {
+        final VanillaAsset root = new VanillaAsset(null, "");
+        final Asset parent = root.acquireAsset("/r");
+        final CyclicBarrier barrier = new CyclicBarrier(2);
+        for (int i = 0; i < 2000; i++) {
+            final Thread remover = new Thread(() -> {
+                await(barrier);
+                parent.removeChild("x");
+            });
+            remover.start();
+            await(barrier);
+            root.acquireAsset("/r/x");
+            remover.join();
+
+            final Asset found = root.getAsset("/r/x");
+            assertSame(parent.getChild("x"), found);
+        }
+    }
+
+    private static void await(CyclicBarrier barrier) {
+        try {
+            barrier.await();
+        } catch (Exception e) {
+            throw new AssertionError(e);
+        }
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright 2016 higherfrequencytrading.com
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+
+package net.openhft.chronicle.engine.tree;
+
+import net.openhft.chronicle.engine.api.map.MapView;
+import net.openhft.chronicle.engine.api.pubsub.Subscriber;
+import net.openhft.chronicle.engine.api.pubsub.SubscriptionCollection;
+import net.openhft.chronicle.engine.api.tree.Asset;
+import net.openhft.chronicle.engine.pubsub.MapSimpleSubscription;
+import net.openhft.chronicle.engine.query.Filter;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static net.openhft.chronicle.engine.api.tree.RequestContext.requestContext;
+import static org.junit.Assert.*;
+
+public class VanillaSubAssetTest {
+
+    private final VanillaAssetTree tree = new VanillaAssetTree().forTesting();
+
+    @After
+    public void close() {
+        tree.close();
+    }
+
+    @Test
+    public void compactSubAssetIsAttachedWhileSubscribed() {
+        tree.root().compactSubAssets(true);
+        final MapView<String, String> map = tree.acquireMap("m", String.class, String.class);
+        final VanillaAsset m = (VanillaAsset) tree.getAsset("m");
+
+        final Asset k = m.acquireAsset("k");
+        assertNull(m.getChild("k"));
+        assertSame(k, m.acquireAsset("k"));
+
+        final List<String> values = new ArrayList<>();
+        final Subscriber<String> subscriber = values::add;
+        tree.registerSubscriber("m/k", String.class, subscriber);
+        assertSame(k, m.getChild("k"));
+        assertSame(k, m.getChildByKey("k"));
+
+        map.put("k", "v1");
+        map.put("other", "x");
+        assertEquals(Arrays.asList(null, "v1"), values);
+
+        tree.unregisterSubscriber("m/k", subscriber);
+        assertNull(m.getChild("k"));
+        assertNull(m.getChildByKey("k"));
+
+        // put back when it has a subscriber again.
+        tree.registerSubscriber("m/k", String.class, subscriber);
+        assertSame(k, m.getChild("k"));
+        map.put("k", "v2");
+        assertEquals(Arrays.asList(null, "v1", "v1", "v2"), values);
+    }
+
+    @Test
+    public void subscribersMoveToTheSubAssetAttachedWhileIdle() {
+        tree.root().compactSubAssets(true);
+        final MapView<String, String> map = tree.acquireMap("m", String.class, String.class);
+        final VanillaAsset m = (VanillaAsset) tree.getAsset("m");
+
+        final Asset a = m.acquireAsset("k");
+        final SubscriptionCollection subscriptionA = a.subscription(true);
+        final List<String> valuesA = new ArrayList<>();
+        final Subscriber<String> subscriberA = valuesA::add;
+        subscriptionA.registerSubscriber(requestContext("m/k").bootstrap(false), subscriberA, Filter.empty());
+        subscriptionA.unregisterSubscriber(subscriberA);
+        assertNull(m.getChild("k"));
+
+        // another holder attaches a different sub-asset for the same key.
+        final VanillaSubAsset<String> b = new VanillaSubAsset<>(m, "k", String.class, v -> (String) v);
+        final List<String> valuesB = new ArrayList<>();
+        b.subscription(true).registerSubscriber(requestContext("m/k").bootstrap(false),
+                (Subscriber<String>) valuesB::add, Filter.empty());
+        assertSame(b, m.getChild("k"));
+
+        // subscribing through the subscription of the idle one delivers the events of the key.
+        subscriptionA.registerSubscriber(requestContext("m/k").bootstrap(false), subscriberA, Filter.empty());
+        assertSame(b.subscription(false), a.subscription(false));
+        assertEquals(2, ((MapSimpleSubscription) b.subscription(false)).subscriberCount());
+
+        map.put("k", "v1");
+        assertEquals(Arrays.asList("v1"), valuesA);
+        assertEquals(Arrays.asList("v1"), valuesB);
+    }
+
+    @Test
+    public void subAssetsAreFoundByTheirKey() {
+        tree.acquireMap("ints", Integer.class, String.class);
+        final VanillaAsset ints = (VanillaAsset) tree.getAsset("ints");
+
+        final Asset one = ints.acquireAsset("1");
+        final Asset zeroOne = ints.acquireAsset("01");
+        assertNotSame(one, zeroOne);
+        assertSame(one, ints.getChildByKey(1));
+
+        ints.removeChild("01");
+        assertSame(one, ints.getChildByKey(1));
+    }
+}